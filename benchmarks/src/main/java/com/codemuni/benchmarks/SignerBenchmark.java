@@ -0,0 +1,139 @@
+package com.codemuni.benchmarks;
+
+import com.codemuni.benchmarks.corpus.Corpus;
+import com.codemuni.benchmarks.corpus.CorpusSpec;
+import com.codemuni.benchmarks.corpus.PageContent;
+import com.codemuni.benchmarks.support.SyntheticImages;
+import com.codemuni.benchmarks.testca.LocalResponders;
+import com.codemuni.benchmarks.testca.ResponderBehavior;
+import com.codemuni.benchmarks.testca.TestPki;
+import com.codemuni.core.document.SharedDocumentSource;
+import com.codemuni.core.keyStoresProvider.PKCS12KeyStoreProvider;
+import com.codemuni.core.signer.AppearanceImageCache;
+import com.codemuni.core.signer.AppearanceOptions;
+import com.codemuni.core.signer.CustomTSAClientBouncyCastle;
+import com.codemuni.core.signer.Signer;
+import com.itextpdf.text.pdf.PdfReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link Signer#sign} into a file: open, appearance, hashing, signing with a PKCS#12 key,
+ * optional timestamp and LTV, and writing the signed revision.
+ * - Documents are text pages from the shared {@link Corpus}
+ * - The key and chain come from a throw-away {@link TestPki}; TSA, OCSP and CRL are {@link LocalResponders}
+ * on loopback, so network latency is only part of the numbers when {@link #responderLatency} is set
+ * - Run with {@code -prof gc} for allocation per signature
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class SignerBenchmark {
+    private static final char[] PASSWORD = "benchmark".toCharArray();
+
+    @Param({"1", "50", "1000"})
+    public int pages;
+
+    /**
+     * invisible: no field; text: name and description; graphic: signature image and description;
+     * watermark: text over a background image; graphic_watermark: both images.
+     */
+    @Param({"invisible", "text", "graphic", "watermark", "graphic_watermark"})
+    public String appearance;
+
+    @Param({"none", "tsa", "ltv", "tsa_ltv"})
+    public String services;
+
+    /**
+     * Signatures the document already has, each in its own revision, e.g. {@code -p priorSignatures=0,5,20}.
+     */
+    @Param({"0"})
+    public int priorSignatures;
+
+    /**
+     * Delay of each TSA, OCSP and CRL answer in milliseconds, give or take a quarter,
+     * e.g. {@code -p responderLatency=0,50,400} for loopback, a nearby and a distant TSA.
+     */
+    @Param({"0"})
+    public int responderLatency;
+
+    private LocalResponders responders;
+    private PKCS12KeyStoreProvider keyStoreProvider;
+    private AppearanceOptions options;
+    private CustomTSAClientBouncyCastle tsaClient;
+    private File input;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        responders = LocalResponders.start();
+        TestPki pki = TestPki.create(responders.getCrlUrl(), responders.getOcspUrl());
+        responders.serve(pki);
+        ResponderBehavior network = new ResponderBehavior();
+        network.setLatencyMillis(responderLatency);
+        network.setJitterMillis(responderLatency / 4);
+        responders.setBehavior(network);
+
+        File keyStore = pki.writeSignerPkcs12(SyntheticImages.tempFile("emark-bench-", ".p12"), PASSWORD);
+        keyStoreProvider = new PKCS12KeyStoreProvider(keyStore.getAbsolutePath(), PASSWORD);
+        keyStoreProvider.getCertificate();
+
+        CorpusSpec document = new CorpusSpec(PageContent.TEXT, pages);
+        document.setPriorSignatures(priorSignatures);
+        input = Corpus.get(document);
+        output = SyntheticImages.tempFile("emark-bench-signed-", ".pdf");
+        options = appearanceOptions();
+
+        boolean timestamp = services.startsWith("tsa");
+        options.setTimestampEnabled(timestamp);
+        options.setLtvEnabled(services.endsWith("ltv"));
+        tsaClient = timestamp ? new CustomTSAClientBouncyCastle(responders.getTsaUrl(), null, null, 8192, "SHA-256") : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        responders.close();
+        AppearanceImageCache.clear();
+    }
+
+    @Benchmark
+    public long sign() throws Exception {
+        SharedDocumentSource source = SharedDocumentSource.open(input);
+        PdfReader reader;
+        try {
+            reader = source.openPdfReader((String) null);
+        } finally {
+            source.release();
+        }
+        new Signer().sign(reader, keyStoreProvider, options.copy(), tsaClient, output);
+        return output.length();
+    }
+
+    private AppearanceOptions appearanceOptions() throws Exception {
+        AppearanceOptions options = new AppearanceOptions();
+        options.setReason("Benchmark");
+        options.setLocation("Loopback");
+        if (appearance.equals("invisible")) {
+            options.setCoordinates(null);
+            return options;
+        }
+        options.setPageNumber(1);
+        options.setCoordinates(new int[]{350, 50, 550, 130});
+        if (appearance.startsWith("graphic")) {
+            File graphic = SyntheticImages.tempFile("emark-bench-graphic-", ".png");
+            Files.write(graphic.toPath(), SyntheticImages.scribblePng(400, 160));
+            options.setGraphicRendering(true);
+            options.setGraphicImagePath(graphic.getAbsolutePath());
+        }
+        if (appearance.endsWith("watermark")) {
+            options.setWatermarkImage(AppearanceImageCache.getImage(SyntheticImages.scribblePng(600, 600)));
+        }
+        return options;
+    }
+}
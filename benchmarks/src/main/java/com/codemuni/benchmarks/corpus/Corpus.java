@@ -0,0 +1,44 @@
+package com.codemuni.benchmarks.corpus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+
+/**
+ * Folder of generated documents shared by benchmarks and stress tests.
+ * - Location: the {@value #FOLDER_PROPERTY} system property, by default emark-corpus in the temp folder
+ * - A document is generated on first use and named after its {@link CorpusSpec}, so later runs, forks and
+ * other benchmarks reuse the same file
+ */
+public final class Corpus {
+    public static final String FOLDER_PROPERTY = "emark.corpus.dir";
+
+    private Corpus() {
+    }
+
+    public static File getFolder() {
+        String folder = System.getProperty(FOLDER_PROPERTY);
+        return folder != null ? new File(folder) : new File(System.getProperty("java.io.tmpdir"), "emark-corpus");
+    }
+
+    /**
+     * The document for {@code spec}, generated if the corpus does not have it yet.
+     */
+    public static synchronized File get(CorpusSpec spec) throws IOException, GeneralSecurityException {
+        File folder = getFolder();
+        if (!folder.isDirectory() && !folder.mkdirs()) throw new IOException("Cannot create corpus folder " + folder);
+        File file = new File(folder, spec.getName() + ".pdf");
+        if (file.isFile()) return file;
+
+        File partial = File.createTempFile(spec.getName() + "-", ".partial", folder);
+        try {
+            CorpusGenerator.generate(spec, partial);
+            Files.move(partial.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial.toPath());
+        }
+        return file;
+    }
+}
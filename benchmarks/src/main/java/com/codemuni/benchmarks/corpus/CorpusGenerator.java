@@ -0,0 +1,314 @@
+package com.codemuni.benchmarks.corpus;
+
+import com.codemuni.benchmarks.testca.TestPki;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.*;
+import com.itextpdf.text.pdf.security.BouncyCastleDigest;
+import com.itextpdf.text.pdf.security.DigestAlgorithms;
+import com.itextpdf.text.pdf.security.MakeSignature;
+import com.itextpdf.text.pdf.security.PrivateKeySignature;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.Security;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes synthetic PDFs for benchmarks and stress tests from a {@link CorpusSpec}.
+ * <pre>
+ * java -cp benchmarks.jar com.codemuni.benchmarks.corpus.CorpusGenerator [options] &lt;file.pdf|folder&gt;
+ * </pre>
+ * - Pages, photos, fonts, empty signature fields, encryption and object streams are written in one pass
+ * - Padding to a target size is streamed into embedded files of at most 256 MB, so 2 GB needs no more heap than 2 MB
+ * - Prior signatures are added afterwards, one incremental revision each, signed by a throw-away {@link TestPki}
+ * Exits with 0 on success, 1 when writing failed and 2 on bad usage.
+ */
+public final class CorpusGenerator {
+    /**
+     * Part of every corpus file name; raise it when the output for an unchanged spec changes.
+     */
+    public static final int VERSION = 1;
+
+    private static final long PADDING_CHUNK_BYTES = 256L * 1024 * 1024;
+    // Roughly what a signature revision adds: the reserved CMS container plus appearance and xref
+    private static final long SIGNATURE_REVISION_BYTES = 24 * 1024;
+    private static final int PERMISSIONS = PdfWriter.ALLOW_PRINTING | PdfWriter.ALLOW_COPY
+            | PdfWriter.ALLOW_FILL_IN | PdfWriter.ALLOW_MODIFY_ANNOTATIONS;
+    private static final float FIELD_WIDTH = 160;
+    private static final float FIELD_HEIGHT = 50;
+    private static final float FIELD_GAP = 16;
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -cp benchmarks.jar com.codemuni.benchmarks.corpus.CorpusGenerator [options] <file.pdf|folder>",
+            "  --pages <n>             page count, 1 to " + CorpusSpec.MAX_PAGES + " (default: 1)",
+            "  --content text|vector|scanned|jbig2|mixed   what the pages consist of (default: text)",
+            "  --images <n>            photos per page, each embedded as its own JPEG",
+            "  --embed-fonts           write the text in an embedded TrueType font subset",
+            "  --font <file.ttf>       font to embed (default: the first one found in the system font folders)",
+            "  --fields <n>            empty signature fields on the last page, at most " + CorpusSpec.MAX_SIGNATURE_FIELDS,
+            "  --signatures <n>        prior signatures on the first page, one incremental revision each",
+            "  --encryption none|rc4_128|aes_128|aes_256",
+            "  --user-password <text>  password to open the document (default: none)",
+            "  --owner-password <text> permissions password (default: " + CorpusSpec.DEFAULT_OWNER_PASSWORD + ")",
+            "  --object-streams        compressed object streams and a cross-reference stream",
+            "  --size <n>[k|m|g]       pad with embedded files to about this size, at most 2g",
+            "  --seed <n>              content seed (default: 1)",
+            "A folder gets a file named after the options.");
+
+    private CorpusGenerator() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        CorpusSpec spec = new CorpusSpec();
+        File output = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--pages":
+                        spec.setPages(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--content":
+                        spec.setContent(PageContent.valueOf(value(args, ++i).toUpperCase(Locale.ROOT)));
+                        break;
+                    case "--images":
+                        spec.setImagesPerPage(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--embed-fonts":
+                        spec.setEmbeddedFonts(true);
+                        break;
+                    case "--font":
+                        spec.setFontFile(new File(value(args, ++i)));
+                        spec.setEmbeddedFonts(true);
+                        break;
+                    case "--fields":
+                        spec.setSignatureFields(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--signatures":
+                        spec.setPriorSignatures(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--encryption":
+                        spec.setEncryption(Encryption.valueOf(value(args, ++i).toUpperCase(Locale.ROOT)));
+                        break;
+                    case "--user-password":
+                        spec.setUserPassword(value(args, ++i));
+                        break;
+                    case "--owner-password":
+                        spec.setOwnerPassword(value(args, ++i));
+                        break;
+                    case "--object-streams":
+                        spec.setObjectStreams(true);
+                        break;
+                    case "--size":
+                        spec.setTargetSizeBytes(CorpusSpec.parseSize(value(args, ++i)));
+                        break;
+                    case "--seed":
+                        spec.setSeed(Long.parseLong(value(args, ++i)));
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i]);
+                        if (output != null) throw new IllegalArgumentException("Only one output can be given");
+                        output = new File(args[i]);
+                }
+            }
+            if (output == null) throw new IllegalArgumentException("No output file or folder given");
+            spec.validate();
+        } catch (IllegalArgumentException e) { // NumberFormatException and unknown enum names included
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        File file = output.isDirectory() ? new File(output, spec.getName() + ".pdf") : output;
+        long start = System.nanoTime();
+        try {
+            generate(spec, file);
+        } catch (IOException | GeneralSecurityException e) {
+            System.err.println("Cannot write " + file + ": " + e.getMessage());
+            return 1;
+        }
+        System.out.printf(Locale.ROOT, "Wrote %s (%,d bytes) in %.1f s%n", file, file.length(), (System.nanoTime() - start) / 1e9);
+        return 0;
+    }
+
+    /**
+     * Writes the document described by {@code spec} to {@code file}, replacing it.
+     *
+     * @throws IllegalArgumentException if the spec is invalid
+     */
+    public static void generate(CorpusSpec spec, File file) throws IOException, GeneralSecurityException {
+        spec.validate();
+        try {
+            writeDocument(spec, file);
+            if (spec.getPriorSignatures() > 0) addPriorSignatures(spec, file);
+        } catch (DocumentException e) {
+            throw new IOException("Cannot write " + file, e);
+        }
+    }
+
+    private static void writeDocument(CorpusSpec spec, File file) throws IOException, DocumentException {
+        Random random = new Random(spec.getSeed());
+        Document document = new Document(PageSize.A4);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            if (spec.isObjectStreams()) writer.setFullCompression();
+            if (spec.getEncryption() != Encryption.NONE) {
+                writer.setEncryption(password(spec.getUserPassword()), password(spec.getOwnerPassword()),
+                        PERMISSIONS, spec.getEncryption().getItextType());
+            }
+            document.open();
+
+            PageArt art = new PageArt(random, PageArt.font(spec.getFontFile(), spec.isEmbeddedFonts()));
+            Rectangle page = document.getPageSize();
+            for (int i = 0; i < spec.getPages(); i++) {
+                if (i > 0) document.newPage();
+                PdfContentByte canvas = writer.getDirectContent();
+                art.drawPage(canvas, page, spec.getContent().forPage(i), i + 1, spec.getPages());
+                for (int photo = 0; photo < spec.getImagesPerPage(); photo++) {
+                    art.drawPhoto(canvas, page);
+                }
+            }
+            addSignatureFields(writer, spec.getSignatureFields()); // on the last page, which is still open
+            pad(writer, spec, random);
+            document.close();
+        }
+    }
+
+    private static void addSignatureFields(PdfWriter writer, int count) {
+        for (int i = 0; i < count; i++) {
+            float llx = 40 + (i % 3) * (FIELD_WIDTH + FIELD_GAP);
+            float lly = 40 + (i / 3) * (FIELD_HEIGHT + FIELD_GAP);
+            PdfFormField field = PdfFormField.createSignature(writer);
+            field.setFieldName("Signature" + (i + 1));
+            field.setWidget(new Rectangle(llx, lly, llx + FIELD_WIDTH, lly + FIELD_HEIGHT), PdfAnnotation.HIGHLIGHT_INVERT);
+            field.setFlags(PdfAnnotation.FLAGS_PRINT);
+            writer.addAnnotation(field);
+        }
+    }
+
+    /**
+     * Embeds files of random bytes until the document is about the target size, leaving room for the
+     * rest of the document and the prior signatures.
+     */
+    private static void pad(PdfWriter writer, CorpusSpec spec, Random random) throws IOException {
+        if (spec.getTargetSizeBytes() <= 0) return;
+        long reserved = 64 * 1024 + spec.getPages() * 64L + spec.getPriorSignatures() * SIGNATURE_REVISION_BYTES;
+        long remaining = spec.getTargetSizeBytes() - reserved - writer.getCurrentDocumentSize();
+        for (int part = 1; remaining > 0; part++) {
+            long length = Math.min(remaining, PADDING_CHUNK_BYTES);
+            String name = "padding-" + part + ".bin";
+            PdfStream content = new PdfStream(new RandomBytes(length, random.nextLong()), writer);
+            content.put(PdfName.TYPE, PdfName.EMBEDDEDFILE);
+            PdfIndirectReference reference = writer.addToBody(content).getIndirectReference();
+            content.writeLength();
+            writer.addFileAttachment(name, new StreamedAttachment(writer, name, reference));
+            remaining -= length;
+        }
+    }
+
+    private static void addPriorSignatures(CorpusSpec spec, File file)
+            throws IOException, DocumentException, GeneralSecurityException {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        TestPki pki = TestPki.create(null, null);
+        byte[] ownerPassword = spec.getEncryption() != Encryption.NONE ? password(spec.getOwnerPassword()) : null;
+
+        File revision = new File(file.getPath() + ".revision");
+        for (int i = 0; i < spec.getPriorSignatures(); i++) {
+            PdfReader reader = new PdfReader(file.getAbsolutePath(), ownerPassword, true);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(revision), 1 << 16)) {
+                // Built in a temporary file next to the document, not on the heap
+                PdfStamper stamper = PdfStamper.createSignature(reader, out, '\0', file.getAbsoluteFile().getParentFile(), true);
+                PdfSignatureAppearance appearance = stamper.getSignatureAppearance();
+                appearance.setVisibleSignature(priorSignatureRect(reader.getPageSize(1), i), 1, "PriorSignature" + (i + 1));
+                appearance.setReason("Approval " + (i + 1));
+                appearance.setLocation("Corpus generator");
+                MakeSignature.signDetached(appearance, new BouncyCastleDigest(),
+                        new PrivateKeySignature(pki.getSignerKey(), DigestAlgorithms.SHA256, BouncyCastleProvider.PROVIDER_NAME),
+                        pki.getSignerChain(), null, null, null, 0, MakeSignature.CryptoStandard.CMS);
+            } finally {
+                reader.close();
+            }
+            Files.move(revision.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Four signatures per row from the top of the page down; past the bottom they start over at the top.
+     */
+    private static Rectangle priorSignatureRect(Rectangle page, int index) {
+        float width = (page.getWidth() - 80 - 3 * 8) / 4;
+        float height = 45;
+        int rows = (int) ((page.getHeight() - 80) / (height + 8));
+        float llx = page.getLeft() + 40 + (index % 4) * (width + 8);
+        float ury = page.getTop() - 40 - ((index / 4) % rows) * (height + 8);
+        return new Rectangle(llx, ury - height, llx + width, ury);
+    }
+
+    private static byte[] password(String password) {
+        return password.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        return args[index];
+    }
+
+    /**
+     * File specification of an embedded file stream that was already written to the body.
+     */
+    private static final class StreamedAttachment extends PdfFileSpecification {
+        StreamedAttachment(PdfWriter writer, String fileName, PdfIndirectReference content) {
+            this.writer = writer;
+            put(PdfName.F, new PdfString(fileName));
+            put(PdfName.UF, new PdfString(fileName, PdfObject.TEXT_UNICODE));
+            PdfDictionary files = new PdfDictionary();
+            files.put(PdfName.F, content);
+            files.put(PdfName.UF, content);
+            put(PdfName.EF, files);
+        }
+    }
+
+    /**
+     * {@code length} seeded random bytes, which no filter can shrink.
+     */
+    private static final class RandomBytes extends InputStream {
+        private final Random random;
+        private long remaining;
+        private byte[] buffer = new byte[0];
+
+        RandomBytes(long length, long seed) {
+            this.random = new Random(seed);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() {
+            if (remaining <= 0) return -1;
+            remaining--;
+            return random.nextInt(256);
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (remaining <= 0) return -1;
+            int count = (int) Math.min(length, remaining);
+            if (buffer.length != count) buffer = new byte[count];
+            random.nextBytes(buffer);
+            System.arraycopy(buffer, 0, bytes, offset, count);
+            remaining -= count;
+            return count;
+        }
+    }
+}
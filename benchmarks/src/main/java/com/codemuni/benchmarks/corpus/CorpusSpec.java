@@ -0,0 +1,263 @@
+package com.codemuni.benchmarks.corpus;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Properties of one generated document; the same spec always gives the same content.
+ * - File bytes still differ between runs in dates, document IDs, keys and signatures
+ * - {@link #getName()} encodes every property, so it can name the file in a shared {@link Corpus}
+ */
+public class CorpusSpec {
+    public static final int MAX_PAGES = 10_000;
+    public static final int MAX_SIGNATURE_FIELDS = 36;
+    public static final long MAX_SIZE_BYTES = 2L * 1024 * 1024 * 1024;
+    public static final String DEFAULT_OWNER_PASSWORD = "owner";
+
+    private int pages = 1;
+    private PageContent content = PageContent.TEXT;
+    private int imagesPerPage;
+    private boolean embeddedFonts;
+    private File fontFile;
+    private int signatureFields;
+    private int priorSignatures;
+    private Encryption encryption = Encryption.NONE;
+    private String userPassword = "";
+    private String ownerPassword = DEFAULT_OWNER_PASSWORD;
+    private boolean objectStreams;
+    private long targetSizeBytes;
+    private long seed = 1;
+
+    public CorpusSpec() {
+    }
+
+    public CorpusSpec(PageContent content, int pages) {
+        this.content = content;
+        this.pages = pages;
+    }
+
+    public CorpusSpec copy() {
+        CorpusSpec copy = new CorpusSpec(content, pages);
+        copy.imagesPerPage = imagesPerPage;
+        copy.embeddedFonts = embeddedFonts;
+        copy.fontFile = fontFile;
+        copy.signatureFields = signatureFields;
+        copy.priorSignatures = priorSignatures;
+        copy.encryption = encryption;
+        copy.userPassword = userPassword;
+        copy.ownerPassword = ownerPassword;
+        copy.objectStreams = objectStreams;
+        copy.targetSizeBytes = targetSizeBytes;
+        copy.seed = seed;
+        return copy;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the first property out of range
+     */
+    public void validate() {
+        if (pages < 1 || pages > MAX_PAGES) throw new IllegalArgumentException("Pages must be 1 to " + MAX_PAGES + ": " + pages);
+        if (imagesPerPage < 0) throw new IllegalArgumentException("Images per page cannot be negative: " + imagesPerPage);
+        if (signatureFields < 0 || signatureFields > MAX_SIGNATURE_FIELDS) {
+            throw new IllegalArgumentException("Signature fields must be 0 to " + MAX_SIGNATURE_FIELDS + ": " + signatureFields);
+        }
+        if (priorSignatures < 0) throw new IllegalArgumentException("Prior signatures cannot be negative: " + priorSignatures);
+        if (targetSizeBytes < 0 || targetSizeBytes > MAX_SIZE_BYTES) {
+            throw new IllegalArgumentException("Target size must be 0 to " + MAX_SIZE_BYTES + " bytes: " + targetSizeBytes);
+        }
+        if (encryption != Encryption.NONE && (ownerPassword == null || ownerPassword.isEmpty())) {
+            throw new IllegalArgumentException("Encryption needs an owner password");
+        }
+        if (fontFile != null && !fontFile.isFile()) throw new IllegalArgumentException("No such font file: " + fontFile);
+    }
+
+    /**
+     * File name without extension, e.g. {@code v1-text-50p-img2-fonts-fields3-sig2-aes_256-objstm-256m-seed1}.
+     */
+    public String getName() {
+        StringBuilder name = new StringBuilder("v").append(CorpusGenerator.VERSION)
+                .append('-').append(content.name().toLowerCase(Locale.ROOT))
+                .append('-').append(pages).append('p');
+        if (imagesPerPage > 0) name.append("-img").append(imagesPerPage);
+        if (embeddedFonts) name.append("-fonts");
+        if (embeddedFonts && fontFile != null) name.append('-').append(hash(fontFile.getAbsolutePath()));
+        if (signatureFields > 0) name.append("-fields").append(signatureFields);
+        if (priorSignatures > 0) name.append("-sig").append(priorSignatures);
+        if (encryption != Encryption.NONE) {
+            name.append('-').append(encryption.name().toLowerCase(Locale.ROOT));
+            if (!userPassword.isEmpty() || !DEFAULT_OWNER_PASSWORD.equals(ownerPassword)) {
+                name.append("-pw").append(hash(userPassword + '\0' + ownerPassword));
+            }
+        }
+        if (objectStreams) name.append("-objstm");
+        if (targetSizeBytes > 0) name.append('-').append(formatSize(targetSizeBytes));
+        return name.append("-seed").append(seed).toString();
+    }
+
+    /**
+     * Parses sizes such as {@code 2g}, {@code 300m}, {@code 512k} or plain bytes.
+     */
+    public static long parseSize(String size) {
+        String value = size.trim().toLowerCase(Locale.ROOT);
+        long unit = 1;
+        switch (value.isEmpty() ? ' ' : value.charAt(value.length() - 1)) {
+            case 'g':
+                unit = 1024L * 1024 * 1024;
+                break;
+            case 'm':
+                unit = 1024L * 1024;
+                break;
+            case 'k':
+                unit = 1024L;
+                break;
+            default:
+                return Long.parseLong(value);
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) * unit;
+    }
+
+    static String formatSize(long bytes) {
+        if (bytes % (1024L * 1024 * 1024) == 0) return bytes / (1024L * 1024 * 1024) + "g";
+        if (bytes % (1024L * 1024) == 0) return bytes / (1024L * 1024) + "m";
+        if (bytes % 1024 == 0) return bytes / 1024 + "k";
+        return Long.toString(bytes);
+    }
+
+    private static String hash(String value) {
+        return Integer.toHexString(Objects.hashCode(value));
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    public void setPages(int pages) {
+        this.pages = pages;
+    }
+
+    public PageContent getContent() {
+        return content;
+    }
+
+    public void setContent(PageContent content) {
+        this.content = Objects.requireNonNull(content, "content");
+    }
+
+    public int getImagesPerPage() {
+        return imagesPerPage;
+    }
+
+    /**
+     * Photos placed on every page, each embedded as its own JPEG image.
+     */
+    public void setImagesPerPage(int imagesPerPage) {
+        this.imagesPerPage = imagesPerPage;
+    }
+
+    public boolean isEmbeddedFonts() {
+        return embeddedFonts;
+    }
+
+    /**
+     * Writes the text in a subset of a TrueType font embedded in the file, instead of a standard font.
+     */
+    public void setEmbeddedFonts(boolean embeddedFonts) {
+        this.embeddedFonts = embeddedFonts;
+    }
+
+    public File getFontFile() {
+        return fontFile;
+    }
+
+    /**
+     * TrueType font to embed; by default the first one found in the usual system font folders.
+     */
+    public void setFontFile(File fontFile) {
+        this.fontFile = fontFile;
+    }
+
+    public int getSignatureFields() {
+        return signatureFields;
+    }
+
+    /**
+     * Empty signature fields on the last page, three per row from the bottom, named Signature1, Signature2, ...
+     */
+    public void setSignatureFields(int signatureFields) {
+        this.signatureFields = signatureFields;
+    }
+
+    public int getPriorSignatures() {
+        return priorSignatures;
+    }
+
+    /**
+     * Visible signatures on the first page, each in its own incremental revision.
+     */
+    public void setPriorSignatures(int priorSignatures) {
+        this.priorSignatures = priorSignatures;
+    }
+
+    public Encryption getEncryption() {
+        return encryption;
+    }
+
+    public void setEncryption(Encryption encryption) {
+        this.encryption = Objects.requireNonNull(encryption, "encryption");
+    }
+
+    public String getUserPassword() {
+        return userPassword;
+    }
+
+    /**
+     * Password to open an encrypted document; empty (the default) opens it without asking.
+     */
+    public void setUserPassword(String userPassword) {
+        this.userPassword = userPassword != null ? userPassword : "";
+    }
+
+    public String getOwnerPassword() {
+        return ownerPassword;
+    }
+
+    public void setOwnerPassword(String ownerPassword) {
+        this.ownerPassword = ownerPassword;
+    }
+
+    public boolean isObjectStreams() {
+        return objectStreams;
+    }
+
+    /**
+     * Writes objects into compressed object streams with a cross-reference stream (PDF 1.5).
+     */
+    public void setObjectStreams(boolean objectStreams) {
+        this.objectStreams = objectStreams;
+    }
+
+    public long getTargetSizeBytes() {
+        return targetSizeBytes;
+    }
+
+    /**
+     * Pads the document with embedded files to about this size; 0 (the default) adds no padding.
+     */
+    public void setTargetSizeBytes(long targetSizeBytes) {
+        this.targetSizeBytes = targetSizeBytes;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
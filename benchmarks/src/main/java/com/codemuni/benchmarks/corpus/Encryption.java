@@ -0,0 +1,23 @@
+package com.codemuni.benchmarks.corpus;
+
+import com.itextpdf.text.pdf.PdfWriter;
+
+/**
+ * Password encryption of a generated document.
+ */
+public enum Encryption {
+    NONE(-1),
+    RC4_128(PdfWriter.STANDARD_ENCRYPTION_128),
+    AES_128(PdfWriter.ENCRYPTION_AES_128),
+    AES_256(PdfWriter.ENCRYPTION_AES_256);
+
+    private final int itextType;
+
+    Encryption(int itextType) {
+        this.itextType = itextType;
+    }
+
+    int getItextType() {
+        return itextType;
+    }
+}
@@ -0,0 +1,310 @@
+package com.codemuni.benchmarks.corpus;
+
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.ImgJBIG2;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.ColumnText;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.codec.CCITTG4Encoder;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Draws the pages of generated documents.
+ * - Everything is derived from the {@link Random} passed in, so a seed gives the same pages
+ * - Scans and photos are expensive to make, so a few variants are made per document and reused;
+ * each page still embeds its own copy, like a real scan
+ */
+final class PageArt {
+    private static final int VARIANTS = 8;
+    private static final int JBIG2_WIDTH = 2480;
+    private static final int JBIG2_HEIGHT = 3508;
+    private static final String[] WORDS = {
+            "agreement", "party", "signature", "date", "shall", "terms", "payment", "notice", "hereby", "clause",
+            "document", "witness", "obligation", "period", "invoice", "total", "schedule", "annex", "delivery", "seal"
+    };
+    private static final String[] FONT_FOLDERS = {
+            System.getProperty("java.home") + "/lib/fonts", "/usr/share/fonts", "/usr/local/share/fonts",
+            "/Library/Fonts", "/System/Library/Fonts", "C:/Windows/Fonts"
+    };
+
+    private final Random random;
+    private final Font textFont;
+    private final Map<PageContent, byte[][]> scans = new EnumMap<>(PageContent.class);
+    private byte[][] photos;
+
+    PageArt(Random random, BaseFont baseFont) {
+        this.random = random;
+        this.textFont = new Font(baseFont, 10);
+    }
+
+    /**
+     * @param fontFile TrueType font to embed, or null to look for one in the usual folders
+     * @param embedded false for the standard (not embedded) Times Roman
+     */
+    static BaseFont font(File fontFile, boolean embedded) throws IOException, DocumentException {
+        if (!embedded) return BaseFont.createFont(BaseFont.TIMES_ROMAN, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+        File file = fontFile != null ? fontFile : findTrueTypeFont();
+        BaseFont font = BaseFont.createFont(file.getAbsolutePath(), BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+        font.setSubset(true);
+        return font;
+    }
+
+    void drawPage(PdfContentByte canvas, Rectangle page, PageContent content, int pageNumber, int pageCount)
+            throws DocumentException, IOException {
+        switch (content) {
+            case TEXT:
+                drawText(canvas, page);
+                break;
+            case VECTOR:
+                drawVectors(canvas, page);
+                break;
+            case SCANNED:
+                drawFullPage(canvas, page, Image.getInstance(variant(PageContent.SCANNED)));
+                break;
+            case JBIG2:
+                byte[] jbig2 = variant(PageContent.JBIG2);
+                drawFullPage(canvas, page, new ImgJBIG2(JBIG2_WIDTH, JBIG2_HEIGHT, jbig2, null));
+                break;
+            default:
+                throw new IllegalArgumentException(content.name());
+        }
+        ColumnText.showTextAligned(canvas, Element.ALIGN_CENTER,
+                new Phrase("Page " + pageNumber + " of " + pageCount, textFont), page.getWidth() / 2, 20, 0);
+    }
+
+    /**
+     * A photo at a random place on the page, embedded as its own JPEG.
+     */
+    void drawPhoto(PdfContentByte canvas, Rectangle page) throws DocumentException, IOException {
+        if (photos == null) {
+            photos = new byte[VARIANTS][];
+            for (int i = 0; i < VARIANTS; i++) photos[i] = photoJpeg();
+        }
+        Image photo = Image.getInstance(photos[random.nextInt(VARIANTS)]);
+        float width = 120 + random.nextFloat() * 120;
+        float height = width * 2 / 3;
+        canvas.addImage(photo, width, 0, 0, height,
+                random.nextFloat() * (page.getWidth() - width), 40 + random.nextFloat() * (page.getHeight() - height - 80));
+    }
+
+    String sentence(int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sentence.append(' ');
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append('.').toString();
+    }
+
+    Font getTextFont() {
+        return textFont;
+    }
+
+    private void drawText(PdfContentByte canvas, Rectangle page) throws DocumentException {
+        ColumnText column = new ColumnText(canvas);
+        column.setSimpleColumn(56, 48, page.getWidth() - 56, page.getHeight() - 56);
+        column.setLeading(12);
+        for (int i = 0; i < 12; i++) {
+            column.addText(new Phrase(sentence(70) + "\n\n", textFont));
+        }
+        column.go(); // text that does not fit is dropped, so every page stays one page
+    }
+
+    /**
+     * A technical drawing: thousands of stroked curves and some filled shapes.
+     */
+    private void drawVectors(PdfContentByte canvas, Rectangle page) {
+        canvas.saveState();
+        canvas.setLineWidth(0.3f);
+        for (int i = 0; i < 3000; i++) {
+            float x = random.nextFloat() * page.getWidth();
+            float y = random.nextFloat() * page.getHeight();
+            canvas.moveTo(x, y);
+            canvas.curveTo(x + random.nextFloat() * 60 - 30, y + random.nextFloat() * 60 - 30,
+                    x + random.nextFloat() * 60 - 30, y + random.nextFloat() * 60 - 30,
+                    x + random.nextFloat() * 80 - 40, y + random.nextFloat() * 80 - 40);
+        }
+        canvas.stroke();
+        for (int i = 0; i < 200; i++) {
+            canvas.setRGBColorFill(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+            float x = random.nextFloat() * page.getWidth();
+            float y = random.nextFloat() * page.getHeight();
+            canvas.moveTo(x, y);
+            for (int corner = 0; corner < 5; corner++) {
+                canvas.lineTo(x + random.nextFloat() * 90 - 45, y + random.nextFloat() * 90 - 45);
+            }
+            canvas.closePathFillStroke();
+        }
+        canvas.restoreState();
+    }
+
+    private static void drawFullPage(PdfContentByte canvas, Rectangle page, Image image) throws DocumentException {
+        canvas.addImage(image, page.getWidth(), 0, 0, page.getHeight(), 0, 0);
+    }
+
+    private byte[] variant(PageContent kind) throws IOException, BadElementException {
+        byte[][] variants = scans.computeIfAbsent(kind, k -> new byte[VARIANTS][]);
+        int index = random.nextInt(VARIANTS);
+        if (variants[index] == null) {
+            variants[index] = kind == PageContent.SCANNED ? scannedPageJpeg() : bilevelPageJbig2();
+        }
+        return variants[index];
+    }
+
+    /**
+     * A greyscale A4 scan at 150 DPI: dark text lines on a slightly noisy background.
+     */
+    private byte[] scannedPageJpeg() throws IOException {
+        BufferedImage image = new BufferedImage(1240, 1754, BufferedImage.TYPE_BYTE_GRAY);
+        drawScannedText(image, new Color(235, 232, 225), new Color(40, 40, 40));
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < pixels.length; i += 1 + random.nextInt(7)) {
+            pixels[i] = (byte) Math.max(0, (pixels[i] & 0xff) - random.nextInt(40));
+        }
+        return jpeg(image);
+    }
+
+    /**
+     * A black and white A4 scan at 300 DPI, encoded as JBIG2 the way fax-class scanners do:
+     * one generic region coded with MMR (CCITT Group 4).
+     */
+    private byte[] bilevelPageJbig2() throws IOException {
+        BufferedImage image = new BufferedImage(JBIG2_WIDTH, JBIG2_HEIGHT, BufferedImage.TYPE_BYTE_BINARY);
+        drawScannedText(image, Color.WHITE, Color.BLACK);
+        byte[] rows = ((DataBufferByte) image.getRaster().getDataBuffer()).getData().clone();
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (byte) ~rows[i]; // the image palette has 0 for black; JBIG2 uses 1
+        }
+        return jbig2Page(JBIG2_WIDTH, JBIG2_HEIGHT, CCITTG4Encoder.compress(rows, JBIG2_WIDTH, JBIG2_HEIGHT));
+    }
+
+    /**
+     * Embedded JBIG2 stream (no file header) of one page holding a single immediate lossless generic region.
+     */
+    private static byte[] jbig2Page(int width, int height, byte[] mmr) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(stream);
+
+        ByteArrayOutputStream pageInfo = new ByteArrayOutputStream();
+        DataOutputStream info = new DataOutputStream(pageInfo);
+        info.writeInt(width);
+        info.writeInt(height);
+        info.writeInt(0); // resolution unknown
+        info.writeInt(0);
+        info.writeByte(0x01); // eventually lossless, default pixel 0, OR combination
+        info.writeShort(0); // not striped
+        segment(out, 0, 48, pageInfo.toByteArray());
+
+        ByteArrayOutputStream region = new ByteArrayOutputStream();
+        DataOutputStream generic = new DataOutputStream(region);
+        generic.writeInt(width);
+        generic.writeInt(height);
+        generic.writeInt(0);
+        generic.writeInt(0);
+        generic.writeByte(0); // OR with the page
+        generic.writeByte(0x01); // MMR
+        generic.write(mmr);
+        segment(out, 1, 39, region.toByteArray());
+        return stream.toByteArray();
+    }
+
+    private static void segment(DataOutputStream out, int number, int type, byte[] data) throws IOException {
+        out.writeInt(number);
+        out.writeByte(type); // page association in one byte
+        out.writeByte(0); // no referred-to segments
+        out.writeByte(1); // page 1
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private void drawScannedText(BufferedImage image, Color paper, Color ink) {
+        Graphics2D g = image.createGraphics();
+        try {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            g.setColor(paper);
+            g.fillRect(0, 0, width, height);
+            g.setColor(ink);
+            g.setFont(new java.awt.Font(java.awt.Font.SERIF, java.awt.Font.PLAIN, height / 80));
+            g.rotate(Math.toRadians(random.nextDouble() - 0.5), width / 2d, height / 2d); // slightly skewed
+            int lineHeight = height / 55;
+            for (int y = height / 12; y < height * 11 / 12; y += lineHeight) {
+                g.drawString(sentence(14), width / 10, y);
+            }
+            g.drawRect(width / 12, height / 14, width * 5 / 6, height * 6 / 7);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * A 900x600 colour photo-like image: soft gradients with noise, which JPEG cannot shrink much.
+     */
+    private byte[] photoJpeg() throws IOException {
+        int width = 900;
+        int height = 600;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] from = {random.nextInt(256), random.nextInt(256), random.nextInt(256)};
+        int[] to = {random.nextInt(256), random.nextInt(256), random.nextInt(256)};
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                float t = (x + y) / (float) (width + height);
+                int noise = random.nextInt(24) - 12;
+                int r = clamp(from[0] + (int) ((to[0] - from[0]) * t) + noise);
+                int g = clamp(from[1] + (int) ((to[1] - from[1]) * t) + noise);
+                int b = clamp(from[2] + (int) ((to[2] - from[2]) * t) + noise);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return jpeg(image);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", jpeg);
+        return jpeg.toByteArray();
+    }
+
+    private static File findTrueTypeFont() throws IOException {
+        List<File> fonts = new ArrayList<>();
+        for (String folder : FONT_FOLDERS) {
+            collectTrueTypeFonts(new File(folder), fonts);
+            if (!fonts.isEmpty()) break;
+        }
+        if (fonts.isEmpty()) throw new IOException("No TrueType font found to embed; give one with a font file");
+        Collections.sort(fonts); // the same font on every run
+        return fonts.get(0);
+    }
+
+    private static void collectTrueTypeFonts(File folder, List<File> fonts) {
+        File[] children = folder.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectTrueTypeFonts(child, fonts);
+            } else if (child.getName().toLowerCase(Locale.ROOT).endsWith(".ttf")) {
+                fonts.add(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.codemuni.benchmarks.corpus;
+
+/**
+ * What the pages of a generated document consist of.
+ */
+public enum PageContent {
+    /** Dense paragraphs of text. */
+    TEXT,
+    /** Stroked curves and filled polygons, like a technical drawing. */
+    VECTOR,
+    /** A greyscale JPEG scan per page. */
+    SCANNED,
+    /** A bilevel JBIG2 scan per page, decoded by jbig2-imageio. */
+    JBIG2,
+    /** The other kinds in turn, page by page. */
+    MIXED;
+
+    /**
+     * Kind of the given page (0-based); only {@link #MIXED} varies.
+     */
+    PageContent forPage(int pageIndex) {
+        return this == MIXED ? values()[pageIndex % MIXED.ordinal()] : this;
+    }
+}
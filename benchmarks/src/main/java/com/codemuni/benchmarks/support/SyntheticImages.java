@@ -0,0 +1,53 @@
+package com.codemuni.benchmarks.support;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Deterministic images for signature appearances, and temporary files that are deleted on exit.
+ * Documents come from the shared {@link com.codemuni.benchmarks.corpus.Corpus}.
+ */
+public final class SyntheticImages {
+
+    private SyntheticImages() {
+    }
+
+    /**
+     * A PNG of a handwriting-like scribble, for the signature graphic and the watermark.
+     */
+    public static byte[] scribblePng(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(new Color(20, 40, 140));
+            g.setStroke(new BasicStroke(Math.max(2f, height / 30f)));
+            Random random = new Random(width * 31L + height);
+            int x = width / 10;
+            int y = height / 2;
+            while (x < width * 9 / 10) {
+                int nextX = x + width / 20 + random.nextInt(width / 20 + 1);
+                int nextY = height / 4 + random.nextInt(height / 2);
+                g.drawLine(x, y, nextX, nextY);
+                x = nextX;
+                y = nextY;
+            }
+        } finally {
+            g.dispose();
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+
+    public static File tempFile(String prefix, String suffix) throws IOException {
+        File file = File.createTempFile(prefix, suffix);
+        file.deleteOnExit();
+        return file;
+    }
+}
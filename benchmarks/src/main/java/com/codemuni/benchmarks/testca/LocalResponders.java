@@ -0,0 +1,299 @@
+package com.codemuni.benchmarks.testca;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.cmp.PKIFailureInfo;
+import org.bouncycastle.asn1.cmp.PKIStatus;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.oiw.OIWObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.*;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.tsp.TSPAlgorithms;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampResponseGenerator;
+import org.bouncycastle.tsp.TimeStampTokenGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-ins for the timestamp authority, OCSP responder and CRL server, on a loopback port.
+ * - {@link #start()} binds the port first, so the URLs can go into the certificates of a {@link TestPki};
+ * {@link #serve(TestPki)} then answers for that PKI
+ * - TSA: RFC 3161 over HTTP POST, tokens signed by the PKI's TSA certificate
+ * - OCSP: signed by the root CA; good, revoked ({@link TestPki#revoke}) or unknown for certificates of another PKI;
+ * the request nonce is echoed
+ * - CRL: the root CA's CRL with the revoked certificates, rebuilt when one is revoked
+ * - Each responder can be slowed down or made to fail with a {@link ResponderBehavior}; requests are answered
+ * on a pool of threads, so slow answers do not hold up each other
+ */
+public final class LocalResponders implements Closeable {
+    private static final ASN1ObjectIdentifier TSA_POLICY = new ASN1ObjectIdentifier("1.3.6.1.4.1.55555.1.1");
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final AtomicLong serials = new AtomicLong();
+    private final Map<Responder, AtomicLong> requests = new EnumMap<>(Responder.class);
+    private final Map<Responder, AtomicLong> injectedFailures = new EnumMap<>(Responder.class);
+    private volatile Map<Responder, ResponderBehavior> behaviors = new EnumMap<>(Responder.class);
+    private TestPki pki;
+    private TimeStampTokenGenerator tsaTokens;
+    private TimeStampResponseGenerator tsaResponses;
+    private ContentSigner rootSigner;
+    private X509CertificateHolder rootHolder;
+    private byte[] crl;
+    private int crlRevocations = -1;
+
+    private LocalResponders(HttpServer server, ExecutorService handlers) {
+        this.server = server;
+        this.handlers = handlers;
+        for (Responder responder : Responder.values()) {
+            requests.put(responder, new AtomicLong());
+            injectedFailures.put(responder, new AtomicLong());
+            behaviors.put(responder, new ResponderBehavior());
+        }
+    }
+
+    /**
+     * Starts on a free port.
+     */
+    public static LocalResponders start() throws IOException {
+        return start(0);
+    }
+
+    /**
+     * Starts on the given loopback port, or a free one for 0.
+     */
+    public static LocalResponders start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService handlers = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "test-responder-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        LocalResponders responders = new LocalResponders(server, handlers);
+        for (Responder responder : Responder.values()) {
+            server.createContext(responder.getPath(), exchange -> responders.handle(responder, exchange));
+        }
+        server.setExecutor(handlers);
+        server.start();
+        return responders;
+    }
+
+    /**
+     * Starts answering with the keys and certificates of {@code pki}.
+     */
+    public synchronized void serve(TestPki pki) throws Exception {
+        TimeStampTokenGenerator tokens = new TimeStampTokenGenerator(
+                new JcaDigestCalculatorProviderBuilder().build().get(new AlgorithmIdentifier(OIWObjectIdentifiers.idSHA1)),
+                new JcaSimpleSignerInfoGeneratorBuilder().build("SHA256withRSA", pki.getTsaKey(), pki.getTsaCertificate()),
+                TSA_POLICY);
+        tokens.addCertificates(new JcaCertStore(Collections.singletonList(pki.getTsaCertificate())));
+        tsaTokens = tokens;
+        tsaResponses = new TimeStampResponseGenerator(tokens, TSPAlgorithms.ALLOWED);
+
+        rootSigner = new JcaContentSignerBuilder("SHA256withRSA").build(pki.getRootKey());
+        rootHolder = new JcaX509CertificateHolder(pki.getRootCertificate());
+        this.pki = pki;
+        crl = null;
+    }
+
+    /**
+     * Sets the network conditions of one responder; the behavior is copied.
+     *
+     * @throws IllegalArgumentException if the behavior is invalid
+     */
+    public synchronized void setBehavior(Responder responder, ResponderBehavior behavior) {
+        behavior.validate();
+        Map<Responder, ResponderBehavior> updated = new EnumMap<>(behaviors);
+        updated.put(responder, behavior.copy());
+        behaviors = updated;
+    }
+
+    /**
+     * Sets the same network conditions for all responders.
+     */
+    public void setBehavior(ResponderBehavior behavior) {
+        for (Responder responder : Responder.values()) {
+            setBehavior(responder, behavior);
+        }
+    }
+
+    public ResponderBehavior getBehavior(Responder responder) {
+        return behaviors.get(responder).copy();
+    }
+
+    public long getRequestCount(Responder responder) {
+        return requests.get(responder).get();
+    }
+
+    /**
+     * Requests that were stalled, dropped, failed or refused on purpose.
+     */
+    public long getInjectedFailureCount(Responder responder) {
+        return injectedFailures.get(responder).get();
+    }
+
+    public String getUrl(Responder responder) {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort() + responder.getPath();
+    }
+
+    public String getTsaUrl() {
+        return getUrl(Responder.TSA);
+    }
+
+    public String getOcspUrl() {
+        return getUrl(Responder.OCSP);
+    }
+
+    public String getCrlUrl() {
+        return getUrl(Responder.CRL);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private void handle(Responder responder, HttpExchange exchange) throws IOException {
+        requests.get(responder).incrementAndGet();
+        ResponderBehavior behavior = behaviors.get(responder);
+        try {
+            byte[] request = readBody(exchange);
+            ResponderBehavior.Outcome outcome = behavior.draw();
+            if (outcome != ResponderBehavior.Outcome.ANSWER) injectedFailures.get(responder).incrementAndGet();
+            if (outcome == ResponderBehavior.Outcome.STALL) {
+                Thread.sleep(behavior.getStallMillis());
+                exchange.close();
+                return;
+            }
+            Thread.sleep(behavior.nextDelayMillis());
+            switch (outcome) {
+                case DROP:
+                    exchange.close(); // no response headers yet, so the connection is closed
+                    return;
+                case FAILURE:
+                    reply(exchange, 503, "text/plain", "Service unavailable".getBytes(StandardCharsets.UTF_8));
+                    return;
+                default:
+                    answer(responder, exchange, request, outcome == ResponderBehavior.Outcome.ERROR);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // closing
+            exchange.close();
+        } catch (Exception e) {
+            reply(exchange, 500, "text/plain", String.valueOf(e).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void answer(Responder responder, HttpExchange exchange, byte[] request, boolean refuse) throws Exception {
+        switch (responder) {
+            case TSA:
+                reply(exchange, 200, "application/timestamp-reply", timestamp(request, refuse));
+                break;
+            case OCSP:
+                reply(exchange, 200, "application/ocsp-response", ocsp(request, refuse));
+                break;
+            default:
+                if (refuse) {
+                    reply(exchange, 404, "text/plain", "No CRL".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    reply(exchange, 200, "application/pkix-crl", crl());
+                }
+        }
+    }
+
+    private synchronized byte[] timestamp(byte[] body, boolean refuse) throws Exception {
+        if (refuse) {
+            // A generator of its own: the failure info would otherwise stick to later responses
+            return new TimeStampResponseGenerator(tsaTokens, TSPAlgorithms.ALLOWED)
+                    .generateFailResponse(PKIStatus.REJECTION, PKIFailureInfo.systemUnavail, "Refused by test behavior")
+                    .getEncoded();
+        }
+        TimeStampRequest request = new TimeStampRequest(body);
+        return tsaResponses.generate(request, BigInteger.valueOf(serials.incrementAndGet()), new Date()).getEncoded();
+    }
+
+    private synchronized byte[] ocsp(byte[] body, boolean refuse) throws Exception {
+        if (refuse) return new OCSPRespBuilder().build(OCSPRespBuilder.TRY_LATER, null).getEncoded();
+        OCSPReq request = new OCSPReq(body);
+        BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(new RespID(rootHolder.getSubject()));
+        for (Req single : request.getRequestList()) {
+            builder.addResponse(single.getCertID(), status(single.getCertID().getSerialNumber()));
+        }
+        Extension nonce = request.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce);
+        if (nonce != null) builder.setResponseExtensions(new Extensions(nonce));
+        BasicOCSPResp basic = builder.build(rootSigner, new X509CertificateHolder[]{rootHolder}, new Date());
+        return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basic).getEncoded();
+    }
+
+    private CertificateStatus status(BigInteger serialNumber) {
+        if (!pki.isIssued(serialNumber)) return new UnknownStatus();
+        Date revoked = pki.getRevocationDate(serialNumber);
+        return revoked != null ? new RevokedStatus(revoked, CRLReason.keyCompromise) : CertificateStatus.GOOD;
+    }
+
+    private synchronized byte[] crl() throws Exception {
+        Map<BigInteger, Date> revocations = pki.getRevocations();
+        if (crl == null || crlRevocations != revocations.size()) {
+            Date now = new Date();
+            X509v2CRLBuilder builder = new X509v2CRLBuilder(rootHolder.getSubject(), now);
+            builder.setNextUpdate(new Date(now.getTime() + TimeUnit.DAYS.toMillis(1)));
+            for (Map.Entry<BigInteger, Date> revocation : revocations.entrySet()) {
+                builder.addCRLEntry(revocation.getKey(), revocation.getValue(), CRLReason.keyCompromise);
+            }
+            crl = builder.build(rootSigner).getEncoded();
+            crlRevocations = revocations.size();
+        }
+        return crl;
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) body.write(buffer, 0, n);
+        }
+        return body.toByteArray();
+    }
+
+    private static void reply(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
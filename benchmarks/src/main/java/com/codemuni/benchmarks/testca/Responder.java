@@ -0,0 +1,30 @@
+package com.codemuni.benchmarks.testca;
+
+/**
+ * The services {@link LocalResponders} runs, each on its own path of the same port.
+ */
+public enum Responder {
+    TSA("/tsa"),
+    OCSP("/ocsp"),
+    CRL("/crl");
+
+    private final String path;
+
+    Responder(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static Responder parse(String name) {
+        for (Responder responder : values()) {
+            if (responder.name().equalsIgnoreCase(name.trim())) return responder;
+        }
+        throw new IllegalArgumentException("Unknown responder " + name + ", expected tsa, ocsp or crl");
+    }
+}
@@ -0,0 +1,138 @@
+package com.codemuni.benchmarks.testca;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Network conditions of one {@link Responder}, applied to every request before it is answered.
+ * - Latency: each answer is delayed by the latency plus a uniform random jitter of up to &plusmn;jitter
+ * - Failures, drawn independently per request in this order:
+ * stall (held for the stall time, then the connection is closed; a client with a shorter timeout sees a timeout),
+ * drop (the connection is closed without an answer),
+ * failure (HTTP 503),
+ * error (a well-formed refusal: TSA status "rejection", OCSP "tryLater", CRL HTTP 404)
+ * - The default is a perfect network: no latency and no failures
+ */
+public final class ResponderBehavior {
+    public static final long DEFAULT_STALL_MILLIS = 60_000;
+
+    /**
+     * What happens to a request, decided by {@link #draw()}.
+     */
+    public enum Outcome {
+        ANSWER, STALL, DROP, FAILURE, ERROR
+    }
+
+    private long latencyMillis;
+    private long jitterMillis;
+    private double stallRate;
+    private long stallMillis = DEFAULT_STALL_MILLIS;
+    private double dropRate;
+    private double failureRate;
+    private double errorRate;
+
+    public ResponderBehavior copy() {
+        ResponderBehavior copy = new ResponderBehavior();
+        copy.latencyMillis = latencyMillis;
+        copy.jitterMillis = jitterMillis;
+        copy.stallRate = stallRate;
+        copy.stallMillis = stallMillis;
+        copy.dropRate = dropRate;
+        copy.failureRate = failureRate;
+        copy.errorRate = errorRate;
+        return copy;
+    }
+
+    /**
+     * @throws IllegalArgumentException for negative times or rates outside 0..1
+     */
+    public void validate() {
+        if (latencyMillis < 0 || jitterMillis < 0 || stallMillis < 0) {
+            throw new IllegalArgumentException("Latency, jitter and stall time must not be negative");
+        }
+        for (double rate : new double[]{stallRate, dropRate, failureRate, errorRate}) {
+            if (rate < 0 || rate > 1) throw new IllegalArgumentException("Rates must be between 0 and 1: " + rate);
+        }
+    }
+
+    /**
+     * Delay of the next answer: the latency plus the jitter, never negative.
+     */
+    public long nextDelayMillis() {
+        if (jitterMillis == 0) return latencyMillis;
+        long jitter = ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1);
+        return Math.max(0, latencyMillis + jitter);
+    }
+
+    public Outcome draw() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (stallRate > 0 && random.nextDouble() < stallRate) return Outcome.STALL;
+        if (dropRate > 0 && random.nextDouble() < dropRate) return Outcome.DROP;
+        if (failureRate > 0 && random.nextDouble() < failureRate) return Outcome.FAILURE;
+        if (errorRate > 0 && random.nextDouble() < errorRate) return Outcome.ERROR;
+        return Outcome.ANSWER;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public long getJitterMillis() {
+        return jitterMillis;
+    }
+
+    public void setJitterMillis(long jitterMillis) {
+        this.jitterMillis = jitterMillis;
+    }
+
+    public double getStallRate() {
+        return stallRate;
+    }
+
+    public void setStallRate(double stallRate) {
+        this.stallRate = stallRate;
+    }
+
+    public long getStallMillis() {
+        return stallMillis;
+    }
+
+    public void setStallMillis(long stallMillis) {
+        this.stallMillis = stallMillis;
+    }
+
+    public double getDropRate() {
+        return dropRate;
+    }
+
+    public void setDropRate(double dropRate) {
+        this.dropRate = dropRate;
+    }
+
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "latency %d ms +/- %d ms, stall %.3f (%d ms), drop %.3f, failure %.3f, error %.3f",
+                latencyMillis, jitterMillis, stallRate, stallMillis, dropRate, failureRate, errorRate);
+    }
+}
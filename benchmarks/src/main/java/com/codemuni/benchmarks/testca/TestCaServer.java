@@ -0,0 +1,185 @@
+package com.codemuni.benchmarks.testca;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.Security;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs a {@link TestPki} with its {@link LocalResponders} until stopped, for load tests of eMark itself
+ * (the viewer, {@code BatchSign}) without internet.
+ * <pre>
+ * java -cp benchmarks.jar com.codemuni.benchmarks.testca.TestCaServer [options] &lt;folder&gt;
+ * </pre>
+ * - Writes the root and TSA certificates and the signer keystores to the folder, and prints the responder URLs
+ * - Network options apply to all responders, or to one with a prefix, e.g. {@code --latency 50 --latency tsa=800}
+ * - Prints the request and injected failure counts of each responder when stopped
+ * Exits with 1 when the port or the folder cannot be used and 2 on bad usage.
+ */
+public final class TestCaServer {
+    private static final String DEFAULT_PASSWORD = "changeit";
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -cp benchmarks.jar com.codemuni.benchmarks.testca.TestCaServer [options] <folder>",
+            "  --port <n>            loopback port (default: a free one)",
+            "  --signers <n>         signer keystores to issue (default: 1)",
+            "  --password <text>     password of the signer keystores (default: " + DEFAULT_PASSWORD + ")",
+            "  --revoke              revoke the first signer, so OCSP and the CRL report it",
+            "  --latency [r=]<ms>    delay of each answer",
+            "  --jitter [r=]<ms>     random variation of the delay, up to plus or minus this",
+            "  --stall-rate [r=]<p>  share of requests held for the stall time, then closed unanswered",
+            "  --stall [r=]<ms>      stall time (default: " + ResponderBehavior.DEFAULT_STALL_MILLIS + ")",
+            "  --drop-rate [r=]<p>   share of connections closed without an answer",
+            "  --failure-rate [r=]<p>  share of requests answered with HTTP 503",
+            "  --error-rate [r=]<p>  share of requests refused by the protocol (TSA rejection, OCSP tryLater, CRL 404)",
+            "  r is one of tsa, ocsp, crl; rates are between 0 and 1");
+
+    private TestCaServer() {
+    }
+
+    public static void main(String[] args) {
+        int status = run(args);
+        if (status != 0) System.exit(status);
+    }
+
+    /**
+     * Starts the responders and returns 0 while they keep running in the background, or the exit code of a failure.
+     */
+    static int run(String[] args) {
+        int port = 0;
+        int signers = 1;
+        char[] password = DEFAULT_PASSWORD.toCharArray();
+        boolean revoke = false;
+        File folder = null;
+        Map<Responder, ResponderBehavior> behaviors = new EnumMap<>(Responder.class);
+        for (Responder responder : Responder.values()) {
+            behaviors.put(responder, new ResponderBehavior());
+        }
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--signers":
+                        signers = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--password":
+                        password = value(args, ++i).toCharArray();
+                        break;
+                    case "--revoke":
+                        revoke = true;
+                        break;
+                    case "--latency":
+                        apply(behaviors, value(args, ++i), (b, v) -> b.setLatencyMillis(Long.parseLong(v)));
+                        break;
+                    case "--jitter":
+                        apply(behaviors, value(args, ++i), (b, v) -> b.setJitterMillis(Long.parseLong(v)));
+                        break;
+                    case "--stall-rate":
+                        apply(behaviors, value(args, ++i), (b, v) -> b.setStallRate(Double.parseDouble(v)));
+                        break;
+                    case "--stall":
+                        apply(behaviors, value(args, ++i), (b, v) -> b.setStallMillis(Long.parseLong(v)));
+                        break;
+                    case "--drop-rate":
+                        apply(behaviors, value(args, ++i), (b, v) -> b.setDropRate(Double.parseDouble(v)));
+                        break;
+                    case "--failure-rate":
+                        apply(behaviors, value(args, ++i), (b, v) -> b.setFailureRate(Double.parseDouble(v)));
+                        break;
+                    case "--error-rate":
+                        apply(behaviors, value(args, ++i), (b, v) -> b.setErrorRate(Double.parseDouble(v)));
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i]);
+                        if (folder != null) throw new IllegalArgumentException("Only one folder can be given");
+                        folder = new File(args[i]);
+                }
+            }
+            if (folder == null) throw new IllegalArgumentException("No output folder given");
+            if (port < 0 || port > 65535) throw new IllegalArgumentException("Invalid port " + port);
+            if (signers < 1) throw new IllegalArgumentException("--signers must be at least 1");
+            behaviors.values().forEach(ResponderBehavior::validate);
+        } catch (IllegalArgumentException e) { // NumberFormatException and unknown responder names included
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        LocalResponders responders;
+        try {
+            responders = LocalResponders.start(port);
+        } catch (IOException e) {
+            System.err.println("Cannot listen on port " + port + ": " + e.getMessage());
+            return 1;
+        }
+        try {
+            TestPki pki = TestPki.create(responders.getCrlUrl(), responders.getOcspUrl());
+            responders.serve(pki);
+            behaviors.forEach(responders::setBehavior);
+            writeFiles(pki, folder, signers, password, revoke);
+        } catch (Exception e) {
+            responders.close();
+            System.err.println("Cannot set up the test CA in " + folder + ": " + e.getMessage());
+            return 1;
+        }
+
+        System.out.println("Root certificate:  " + new File(folder, "root.cer"));
+        System.out.println("Signer keystores:  " + new File(folder, "signer-1.p12")
+                + (signers > 1 ? " to signer-" + signers + ".p12" : ""));
+        for (Responder responder : Responder.values()) {
+            System.out.printf(Locale.ROOT, "%-4s %s  (%s)%n", responder, responders.getUrl(responder),
+                    responders.getBehavior(responder));
+        }
+        System.out.println("Press Ctrl+C to stop.");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Responder responder : Responder.values()) {
+                System.out.printf(Locale.ROOT, "%-4s %d requests, %d injected failures%n", responder,
+                        responders.getRequestCount(responder), responders.getInjectedFailureCount(responder));
+            }
+            responders.close();
+        }));
+        return 0;
+    }
+
+    private static void writeFiles(TestPki pki, File folder, int signers, char[] password, boolean revoke)
+            throws IOException, GeneralSecurityException {
+        Files.createDirectories(folder.toPath());
+        Files.write(new File(folder, "root.cer").toPath(), pki.getRootCertificate().getEncoded());
+        Files.write(new File(folder, "tsa.cer").toPath(), pki.getTsaCertificate().getEncoded());
+        pki.writeSignerPkcs12(new File(folder, "signer-1.p12"), password);
+        for (int i = 2; i <= signers; i++) {
+            pki.issueSigner("Test Signer " + i).writePkcs12(new File(folder, "signer-" + i + ".p12"), password);
+        }
+        if (revoke) pki.revoke(pki.getSignerCertificate());
+    }
+
+    /**
+     * Applies {@code [responder=]value} to one responder, or to all when there is no prefix.
+     */
+    private static void apply(Map<Responder, ResponderBehavior> behaviors, String option,
+                              BiConsumer<ResponderBehavior, String> setter) {
+        int equals = option.indexOf('=');
+        if (equals < 0) {
+            behaviors.values().forEach(behavior -> setter.accept(behavior, option.trim()));
+        } else {
+            setter.accept(behaviors.get(Responder.parse(option.substring(0, equals))), option.substring(equals + 1).trim());
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+}
@@ -0,0 +1,255 @@
+package com.codemuni.benchmarks.testca;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.*;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.*;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throw-away PKI for benchmarks and load tests: a root CA, a signer and a timestamp authority, all RSA 2048.
+ * - Signer certificates point at the given CRL and OCSP URLs, so LTV fetches them from {@link LocalResponders}
+ * - {@link #issueSigner} issues more signers from the same root, e.g. one per simulated user
+ * - {@link #revoke} marks a certificate revoked; the OCSP and CRL responders report it from then on
+ * - A signer's key and chain are written to a PKCS#12 file for {@code PKCS12KeyStoreProvider}
+ */
+public final class TestPki {
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    private static final long VALIDITY_MILLIS = TimeUnit.DAYS.toMillis(365);
+    private static final AtomicLong SERIALS = new AtomicLong(System.currentTimeMillis());
+
+    private final KeyPair rootKey;
+    private final X509Certificate rootCertificate;
+    private final KeyPair signerKey;
+    private final X509Certificate signerCertificate;
+    private final KeyPair tsaKey;
+    private final X509Certificate tsaCertificate;
+    private final String crlUrl;
+    private final String ocspUrl;
+    private final Set<BigInteger> issued = ConcurrentHashMap.newKeySet();
+    private final Map<BigInteger, Date> revoked = new ConcurrentHashMap<>();
+
+    private TestPki(KeyPair rootKey, X509Certificate rootCertificate, KeyPair signerKey, X509Certificate signerCertificate,
+                    KeyPair tsaKey, X509Certificate tsaCertificate, String crlUrl, String ocspUrl) {
+        this.rootKey = rootKey;
+        this.rootCertificate = rootCertificate;
+        this.signerKey = signerKey;
+        this.signerCertificate = signerCertificate;
+        this.tsaKey = tsaKey;
+        this.tsaCertificate = tsaCertificate;
+        this.crlUrl = crlUrl;
+        this.ocspUrl = ocspUrl;
+        for (X509Certificate certificate : new X509Certificate[]{rootCertificate, signerCertificate, tsaCertificate}) {
+            issued.add(certificate.getSerialNumber());
+        }
+    }
+
+    /**
+     * @param crlUrl  CRL distribution point of the signer certificate, or null for none
+     * @param ocspUrl OCSP responder of the signer certificate, or null for none
+     */
+    public static TestPki create(String crlUrl, String ocspUrl) throws GeneralSecurityException {
+        KeyPair rootKey = generateKeyPair();
+        X500Name rootName = new X500Name("CN=eMark Benchmark Root CA, O=eMark Benchmarks");
+        X509v3CertificateBuilder root = builder(rootName, rootName, rootKey.getPublic());
+        addExtension(root, Extension.basicConstraints, true, new BasicConstraints(true));
+        addExtension(root, Extension.keyUsage, true, new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign));
+        X509Certificate rootCertificate = sign(root, rootKey.getPrivate());
+
+        KeyPair signerKey = generateKeyPair();
+        X509Certificate signerCertificate = signerCertificate(rootName, rootKey.getPrivate(), "Benchmark Signer",
+                signerKey.getPublic(), crlUrl, ocspUrl);
+
+        KeyPair tsaKey = generateKeyPair();
+        X509v3CertificateBuilder tsa = builder(rootName,
+                new X500Name("CN=Benchmark Timestamp Authority, O=eMark Benchmarks"), tsaKey.getPublic());
+        addExtension(tsa, Extension.basicConstraints, true, new BasicConstraints(false));
+        addExtension(tsa, Extension.keyUsage, true, new KeyUsage(KeyUsage.digitalSignature));
+        addExtension(tsa, Extension.extendedKeyUsage, true, new ExtendedKeyUsage(KeyPurposeId.id_kp_timeStamping));
+        X509Certificate tsaCertificate = sign(tsa, rootKey.getPrivate());
+
+        return new TestPki(rootKey, rootCertificate, signerKey, signerCertificate, tsaKey, tsaCertificate, crlUrl, ocspUrl);
+    }
+
+    /**
+     * Issues another signer from the root, with the same CRL and OCSP URLs as the first one.
+     */
+    public Credentials issueSigner(String commonName) throws GeneralSecurityException {
+        KeyPair key = generateKeyPair();
+        X500Name rootName = X500Name.getInstance(rootCertificate.getSubjectX500Principal().getEncoded());
+        X509Certificate certificate = signerCertificate(rootName, rootKey.getPrivate(), commonName, key.getPublic(),
+                crlUrl, ocspUrl);
+        issued.add(certificate.getSerialNumber());
+        return new Credentials(key.getPrivate(), new Certificate[]{certificate, rootCertificate});
+    }
+
+    /**
+     * Revokes a certificate of this PKI as of now; revoking it again keeps the first date.
+     */
+    public void revoke(X509Certificate certificate) {
+        revoked.putIfAbsent(certificate.getSerialNumber(), new Date());
+    }
+
+    /**
+     * Whether the serial number is one this PKI issued, revoked or not.
+     */
+    public boolean isIssued(BigInteger serialNumber) {
+        return issued.contains(serialNumber);
+    }
+
+    /**
+     * When the certificate with this serial number was revoked, or null if it was not.
+     */
+    public Date getRevocationDate(BigInteger serialNumber) {
+        return revoked.get(serialNumber);
+    }
+
+    /**
+     * Revocation dates by serial number.
+     */
+    public Map<BigInteger, Date> getRevocations() {
+        return Collections.unmodifiableMap(revoked);
+    }
+
+    /**
+     * Writes the signer's key with its chain (signer, root) to a PKCS#12 file.
+     */
+    public File writeSignerPkcs12(File file, char[] password) throws GeneralSecurityException, IOException {
+        return new Credentials(signerKey.getPrivate(), getSignerChain()).writePkcs12(file, password);
+    }
+
+    public PrivateKey getRootKey() {
+        return rootKey.getPrivate();
+    }
+
+    public X509Certificate getRootCertificate() {
+        return rootCertificate;
+    }
+
+    public PrivateKey getSignerKey() {
+        return signerKey.getPrivate();
+    }
+
+    public X509Certificate getSignerCertificate() {
+        return signerCertificate;
+    }
+
+    /**
+     * Signer certificate first, then the root.
+     */
+    public Certificate[] getSignerChain() {
+        return new Certificate[]{signerCertificate, rootCertificate};
+    }
+
+    public PrivateKey getTsaKey() {
+        return tsaKey.getPrivate();
+    }
+
+    public X509Certificate getTsaCertificate() {
+        return tsaCertificate;
+    }
+
+    private static KeyPair generateKeyPair() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private static X509Certificate signerCertificate(X500Name issuer, PrivateKey issuerKey, String commonName,
+                                                     PublicKey publicKey, String crlUrl, String ocspUrl)
+            throws GeneralSecurityException {
+        X509v3CertificateBuilder signer = builder(issuer,
+                new X500Name("CN=" + commonName + ", O=eMark Benchmarks"), publicKey);
+        addExtension(signer, Extension.basicConstraints, true, new BasicConstraints(false));
+        addExtension(signer, Extension.keyUsage, true, new KeyUsage(KeyUsage.digitalSignature | KeyUsage.nonRepudiation));
+        if (crlUrl != null) {
+            GeneralNames crlLocation = new GeneralNames(new GeneralName(GeneralName.uniformResourceIdentifier, crlUrl));
+            addExtension(signer, Extension.cRLDistributionPoints, false, new CRLDistPoint(new DistributionPoint[]{
+                    new DistributionPoint(new DistributionPointName(crlLocation), null, null)}));
+        }
+        if (ocspUrl != null) {
+            addExtension(signer, Extension.authorityInfoAccess, false, new AuthorityInformationAccess(
+                    AccessDescription.id_ad_ocsp, new GeneralName(GeneralName.uniformResourceIdentifier, ocspUrl)));
+        }
+        return sign(signer, issuerKey);
+    }
+
+    private static X509v3CertificateBuilder builder(X500Name issuer, X500Name subject, PublicKey publicKey) {
+        long now = System.currentTimeMillis();
+        return new JcaX509v3CertificateBuilder(issuer, BigInteger.valueOf(SERIALS.incrementAndGet()),
+                new Date(now - TimeUnit.HOURS.toMillis(1)), new Date(now + VALIDITY_MILLIS), subject, publicKey);
+    }
+
+    private static void addExtension(X509v3CertificateBuilder builder, ASN1ObjectIdentifier oid,
+                                     boolean critical, ASN1Encodable value) throws GeneralSecurityException {
+        try {
+            builder.addExtension(oid, critical, value);
+        } catch (IOException e) {
+            throw new GeneralSecurityException("Cannot encode extension " + oid, e);
+        }
+    }
+
+    private static X509Certificate sign(X509v3CertificateBuilder builder, PrivateKey issuerKey) throws GeneralSecurityException {
+        try {
+            return new JcaX509CertificateConverter().getCertificate(
+                    builder.build(new JcaContentSignerBuilder(SIGNATURE_ALGORITHM).build(issuerKey)));
+        } catch (OperatorCreationException e) {
+            throw new GeneralSecurityException("Cannot sign certificate", e);
+        }
+    }
+
+    /**
+     * A private key with its certificate chain, end entity first.
+     */
+    public static final class Credentials {
+        private final PrivateKey key;
+        private final Certificate[] chain;
+
+        Credentials(PrivateKey key, Certificate[] chain) {
+            this.key = key;
+            this.chain = chain;
+        }
+
+        public PrivateKey getKey() {
+            return key;
+        }
+
+        public Certificate[] getChain() {
+            return chain.clone();
+        }
+
+        public X509Certificate getCertificate() {
+            return (X509Certificate) chain[0];
+        }
+
+        public File writePkcs12(File file, char[] password) throws GeneralSecurityException, IOException {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(null, null);
+            keyStore.setKeyEntry("signer", key, password, chain);
+            try (OutputStream out = new FileOutputStream(file)) {
+                keyStore.store(out, password);
+            }
+            return file;
+        }
+    }
+}
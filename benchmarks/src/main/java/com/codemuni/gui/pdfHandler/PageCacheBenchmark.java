@@ -0,0 +1,114 @@
+package com.codemuni.gui.pdfHandler;
+
+import com.codemuni.benchmarks.corpus.Corpus;
+import com.codemuni.benchmarks.corpus.CorpusSpec;
+import com.codemuni.benchmarks.corpus.PageContent;
+import com.codemuni.core.document.SharedDocumentSource;
+import com.codemuni.utils.LargeDocumentPolicy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PageImageCache} over a scripted reading session, at several cache budgets.
+ * - Session over a 50-page document: read to the end at 100%, zoom to 150% and scroll back 20 pages,
+ * zoom back to 100% and scroll to the top, then jump to the middle and read to the end again
+ * - One iteration is the whole session from an empty cache; each page shown is a cache lookup, and on a miss
+ * rendering the page and storing it
+ * - Hits (strong and soft tier) and misses are reported next to the session time, summed over the measured
+ * sessions; every session sees the same 126 lookups
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class PageCacheBenchmark {
+    private static final int PAGES = 50;
+    private static final String DOCUMENT_ID = "benchmark";
+
+    @Param({"text", "scanned"})
+    public String content;
+
+    /**
+     * The viewer's default is 256 MB, or a quarter of the heap if that is less.
+     */
+    @Param({"64", "256", "1024"})
+    public int cacheMegabytes;
+
+    private SharedDocumentSource source;
+    private PDDocument document;
+    private PDFRenderer renderer;
+    private PageImageCache cache;
+    private PageImageCache.PageKey[] session;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GeneralSecurityException {
+        File file = Corpus.get(new CorpusSpec(PageContent.valueOf(content.toUpperCase(Locale.ROOT)), PAGES));
+        source = SharedDocumentSource.open(file);
+        document = source.openPdDocument(LargeDocumentPolicy.pdfBoxMemoryUsage(file));
+        renderer = new PDFRenderer(document);
+        session = sessionPages();
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyCache() {
+        cache = new PageImageCache("benchmark", cacheMegabytes * 1024L * 1024L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        document.close();
+        source.release();
+    }
+
+    @Benchmark
+    public BufferedImage readingSession(CacheCounters counters) throws IOException {
+        BufferedImage image = null;
+        for (PageImageCache.PageKey key : session) {
+            image = cache.get(key);
+            if (image == null) {
+                image = renderer.renderImageWithDPI(key.getPageIndex(), key.getDpi());
+                cache.put(key, image);
+            }
+        }
+        counters.set(cache.getStats());
+        return image;
+    }
+
+    private static PageImageCache.PageKey[] sessionPages() {
+        List<PageImageCache.PageKey> keys = new ArrayList<>();
+        for (int page = 0; page < PAGES; page++) keys.add(new PageImageCache.PageKey(DOCUMENT_ID, page, 100));
+        for (int page = PAGES - 1; page >= PAGES - 20; page--) keys.add(new PageImageCache.PageKey(DOCUMENT_ID, page, 150));
+        for (int page = PAGES - 20; page >= 0; page--) keys.add(new PageImageCache.PageKey(DOCUMENT_ID, page, 100));
+        for (int page = PAGES / 2; page < PAGES; page++) keys.add(new PageImageCache.PageKey(DOCUMENT_ID, page, 100));
+        return keys.toArray(new PageImageCache.PageKey[0]);
+    }
+
+    /**
+     * Cache lookups of the session, by outcome.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheCounters {
+        public long hits;
+        public long softHits;
+        public long misses;
+
+        void set(PageImageCache.Stats stats) {
+            hits = stats.getHits();
+            softHits = stats.getSoftHits();
+            misses = stats.getMisses();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.codemuni.gui.pdfHandler;
+
+import com.codemuni.benchmarks.corpus.Corpus;
+import com.codemuni.benchmarks.corpus.CorpusSpec;
+import com.codemuni.benchmarks.corpus.PageContent;
+import com.codemuni.core.document.SharedDocumentSource;
+import com.codemuni.utils.LargeDocumentPolicy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preview rendering through the viewer's {@link PageRenderPool}, over documents of the shared {@link Corpus}
+ * (text, vector drawings, greyscale JPEG scans, JBIG2 scans).
+ * - In the renderer's package because the pool is package-private, so the numbers are for the code the viewer runs
+ * - {@link #firstPage}: what the viewer does between choosing a file and showing page 1: map the file, parse it for
+ * the page layout, start a render worker (which parses its own copy) and rasterize the first page
+ * - {@link #pages}: a warm pool re-rendering the whole document, as after a zoom change; one operation is one page,
+ * so the score is pages per second and {@code -prof gc} gives the allocation per page
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class PreviewRenderingBenchmark {
+    private static final int PAGES = 20;
+
+    @Param({"text", "vector", "scanned", "jbig2"})
+    public String content;
+
+    /**
+     * 100 is the viewer at 100% zoom; 72 to 300 covers its zoom levels from 75% to 300%.
+     */
+    @Param({"72", "100", "150", "300"})
+    public int dpi;
+
+    private File file;
+    private SharedDocumentSource source;
+    private PageRenderPool pool;
+    private volatile RenderDelivery delivery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GeneralSecurityException {
+        file = Corpus.get(new CorpusSpec(PageContent.valueOf(content.toUpperCase(Locale.ROOT)), PAGES));
+        source = SharedDocumentSource.open(file);
+        pool = new PageRenderPool(PageRenderPool.defaultThreadCount(), new PageRenderPool.PageConsumer() {
+            @Override
+            public void pageRendered(int generation, int pageIndex, BufferedImage image) {
+                delivery.pageRendered(generation, pageIndex, image);
+            }
+
+            @Override
+            public void pageFailed(int generation, int pageIndex, Exception error) {
+                delivery.pageFailed(generation, pageIndex, error);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+        source.release();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BufferedImage firstPage() throws Exception {
+        SharedDocumentSource opened = SharedDocumentSource.open(file);
+        try (PDDocument layout = opened.openPdDocument("", LargeDocumentPolicy.pdfBoxMemoryUsage(file))) {
+            layout.getPage(0).getCropBox();
+            RenderDelivery first = new RenderDelivery(1);
+            PageRenderPool firstPool = new PageRenderPool(1, first);
+            try {
+                firstPool.start(opened, dpi);
+                firstPool.request(0);
+                return first.await();
+            } finally {
+                firstPool.shutdown();
+            }
+        } finally {
+            opened.release();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(PAGES)
+    public BufferedImage pages() throws Exception {
+        RenderDelivery pages = new RenderDelivery(PAGES);
+        delivery = pages;
+        pool.start(source, dpi);
+        for (int i = 0; i < PAGES; i++) {
+            pool.request(i);
+        }
+        return pages.await();
+    }
+}
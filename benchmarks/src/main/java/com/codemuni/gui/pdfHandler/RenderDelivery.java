@@ -0,0 +1,44 @@
+package com.codemuni.gui.pdfHandler;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for a number of pages from a {@link PageRenderPool}; a failed page fails the wait.
+ */
+final class RenderDelivery implements PageRenderPool.PageConsumer {
+    private static final long TIMEOUT_MINUTES = 10;
+
+    private final CountDownLatch remaining;
+    private volatile BufferedImage lastImage;
+    private volatile Exception error;
+
+    RenderDelivery(int pages) {
+        this.remaining = new CountDownLatch(pages);
+    }
+
+    @Override
+    public void pageRendered(int generation, int pageIndex, BufferedImage image) {
+        lastImage = image;
+        remaining.countDown();
+    }
+
+    @Override
+    public void pageFailed(int generation, int pageIndex, Exception error) {
+        this.error = error;
+        remaining.countDown();
+    }
+
+    /**
+     * @return the last page delivered
+     */
+    BufferedImage await() throws Exception {
+        if (!remaining.await(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+            throw new TimeoutException(remaining.getCount() + " page(s) not rendered after " + TIMEOUT_MINUTES + " minutes");
+        }
+        if (error != null) throw error;
+        return lastImage;
+    }
+}
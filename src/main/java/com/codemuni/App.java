@@ -3,6 +3,7 @@ package com.codemuni;
 import com.codemuni.config.ConfigManager;
 import com.codemuni.gui.DialogUtils;
 import com.codemuni.gui.pdfHandler.PdfViewerMain;
+import com.codemuni.metrics.jmx.EmarkMBeans;
 import com.codemuni.utils.FileUtils;
 import com.formdev.flatlaf.themes.FlatMacDarkLaf;
 import org.apache.commons.logging.Log;
@@ -34,6 +35,7 @@ public class App {
     public static void main(String[] args) {
         AppInitializer.initialize();      // initialize folders and config
         configureProxyFromConfig();       // read proxy from config
+        EmarkMBeans.registerDefaults();   // signing, cache and metrics MBeans for JConsole / VisualVM
 
 //        resetDialogPreferences();
 
@@ -0,0 +1,280 @@
+package com.codemuni.cli;
+
+import com.codemuni.AppInitializer;
+import com.codemuni.core.keyStoresProvider.PKCS12KeyStoreProvider;
+import com.codemuni.core.placement.AnchorPlacement;
+import com.codemuni.core.signer.AppearanceImageCache;
+import com.codemuni.core.signer.AppearanceOptions;
+import com.codemuni.core.signer.EmptySignatureField;
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.metrics.jmx.EmarkMBeans;
+import com.codemuni.service.BatchSignerService;
+
+import java.io.Console;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Command line signing into existing empty signature fields, or next to anchor text, for unattended runs.
+ * <pre>
+ * java -cp eMark.jar com.codemuni.cli.BatchSign --pfx signer.p12 [options] &lt;file.pdf|folder&gt;...
+ * </pre>
+ * The keystore password is read from EMARK_PFX_PASSWORD, or asked on the console.
+ * Exits with 0 when every document was signed, 1 when some failed and 2 on bad usage.
+ */
+public final class BatchSign {
+
+    private static final String PASSWORD_ENV = "EMARK_PFX_PASSWORD";
+    private static final String QUEUE_GAUGE = "signing.queue.batch";
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -cp eMark.jar com.codemuni.cli.BatchSign --pfx <keystore.p12> [options] <file.pdf|folder>...",
+            "  --pfx <file>       PKCS#12 keystore with the signing key (password from " + PASSWORD_ENV + " or the console)",
+            "  --out <folder>     folder for signed files (default: next to the input, with a -signed suffix)",
+            "  --field <name>     signature field to sign (default: the first empty signature field)",
+            "  --list-fields      only list the empty signature fields of each document",
+            "  --anchor <text>    place a new signature next to this text instead of signing into a field",
+            "  --anchor-position below|above|right|left|over   where, relative to the anchor text (default: below)",
+            "  --anchor-size <w>x<h>   signature size in points (default: 200x60)",
+            "  --anchor-gap <n>   distance from the anchor text in points (default: 4)",
+            "  --anchor-last      use the last occurrence of the anchor text instead of the first",
+            "  --reason <text>    signing reason",
+            "  --location <text>  signing location",
+            "  --timestamp        timestamp with the configured TSA",
+            "  --ltv              embed revocation data",
+            "  --no-self-check    do not re-read and check each signed file before it is moved into place",
+            "  --metrics <file>   write per-phase latency histograms and outcome counters as JSON when done",
+            "  --trace            log one line per document with the time of each signing phase");
+
+    private BatchSign() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        String pfxPath = null;
+        File outputDir = null;
+        String fieldName = null;
+        boolean listOnly = false;
+        String anchorText = null;
+        String anchorPosition = null;
+        String anchorSize = null;
+        String anchorGap = null;
+        boolean anchorLast = false;
+        boolean checkOutput = true;
+        File metricsFile = null;
+        AnchorPlacement anchor = null;
+        AppearanceOptions options = new AppearanceOptions();
+        List<File> inputs = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--pfx":
+                        pfxPath = value(args, ++i);
+                        break;
+                    case "--out":
+                        outputDir = new File(value(args, ++i));
+                        break;
+                    case "--field":
+                        fieldName = value(args, ++i);
+                        break;
+                    case "--list-fields":
+                        listOnly = true;
+                        break;
+                    case "--anchor":
+                        anchorText = value(args, ++i);
+                        break;
+                    case "--anchor-position":
+                        anchorPosition = value(args, ++i);
+                        break;
+                    case "--anchor-size":
+                        anchorSize = value(args, ++i);
+                        break;
+                    case "--anchor-gap":
+                        anchorGap = value(args, ++i);
+                        break;
+                    case "--anchor-last":
+                        anchorLast = true;
+                        break;
+                    case "--reason":
+                        options.setReason(value(args, ++i));
+                        break;
+                    case "--location":
+                        options.setLocation(value(args, ++i));
+                        break;
+                    case "--timestamp":
+                        options.setTimestampEnabled(true);
+                        break;
+                    case "--ltv":
+                        options.setLtvEnabled(true);
+                        break;
+                    case "--no-self-check":
+                        checkOutput = false;
+                        break;
+                    case "--metrics":
+                        metricsFile = new File(value(args, ++i));
+                        break;
+                    case "--trace":
+                        MetricsRegistry.setTraceEnabled(true);
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i]);
+                        addInputs(new File(args[i]), inputs);
+                }
+            }
+            if (inputs.isEmpty()) throw new IllegalArgumentException("No PDF files given");
+            if (!listOnly && pfxPath == null) throw new IllegalArgumentException("--pfx is required for signing");
+            if (anchorText != null) {
+                if (fieldName != null) throw new IllegalArgumentException("--anchor and --field cannot be combined");
+                anchor = anchorPlacement(anchorText, anchorPosition, anchorSize, anchorGap, anchorLast);
+            } else if (anchorPosition != null || anchorSize != null || anchorGap != null || anchorLast) {
+                throw new IllegalArgumentException("--anchor-* options need --anchor");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        if (listOnly) return listFields(inputs);
+
+        AppInitializer.initialize(); // timestamp server settings
+        char[] password = readPassword();
+        if (password == null) {
+            System.err.println("No keystore password: set " + PASSWORD_ENV + " or run from a console.");
+            return 2;
+        }
+        if (outputDir != null && !outputDir.isDirectory() && !outputDir.mkdirs()) {
+            System.err.println("Cannot create output folder " + outputDir);
+            return 2;
+        }
+
+        try {
+            URL logo = BatchSign.class.getResource("/icons/logo.png");
+            if (logo != null) options.setWatermarkImage(AppearanceImageCache.getImage(logo));
+        } catch (Exception ignore) {
+        }
+
+        PKCS12KeyStoreProvider provider = new PKCS12KeyStoreProvider(pfxPath, password);
+        Arrays.fill(password, '\0');
+        try {
+            provider.getCertificate(); // fails early on a wrong password
+        } catch (Exception e) {
+            System.err.println("Cannot open keystore " + pfxPath + ": " + e.getMessage());
+            return 1;
+        }
+
+        EmarkMBeans.registerDefaults();
+        BatchSignerService service = new BatchSignerService(provider, options);
+        service.setFieldName(fieldName);
+        service.setAnchorPlacement(anchor);
+        service.setCheckOutput(checkOutput);
+        int failed = 0;
+        AtomicInteger remaining = new AtomicInteger(inputs.size());
+        LongSupplier queueDepth = remaining::get;
+        MetricsRegistry.gauge(QUEUE_GAUGE, queueDepth);
+        try {
+            for (File input : inputs) {
+                BatchSignerService.Result result = service.sign(input, outputFile(input, outputDir));
+                remaining.decrementAndGet();
+                if (result.isSuccess()) {
+                    System.out.println("OK     " + input + " -> " + result.getOutput() + " [" + result.getPlacement() + "]");
+                } else {
+                    failed++;
+                    System.out.println("FAILED " + input + ": " + result.getError().getMessage());
+                }
+            }
+        } finally {
+            MetricsRegistry.removeGauge(QUEUE_GAUGE, queueDepth);
+        }
+        System.out.println((inputs.size() - failed) + " signed, " + failed + " failed");
+        MetricsRegistry.logSummary();
+        if (metricsFile != null) {
+            try {
+                MetricsRegistry.writeJson(metricsFile.toPath());
+            } catch (IOException e) {
+                System.err.println("Cannot write metrics to " + metricsFile + ": " + e.getMessage());
+            }
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    private static AnchorPlacement anchorPlacement(String text, String position, String size, String gap, boolean last) {
+        AnchorPlacement placement = new AnchorPlacement(text);
+        if (position != null) placement.setPosition(AnchorPlacement.Position.fromName(position));
+        if (size != null) {
+            String[] parts = size.toLowerCase().split("x");
+            if (parts.length != 2) throw new IllegalArgumentException("Invalid --anchor-size: " + size);
+            placement.setSize(number(parts[0], "--anchor-size"), number(parts[1], "--anchor-size"));
+        }
+        if (gap != null) placement.setGap(number(gap, "--anchor-gap"));
+        placement.setLastOccurrence(last);
+        return placement;
+    }
+
+    private static float number(String value, String option) {
+        try {
+            return Float.parseFloat(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+        }
+    }
+
+    private static int listFields(List<File> inputs) {
+        int failed = 0;
+        for (File input : inputs) {
+            try {
+                List<EmptySignatureField> fields = BatchSignerService.listEmptyFields(input);
+                System.out.println(input + ": " + (fields.isEmpty() ? "no empty signature fields" : fields.size() + " empty signature field(s)"));
+                for (EmptySignatureField field : fields) {
+                    System.out.println("  " + field);
+                }
+            } catch (Exception e) {
+                failed++;
+                System.out.println(input + ": " + e.getMessage());
+            }
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    private static void addInputs(File file, List<File> inputs) {
+        if (file.isDirectory()) {
+            File[] pdfs = file.listFiles((dir, name) -> name.toLowerCase().endsWith(".pdf"));
+            if (pdfs != null) {
+                Arrays.sort(pdfs);
+                inputs.addAll(Arrays.asList(pdfs));
+            }
+        } else if (file.isFile()) {
+            inputs.add(file);
+        } else {
+            throw new IllegalArgumentException("No such file: " + file);
+        }
+    }
+
+    private static File outputFile(File input, File outputDir) {
+        if (outputDir != null) return new File(outputDir, input.getName());
+        String name = input.getName();
+        String base = name.toLowerCase().endsWith(".pdf") ? name.substring(0, name.length() - 4) : name;
+        return new File(input.getAbsoluteFile().getParentFile(), base + "-signed.pdf");
+    }
+
+    private static char[] readPassword() {
+        String fromEnv = System.getenv(PASSWORD_ENV);
+        if (fromEnv != null) return fromEnv.toCharArray();
+        Console console = System.console();
+        return console != null ? console.readPassword("Keystore password: ") : null;
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+}
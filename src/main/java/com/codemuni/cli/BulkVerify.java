@@ -0,0 +1,167 @@
+package com.codemuni.cli;
+
+import com.codemuni.core.keyStoresProvider.X509CertificateValidatorImpl;
+import com.codemuni.core.verifier.SignatureVerifier;
+import com.codemuni.core.verifier.VerificationIndex;
+import com.codemuni.core.verifier.VerificationReport;
+import com.codemuni.metrics.jmx.EmarkMBeans;
+import com.codemuni.service.BulkVerificationService;
+import com.codemuni.utils.FileUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Command line verification of every signed PDF under one or more folders, e.g. for a nightly archive check.
+ * <pre>
+ * java -cp eMark.jar com.codemuni.cli.BulkVerify --report report.jsonl --index verify-index.jsonl /archive
+ * </pre>
+ * With --index, files that did not change since the previous run are reported from the index instead of being
+ * verified again. Exits with 0 when every file is VALID, 1 otherwise and 2 on bad usage.
+ */
+public final class BulkVerify {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -cp eMark.jar com.codemuni.cli.BulkVerify [options] <folder|file.pdf>...",
+            "  --report <file>    report file (default: standard output)",
+            "  --format jsonl|csv report format (default: from the report file extension, else jsonl)",
+            "  --index <file>     results of the previous run; unchanged files are not verified again, and the",
+            "                     index is replaced with the results of this run when it completes",
+            "  --full             verify every file, ignoring the index (the index is still written)",
+            "  --threads <n>      parallel workers (default: " + BulkVerificationService.defaultThreadCount() + ")",
+            "  --trust <cert>     also trust this root certificate (PEM or DER); may be repeated");
+
+    private BulkVerify() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        Path reportPath = null;
+        String format = null;
+        Path indexPath = null;
+        boolean full = false;
+        int threads = BulkVerificationService.defaultThreadCount();
+        Set<X509Certificate> trustedRoots = new HashSet<>(SignatureVerifier.systemTrustedRoots());
+        List<Path> roots = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--report":
+                        reportPath = Paths.get(value(args, ++i));
+                        break;
+                    case "--format":
+                        format = value(args, ++i).toLowerCase();
+                        if (!format.equals("jsonl") && !format.equals("csv")) {
+                            throw new IllegalArgumentException("Unknown format " + format);
+                        }
+                        break;
+                    case "--index":
+                        indexPath = Paths.get(value(args, ++i));
+                        break;
+                    case "--full":
+                        full = true;
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i));
+                        if (threads < 1) throw new IllegalArgumentException("--threads must be at least 1");
+                        break;
+                    case "--trust":
+                        trustedRoots.addAll(readCertificates(value(args, ++i)));
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i]);
+                        Path root = Paths.get(args[i]);
+                        if (!Files.exists(root)) throw new IllegalArgumentException("No such file or folder: " + root);
+                        roots.add(root);
+                }
+            }
+            if (roots.isEmpty()) throw new IllegalArgumentException("No folders given");
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number: " + e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (format == null) {
+            format = reportPath != null && reportPath.toString().toLowerCase().endsWith(".csv") ? "csv" : "jsonl";
+        }
+
+        EmarkMBeans.registerDefaults();
+        BulkVerificationService service = new BulkVerificationService(
+                new SignatureVerifier(new X509CertificateValidatorImpl(), trustedRoots), threads);
+        Path nextIndexPath = null;
+        try {
+            VerificationIndex previous = indexPath == null || full ? VerificationIndex.empty() : VerificationIndex.load(indexPath);
+            if (indexPath != null) {
+                Path parent = indexPath.toAbsolutePath().getParent();
+                nextIndexPath = Files.createTempFile(parent, "." + indexPath.getFileName(), ".part");
+            }
+
+            BulkVerificationService.Summary summary;
+            try (VerificationReport report = openReport(reportPath, format);
+                 VerificationReport nextIndex = nextIndexPath != null ? VerificationReport.jsonLines(writer(nextIndexPath)) : null) {
+                summary = service.verify(roots, previous, report, nextIndex);
+            }
+            if (nextIndexPath != null) FileUtils.moveReplacing(nextIndexPath, indexPath);
+
+            System.err.println(summary);
+            return summary.isAllValid() ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Verification failed: " + e.getMessage());
+            return 1;
+        } finally {
+            if (nextIndexPath != null) {
+                try {
+                    Files.deleteIfExists(nextIndexPath);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    private static VerificationReport openReport(Path reportPath, String format) throws IOException {
+        Writer out = reportPath != null
+                ? writer(reportPath)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        return format.equals("csv") ? VerificationReport.csv(out) : VerificationReport.jsonLines(out);
+    }
+
+    private static Writer writer(Path path) throws IOException {
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+    }
+
+    private static List<X509Certificate> readCertificates(String path) {
+        List<X509Certificate> certificates = new ArrayList<>();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+            for (Certificate certificate : CertificateFactory.getInstance("X.509").generateCertificates(in)) {
+                certificates.add((X509Certificate) certificate);
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot read certificate " + path + ": " + e.getMessage());
+        }
+        if (certificates.isEmpty()) throw new IllegalArgumentException("No certificate in " + path);
+        return certificates;
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+}
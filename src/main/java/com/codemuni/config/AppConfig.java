@@ -25,6 +25,9 @@ public class AppConfig {
     @JsonProperty("PROXY")
     public Map<String, String> proxy = new HashMap<>();
 
+    @JsonProperty("PERFORMANCE")
+    public Map<String, String> performance = new HashMap<>();
+
 
     public Map<String, String> getTimestampServer() {
         return timestampServer;
@@ -42,6 +45,14 @@ public class AppConfig {
         this.proxy = proxy;
     }
 
+    public Map<String, String> getPerformance() {
+        return performance;
+    }
+
+    public void setPerformance(Map<String, String> performance) {
+        this.performance = performance;
+    }
+
     public String getSoftHSM() {
         return softHSM;
     }
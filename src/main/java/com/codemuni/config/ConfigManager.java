@@ -10,6 +10,7 @@ import org.apache.commons.logging.LogFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +46,9 @@ public class ConfigManager extends FileUtils {
         try {
             ensureDirectory(new File(CONFIG_FILE).getParent());
             mapper.writerWithDefaultPrettyPrinter().writeValue(new File(CONFIG_FILE), config);
+            synchronized (PERFORMANCE_LOCK) {
+                performance = null;
+            }
             return true;
         } catch (IOException e) {
             log.error("Failed to write config file", e);
@@ -184,4 +188,72 @@ public class ConfigManager extends FileUtils {
         return writeConfig(config);
     }
 
+    // ──────────────────────────────
+// Performance Tuning
+// ──────────────────────────────
+    public static final String RENDER_CACHE_MB = "renderCacheMb";
+    public static final String LARGE_DOCUMENT_THRESHOLD_MB = "largeDocumentThresholdMb";
+    public static final String VERIFY_SIGNED_OUTPUT = "verifySignedOutput";
+
+    // Read on hot paths (every open and every signature), so parsed once; writeConfig() drops it
+    private static final Object PERFORMANCE_LOCK = new Object();
+    private static volatile Map<String, String> performance;
+
+    public static Map<String, String> getPerformanceSettings() {
+        return new HashMap<>(performance());
+    }
+
+    private static Map<String, String> performance() {
+        Map<String, String> settings = performance;
+        if (settings != null) return settings;
+        synchronized (PERFORMANCE_LOCK) { // a save clears it after any read in progress, so nothing stale stays
+            if (performance == null) {
+                performance = Collections.unmodifiableMap(new HashMap<>(readConfig().performance));
+            }
+            return performance;
+        }
+    }
+
+    /**
+     * Byte budget for rendered page images. Defaults to a quarter of the max heap, capped at 256 MB.
+     */
+    public static long getRenderCacheBytes() {
+        long configuredMb = getPerformanceLong(RENDER_CACHE_MB, 0);
+        if (configuredMb > 0) return configuredMb * 1024 * 1024;
+        return Math.min(256L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 4);
+    }
+
+    /**
+     * File size from which documents are always opened in large-document mode. Defaults to 200 MB.
+     */
+    public static long getLargeDocumentThresholdBytes() {
+        long configuredMb = getPerformanceLong(LARGE_DOCUMENT_THRESHOLD_MB, 0);
+        return (configuredMb > 0 ? configuredMb : 200L) * 1024 * 1024;
+    }
+
+    /**
+     * Whether documents signed in the viewer are checked before they are saved. Off by default.
+     */
+    public static boolean isSignedOutputCheckEnabled() {
+        String value = performance().get(VERIFY_SIGNED_OUTPUT);
+        return value != null && Boolean.parseBoolean(value.trim());
+    }
+
+    public static boolean setPerformanceSetting(String key, String value) {
+        AppConfig config = readConfig();
+        config.performance.put(key, value);
+        return writeConfig(config);
+    }
+
+    private static long getPerformanceLong(String key, long defaultValue) {
+        String value = performance().get(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value for performance setting " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
 }
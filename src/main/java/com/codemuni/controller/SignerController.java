@@ -2,7 +2,9 @@ package com.codemuni.controller;
 
 import com.codemuni.App;
 import com.codemuni.config.ConfigManager;
+import com.codemuni.core.document.SharedDocumentSource;
 import com.codemuni.core.keyStoresProvider.*;
+import com.codemuni.core.signer.AppearanceImageCache;
 import com.codemuni.core.signer.AppearanceOptions;
 import com.codemuni.exceptions.CertificateNotFoundException;
 import com.codemuni.exceptions.IncorrectPINException;
@@ -42,8 +44,11 @@ public class SignerController {
     private final PdfSignerService signerService = new PdfSignerService();
     private File selectedFile;
     private String pdfPassword;
+    private SharedDocumentSource documentSource;
     private int pageNumber;
+    private int pageCount;
     private int[] coordinates;
+    private String fieldName;
     private List<KeystoreAndCertificateInfo> keystoreAndCertificateInfos;
     private KeystoreAndCertificateInfo keystoreAndCertificateInfo;
     private PKCS12KeyStoreProvider pkcs12KeyStoreProvider;
@@ -61,66 +66,115 @@ public class SignerController {
         this.pdfPassword = pdfPassword;
     }
 
+    /**
+     * Mapping of the document on screen; reused for signing while the file is unchanged.
+     * A reference is held until {@link #startSigningService()} returns, as its dialogs let the viewer
+     * close or reopen the document meanwhile.
+     */
+    public void setDocumentSource(SharedDocumentSource documentSource) {
+        releaseDocumentSource();
+        this.documentSource = documentSource == null ? null : documentSource.tryRetain();
+    }
+
     public void setPageNumber(int pageNumber) {
         this.pageNumber = pageNumber;
     }
 
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
     public void setCoordinates(int[] coordinates) {
         this.coordinates = coordinates;
     }
 
+    /**
+     * Existing empty signature field to sign into; null to create a field at the drawn coordinates.
+     */
+    public void setFieldName(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
     /**
      * Starts the signing service by prompting the user to select a certificate and signing the PDF.
      * Execution stops gracefully if the user cancels at any stage.
      */
     public void startSigningService() throws KeyStoreException, IOException, CertificateException, CertificateNotFoundException, UnsupportedCallbackException, NoSuchAlgorithmException, IncorrectPINException {
-        loadValidCertificates();
+        try {
+            loadValidCertificates();
 
-        if (keystoreAndCertificateInfos.isEmpty()) {
-            log.error("No valid certificates were found in the keystore. Prompting user to select a PFX certificate.");
-        }
+            if (keystoreAndCertificateInfos.isEmpty()) {
+                log.error("No valid certificates were found in the keystore. Prompting user to select a PFX certificate.");
+            }
 
-        CertificateListDialog certDialog = new CertificateListDialog(PdfViewerMain.INSTANCE, keystoreAndCertificateInfos);
-        certDialog.setVisible(true);
+            CertificateListDialog certDialog = new CertificateListDialog(PdfViewerMain.INSTANCE, keystoreAndCertificateInfos);
+            certDialog.setVisible(true);
 
-        keystoreAndCertificateInfo = certDialog.getSelectedKeystoreInfo();
+            keystoreAndCertificateInfo = certDialog.getSelectedKeystoreInfo();
 
-        if (keystoreAndCertificateInfo == null) {
-            throw new UserCancelledOperationException("User cancelled certificate selection");
-        }
+            if (keystoreAndCertificateInfo == null) {
+                throw new UserCancelledOperationException("User cancelled certificate selection");
+            }
 
-        X509Certificate x509Certificate = loadSelectedCertificate();
-        if (x509Certificate == null) {
-            LOGGER.log(Level.INFO, "No certificate loaded. Signing cancelled.");
-            return;
-        }
+            X509Certificate x509Certificate = loadSelectedCertificate();
+            if (x509Certificate == null) {
+                LOGGER.log(Level.INFO, "No certificate loaded. Signing cancelled.");
+                return;
+            }
 
 
-        SignatureAppearanceDialog appearanceDialog = new SignatureAppearanceDialog(PdfViewerMain.INSTANCE);
-        appearanceDialog.setCertificate(x509Certificate);
-        appearanceDialog.showAppearanceConfigPrompt();
+            SignatureAppearanceDialog appearanceDialog = new SignatureAppearanceDialog(PdfViewerMain.INSTANCE);
+            appearanceDialog.setCertificate(x509Certificate);
+            appearanceDialog.setPageCount(pageCount);
+            appearanceDialog.showAppearanceConfigPrompt();
 
-        AppearanceOptions appearanceOptions = appearanceDialog.getAppearanceOptions();
-        if (appearanceOptions == null) return;
+            AppearanceOptions appearanceOptions = appearanceDialog.getAppearanceOptions();
+            if (appearanceOptions == null) return;
 
-        // watermark image
-        try {
-            Image watermarkImage = Image.getInstance(Objects.requireNonNull(App.class.getResource("/icons/logo.png")));
-            appearanceOptions.setWatermarkImage(watermarkImage);
-        } catch (BadElementException | IOException ignore) {
-        }
+            // watermark image
+            try {
+                Image watermarkImage = AppearanceImageCache.getImage(Objects.requireNonNull(App.class.getResource("/icons/logo.png")));
+                appearanceOptions.setWatermarkImage(watermarkImage);
+            } catch (BadElementException | IOException ignore) {
+            }
+
+            appearanceOptions.setPageNumber(pageNumber);
+            appearanceOptions.setCoordinates(coordinates);
+            appearanceOptions.setFieldName(fieldName);
 
-        appearanceOptions.setPageNumber(pageNumber);
-        appearanceOptions.setCoordinates(coordinates);
 
+            signerService.setSelectedFile(selectedFile);
+            signerService.setPdfPassword(pdfPassword);
+            signerService.setDocumentSource(documentSource);
 
-        signerService.setSelectedFile(selectedFile);
-        signerService.setPdfPassword(pdfPassword);
+            // Parsing, appearance and hashing need only the certificate, so they run while the token asks for the PIN
+            signerService.prepareSigning(x509Certificate, appearanceOptions);
+            // The preparation holds its own reference; the viewer may need to unmap the file to save over it
+            signerService.setDocumentSource(null);
+            releaseDocumentSource();
 
+            KeyStoreProvider provider;
+            try {
+                provider = createProvider();
+            } catch (Exception e) {
+                signerService.cancelSigning();
+                throw e;
+            }
+            if (provider == null) {
+                signerService.cancelSigning();
+                return;
+            }
+            signerService.setProvider(provider);
+            signerService.completeSigning();
+        } finally {
+            signerService.setDocumentSource(null);
+            releaseDocumentSource();
+        }
+    }
 
-        KeyStoreProvider provider = createProvider();
-        signerService.setProvider(provider);
-        signerService.launchSigningFlow(appearanceOptions);
+    private void releaseDocumentSource() {
+        if (documentSource != null) documentSource.release();
+        documentSource = null;
     }
 
     /**
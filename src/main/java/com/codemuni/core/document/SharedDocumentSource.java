@@ -0,0 +1,407 @@
+package com.codemuni.core.document;
+
+import com.itextpdf.text.io.RandomAccessSource;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One read-only memory mapping of a PDF file, shared by the preview (PDFBox) and signing (iText).
+ * - The file is mapped once, in chunks of up to 1 GB; every reader gets its own view with its own position
+ * - Remembers the password that opened the document, so an encrypted file is unlocked only once
+ * - iText readers are opened in partial mode: only the xref and the objects signing touches are parsed
+ * - Reference counted: the opener holds the first reference and every open view holds one more;
+ * the file is unmapped when the last one is released
+ */
+public final class SharedDocumentSource {
+    private static final Log log = LogFactory.getLog(SharedDocumentSource.class);
+
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+    // sun.misc.Unsafe.invokeCleaner(ByteBuffer) on Java 9+, where the Java 8 cleaner() is not accessible
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+        } catch (Exception e) {
+            invokeCleaner = null; // Java 8
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final File file;
+    private final String canonicalPath;
+    private final long length;
+    private final long lastModified;
+    private final MappedByteBuffer[] chunks;
+
+    private final Object lock = new Object();
+    private int references = 1; // guarded by lock
+    private boolean unmapped;   // guarded by lock
+    private volatile String password;
+
+    private SharedDocumentSource(File file, long length, long lastModified, MappedByteBuffer[] chunks) {
+        this.file = file;
+        this.canonicalPath = canonicalPath(file);
+        this.length = length;
+        this.lastModified = lastModified;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Maps the file; the caller owns the returned reference and must {@link #release()} it.
+     */
+    public static SharedDocumentSource open(File file) throws IOException {
+        long lastModified = file.lastModified();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + CHUNK_SIZE - 1) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long offset = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(CHUNK_SIZE, length - offset));
+            }
+            // The mapping stays valid after the channel is closed
+            return new SharedDocumentSource(file, length, lastModified, chunks);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Password that opened the document, or null if it is not encrypted (or not opened yet).
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * True if the given file is the one mapped here and has not been modified since.
+     */
+    public boolean isSameFile(File other) {
+        return other != null
+                && canonicalPath.equals(canonicalPath(other))
+                && other.length() == length
+                && other.lastModified() == lastModified;
+    }
+
+    /**
+     * Takes an additional reference.
+     *
+     * @throws IllegalStateException if the source has already been released
+     */
+    public SharedDocumentSource retain() {
+        synchronized (lock) {
+            if (references == 0) throw new IllegalStateException(file + " has already been released");
+            references++;
+            return this;
+        }
+    }
+
+    /**
+     * Takes an additional reference unless the source has already been released.
+     *
+     * @return this, or null if it was released (callers then read the file themselves)
+     */
+    public SharedDocumentSource tryRetain() {
+        synchronized (lock) {
+            if (references == 0) return null;
+            references++;
+            return this;
+        }
+    }
+
+    public void release() {
+        synchronized (lock) {
+            if (references == 0) return;
+            if (--references > 0) return;
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            unmap(chunks[i]);
+            chunks[i] = null;
+        }
+        log.debug("Unmapped " + file);
+        synchronized (lock) {
+            unmapped = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until the last reference is released and the file is unmapped, e.g. before the file is replaced
+     * (Windows refuses to replace a mapped file). Releases nothing itself.
+     *
+     * @return false if references are still held after the timeout
+     */
+    public boolean awaitUnmapped(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (lock) {
+            while (!unmapped) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                lock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Parses the document with PDFBox. On success the password is remembered for later readers.
+     *
+     * @param password empty or null for unencrypted documents
+     */
+    public PDDocument openPdDocument(String password, MemoryUsageSetting memoryUsage) throws IOException {
+        PdfBoxView view = new PdfBoxView();
+        ScratchFile scratchFile = new ScratchFile(memoryUsage);
+        try {
+            PDFParser parser = new PDFParser(view, password == null ? "" : password, null, null, scratchFile);
+            parser.parse();
+            PDDocument document = parser.getPDDocument();
+            this.password = (password == null || password.isEmpty()) ? null : password;
+            return document; // closing the document closes the view
+        } catch (IOException e) {
+            scratchFile.close();
+            view.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Parses the document with PDFBox, using the password that opened it before.
+     */
+    public PDDocument openPdDocument(MemoryUsageSetting memoryUsage) throws IOException {
+        return openPdDocument(password, memoryUsage);
+    }
+
+    /**
+     * Opens an iText reader in partial mode over the mapping, using the password that opened the document before.
+     */
+    public PdfReader openPdfReader() throws IOException {
+        return openPdfReader(password);
+    }
+
+    /**
+     * Opens an iText reader in partial mode over the mapping.
+     * The original bytes are never copied to the heap; in append mode iText streams them from the mapping.
+     *
+     * @param pwd empty or null for unencrypted documents
+     */
+    public PdfReader openPdfReader(String pwd) throws IOException {
+        byte[] ownerPassword = (pwd == null || pwd.isEmpty()) ? null : pwd.getBytes();
+        ItextView view = new ItextView();
+        try {
+            PdfReader reader = new PdfReader(new RandomAccessFileOrArray(view), ownerPassword); // closing the reader closes the view
+            if (ownerPassword != null) this.password = pwd;
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            view.close();
+            throw e;
+        }
+    }
+
+    private static String canonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Frees the mapping right away instead of when the buffer is garbage collected (which on Windows
+     * keeps the file locked): through Unsafe.invokeCleaner on Java 9+, through the buffer's cleaner on Java 8.
+     * Falls back to the collector if neither is accessible.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null) return;
+        try {
+            if (INVOKE_CLEANER != null && UNSAFE != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return;
+            }
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+        } catch (Exception e) {
+            log.debug("Mapped buffer is left to the garbage collector", e);
+        }
+    }
+
+    /**
+     * Reading position over the mapping. Not thread safe; each parser gets its own.
+     */
+    private abstract class View {
+        // Per-view duplicates, so relative bulk reads do not disturb other views
+        private final ByteBuffer[] buffers = new ByteBuffer[chunks.length];
+        private boolean closed;
+
+        View() {
+            retain();
+        }
+
+        final int byteAt(long position) throws IOException {
+            ensureOpen();
+            return chunks[(int) (position >>> CHUNK_BITS)].get((int) (position & CHUNK_MASK)) & 0xFF;
+        }
+
+        /**
+         * Copies up to len bytes from the given position; -1 at the end of the file.
+         */
+        final int copy(long position, byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            if (position >= length) return -1;
+            int total = (int) Math.min(len, length - position);
+            int done = 0;
+            while (done < total) {
+                long pos = position + done;
+                int chunk = (int) (pos >>> CHUNK_BITS);
+                ByteBuffer buffer = buffers[chunk];
+                if (buffer == null) buffer = buffers[chunk] = chunks[chunk].duplicate();
+                buffer.position((int) (pos & CHUNK_MASK));
+                int n = Math.min(total - done, buffer.remaining());
+                buffer.get(b, off + done, n);
+                done += n;
+            }
+            return total;
+        }
+
+        final boolean isViewClosed() {
+            return closed;
+        }
+
+        final void ensureOpen() throws IOException {
+            if (closed) throw new IOException(file + " is closed");
+        }
+
+        public void close() {
+            if (closed) return;
+            closed = true;
+            release();
+        }
+    }
+
+    private final class ItextView extends View implements RandomAccessSource {
+        @Override
+        public int get(long position) throws IOException {
+            return position >= length ? -1 : byteAt(position);
+        }
+
+        @Override
+        public int get(long position, byte[] bytes, int off, int len) throws IOException {
+            return copy(position, bytes, off, len);
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+    }
+
+    private final class PdfBoxView extends View implements RandomAccessRead {
+        private long position;
+
+        @Override
+        public int read() throws IOException {
+            if (position >= length) return -1;
+            return byteAt(position++);
+        }
+
+        @Override
+        public int read(byte[] b) throws IOException {
+            return read(b, 0, b.length);
+        }
+
+        @Override
+        public int read(byte[] b, int offset, int len) throws IOException {
+            int n = copy(position, b, offset, len);
+            if (n > 0) position += n;
+            return n;
+        }
+
+        @Override
+        public long getPosition() throws IOException {
+            ensureOpen();
+            return position;
+        }
+
+        @Override
+        public void seek(long newPosition) throws IOException {
+            ensureOpen();
+            if (newPosition < 0) throw new IOException("Invalid position " + newPosition);
+            position = newPosition;
+        }
+
+        @Override
+        public long length() throws IOException {
+            ensureOpen();
+            return length;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return isViewClosed();
+        }
+
+        @Override
+        public int peek() throws IOException {
+            return position >= length ? -1 : byteAt(position);
+        }
+
+        @Override
+        public void rewind(int bytes) throws IOException {
+            seek(position - bytes);
+        }
+
+        @Override
+        public byte[] readFully(int len) throws IOException {
+            byte[] bytes = new byte[len];
+            if (len == 0) return bytes;
+            int n = copy(position, bytes, 0, len);
+            if (n < len) throw new IOException("Premature end of file");
+            position += n;
+            return bytes;
+        }
+
+        @Override
+        public boolean isEOF() throws IOException {
+            return peek() == -1;
+        }
+
+        @Override
+        public int available() throws IOException {
+            ensureOpen();
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, length - position));
+        }
+    }
+}
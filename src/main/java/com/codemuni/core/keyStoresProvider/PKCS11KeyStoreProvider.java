@@ -2,6 +2,10 @@ package com.codemuni.core.keyStoresProvider;
 
 import com.codemuni.exceptions.*;
 import com.codemuni.gui.SmartCardCallbackHandler;
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.metrics.jfr.EventSpan;
+import com.codemuni.metrics.jfr.FlightRecorderEvents;
+import com.codemuni.metrics.jmx.EmarkMBeans;
 import com.codemuni.model.KeystoreAndCertificateInfo;
 import com.codemuni.utils.AppConstants;
 import com.codemuni.utils.FileUtils;
@@ -25,6 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * PKCS#11 KeyStore provider implementation with persistent session support.
  * PIN is only requested once per app lifecycle unless explicitly logged out/reset.
+ * Calls into the library are timed and emitted as Flight Recorder events; the session state is the TokenSession MBean.
  */
 public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
 
@@ -45,9 +50,11 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
 
     public PKCS11KeyStoreProvider(List<String> pkcs11LibPaths) {
         this.pkcs11LibPathsToBeLoadPublicKey = Objects.requireNonNull(pkcs11LibPaths);
+        EmarkMBeans.register("TokenSession", new PKCS11TokenSession(this));
     }
 
     public PKCS11KeyStoreProvider() {
+        EmarkMBeans.register("TokenSession", new PKCS11TokenSession(this));
     }
 
     private static long findSlotByTokenSerial(String libPath, String desiredSerial)
@@ -134,10 +141,15 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
 
         List<KeystoreAndCertificateInfo> result = new ArrayList<>();
         for (String libPath : pkcs11LibPathsToBeLoadPublicKey) {
+            long start = System.nanoTime();
+            EventSpan call = FlightRecorderEvents.pkcs11Call("enumerate", libPath);
             try {
                 enumerateLibraryCertificates(libPath, result::add);
             } catch (Exception ex) {
                 LOG.warn("Unable to read certificates from PKCS#11 library: " + libPath, ex);
+            } finally {
+                MetricsRegistry.recordSince("keystore.pkcs11.enumerate", start);
+                call.end();
             }
         }
         return result;
@@ -216,7 +228,15 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
         Objects.requireNonNull(pkcs11LibPath, "PKCS#11 library path must be set.");
         Objects.requireNonNull(tokenSerialNumber, "Token serial number must be set.");
 
-        long slot = findSlotByTokenSerial(pkcs11LibPath, tokenSerialNumber);
+        long start = System.nanoTime();
+        EventSpan call = FlightRecorderEvents.pkcs11Call("find_slot", pkcs11LibPath);
+        long slot;
+        try {
+            slot = findSlotByTokenSerial(pkcs11LibPath, tokenSerialNumber);
+        } finally {
+            MetricsRegistry.recordSince("keystore.pkcs11.find_slot", start);
+            call.end();
+        }
 
         if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
             Security.addProvider(BC_PROVIDER);
@@ -230,6 +250,8 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
         sunPKCS11Provider = new SunPKCS11(new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8)));
         Security.addProvider(sunPKCS11Provider);
 
+        start = System.nanoTime();
+        call = FlightRecorderEvents.pkcs11Call("login", pkcs11LibPath);
         try {
             KeyStore.Builder builder = KeyStore.Builder.newInstance(
                     "PKCS11", null, new KeyStore.CallbackHandlerProtection(pinHandler));
@@ -237,6 +259,9 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
             LOG.info("Login successful — session will remain active until logout() or reset().");
         } catch (KeyStoreException e) {
             handleLoginException(e);
+        } finally {
+            MetricsRegistry.recordSince("keystore.pkcs11.login", start); // includes PIN entry
+            call.end();
         }
     }
 
@@ -342,6 +367,18 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
         pkcs11LibPath = null;
     }
 
+    public boolean isLoggedIn() {
+        return keyStore != null;
+    }
+
+    String getPkcs11LibPath() {
+        return pkcs11LibPath;
+    }
+
+    String getTokenSerialNumber() {
+        return tokenSerialNumber;
+    }
+
     @Override
     public String getProvider() {
         return (sunPKCS11Provider != null) ? sunPKCS11Provider.getName() : null;
@@ -356,6 +393,8 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
             throw new KeyStoreInitializationException("KeyStore not loaded. Call login() first.");
         }
         String alias = getAliasForCertificateSerial();
+        long start = System.nanoTime();
+        EventSpan call = FlightRecorderEvents.pkcs11Call("get_key", pkcs11LibPath);
         try {
             PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, null);
             if (privateKey == null) {
@@ -366,6 +405,9 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
             throw new PrivateKeyAccessException("Unable to access private key: " + e.getMessage(), e);
         } catch (NoSuchAlgorithmException e) {
             throw new KeyStoreInitializationException("Unsupported algorithm: " + e.getMessage(), e);
+        } finally {
+            MetricsRegistry.recordSince("keystore.pkcs11.get_key", start);
+            call.end();
         }
     }
 
@@ -389,7 +431,15 @@ public final class PKCS11KeyStoreProvider implements KeyStoreProvider {
         if (keyStore == null) {
             throw new KeyStoreException("KeyStore not loaded. Call login() first.");
         }
-        Certificate[] chain = keyStore.getCertificateChain(getAliasForCertificateSerial());
+        long start = System.nanoTime();
+        EventSpan call = FlightRecorderEvents.pkcs11Call("get_chain", pkcs11LibPath);
+        Certificate[] chain;
+        try {
+            chain = keyStore.getCertificateChain(getAliasForCertificateSerial());
+        } finally {
+            MetricsRegistry.recordSince("keystore.pkcs11.get_chain", start);
+            call.end();
+        }
         if (chain == null || chain.length == 0) {
             throw new KeyStoreException("No certificate chain found.");
         }
@@ -0,0 +1,34 @@
+package com.codemuni.core.keyStoresProvider;
+
+import com.codemuni.metrics.jmx.TokenSessionMXBean;
+
+/**
+ * Live view of a {@link PKCS11KeyStoreProvider}'s session for JMX.
+ */
+final class PKCS11TokenSession implements TokenSessionMXBean {
+    private final PKCS11KeyStoreProvider provider;
+
+    PKCS11TokenSession(PKCS11KeyStoreProvider provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public boolean isLoggedIn() {
+        return provider.isLoggedIn();
+    }
+
+    @Override
+    public String getProviderName() {
+        return provider.getProvider();
+    }
+
+    @Override
+    public String getLibraryPath() {
+        return provider.getPkcs11LibPath();
+    }
+
+    @Override
+    public String getTokenSerialNumber() {
+        return provider.getTokenSerialNumber();
+    }
+}
@@ -6,6 +6,7 @@ import com.codemuni.exceptions.PrivateKeyAccessException;
 import com.codemuni.exceptions.UserCancelledPasswordEntryException;
 import com.codemuni.gui.PasswordDialog;
 import com.codemuni.gui.pdfHandler.PdfViewerMain;
+import com.codemuni.metrics.MetricsRegistry;
 import com.codemuni.model.KeystoreAndCertificateInfo;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -26,6 +27,7 @@ public class PKCS12KeyStoreProvider implements KeyStoreProvider {
     private static final int MAX_PIN_ATTEMPTS = 3;
     private static final Log log = LogFactory.getLog(PKCS12KeyStoreProvider.class);
     private final String pfxFilePath;
+    private final boolean promptForPassword;
     private final Provider provider = new BouncyCastleProvider();
     // Session-level cached data
     private KeyStore keyStore;
@@ -36,6 +38,16 @@ public class PKCS12KeyStoreProvider implements KeyStoreProvider {
 
     public PKCS12KeyStoreProvider(String pfxFilePath) {
         this.pfxFilePath = pfxFilePath;
+        this.promptForPassword = true;
+    }
+
+    /**
+     * For unattended use: the password is given up front and a wrong one fails instead of prompting.
+     */
+    public PKCS12KeyStoreProvider(String pfxFilePath, char[] password) {
+        this.pfxFilePath = pfxFilePath;
+        this.promptForPassword = false;
+        this.cachedPassword = password.clone();
     }
 
     @Override
@@ -61,6 +73,9 @@ public class PKCS12KeyStoreProvider implements KeyStoreProvider {
 
     private void loadKeyStore() throws KeyStoreInitializationException, UserCancelledPasswordEntryException {
         if (keyStore != null) return; // Already loaded
+        if (cachedPassword == null && !promptForPassword) {
+            throw new KeyStoreInitializationException("Failed to load PKCS12 keystore: no valid password");
+        }
 
         try {
             Security.addProvider(provider);
@@ -70,11 +85,14 @@ public class PKCS12KeyStoreProvider implements KeyStoreProvider {
                 cachedPassword = promptPasswordWithRetry();
             }
 
+            long start = System.nanoTime();
             try (FileInputStream fis = new FileInputStream(pfxFilePath)) {
                 keyStore.load(fis, cachedPassword);
+            } finally {
+                MetricsRegistry.recordSince("keystore.pkcs12.load", start);
             }
         } catch (IOException | GeneralSecurityException e) {
-            // If load fails after retry, clear cache to force re-prompt later
+            // If load fails after retry, clear cache to force re-prompt later (or fail again without a prompt)
             cachedPassword = null;
             keyStore = null;
 
@@ -172,6 +190,7 @@ public class PKCS12KeyStoreProvider implements KeyStoreProvider {
 
         loadKeyStore();
         String alias = getSigningAlias();
+        long start = System.nanoTime();
         try {
             Key key = keyStore.getKey(alias, cachedPassword);
             if (!(key instanceof PrivateKey)) {
@@ -181,6 +200,8 @@ public class PKCS12KeyStoreProvider implements KeyStoreProvider {
             return privateKey;
         } catch (UnrecoverableKeyException | NoSuchAlgorithmException e) {
             throw new PrivateKeyAccessException("Unable to access private key.", e);
+        } finally {
+            MetricsRegistry.recordSince("keystore.pkcs12.get_key", start);
         }
     }
 
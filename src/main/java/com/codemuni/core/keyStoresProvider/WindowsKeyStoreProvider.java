@@ -4,6 +4,7 @@ package com.codemuni.core.keyStoresProvider;
 import com.codemuni.exceptions.CertificateNotFoundException;
 import com.codemuni.exceptions.KeyStoreInitializationException;
 import com.codemuni.exceptions.PrivateKeyAccessException;
+import com.codemuni.metrics.MetricsRegistry;
 import com.codemuni.model.KeystoreAndCertificateInfo;
 import com.codemuni.utils.AppConstants;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -27,10 +28,12 @@ public class WindowsKeyStoreProvider extends X509CertificateValidatorImpl implem
     private String serialHex;
 
     public WindowsKeyStoreProvider() throws KeyStoreInitializationException {
+        long start = System.nanoTime();
         try {
             Security.addProvider(cryptoProvider);
             this.keyStore = KeyStore.getInstance("Windows-MY", provider);
             this.keyStore.load(null, null);
+            MetricsRegistry.recordSince("keystore.windows.load", start);
         } catch (KeyStoreException | NoSuchProviderException e) {
             throw new KeyStoreInitializationException("Failed to initialize KeyStore: " + e.getMessage(), e);
         } catch (IOException | NoSuchAlgorithmException | CertificateException e) {
@@ -107,6 +110,7 @@ public class WindowsKeyStoreProvider extends X509CertificateValidatorImpl implem
 
 
     public PrivateKey getPrivateKey() throws KeyStoreInitializationException, CertificateNotFoundException, PrivateKeyAccessException {
+        long start = System.nanoTime();
         try {
             String alias = findAliasByCertSerial(serialHex);
             return (PrivateKey) keyStore.getKey(alias, null);
@@ -114,6 +118,8 @@ public class WindowsKeyStoreProvider extends X509CertificateValidatorImpl implem
             throw new PrivateKeyAccessException("Invalid PIN or access denied to private key", e);
         } catch (KeyStoreException | NoSuchAlgorithmException e) {
             throw new KeyStoreInitializationException("Failed to access private key", e);
+        } finally {
+            MetricsRegistry.recordSince("keystore.windows.get_key", start);
         }
     }
 
@@ -132,9 +138,12 @@ public class WindowsKeyStoreProvider extends X509CertificateValidatorImpl implem
     }
 
     public X509Certificate[] getCertificateChain() throws KeyStoreException {
+        long start = System.nanoTime();
         String alias = findAliasByCertSerial(serialHex);
-        return Arrays.stream(keyStore.getCertificateChain(alias))
+        X509Certificate[] chain = Arrays.stream(keyStore.getCertificateChain(alias))
                 .map(cert -> (X509Certificate) cert)
                 .toArray(X509Certificate[]::new);
+        MetricsRegistry.recordSince("keystore.windows.get_chain", start);
+        return chain;
     }
 }
\ No newline at end of file
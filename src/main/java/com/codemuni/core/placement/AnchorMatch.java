@@ -0,0 +1,22 @@
+package com.codemuni.core.placement;
+
+/**
+ * Where an anchor text was found: the page and the box around the matched characters, in display space.
+ */
+final class AnchorMatch {
+    final int pageNumber;
+    final TextPositionIndex.PageText page;
+    final float left;
+    final float top;
+    final float right;
+    final float bottom;
+
+    AnchorMatch(int pageNumber, TextPositionIndex.PageText page, float left, float top, float right, float bottom) {
+        this.pageNumber = pageNumber;
+        this.page = page;
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+}
@@ -0,0 +1,184 @@
+package com.codemuni.core.placement;
+
+import com.codemuni.core.signer.AppearanceOptions;
+
+import java.util.Locale;
+
+/**
+ * Rule that places a signature box relative to a piece of text on the page, e.g. below "Authorized Signatory".
+ * - Offsets and sizes are in points, as the page is displayed (rotation applied)
+ * - The box is kept inside the crop box and converted to the page coordinates the signer expects: the page as
+ * displayed (rotation applied), origin bottom left, as iText takes the rectangle of a new signature
+ */
+public final class AnchorPlacement {
+
+    public enum Position {
+        BELOW, ABOVE, RIGHT_OF, LEFT_OF, OVER;
+
+        /**
+         * Parses "below", "above", "right", "left" or "over" (case-insensitive).
+         *
+         * @throws IllegalArgumentException for anything else
+         */
+        public static Position fromName(String name) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "below":
+                    return BELOW;
+                case "above":
+                    return ABOVE;
+                case "right":
+                case "right_of":
+                    return RIGHT_OF;
+                case "left":
+                case "left_of":
+                    return LEFT_OF;
+                case "over":
+                    return OVER;
+                default:
+                    throw new IllegalArgumentException("Unknown anchor position: " + name);
+            }
+        }
+    }
+
+    private final String anchorText;
+    private Position position = Position.BELOW;
+    private float width = 200;
+    private float height = 60;
+    private float gap = 4;
+    private boolean lastOccurrence;
+
+    public AnchorPlacement(String anchorText) {
+        if (anchorText == null || TextPositionIndex.normalize(anchorText).isEmpty()) {
+            throw new IllegalArgumentException("Anchor text is empty");
+        }
+        this.anchorText = anchorText;
+    }
+
+    public String getAnchorText() {
+        return anchorText;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public void setPosition(Position position) {
+        this.position = position;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    public void setSize(float width, float height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Signature size must be positive");
+        this.width = width;
+        this.height = height;
+    }
+
+    public float getGap() {
+        return gap;
+    }
+
+    public void setGap(float gap) {
+        this.gap = gap;
+    }
+
+    /**
+     * Anchor on the last occurrence in the document (e.g. the signatory line of the final page) instead of the first.
+     */
+    public boolean isLastOccurrence() {
+        return lastOccurrence;
+    }
+
+    public void setLastOccurrence(boolean lastOccurrence) {
+        this.lastOccurrence = lastOccurrence;
+    }
+
+    /**
+     * Sets the page number and rectangle of {@code options} to the box this rule gives for {@code match}.
+     */
+    void applyTo(AnchorMatch match, AppearanceOptions options) {
+        options.setPageNumber(match.pageNumber);
+        options.setCoordinates(toPageCoordinates(match));
+    }
+
+    /**
+     * The signature rectangle as {llx, lly, urx, ury} in the rotated page space of {@link AppearanceOptions#getCoordinates()}.
+     */
+    int[] toPageCoordinates(AnchorMatch match) {
+        TextPositionIndex.PageText page = match.page;
+        float x;
+        float y;
+        switch (position) {
+            case ABOVE:
+                x = match.left;
+                y = match.top - gap - height;
+                break;
+            case RIGHT_OF:
+                x = match.right + gap;
+                y = (match.top + match.bottom - height) / 2;
+                break;
+            case LEFT_OF:
+                x = match.left - gap - width;
+                y = (match.top + match.bottom - height) / 2;
+                break;
+            case OVER:
+                x = (match.left + match.right - width) / 2;
+                y = (match.top + match.bottom - height) / 2;
+                break;
+            case BELOW:
+            default:
+                x = match.left;
+                y = match.bottom + gap;
+                break;
+        }
+        float boxWidth = Math.min(width, page.displayWidth());
+        float boxHeight = Math.min(height, page.displayHeight());
+        x = Math.max(0, Math.min(x, page.displayWidth() - boxWidth));
+        y = Math.max(0, Math.min(y, page.displayHeight() - boxHeight));
+
+        float[] corner1 = toSignerSpace(page, x, y);
+        float[] corner2 = toSignerSpace(page, x + boxWidth, y + boxHeight);
+        return new int[]{
+                Math.round(Math.min(corner1[0], corner2[0])), Math.round(Math.min(corner1[1], corner2[1])),
+                Math.round(Math.max(corner1[0], corner2[0])), Math.round(Math.max(corner1[1], corner2[1]))
+        };
+    }
+
+    /**
+     * Display point to the rotated page space iText uses for new signatures: first back to user space (inverse of the
+     * crop box offset and page rotation PDFBox applies to text positions), then into the rotated media box the way
+     * {@code PdfStamper} maps annotation rectangles of rotated pages.
+     */
+    private static float[] toSignerSpace(TextPositionIndex.PageText page, float dx, float dy) {
+        switch (page.rotation) {
+            case 90: {
+                float ux = page.cropLeft + dy;
+                float uy = page.cropBottom + dx;
+                return new float[]{uy, page.mediaRight - ux};
+            }
+            case 180: {
+                float ux = page.cropLeft + page.cropWidth - dx;
+                float uy = page.cropBottom + dy;
+                return new float[]{page.mediaRight - ux, page.mediaTop - uy};
+            }
+            case 270: {
+                float ux = page.cropLeft + page.cropWidth - dy;
+                float uy = page.cropBottom + page.cropHeight - dx;
+                return new float[]{page.mediaTop - uy, ux};
+            }
+            default:
+                return new float[]{page.cropLeft + dx, page.cropBottom + page.cropHeight - dy};
+        }
+    }
+
+    @Override
+    public String toString() {
+        return position.name().toLowerCase(Locale.ROOT) + " \"" + anchorText + "\"";
+    }
+}
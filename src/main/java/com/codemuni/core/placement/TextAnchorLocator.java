@@ -0,0 +1,271 @@
+package com.codemuni.core.placement;
+
+import com.codemuni.core.document.SharedDocumentSource;
+import com.codemuni.core.signer.AppearanceOptions;
+import com.codemuni.utils.LargeDocumentPolicy;
+import com.itextpdf.text.pdf.PdfReader;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds anchor text for {@link AnchorPlacement} rules.
+ * - Pages are extracted in parallel, each worker with its own PDDocument (PDFBox is not thread safe) parsed from the
+ * shared mapping of the {@link SharedDocumentSource}
+ * - Workers take pages in reading order (reverse order for the last occurrence) and stop once the match is known
+ * to be the first (or last); later pages are never extracted
+ * - Extracted pages go into a {@link TextIndexCache}, so retries and later runs on the same document skip extraction
+ */
+public final class TextAnchorLocator {
+    private static final Log log = LogFactory.getLog(TextAnchorLocator.class);
+    private static final int MAX_WORKERS = 4;
+
+    private final TextIndexCache cache;
+
+    public TextAnchorLocator() {
+        this(TextIndexCache.getDefault());
+    }
+
+    public TextAnchorLocator(TextIndexCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Finds the anchor of {@code rule} and sets the page number and rectangle of {@code options} from it.
+     *
+     * @param pageCount page count of the document, when already known from an open reader; 0 to read it here
+     * @return false if the anchor text does not occur in the document
+     */
+    public boolean place(SharedDocumentSource source, int pageCount, AnchorPlacement rule, AppearanceOptions options)
+            throws IOException {
+        AnchorMatch match = locate(source, pageCount > 0 ? pageCount : countPages(source), rule);
+        if (match == null) return false;
+        rule.applyTo(match, options);
+        return true;
+    }
+
+    AnchorMatch locate(SharedDocumentSource source, int pageCount, AnchorPlacement rule) throws IOException {
+        String hash = cache.hashOf(source.getFile());
+        TextPositionIndex index = cache.load(hash, pageCount);
+        int cachedPages = index.extractedPages().cardinality();
+
+        Search search = new Search(index, rule, pageCount);
+        int workers = Math.min(pageCount - cachedPages, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+        if (workers <= 1) {
+            search.run(source);
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "TextAnchorLocator");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    futures.add(executor.submit(() -> {
+                        search.run(source);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while searching for anchor text", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException
+                        ? (IOException) e.getCause()
+                        : new IOException("Failed to search for anchor text", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        int extracted = index.extractedPages().cardinality() - cachedPages;
+        if (extracted > 0) cache.store(hash, index);
+        log.info("Anchor " + rule + " " + (search.bestPage > 0 ? "found on page " + search.bestPage : "not found")
+                + " (" + extracted + " page(s) extracted, " + cachedPages + " cached)");
+        return search.bestPage > 0 ? index.find(search.bestPage, rule.getAnchorText(), rule.isLastOccurrence()) : null;
+    }
+
+    private static int countPages(SharedDocumentSource source) throws IOException {
+        PdfReader reader = source.openPdfReader();
+        try {
+            return reader.getNumberOfPages();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * State shared by the workers of one search.
+     */
+    private static final class Search {
+        private final TextPositionIndex index;
+        private final AnchorPlacement rule;
+        private final int pageCount;
+        private final AtomicInteger taken = new AtomicInteger();
+        private final boolean reverse;
+        volatile int bestPage; // 0 until found; guarded by this for updates
+
+        Search(TextPositionIndex index, AnchorPlacement rule, int pageCount) {
+            this.index = index;
+            this.rule = rule;
+            this.pageCount = pageCount;
+            this.reverse = rule.isLastOccurrence();
+        }
+
+        void run(SharedDocumentSource source) throws IOException {
+            PDDocument document = null;
+            try {
+                int n;
+                while ((n = taken.getAndIncrement()) < pageCount) {
+                    int pageNumber = reverse ? pageCount - n : n + 1;
+                    if (!worthSearching(pageNumber)) return; // pages are taken in order, so the rest are not either
+                    if (!index.hasPage(pageNumber)) {
+                        if (document == null) {
+                            document = source.openPdDocument(LargeDocumentPolicy.pdfBoxMemoryUsage(source.getFile()));
+                        }
+                        index.putPage(pageNumber, extract(document, pageNumber));
+                    }
+                    if (index.find(pageNumber, rule.getAnchorText(), reverse) != null) found(pageNumber);
+                }
+            } finally {
+                if (document != null) document.close();
+            }
+        }
+
+        private boolean worthSearching(int pageNumber) {
+            int best = bestPage;
+            return best == 0 || (reverse ? pageNumber > best : pageNumber < best);
+        }
+
+        private synchronized void found(int pageNumber) {
+            if (worthSearching(pageNumber)) bestPage = pageNumber;
+        }
+    }
+
+    private static TextPositionIndex.PageText extract(PDDocument document, int pageNumber) throws IOException {
+        PDPage page = document.getPage(pageNumber - 1);
+        PDRectangle cropBox = page.getCropBox();
+        PDRectangle mediaBox = page.getMediaBox();
+        TextPositionIndex.PageText pageText = new TextPositionIndex.PageText(page.getRotation(),
+                cropBox.getLowerLeftX(), cropBox.getLowerLeftY(), cropBox.getWidth(), cropBox.getHeight(),
+                mediaBox.getUpperRightX(), mediaBox.getUpperRightY());
+
+        LineCollector collector = new LineCollector(pageText.lines, pageText.rotation);
+        collector.setSortByPosition(true);
+        collector.setStartPage(pageNumber);
+        collector.setEndPage(pageNumber);
+        collector.getText(document);
+        collector.flushLine();
+        return pageText;
+    }
+
+    /**
+     * Text stripper that records lines with character boxes instead of writing text.
+     * Only text that reads left to right on the displayed page is recorded; vertical or upside-down runs are skipped.
+     */
+    private static final class LineCollector extends PDFTextStripper {
+        private final List<TextPositionIndex.Line> lines;
+        private final int pageRotation;
+        private final StringBuilder text = new StringBuilder();
+        private final FloatList left = new FloatList();
+        private final FloatList right = new FloatList();
+        private float top = Float.MAX_VALUE;
+        private float bottom = -Float.MAX_VALUE;
+
+        LineCollector(List<TextPositionIndex.Line> lines, int pageRotation) throws IOException {
+            this.lines = lines;
+            this.pageRotation = pageRotation;
+        }
+
+        @Override
+        protected void writeString(String string, List<TextPosition> textPositions) {
+            for (TextPosition position : textPositions) {
+                String unicode = position.getUnicode();
+                if (unicode == null || ((int) position.getDir() - pageRotation) % 360 != 0) continue;
+                float x = position.getX();
+                float width = position.getWidth();
+                for (int i = 0; i < unicode.length(); i++) {
+                    append(unicode.charAt(i), x, x + width);
+                }
+                top = Math.min(top, position.getY() - position.getHeight());
+                bottom = Math.max(bottom, position.getY());
+            }
+        }
+
+        @Override
+        protected void writeWordSeparator() {
+            float at = right.size > 0 ? right.values[right.size - 1] : 0;
+            append(' ', at, at);
+        }
+
+        @Override
+        protected void writeLineSeparator() {
+            flushLine();
+        }
+
+        @Override
+        protected void writeParagraphStart() {
+            flushLine();
+        }
+
+        @Override
+        protected void writeParagraphEnd() {
+            flushLine();
+        }
+
+        private void append(char c, float charLeft, float charRight) {
+            if (Character.isWhitespace(c)) {
+                if (text.length() == 0 || text.charAt(text.length() - 1) == ' ') return;
+                c = ' ';
+            } else {
+                c = Character.toLowerCase(c);
+            }
+            text.append(c);
+            left.add(charLeft);
+            right.add(charRight);
+        }
+
+        void flushLine() {
+            int length = text.length();
+            if (length > 0 && text.charAt(length - 1) == ' ') length--;
+            if (length > 0) {
+                lines.add(new TextPositionIndex.Line(text.substring(0, length),
+                        left.copy(length), right.copy(length), top, bottom));
+            }
+            text.setLength(0);
+            left.size = 0;
+            right.size = 0;
+            top = Float.MAX_VALUE;
+            bottom = -Float.MAX_VALUE;
+        }
+    }
+
+    private static final class FloatList {
+        float[] values = new float[64];
+        int size;
+
+        void add(float value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        float[] copy(int length) {
+            return Arrays.copyOf(values, length);
+        }
+    }
+}
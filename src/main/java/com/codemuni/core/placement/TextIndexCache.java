@@ -0,0 +1,136 @@
+package com.codemuni.core.placement;
+
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.utils.AppConstants;
+import com.codemuni.utils.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Text indexes kept between runs, so a document is only extracted once.
+ * - Keyed by the SHA-256 of the file content; the hash itself is remembered per path, size and modification time,
+ * for as many recently used file states as there are index files
+ * - The most recent indexes stay in memory; all of them are written to one file each under {@link AppConstants#TEXT_INDEX_CACHE_DIR_PATH}
+ * - Files are written to a temp name and moved into place; only the most recently used ones are kept
+ * - Lookups count towards the "cache.text_index" hit and miss counters; a document whose pages are only
+ * partly indexed still counts as a hit
+ */
+public final class TextIndexCache {
+    private static final Log log = LogFactory.getLog(TextIndexCache.class);
+    private static final int MAX_FILES = 256;
+    private static final int MAX_IN_MEMORY = 8;
+    private static final String EXTENSION = ".idx";
+    private static final String HIT_COUNTER = "cache.text_index.hit";
+    private static final String MISS_COUNTER = "cache.text_index.miss";
+
+    private static final TextIndexCache DEFAULT = new TextIndexCache(AppConstants.TEXT_INDEX_CACHE_DIR_PATH);
+
+    private final Path root;
+    private final Map<String, TextPositionIndex> recent = new LinkedHashMap<String, TextPositionIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TextPositionIndex> eldest) {
+            return size() > MAX_IN_MEMORY;
+        }
+    };
+    private final Map<String, String> hashByFileState = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_FILES;
+        }
+    };
+
+    public TextIndexCache(Path root) {
+        this.root = root;
+    }
+
+    public static TextIndexCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Content hash of {@code file}, reused while its path, size and modification time stay the same.
+     */
+    String hashOf(File file) throws IOException {
+        String state = file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified();
+        synchronized (hashByFileState) {
+            String hash = hashByFileState.get(state);
+            if (hash != null) return hash;
+        }
+        String hash = FileUtils.contentHash(file);
+        synchronized (hashByFileState) {
+            hashByFileState.put(state, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * The cached index for a document, or an empty one when nothing (usable) is cached.
+     */
+    TextPositionIndex load(String contentHash, int pageCount) {
+        synchronized (recent) {
+            TextPositionIndex index = recent.get(contentHash);
+            if (index != null && index.getPageCount() == pageCount) {
+                MetricsRegistry.increment(HIT_COUNTER);
+                return index;
+            }
+        }
+
+        TextPositionIndex index = null;
+        Path file = root.resolve(contentHash + EXTENSION);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            index = TextPositionIndex.read(in);
+            file.toFile().setLastModified(System.currentTimeMillis());
+        } catch (NoSuchFileException e) {
+            // Not cached yet
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable text index " + file, e);
+        }
+        if (index == null || index.getPageCount() != pageCount) {
+            index = new TextPositionIndex(pageCount);
+            MetricsRegistry.increment(MISS_COUNTER);
+        } else {
+            MetricsRegistry.increment(HIT_COUNTER);
+        }
+
+        synchronized (recent) {
+            recent.put(contentHash, index);
+        }
+        return index;
+    }
+
+    void store(String contentHash, TextPositionIndex index) {
+        try {
+            Files.createDirectories(root);
+            Path tmp = Files.createTempFile(root, "index", ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    index.write(out);
+                }
+                Files.move(tmp, root.resolve(contentHash + EXTENSION),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            prune();
+        } catch (IOException e) {
+            log.warn("Unable to store text index " + contentHash, e);
+        }
+    }
+
+    /**
+     * Deletes the least recently used index files beyond {@link #MAX_FILES}.
+     */
+    private void prune() {
+        File[] files = root.toFile().listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null || files.length <= MAX_FILES) return;
+        List<File> sorted = new ArrayList<>(Arrays.asList(files));
+        sorted.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : sorted.subList(0, sorted.size() - MAX_FILES)) {
+            if (!file.delete()) log.warn("Unable to prune text index " + file);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.codemuni.core.placement;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Positions of the text lines of a document, page by page.
+ * - Pages are added as they are extracted; a search for the first (or last) occurrence only needs the pages up to the match
+ * - Boxes are in display space (origin top left, y down, page rotation applied), as PDFBox reports them
+ * - Each page keeps its rotation, crop box and media box, so a box can be mapped back to page coordinates
+ * - Thread-safe; instances are shared between extraction workers and cached by {@link TextIndexCache}
+ */
+public final class TextPositionIndex {
+    private static final int FORMAT_VERSION = 1;
+
+    private final int pageCount;
+    private final PageText[] pages;
+
+    public TextPositionIndex(int pageCount) {
+        this.pageCount = pageCount;
+        this.pages = new PageText[pageCount + 1];
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public synchronized boolean hasPage(int pageNumber) {
+        return pages[pageNumber] != null;
+    }
+
+    synchronized PageText getPage(int pageNumber) {
+        return pages[pageNumber];
+    }
+
+    synchronized void putPage(int pageNumber, PageText page) {
+        pages[pageNumber] = page;
+    }
+
+    synchronized BitSet extractedPages() {
+        BitSet extracted = new BitSet(pageCount + 1);
+        for (int page = 1; page <= pageCount; page++) {
+            if (pages[page] != null) extracted.set(page);
+        }
+        return extracted;
+    }
+
+    /**
+     * Occurrence of {@code text} on one page, or null. Matches within a line, ignoring case and runs of whitespace.
+     *
+     * @param last the last occurrence on the page instead of the first
+     */
+    AnchorMatch find(int pageNumber, String text, boolean last) {
+        PageText page = getPage(pageNumber);
+        if (page == null) return null;
+        String needle = normalize(text);
+        if (needle.isEmpty()) return null;
+
+        AnchorMatch match = null;
+        for (Line line : page.lines) {
+            int from = 0;
+            int at;
+            while ((at = line.text.indexOf(needle, from)) >= 0) {
+                AnchorMatch candidate = new AnchorMatch(pageNumber, page,
+                        line.left[at], line.top, line.right[at + needle.length() - 1], line.bottom);
+                if (!last) return candidate;
+                match = candidate;
+                from = at + 1;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Lowercased char by char, with runs of whitespace collapsed to one space, the way lines are stored.
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != ' ') normalized.append(' ');
+            } else {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        int end = normalized.length();
+        return end > 0 && normalized.charAt(end - 1) == ' ' ? normalized.substring(0, end - 1) : normalized.toString();
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(pageCount);
+        BitSet extracted = extractedPages();
+        out.writeInt(extracted.cardinality());
+        for (int number = extracted.nextSetBit(0); number >= 0; number = extracted.nextSetBit(number + 1)) {
+            PageText page = getPage(number);
+            out.writeInt(number);
+            out.writeInt(page.rotation);
+            out.writeFloat(page.cropLeft);
+            out.writeFloat(page.cropBottom);
+            out.writeFloat(page.cropWidth);
+            out.writeFloat(page.cropHeight);
+            out.writeFloat(page.mediaRight);
+            out.writeFloat(page.mediaTop);
+            out.writeInt(page.lines.size());
+            for (Line line : page.lines) {
+                out.writeUTF(line.text);
+                out.writeFloat(line.top);
+                out.writeFloat(line.bottom);
+                for (int i = 0; i < line.text.length(); i++) {
+                    out.writeFloat(line.left[i]);
+                    out.writeFloat(line.right[i]);
+                }
+            }
+        }
+    }
+
+    static TextPositionIndex read(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) throw new IOException("Unsupported text index format");
+        TextPositionIndex index = new TextPositionIndex(in.readInt());
+        int storedPages = in.readInt();
+        for (int p = 0; p < storedPages; p++) {
+            int number = in.readInt();
+            if (number < 1 || number > index.pageCount) throw new IOException("Corrupt text index");
+            PageText page = new PageText(in.readInt(), in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(),
+                    in.readFloat(), in.readFloat());
+            int lineCount = in.readInt();
+            for (int l = 0; l < lineCount; l++) {
+                String text = in.readUTF();
+                float top = in.readFloat();
+                float bottom = in.readFloat();
+                float[] left = new float[text.length()];
+                float[] right = new float[text.length()];
+                for (int i = 0; i < text.length(); i++) {
+                    left[i] = in.readFloat();
+                    right[i] = in.readFloat();
+                }
+                page.lines.add(new Line(text, left, right, top, bottom));
+            }
+            index.pages[number] = page;
+        }
+        return index;
+    }
+
+    /**
+     * Text lines of one page, with the page geometry needed to leave display space.
+     */
+    static final class PageText {
+        final int rotation;
+        final float cropLeft;
+        final float cropBottom;
+        final float cropWidth;
+        final float cropHeight;
+        final float mediaRight;
+        final float mediaTop;
+        final List<Line> lines = new ArrayList<>();
+
+        PageText(int rotation, float cropLeft, float cropBottom, float cropWidth, float cropHeight,
+                 float mediaRight, float mediaTop) {
+            this.rotation = ((rotation % 360) + 360) % 360;
+            this.cropLeft = cropLeft;
+            this.cropBottom = cropBottom;
+            this.cropWidth = cropWidth;
+            this.cropHeight = cropHeight;
+            this.mediaRight = mediaRight;
+            this.mediaTop = mediaTop;
+        }
+
+        /**
+         * Width of the page as displayed, i.e. after rotation.
+         */
+        float displayWidth() {
+            return rotation == 90 || rotation == 270 ? cropHeight : cropWidth;
+        }
+
+        float displayHeight() {
+            return rotation == 90 || rotation == 270 ? cropWidth : cropHeight;
+        }
+    }
+
+    /**
+     * One line of text, normalized as by {@link #normalize}; {@code left[i]} and {@code right[i]} bound character {@code i}.
+     */
+    static final class Line {
+        final String text;
+        final float[] left;
+        final float[] right;
+        final float top;
+        final float bottom;
+
+        Line(String text, float[] left, float[] right, float top, float bottom) {
+            this.text = text;
+            this.left = left;
+            this.right = right;
+            this.top = top;
+            this.bottom = bottom;
+        }
+    }
+}
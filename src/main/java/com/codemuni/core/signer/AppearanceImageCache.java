@@ -0,0 +1,85 @@
+package com.codemuni.core.signer;
+
+import com.codemuni.metrics.MetricsRegistry;
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Image;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded images for signature appearances (signature graphic, watermark), shared by every signature of the session.
+ * - Keyed by the SHA-256 of the image bytes, so a picture is decoded (and PNG data recompressed) only once
+ * - Returns copies: scaling and position are per signature, the image data is shared
+ * - Copies keep the image's serial id, so a document that shows the same image several times embeds it once
+ * - Least recently used images are dropped beyond {@link #MAX_ENTRIES}
+ */
+public final class AppearanceImageCache {
+    private static final int MAX_ENTRIES = 16;
+
+    private static final Map<String, Image> images = new LinkedHashMap<String, Image>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private AppearanceImageCache() {
+    }
+
+    public static Image getImage(String path) throws IOException, BadElementException {
+        return getImage(Files.readAllBytes(Paths.get(path)));
+    }
+
+    public static Image getImage(URL resource) throws IOException, BadElementException {
+        try (InputStream in = resource.openStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) bytes.write(buffer, 0, n);
+            return getImage(bytes.toByteArray());
+        }
+    }
+
+    public static Image getImage(byte[] imageBytes) throws IOException, BadElementException {
+        String key = sha256(imageBytes);
+        Image image;
+        synchronized (images) {
+            image = images.get(key);
+        }
+        MetricsRegistry.increment(image != null ? "cache.appearance_image.hit" : "cache.appearance_image.miss");
+        if (image == null) {
+            image = Image.getInstance(imageBytes);
+            synchronized (images) {
+                Image raced = images.putIfAbsent(key, image);
+                if (raced != null) image = raced;
+            }
+        }
+        return Image.getInstance(image);
+    }
+
+    public static void clear() {
+        synchronized (images) {
+            images.clear();
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.codemuni.core.signer;
 
 
+import com.codemuni.model.SignaturePages;
 import com.itextpdf.text.Image;
 
 import java.util.Arrays;
@@ -19,12 +20,40 @@ public class AppearanceOptions {
     private boolean greenTickEnabled;
     private int pageNumber;
     private int[] coordinates = {0, 0, 0, 0};
+    private SignaturePages signaturePages = SignaturePages.CURRENT_PAGE;
+    private String selectedPages;
+    private String fieldName;
 
     private Image watermarkImage;
 
     public AppearanceOptions() {
     }
 
+    /**
+     * Copy for signing another document with the same settings.
+     */
+    public AppearanceOptions copy() {
+        AppearanceOptions copy = new AppearanceOptions();
+        copy.isGraphicRendering = isGraphicRendering;
+        copy.includeEntireSubject = includeEntireSubject;
+        copy.graphicImagePath = graphicImagePath;
+        copy.certificationLevel = certificationLevel;
+        copy.includeCompany = includeCompany;
+        copy.reason = reason;
+        copy.location = location;
+        copy.customText = customText;
+        copy.ltvEnabled = ltvEnabled;
+        copy.timestampEnabled = timestampEnabled;
+        copy.greenTickEnabled = greenTickEnabled;
+        copy.pageNumber = pageNumber;
+        copy.coordinates = coordinates != null ? coordinates.clone() : null;
+        copy.signaturePages = signaturePages;
+        copy.selectedPages = selectedPages;
+        copy.fieldName = fieldName;
+        copy.watermarkImage = watermarkImage;
+        return copy;
+    }
+
     public Image getWatermarkImage() {
         return watermarkImage;
     }
@@ -120,6 +149,39 @@ public class AppearanceOptions {
         this.pageNumber = pageNumber;
     }
 
+    public SignaturePages getSignaturePages() {
+        return signaturePages;
+    }
+
+    /**
+     * Pages that show the signature, besides {@link #getPageNumber()}; all share one field and one appearance.
+     */
+    public void setSignaturePages(SignaturePages signaturePages) {
+        this.signaturePages = signaturePages != null ? signaturePages : SignaturePages.CURRENT_PAGE;
+    }
+
+    public String getSelectedPages() {
+        return selectedPages;
+    }
+
+    /**
+     * Page list such as "1, 3, 5-7", used with {@link SignaturePages#SELECTED_PAGES}.
+     */
+    public void setSelectedPages(String selectedPages) {
+        this.selectedPages = selectedPages;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Signs into this existing empty signature field instead of creating one at {@link #getCoordinates()}.
+     */
+    public void setFieldName(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
     public int[] getCoordinates() {
         return coordinates;
     }
@@ -153,6 +215,9 @@ public class AppearanceOptions {
                 ", greenTickEnabled=" + greenTickEnabled +
                 ", graphicImagePath='" + graphicImagePath + '\'' +
                 ", pageNumber='" + pageNumber + '\'' +
+                ", signaturePages='" + signaturePages + '\'' +
+                ", selectedPages='" + selectedPages + '\'' +
+                ", fieldName='" + fieldName + '\'' +
                 ", coordinates='" + Arrays.toString(coordinates) + '\'' +
                 '}';
     }
@@ -0,0 +1,51 @@
+package com.codemuni.core.signer;
+
+/**
+ * An unsigned signature field found by {@link SignatureFieldScanner}.
+ * Page and rectangle are those of the field's first widget, in the same form as {@link AppearanceOptions}.
+ */
+public final class EmptySignatureField {
+    private final String name;
+    private final int pageNumber;
+    private final int[] coordinates;
+
+    EmptySignatureField(String name, int pageNumber, int[] coordinates) {
+        this.name = name;
+        this.pageNumber = pageNumber;
+        this.coordinates = coordinates;
+    }
+
+    /**
+     * Fully qualified field name, as used by {@link AppearanceOptions#setFieldName(String)}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 1-based page of the first widget, or 0 if the widget is not on any page.
+     */
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    /**
+     * llx, lly, urx, ury of the first widget.
+     */
+    public int[] getCoordinates() {
+        return coordinates.clone();
+    }
+
+    /**
+     * False for zero-size widgets, which give an invisible signature.
+     */
+    public boolean isVisible() {
+        return coordinates[2] - coordinates[0] > 0 && coordinates[3] - coordinates[1] > 0;
+    }
+
+    @Override
+    public String toString() {
+        if (pageNumber <= 0 || !isVisible()) return name + " (invisible)";
+        return name + " (page " + pageNumber + ")";
+    }
+}
@@ -0,0 +1,169 @@
+package com.codemuni.core.signer;
+
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One signature field shown on several pages.
+ * - The field gets one widget annotation per page, all pointing to the same appearance XObject
+ * - The document gets a single signature: one revision, one digest, one token operation and one TSA call
+ * - The empty field is added to the reader before the stamper reads the form, then iText signs it as an existing field
+ * - The rectangle is drawn on one page; on the others it keeps its size and its distance to the nearest crop box edges
+ * - The shared appearance is built for one page rotation, so all pages must have the same /Rotate
+ */
+final class MultiPageSignatureField {
+
+    private final String fieldName;
+    private final PdfDictionary field = new PdfDictionary();
+    private final List<PdfDictionary> widgets = new ArrayList<>();
+    private final List<PdfObject> changed = new ArrayList<>();
+
+    private MultiPageSignatureField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Adds the empty field with a widget on each page, placed like {@code rect} on {@code referencePage}.
+     * Call before the stamper is created, then {@link #applyTo(PdfSignatureAppearance)} once it is.
+     *
+     * @throws IllegalArgumentException if a page is rotated differently or too small for the rectangle
+     */
+    static MultiPageSignatureField create(PdfReader reader, Rectangle rect, int referencePage, List<Integer> pages, String fieldName) {
+        List<Rectangle> placements = new ArrayList<>(pages.size());
+        for (int page : pages) {
+            placements.add(place(reader, rect, referencePage, page)); // before the reader is changed
+        }
+
+        MultiPageSignatureField multiPageField = new MultiPageSignatureField(fieldName);
+        PdfDictionary field = multiPageField.field;
+        field.put(PdfName.FT, PdfName.SIG);
+        field.put(PdfName.T, new PdfString(fieldName));
+        PdfIndirectReference fieldRef = multiPageField.addObject(reader, field);
+
+        PdfArray kids = new PdfArray();
+        for (int i = 0; i < pages.size(); i++) {
+            int page = pages.get(i);
+            PdfDictionary widget = new PdfDictionary(PdfName.ANNOT);
+            widget.put(PdfName.SUBTYPE, PdfName.WIDGET);
+            widget.put(PdfName.RECT, new PdfRectangle(placements.get(i)));
+            widget.put(PdfName.F, new PdfNumber(PdfAnnotation.FLAGS_PRINT | PdfAnnotation.FLAGS_LOCKED));
+            widget.put(PdfName.P, reader.getPageOrigRef(page));
+            widget.put(PdfName.PARENT, fieldRef);
+            PdfIndirectReference widgetRef = multiPageField.addObject(reader, widget);
+            kids.add(widgetRef);
+            multiPageField.widgets.add(widget);
+            multiPageField.addToPageAnnotations(reader, page, widgetRef);
+        }
+        field.put(PdfName.KIDS, kids);
+        multiPageField.addToAcroForm(reader, fieldRef);
+        reader.resetReleasePage(); // a partial reader must keep the edited page dictionaries
+        return multiPageField;
+    }
+
+    /**
+     * Where the rectangle drawn on {@code referencePage} goes on {@code page}: same size, same distance to the
+     * nearest left/right and bottom/top edges of the crop box, in the page's (unrotated) user space.
+     */
+    static Rectangle place(PdfReader reader, Rectangle rect, int referencePage, int page) {
+        if (page == referencePage) return rect;
+        int rotation = reader.getPageRotation(page);
+        int referenceRotation = reader.getPageRotation(referencePage);
+        if (rotation != referenceRotation) {
+            throw new IllegalArgumentException("Page " + page + " is rotated by " + rotation + " degrees and page " + referencePage
+                    + " by " + referenceRotation + "; the signature can only be repeated on pages with the same orientation.");
+        }
+
+        Rectangle reference = reader.getCropBox(referencePage);
+        Rectangle box = reader.getCropBox(page);
+        float left = rect.getLeft() - reference.getLeft();
+        float right = reference.getRight() - rect.getRight();
+        float bottom = rect.getBottom() - reference.getBottom();
+        float top = reference.getTop() - rect.getTop();
+        float llx = left <= right ? box.getLeft() + left : box.getRight() - right - rect.getWidth();
+        float lly = bottom <= top ? box.getBottom() + bottom : box.getTop() - top - rect.getHeight();
+        Rectangle placed = new Rectangle(llx, lly, llx + rect.getWidth(), lly + rect.getHeight());
+
+        // Tolerates what already sticks out on the reference page
+        if (overhang(placed, box) > overhang(rect, reference) + 0.5f) {
+            throw new IllegalArgumentException("The signature does not fit on page " + page + " ("
+                    + Math.round(box.getWidth()) + " x " + Math.round(box.getHeight()) + " pt).");
+        }
+        return placed;
+    }
+
+    private static float overhang(Rectangle rect, Rectangle box) {
+        return Math.max(0, box.getLeft() - rect.getLeft()) + Math.max(0, rect.getRight() - box.getRight())
+                + Math.max(0, box.getBottom() - rect.getBottom()) + Math.max(0, rect.getTop() - box.getTop());
+    }
+
+    /**
+     * Makes the field the one the appearance signs; call where the signature rectangle would otherwise be set.
+     * The new and edited objects are written into the signed revision.
+     */
+    void applyTo(PdfSignatureAppearance appearance) {
+        for (PdfObject object : changed) {
+            appearance.getStamper().markUsed(object); // no-op for direct objects, which are written with their container
+        }
+        appearance.setVisibleSignature(fieldName);
+        appearance.setSignatureEvent(sig -> shareSignedWidget());
+    }
+
+    /**
+     * Runs once iText has filled in the first widget: the signature value belongs to the field,
+     * and every widget shows the first widget's appearance.
+     */
+    private void shareSignedWidget() {
+        PdfDictionary signed = null;
+        for (PdfDictionary widget : widgets) {
+            if (widget.contains(PdfName.V)) signed = widget;
+        }
+        if (signed == null) return;
+
+        field.put(PdfName.V, signed.get(PdfName.V));
+        signed.remove(PdfName.V);
+        PdfObject appearanceDictionary = signed.get(PdfName.AP);
+        for (PdfDictionary widget : widgets) {
+            widget.put(PdfName.AP, appearanceDictionary);
+        }
+    }
+
+    private PdfIndirectReference addObject(PdfReader reader, PdfObject object) {
+        PRIndirectReference ref = reader.addPdfObject(object);
+        object.setIndRef(ref); // lets the stamper write it under this number
+        changed.add(object);
+        return ref;
+    }
+
+    private void addToPageAnnotations(PdfReader reader, int page, PdfIndirectReference widgetRef) {
+        PdfDictionary pageDictionary = reader.getPageN(page);
+        PdfArray annotations = pageDictionary.getAsArray(PdfName.ANNOTS);
+        if (annotations == null) {
+            annotations = new PdfArray();
+            pageDictionary.put(PdfName.ANNOTS, annotations);
+        }
+        annotations.add(widgetRef);
+        changed.add(annotations);
+        changed.add(pageDictionary);
+    }
+
+    private void addToAcroForm(PdfReader reader, PdfIndirectReference fieldRef) {
+        PdfDictionary catalog = reader.getCatalog();
+        PdfDictionary acroForm = catalog.getAsDict(PdfName.ACROFORM);
+        if (acroForm == null) {
+            acroForm = new PdfDictionary();
+            catalog.put(PdfName.ACROFORM, addObject(reader, acroForm));
+        }
+        PdfArray fields = acroForm.getAsArray(PdfName.FIELDS);
+        if (fields == null) {
+            fields = new PdfArray();
+            acroForm.put(PdfName.FIELDS, fields);
+        }
+        fields.add(fieldRef);
+        changed.add(fields);
+        changed.add(acroForm);
+        changed.add(catalog);
+    }
+}
@@ -0,0 +1,99 @@
+package com.codemuni.core.signer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hashes a stream while a reader thread fetches the next chunks.
+ * - Reads in large chunks into a small ring of buffers, so each read is one big request to the disk or share
+ * - The calling thread hashes a chunk as soon as it lands, while the reader fills the next one
+ * - Anything the reader throws (read errors, unchecked exceptions, errors) is rethrown on the calling thread;
+ * an interrupted caller stops the reader
+ */
+final class PrefetchingDigester {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int BUFFER_COUNT = 3;
+
+    private static final Chunk END = new Chunk(null, 0, null);
+
+    private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private long bytes;
+
+    /**
+     * Feeds the whole stream into the digest and returns the hash. The stream is not closed.
+     */
+    byte[] digest(InputStream in, MessageDigest messageDigest) throws IOException {
+        for (int i = 0; i < BUFFER_COUNT; i++) free.add(new byte[CHUNK_SIZE]);
+
+        Thread reader = new Thread(() -> readAll(in), "eMark-digest-reader");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            while (true) {
+                Chunk chunk = filled.take();
+                if (chunk == END) break;
+                if (chunk.error != null) throw rethrow(chunk.error);
+                messageDigest.update(chunk.buffer, 0, chunk.length);
+                bytes += chunk.length;
+                free.put(chunk.buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Hashing the document was interrupted");
+        } finally {
+            reader.interrupt(); // no-op once it has finished
+        }
+        return messageDigest.digest();
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    private void readAll(InputStream in) {
+        try {
+            while (true) {
+                byte[] buffer = free.take();
+                int length = 0;
+                int n;
+                while (length < buffer.length && (n = in.read(buffer, length, buffer.length - length)) > 0) {
+                    length += n;
+                }
+                if (length > 0) filled.put(new Chunk(buffer, length, null));
+                if (length < buffer.length) {
+                    filled.put(END);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // The digesting thread gave up
+        } catch (Throwable e) {
+            // Always queued: the queue has room for every buffer plus one more chunk
+            filled.offer(new Chunk(null, 0, e));
+        }
+    }
+
+    private static IOException rethrow(Throwable error) {
+        if (error instanceof IOException) return (IOException) error;
+        if (error instanceof RuntimeException) throw (RuntimeException) error;
+        if (error instanceof Error) throw (Error) error;
+        return new IOException("Reading the document failed", error);
+    }
+
+    private static final class Chunk {
+        final byte[] buffer;
+        final int length;
+        final Throwable error;
+
+        Chunk(byte[] buffer, int length, Throwable error) {
+            this.buffer = buffer;
+            this.length = length;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.codemuni.core.signer;
+
+import com.codemuni.core.keyStoresProvider.KeyStoreProvider;
+import com.codemuni.exceptions.CertificateChainException;
+import com.codemuni.exceptions.SigningProcessException;
+import com.codemuni.exceptions.UserCancelledPasswordEntryException;
+import com.codemuni.metrics.SigningPhase;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSignatureAppearance;
+import com.itextpdf.text.pdf.PdfString;
+import com.itextpdf.text.pdf.security.*;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStoreException;
+import java.security.MessageDigest;
+import java.security.SignatureException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A document that is ready to be signed, created by {@link Signer#prepare}.
+ * - The signed revision is already written with space reserved for the signature, and its byte ranges are hashed
+ * - {@link #complete(KeyStoreProvider)} only needs the unlocked key: it signs the hash and fills in the reserved space
+ * - {@link #abort()} closes the output without a signature; call it if the key is never unlocked
+ * - Completing or aborting closes the reader
+ * - {@link #checkOutput(File)} optionally re-reads the written file and checks the signature before it is used
+ * - Timings of all phases are collected in {@link SigningMetrics}
+ */
+public final class PreparedSignature {
+    private static final Log log = LogFactory.getLog(PreparedSignature.class);
+
+    private final PdfReader reader;
+    private final PdfSignatureAppearance appearance;
+    private final X509Certificate certificate;
+    private final AppearanceOptions options;
+    private final CustomTSAClientBouncyCastle tsaClient;
+    private final int reservedSize;
+    private final byte[] hash;
+    private final SigningMetrics metrics;
+    private final long revisionStart;
+    private boolean finished;
+    private boolean signed;
+
+    PreparedSignature(PdfReader reader, PdfSignatureAppearance appearance, X509Certificate certificate, AppearanceOptions options,
+                      CustomTSAClientBouncyCastle tsaClient, int reservedSize, byte[] hash, SigningMetrics metrics) {
+        this.reader = reader;
+        this.appearance = appearance;
+        this.certificate = certificate;
+        this.options = options;
+        this.tsaClient = tsaClient;
+        this.reservedSize = reservedSize;
+        this.hash = hash;
+        this.metrics = metrics;
+        this.revisionStart = reader.getFileLength();
+    }
+
+    public X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    public SigningMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Signs the prepared hash with the provider's key and writes the signature into the document.
+     */
+    public void complete(KeyStoreProvider keyStoreProvider) throws UserCancelledPasswordEntryException {
+        if (finished) throw new IllegalStateException("Signature has already been completed or aborted.");
+        long start = System.nanoTime();
+        try {
+            SigningMetrics.PhaseTimer timer = metrics.start(SigningPhase.KEY_ACCESS);
+            Certificate[] certChain = keyStoreProvider.getCertificateChain();
+            if (certChain == null || certChain.length == 0 || !certificate.equals(certChain[0])) {
+                throw new SigningProcessException("The unlocked key does not belong to the selected certificate.");
+            }
+
+            ExternalDigest digest = new BouncyCastleDigest();
+            ExternalSignature signature = new PrivateKeySignature(
+                    keyStoreProvider.getPrivateKey(), DigestAlgorithms.SHA256, keyStoreProvider.getProvider());
+            timer.stop();
+
+            Collection<byte[]> crlBytes = null;
+            byte[] ocsp = null;
+            if (options.isLtvEnabled()) {
+                timer = metrics.start(SigningPhase.CRL);
+                List<CrlClient> crlList = prepareLtvComponents(certChain);
+                for (int i = 0; crlBytes == null && i < certChain.length; i++) {
+                    crlBytes = MakeSignature.processCrl(certChain[i], crlList);
+                }
+                timer.stop();
+                if (certChain.length >= 2) {
+                    timer = metrics.start(SigningPhase.OCSP);
+                    ocsp = new OcspClientBouncyCastle(null).getEncoded(
+                            (X509Certificate) certChain[0], (X509Certificate) certChain[1], null);
+                    timer.stop();
+                }
+            }
+
+            PdfPKCS7 pkcs7 = new PdfPKCS7(null, certChain, DigestAlgorithms.SHA256, null, digest, false);
+            byte[] authenticatedAttributes = pkcs7.getAuthenticatedAttributeBytes(hash, ocsp, crlBytes, MakeSignature.CryptoStandard.CADES);
+            timer = metrics.start(SigningPhase.TOKEN_SIGN);
+            byte[] signedAttributes = signature.sign(authenticatedAttributes);
+            timer.stop();
+            pkcs7.setExternalDigest(signedAttributes, null, signature.getEncryptionAlgorithm());
+            byte[] encoded = pkcs7.getEncodedPKCS7(hash, tsaClient != null ? new TimedTsaClient(tsaClient, metrics) : null,
+                    ocsp, crlBytes, MakeSignature.CryptoStandard.CADES);
+
+            if (encoded.length > reservedSize) {
+                throw new IOException("Not enough space reserved for the signature: " + encoded.length + " > " + reservedSize);
+            }
+            timer = metrics.start(SigningPhase.WRITE);
+            writeContents(encoded);
+            timer.stop();
+            signed = true;
+            metrics.setCompleteNanos(System.nanoTime() - start);
+        } catch (UserCancelledPasswordEntryException e) {
+            throw e;
+        } catch (SignatureException e) {
+            throw new UserCancelledPasswordEntryException("Signature cancelled by user.", e);
+        } catch (KeyStoreException e) {
+            throw new CertificateChainException("Unable to fetch certificate chain.", e);
+        } catch (SigningProcessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SigningProcessException(Signer.buildDetailedMessage("Signing PDF failed", e), e);
+        } finally {
+            if (!finished) abort();
+        }
+    }
+
+    /**
+     * Checks the completed output file before it is moved into place: the byte range must cover the whole file
+     * except the signature, and the digest of the covered bytes, streamed from the file again, must match
+     * the signed attributes. Costs about one more read of the file.
+     *
+     * @throws SigningProcessException if the file is not what was signed
+     */
+    public void checkOutput(File outputFile) throws IOException {
+        if (!signed) throw new IllegalStateException("Signature has not been completed.");
+        SigningMetrics.PhaseTimer timer = metrics.start(SigningPhase.SELF_CHECK);
+        SignatureSelfCheck.check(outputFile, revisionStart, reservedSize, certificate);
+        timer.stop();
+    }
+
+    /**
+     * Closes the output with an empty signature. No-op once completed.
+     */
+    public void abort() {
+        if (finished) return;
+        try {
+            writeContents(new byte[0]);
+        } catch (Exception e) {
+            log.warn("Failed to close the prepared signature", e);
+        }
+    }
+
+    private void writeContents(byte[] encoded) throws Exception {
+        byte[] padded = new byte[reservedSize];
+        System.arraycopy(encoded, 0, padded, 0, encoded.length);
+
+        PdfDictionary update = new PdfDictionary();
+        update.put(PdfName.CONTENTS, new PdfString(padded).setHexWriting(true));
+        try {
+            appearance.close(update);
+        } finally {
+            finished = true;
+            reader.close();
+        }
+    }
+
+    private List<CrlClient> prepareLtvComponents(Certificate[] certChain) {
+        List<CrlClient> crlList = new ArrayList<>();
+        crlList.add(new CrlClientOnline(certChain));
+        return crlList;
+    }
+
+    /**
+     * Times the request to the timestamp server, which iText makes while encoding the signature.
+     */
+    private static final class TimedTsaClient implements TSAClient {
+        private final TSAClient delegate;
+        private final SigningMetrics metrics;
+
+        TimedTsaClient(TSAClient delegate, SigningMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int getTokenSizeEstimate() {
+            return delegate.getTokenSizeEstimate();
+        }
+
+        @Override
+        public MessageDigest getMessageDigest() throws GeneralSecurityException {
+            return delegate.getMessageDigest();
+        }
+
+        @Override
+        public byte[] getTimeStampToken(byte[] imprint) throws Exception {
+            SigningMetrics.PhaseTimer timer = metrics.start(SigningPhase.TSA);
+            try {
+                return delegate.getTimeStampToken(imprint);
+            } finally {
+                timer.stop();
+            }
+        }
+    }
+}
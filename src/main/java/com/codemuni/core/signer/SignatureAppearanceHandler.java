@@ -1,20 +1,19 @@
 package com.codemuni.core.signer;
 
-import com.codemuni.core.keyStoresProvider.KeyStoreProvider;
-import com.codemuni.exceptions.NotADigitalSignatureException;
+import com.codemuni.metrics.MetricsRegistry;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Image;
 import com.itextpdf.text.Rectangle;
 import com.itextpdf.text.pdf.PdfGState;
+import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfSignatureAppearance;
 import com.itextpdf.text.pdf.PdfTemplate;
 
 import java.io.IOException;
-import java.security.KeyStoreException;
-import java.security.cert.CertificateExpiredException;
 import java.security.cert.X509Certificate;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 import static com.codemuni.core.keyStoresProvider.X509SubjectUtils.*;
 import static com.codemuni.utils.AppConstants.APP_AUTHOR;
@@ -22,26 +21,61 @@ import static com.codemuni.utils.AppConstants.APP_NAME;
 
 public class SignatureAppearanceHandler {
 
-    private final KeyStoreProvider keyStoreProvider;
+    private final X509Certificate certificate;
     private final AppearanceOptions options;
+    private MultiPageSignatureField multiPageField;
 
-    public SignatureAppearanceHandler(KeyStoreProvider keyStoreProvider, AppearanceOptions options) {
-        this.keyStoreProvider = keyStoreProvider;
+    /**
+     * Needs only the signer's certificate, not the key, so the appearance can be built before the token is unlocked.
+     */
+    public SignatureAppearanceHandler(X509Certificate certificate, AppearanceOptions options) {
+        this.certificate = certificate;
         this.options = options;
     }
 
-    public void configureAppearance(PdfSignatureAppearance appearance) throws CertificateExpiredException, KeyStoreException, NotADigitalSignatureException, DocumentException, IOException {
+    /**
+     * Adds the signature field to the document when the signature is shown on more than one page.
+     * Must run before the stamper is created, since the stamper reads the form fields only once.
+     */
+    public void addSignatureField(PdfReader reader) {
+        int[] coord = options.getCoordinates();
+        if (options.getFieldName() != null || coord == null || coord.length != 4) return;
+
+        List<Integer> pages = options.getSignaturePages().resolve(options.getPageNumber(), reader.getNumberOfPages(), options.getSelectedPages());
+        if (pages.size() > 1) {
+            long start = System.nanoTime();
+            Rectangle rect = new Rectangle(coord[0], coord[1], coord[2], coord[3]);
+            multiPageField = MultiPageSignatureField.create(reader, rect, options.getPageNumber(), pages, generateFieldName(options.getPageNumber()));
+            MetricsRegistry.recordSince("signing.appearance.multi_page_field", start);
+        }
+    }
+
+    public void configureAppearance(PdfSignatureAppearance appearance) throws DocumentException, IOException {
         appearance.setSignatureCreator(APP_AUTHOR + "( " + APP_NAME + " )");
 
 
         setVisibleSignature(appearance);
+        long start = System.nanoTime();
         setRenderingMode(appearance);
+        MetricsRegistry.recordSince("signing.appearance.graphic", start);
         setCertificationAndInfo(appearance);
         setLayer2Text(appearance);
-        if (options.getWatermarkImage() != null) applyWatermark(appearance);
+        if (options.getWatermarkImage() != null) {
+            start = System.nanoTime();
+            applyWatermark(appearance);
+            MetricsRegistry.recordSince("signing.appearance.watermark", start);
+        }
     }
 
     private void setVisibleSignature(PdfSignatureAppearance appearance) {
+        if (options.getFieldName() != null) {
+            appearance.setVisibleSignature(options.getFieldName()); // existing empty field, placed by the document author
+            return;
+        }
+        if (multiPageField != null) {
+            multiPageField.applyTo(appearance);
+            return;
+        }
         int[] coord = options.getCoordinates();
         if (coord != null && coord.length == 4) {
             Rectangle rect = new Rectangle(coord[0], coord[1], coord[2], coord[3]);
@@ -53,7 +87,7 @@ public class SignatureAppearanceHandler {
         if (options.isGraphicRendering()) {
             appearance.setRenderingMode(PdfSignatureAppearance.RenderingMode.GRAPHIC_AND_DESCRIPTION);
             try {
-                Image img = Image.getInstance(options.getGraphicImagePath());
+                Image img = AppearanceImageCache.getImage(options.getGraphicImagePath());
                 appearance.setSignatureGraphic(img);
             } catch (Exception e) {
                 throw new RuntimeException("Failed to load signature graphic image.", e);
@@ -71,9 +105,8 @@ public class SignatureAppearanceHandler {
         if (isNotEmpty(options.getLocation())) appearance.setLocation(options.getLocation().trim());
     }
 
-    private void setLayer2Text(PdfSignatureAppearance appearance) throws KeyStoreException, CertificateExpiredException, NotADigitalSignatureException, DocumentException, IOException {
-        X509Certificate cert = (X509Certificate) keyStoreProvider.getCertificateChain()[0];
-        String layerText = buildLayerText(cert, options);
+    private void setLayer2Text(PdfSignatureAppearance appearance) {
+        String layerText = buildLayerText(certificate, options);
 
         appearance.setLayer2Text(layerText);
     }
@@ -99,18 +132,21 @@ public class SignatureAppearanceHandler {
     }
 
     private void applyWatermark(PdfSignatureAppearance appearance) {
-        int[] coords = options.getCoordinates();
-        float rectWidth = coords[2] - coords[0];
-        float rectHeight = coords[3] - coords[1];
+        Rectangle rect = appearance.getRect(); // drawn or taken from an existing field
+        if (rect == null || rect.getWidth() <= 0 || rect.getHeight() <= 0) return;
+        float rectWidth = rect.getWidth();
+        float rectHeight = rect.getHeight();
 
-        options.getWatermarkImage().scaleToFit(rectWidth, rectHeight);
+        // Scaled and positioned on a copy, so the options can be reused for further signatures
+        Image watermark = Image.getInstance(options.getWatermarkImage());
+        watermark.scaleToFit(rectWidth, rectHeight);
 
-        float imageWidth = options.getWatermarkImage().getScaledWidth();
-        float imageHeight = options.getWatermarkImage().getScaledHeight();
+        float imageWidth = watermark.getScaledWidth();
+        float imageHeight = watermark.getScaledHeight();
 
         float xOffset = (rectWidth - imageWidth) / 2;
         float yOffset = (rectHeight - imageHeight) / 2;
-        options.getWatermarkImage().setAbsolutePosition(xOffset, yOffset);
+        watermark.setAbsolutePosition(xOffset, yOffset);
 
         PdfTemplate background = appearance.getLayer(0); // Layer 0 = background
         PdfGState gState = new PdfGState();
@@ -119,7 +155,7 @@ public class SignatureAppearanceHandler {
         background.saveState();
         background.setGState(gState);
         try {
-            background.addImage(options.getWatermarkImage());
+            background.addImage(watermark);
         } catch (DocumentException e) {
             throw new RuntimeException("Failed to add watermark to signature appearance.", e);
         }
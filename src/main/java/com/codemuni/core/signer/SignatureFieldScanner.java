@@ -0,0 +1,143 @@
+package com.codemuni.core.signer;
+
+import com.itextpdf.text.pdf.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the unsigned signature fields of a document.
+ * - Walks the AcroForm field tree only; page contents are never read or rendered
+ * - Widgets are placed on their page through /P; page annotation arrays are read only for widgets without it
+ * - Works on partial readers, so scanning a large document touches a handful of objects
+ */
+public final class SignatureFieldScanner {
+
+    private final PdfReader reader;
+    private Map<Integer, Integer> pageByReference;
+    private Map<Integer, Integer> pageByAnnotation;
+
+    private SignatureFieldScanner(PdfReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Empty signature fields in AcroForm order. The reader stays open and can be used for signing afterwards.
+     */
+    public static List<EmptySignatureField> findEmptyFields(PdfReader reader) {
+        List<EmptySignatureField> result = new ArrayList<>();
+        PdfDictionary acroForm = reader.getCatalog().getAsDict(PdfName.ACROFORM);
+        if (acroForm == null) return result;
+        PdfArray fields = acroForm.getAsArray(PdfName.FIELDS);
+        if (fields == null) return result;
+
+        SignatureFieldScanner scanner = new SignatureFieldScanner(reader);
+        for (int i = 0; i < fields.size(); i++) {
+            scanner.scan(fields.getAsDict(i), fields.getAsIndirectObject(i), "", null, false, result);
+        }
+        return result;
+    }
+
+    /**
+     * The empty field with the given fully qualified name, or null.
+     */
+    public static EmptySignatureField findEmptyField(PdfReader reader, String fieldName) {
+        for (EmptySignatureField field : findEmptyFields(reader)) {
+            if (field.getName().equals(fieldName)) return field;
+        }
+        return null;
+    }
+
+    private void scan(PdfDictionary field, PdfIndirectReference fieldRef, String parentName, PdfName inheritedType,
+                      boolean inheritedValue, List<EmptySignatureField> result) {
+        if (field == null) return;
+
+        PdfString partialName = field.getAsString(PdfName.T);
+        String name = parentName;
+        if (partialName != null) {
+            name = parentName.isEmpty() ? partialName.toUnicodeString() : parentName + "." + partialName.toUnicodeString();
+        }
+        PdfName type = field.getAsName(PdfName.FT) != null ? field.getAsName(PdfName.FT) : inheritedType;
+        boolean hasValue = inheritedValue || field.get(PdfName.V) != null;
+
+        PdfDictionary firstWidget = null;
+        PdfIndirectReference firstWidgetRef = null;
+        if (PdfName.WIDGET.equals(field.getAsName(PdfName.SUBTYPE))) {
+            firstWidget = field;
+            firstWidgetRef = fieldRef;
+        }
+
+        PdfArray kids = field.getAsArray(PdfName.KIDS);
+        if (kids != null) {
+            for (int i = 0; i < kids.size(); i++) {
+                PdfDictionary kid = kids.getAsDict(i);
+                if (kid == null) continue;
+                if (kid.get(PdfName.T) == null && PdfName.WIDGET.equals(kid.getAsName(PdfName.SUBTYPE))) {
+                    if (firstWidget == null) {
+                        firstWidget = kid;
+                        firstWidgetRef = kids.getAsIndirectObject(i);
+                    }
+                } else {
+                    scan(kid, kids.getAsIndirectObject(i), name, type, hasValue, result);
+                }
+            }
+        }
+
+        if (PdfName.SIG.equals(type) && !hasValue && !name.isEmpty() && firstWidget != null) {
+            result.add(new EmptySignatureField(name, pageOf(firstWidget, firstWidgetRef), coordinatesOf(firstWidget)));
+        }
+    }
+
+    private int[] coordinatesOf(PdfDictionary widget) {
+        PdfArray rect = widget.getAsArray(PdfName.RECT);
+        if (rect == null || rect.size() < 4) return new int[4];
+        float llx = rect.getAsNumber(0).floatValue();
+        float lly = rect.getAsNumber(1).floatValue();
+        float urx = rect.getAsNumber(2).floatValue();
+        float ury = rect.getAsNumber(3).floatValue();
+        return new int[]{
+                Math.round(Math.min(llx, urx)), Math.round(Math.min(lly, ury)),
+                Math.round(Math.max(llx, urx)), Math.round(Math.max(lly, ury))
+        };
+    }
+
+    private int pageOf(PdfDictionary widget, PdfIndirectReference widgetRef) {
+        PdfIndirectReference pageRef = widget.getAsIndirectObject(PdfName.P);
+        if (pageRef != null) {
+            Integer page = pageByReference().get(pageRef.getNumber());
+            if (page != null) return page;
+        }
+        if (widgetRef != null) {
+            Integer page = pageByAnnotation().get(widgetRef.getNumber());
+            if (page != null) return page;
+        }
+        return 0;
+    }
+
+    private Map<Integer, Integer> pageByReference() {
+        if (pageByReference == null) {
+            pageByReference = new HashMap<>();
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                pageByReference.put(reader.getPageOrigRef(page).getNumber(), page);
+            }
+        }
+        return pageByReference;
+    }
+
+    private Map<Integer, Integer> pageByAnnotation() {
+        if (pageByAnnotation == null) {
+            pageByAnnotation = new HashMap<>();
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                PdfArray annotations = reader.getPageN(page).getAsArray(PdfName.ANNOTS);
+                if (annotations == null) continue;
+                for (int i = 0; i < annotations.size(); i++) {
+                    PdfIndirectReference ref = annotations.getAsIndirectObject(i);
+                    if (ref != null) pageByAnnotation.put(ref.getNumber(), page);
+                }
+            }
+        }
+        return pageByAnnotation;
+    }
+}
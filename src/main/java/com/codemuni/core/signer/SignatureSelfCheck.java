@@ -0,0 +1,143 @@
+package com.codemuni.core.signer;
+
+import com.codemuni.core.verifier.SignedByteRange;
+import com.codemuni.exceptions.SigningProcessException;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.security.PdfPKCS7;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+
+/**
+ * Checks a freshly signed file before it replaces anything, see {@link PreparedSignature#checkOutput}.
+ * - The /ByteRange is found in the appended revision only, so the original document is not parsed or decrypted
+ * - The layout must leave exactly the reserved /Contents uncovered and reach the end of the file
+ * - The covered bytes are streamed from the file again and must match the digest in the signed attributes
+ */
+final class SignatureSelfCheck {
+    private static final byte[] BYTE_RANGE = "/ByteRange".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int BYTE_RANGE_MAX_LENGTH = 100;
+
+    static {
+        // Certificates parsed by PdfPKCS7 only expose their public key with the provider registered
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    private SignatureSelfCheck() {
+    }
+
+    /**
+     * @param revisionStart length of the document before signing; the signature dictionary is written after it
+     * @param reservedSize  bytes reserved for the signature container
+     * @throws SigningProcessException naming the first problem found
+     */
+    static void check(File file, long revisionStart, int reservedSize, X509Certificate certificate) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            SignedByteRange byteRange = findByteRange(channel, revisionStart);
+            if (byteRange == null) fail("no byte range in the signed revision");
+            if (!byteRange.coversWholeFile(channel.size())) fail("byte range does not reach the end of the file");
+            String layoutProblem = byteRange.layoutProblem(channel, reservedSize);
+            if (layoutProblem != null) fail(layoutProblem);
+
+            PdfPKCS7 pkcs7 = new PdfPKCS7(readContents(channel, byteRange), PdfName.ETSI_CADES_DETACHED, null);
+            if (!Arrays.equals(pkcs7.getSigningCertificate().getEncoded(), certificate.getEncoded())) {
+                fail("signature was made with a different certificate");
+            }
+            byteRange.digest(channel, pkcs7);
+            if (!pkcs7.verify()) fail("digest of the written file does not match the signed attributes");
+            if (pkcs7.getTimeStampToken() != null && !pkcs7.verifyTimestampImprint()) {
+                fail("timestamp does not match the signature");
+            }
+        } catch (SigningProcessException | IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SigningProcessException(Signer.buildDetailedMessage("Signed output failed the self-check", e), e);
+        }
+    }
+
+    private static void fail(String problem) {
+        throw new SigningProcessException("Signed output failed the self-check: " + problem);
+    }
+
+    /**
+     * The last /ByteRange at or after {@code from}, or null.
+     */
+    static SignedByteRange findByteRange(FileChannel channel, long from) throws IOException {
+        long size = channel.size();
+        long found = -1;
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        // Chunks overlap by the length of the key, so a match split between two reads is still found
+        for (long position = from; position < size; position += CHUNK_SIZE - BYTE_RANGE.length) {
+            int n = read(channel, buffer, position, CHUNK_SIZE);
+            for (int i = 0; i + BYTE_RANGE.length <= n; i++) {
+                if (matchesAt(buffer.array(), i)) found = position + i;
+            }
+            if (position + n >= size) break;
+        }
+        if (found < 0) return null;
+
+        int n = read(channel, buffer, found + BYTE_RANGE.length, BYTE_RANGE_MAX_LENGTH);
+        String array = new String(buffer.array(), 0, n, StandardCharsets.ISO_8859_1);
+        int open = array.indexOf('[');
+        int close = array.indexOf(']');
+        if (open < 0 || close < open) return null;
+        String[] numbers = array.substring(open + 1, close).trim().split("\\s+");
+        if (numbers.length != 4) return null;
+        long[] ranges = new long[4];
+        try {
+            for (int i = 0; i < 4; i++) ranges[i] = Long.parseLong(numbers[i]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return SignedByteRange.of(ranges);
+    }
+
+    private static boolean matchesAt(byte[] bytes, int offset) {
+        for (int i = 0; i < BYTE_RANGE.length; i++) {
+            if (bytes[offset + i] != BYTE_RANGE[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the hex string between the byte ranges; the zero padding after the container is kept.
+     */
+    private static byte[] readContents(FileChannel channel, SignedByteRange byteRange) throws IOException {
+        long hexStart = byteRange.getContentsStart() + 1;
+        int hexLength = (int) (byteRange.getContentsEnd() - 1 - hexStart);
+        ByteBuffer hex = ByteBuffer.allocate(hexLength);
+        if (read(channel, hex, hexStart, hexLength) != hexLength) fail("signature contents are truncated");
+
+        byte[] contents = new byte[hexLength / 2];
+        for (int i = 0; i < contents.length; i++) {
+            int high = Character.digit(hex.get(2 * i), 16);
+            int low = Character.digit(hex.get(2 * i + 1), 16);
+            if (high < 0 || low < 0) fail("signature contents are not a hex string");
+            contents[i] = (byte) (high << 4 | low);
+        }
+        return contents;
+    }
+
+    private static int read(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+}
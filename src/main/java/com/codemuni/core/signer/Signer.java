@@ -5,19 +5,21 @@ import com.codemuni.exceptions.CertificateChainException;
 import com.codemuni.exceptions.SigningProcessException;
 import com.codemuni.exceptions.TSAConfigurationException;
 import com.codemuni.exceptions.UserCancelledPasswordEntryException;
-import com.itextpdf.text.DocumentException;
+import com.codemuni.metrics.SigningOutcome;
+import com.codemuni.metrics.SigningPhase;
 import com.itextpdf.text.pdf.*;
 import com.itextpdf.text.pdf.security.*;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.KeyStoreException;
-import java.security.SignatureException;
-import java.security.cert.Certificate;
-import java.util.ArrayList;
+import java.security.cert.X509Certificate;
 import java.util.Base64;
-import java.util.List;
+import java.util.HashMap;
 
 public class Signer {
 
@@ -28,6 +30,7 @@ public class Signer {
     private static final int LTV_SIZE_ESTIMATE = 12_50_000;
     private static final int CMS_OVERHEAD = 10_000;
     private static final int SAFETY_MARGIN = 10_000;
+    private static final int RESERVED_CHAIN_LENGTH = 4;
 
     public static String buildDetailedMessage(String context, Exception e) {
         String baseMsg = context != null ? context : "An error occurred";
@@ -55,88 +58,139 @@ public class Signer {
     }
 
     public String sign(PdfReader reader, KeyStoreProvider keyStoreProvider, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient) throws UserCancelledPasswordEntryException {
-        PdfStamper stamper = null;
-
-        try (ByteArrayOutputStream signedPdfOutputStream = new ByteArrayOutputStream()) {
+        ByteArrayOutputStream signedPdfOutputStream = new ByteArrayOutputStream();
+        sign(reader, keyStoreProvider, options, tsaClient, signedPdfOutputStream, null, new SigningMetrics());
+        return Base64.getEncoder().encodeToString(signedPdfOutputStream.toByteArray());
+    }
 
-            if (options.isTimestampEnabled()) {
-                if (tsaClient == null) throw new TSAConfigurationException("TSA client is not configured.");
-                if (tsaClient.getUrl() == null) throw new TSAConfigurationException("TSA URL is not configured.");
-                if (tsaClient.getUrl().isEmpty()) throw new TSAConfigurationException("TSA URL is empty.");
-            }
+    /**
+     * Signs straight into a file. iText builds the signed revision in that file instead of in a heap buffer,
+     * so the heap needed does not grow with the document size.
+     */
+    public void sign(PdfReader reader, KeyStoreProvider keyStoreProvider, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient, File outputFile) throws UserCancelledPasswordEntryException {
+        sign(reader, keyStoreProvider, options, tsaClient, null, outputFile, new SigningMetrics(outputFile.getName()));
+    }
 
-            // Validate certificate chain
-            Certificate[] certChain = keyStoreProvider.getCertificateChain();
+    /**
+     * Prepares and completes in one go, publishing the phases and outcome to the metrics registry.
+     */
+    private void sign(PdfReader reader, KeyStoreProvider keyStoreProvider, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient,
+                      OutputStream signedPdfOutputStream, File outputFile, SigningMetrics metrics) throws UserCancelledPasswordEntryException {
+        SigningOutcome outcome = SigningOutcome.FAILED;
+        try {
+            prepare(reader, signerCertificate(keyStoreProvider), options, tsaClient, signedPdfOutputStream, outputFile, metrics)
+                    .complete(keyStoreProvider);
+            outcome = SigningOutcome.SUCCESS;
+        } catch (UserCancelledPasswordEntryException e) {
+            outcome = SigningOutcome.CANCELLED;
+            throw e;
+        } finally {
+            metrics.publish(outcome);
+        }
+    }
 
-            stamper = PdfStamper.createSignature(reader, signedPdfOutputStream, '\0', null, true);
-            PdfSignatureAppearance appearance = stamper.getSignatureAppearance();
+    /**
+     * Does everything that does not need the private key: builds the appearance, writes the signed revision
+     * into the file with space reserved for the signature and hashes its byte ranges.
+     * Meant to run while the user unlocks the token; {@link PreparedSignature#complete} then only signs the hash.
+     *
+     * @param certificate the signer's certificate, used for the appearance text and checked against the key on completion
+     */
+    public PreparedSignature prepare(PdfReader reader, X509Certificate certificate, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient, File outputFile) {
+        return prepare(reader, certificate, options, tsaClient, null, outputFile, new SigningMetrics());
+    }
 
-            SignatureAppearanceHandler appearanceHandler = new SignatureAppearanceHandler(keyStoreProvider, options);
-            appearanceHandler.configureAppearance(appearance);
+    /**
+     * Same as {@link #prepare(PdfReader, X509Certificate, AppearanceOptions, CustomTSAClientBouncyCastle, File)},
+     * timing its phases into the caller's metrics, which may already hold e.g. the time to open the document.
+     */
+    public PreparedSignature prepare(PdfReader reader, X509Certificate certificate, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient,
+                                     File outputFile, SigningMetrics metrics) {
+        return prepare(reader, certificate, options, tsaClient, null, outputFile, metrics);
+    }
 
-            // Watermark
-            if (options.getWatermarkImage() != null)
-                applyWatermarkToSignatureAppearance(appearance, options);
+    private PreparedSignature prepare(PdfReader reader, X509Certificate certificate, AppearanceOptions options, CustomTSAClientBouncyCastle tsaClient,
+                                      OutputStream signedPdfOutputStream, File outputFile, SigningMetrics metrics) {
+        if (options.isTimestampEnabled()) {
+            if (tsaClient == null) throw new TSAConfigurationException("TSA client is not configured.");
+            if (tsaClient.getUrl() == null) throw new TSAConfigurationException("TSA URL is not configured.");
+            if (tsaClient.getUrl().isEmpty()) throw new TSAConfigurationException("TSA URL is empty.");
+        }
 
-            ExternalDigest digest = new BouncyCastleDigest();
-            ExternalSignature signature = new PrivateKeySignature(
-                    keyStoreProvider.getPrivateKey(), DigestAlgorithms.SHA256, keyStoreProvider.getProvider());
+        long start = System.nanoTime();
+        PdfStamper stamper = null;
+        boolean prepared = false;
+        try {
+            SigningMetrics.PhaseTimer timer = metrics.start(SigningPhase.APPEARANCE);
+            SignatureAppearanceHandler appearanceHandler = new SignatureAppearanceHandler(certificate, options);
+            appearanceHandler.addSignatureField(reader);
+            timer.stop();
 
-            List<CrlClient> crlList = options.isLtvEnabled() ? prepareLtvComponents(certChain) : new ArrayList<>();
-            OcspClient ocspClient = options.isLtvEnabled() ? new OcspClientBouncyCastle(null) : null;
+            timer = metrics.start(SigningPhase.WRITE);
+            stamper = PdfStamper.createSignature(reader, signedPdfOutputStream, '\0', outputFile, true);
+            timer.stop(); // copies the original revision
 
-            int estimatedSize = estimateSignatureSize(certChain.length, tsaClient != null && options.isTimestampEnabled(), options.isLtvEnabled());
+            timer = metrics.start(SigningPhase.APPEARANCE);
+            PdfSignatureAppearance appearance = stamper.getSignatureAppearance();
+            appearanceHandler.configureAppearance(appearance); // includes the watermark
+
+            // The chain is only known once the token is unlocked, so space is reserved for a long one
+            int estimatedSize = estimateSignatureSize(RESERVED_CHAIN_LENGTH, tsaClient != null && options.isTimestampEnabled(), options.isLtvEnabled());
+
+            appearance.setCertificate(certificate);
+            appearance.addDeveloperExtension(PdfDeveloperExtension.ESIC_1_7_EXTENSIONLEVEL2);
+            PdfSignature dic = new PdfSignature(PdfName.ADOBE_PPKLITE, PdfName.ETSI_CADES_DETACHED);
+            dic.setReason(appearance.getReason());
+            dic.setLocation(appearance.getLocation());
+            dic.setSignatureCreator(appearance.getSignatureCreator());
+            dic.setContact(appearance.getContact());
+            dic.setDate(new PdfDate(appearance.getSignDate())); // time-stamp will over-rule this
+            appearance.setCryptoDictionary(dic);
+            timer.stop();
+
+            timer = metrics.start(SigningPhase.WRITE);
+            HashMap<PdfName, Integer> exclusions = new HashMap<>();
+            exclusions.put(PdfName.CONTENTS, estimatedSize * 2 + 2);
+            appearance.preClose(exclusions);
+            timer.stop();
 
-            MakeSignature.signDetached(
-                    appearance, digest, signature, certChain,
-                    crlList, ocspClient, tsaClient, estimatedSize, MakeSignature.CryptoStandard.CADES
-            );
+            ExternalDigest digest = new BouncyCastleDigest();
+            PrefetchingDigester digester = new PrefetchingDigester();
+            byte[] hash;
+            timer = metrics.start(SigningPhase.DIGEST);
+            try (InputStream rangeStream = appearance.getRangeStream()) {
+                hash = digester.digest(rangeStream, digest.getMessageDigest(DigestAlgorithms.SHA256));
+            }
+            timer.stop();
 
-            return Base64.getEncoder().encodeToString(signedPdfOutputStream.toByteArray());
+            metrics.setDigestBytes(digester.getBytes());
+            metrics.setPrepareNanos(System.nanoTime() - start);
 
-        } catch (SignatureException e) {
-            throw new UserCancelledPasswordEntryException("Signature cancelled by user.", e);
-        } catch (KeyStoreException e) {
-            throw new CertificateChainException("Unable to fetch certificate chain.", e);
+            prepared = true;
+            return new PreparedSignature(reader, appearance, certificate, options, tsaClient, estimatedSize, hash, metrics);
         } catch (Exception e) {
-            String detailedMessage = buildDetailedMessage("Signing PDF failed", e);
+            String detailedMessage = buildDetailedMessage("Preparing PDF for signing failed", e);
             throw new SigningProcessException(detailedMessage, e);
         } finally {
-            try {
-                if (stamper != null) stamper.close();
-                if (reader != null) reader.close();
-            } catch (Exception e) {
-                log.error("Failed to close resources" + e.getMessage(), e);
+            if (!prepared) {
+                try {
+                    if (stamper != null) stamper.close();
+                    if (reader != null) reader.close();
+                } catch (Exception e) {
+                    log.error("Failed to close resources" + e.getMessage(), e);
+                }
             }
         }
     }
 
-    private void applyWatermarkToSignatureAppearance(PdfSignatureAppearance appearance, AppearanceOptions options) {
-        int[] coords = options.getCoordinates();
-        float rectWidth = coords[2] - coords[0]; // urx - llx
-        float rectHeight = coords[3] - coords[1]; // ury - lly
-
-        options.getWatermarkImage().scaleToFit(rectWidth, rectHeight);
-
-        float imageWidth = options.getWatermarkImage().getScaledWidth();
-        float imageHeight = options.getWatermarkImage().getScaledHeight();
-
-        float xOffset = (rectWidth - imageWidth) / 2;
-        float yOffset = (rectHeight - imageHeight) / 2;
-        options.getWatermarkImage().setAbsolutePosition(xOffset, yOffset);
-
-        PdfTemplate background = appearance.getLayer(0); // Layer 0 = background
-        PdfGState gState = new PdfGState();
-        gState.setFillOpacity(0.20f); // 15% transparent
-
-        background.saveState();
-        background.setGState(gState);
+    private X509Certificate signerCertificate(KeyStoreProvider keyStoreProvider) {
         try {
-            background.addImage(options.getWatermarkImage());
-        } catch (DocumentException e) {
-            throw new RuntimeException("Failed to add watermark to signature appearance.", e);
+            return (X509Certificate) keyStoreProvider.getCertificateChain()[0];
+        } catch (KeyStoreException e) {
+            throw new CertificateChainException("Unable to fetch certificate chain.", e);
+        } catch (Exception e) {
+            throw new SigningProcessException(buildDetailedMessage("Signing PDF failed", e), e);
         }
-        background.restoreState();
     }
 
     private int estimateSignatureSize(int certCount, boolean withTimestamp, boolean withLTV) {
@@ -145,10 +199,4 @@ public class Signer {
                 (withLTV ? LTV_SIZE_ESTIMATE : 0) + CMS_OVERHEAD + SAFETY_MARGIN;
     }
 
-    private List<CrlClient> prepareLtvComponents(Certificate[] certChain) {
-        List<CrlClient> crlList = new ArrayList<>();
-        crlList.add(new CrlClientOnline(certChain));
-        return crlList;
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.codemuni.core.signer;
+
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.metrics.SigningOutcome;
+import com.codemuni.metrics.SigningPhase;
+import com.codemuni.metrics.jfr.EventSpan;
+import com.codemuni.metrics.jfr.FlightRecorderEvents;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Timings of one signature, filled in by {@link Signer#prepare} and {@link PreparedSignature#complete}.
+ * - Prepare: appearance, writing the signed revision and hashing (off the critical path while the PIN is entered)
+ * - Digest: bytes hashed and the time it took, reported as MB/s
+ * - Complete: signing the hash with the key, TSA and LTV requests, writing the signature
+ * - Self-check: re-reading the written file to check the signature, when {@link PreparedSignature#checkOutput} is used
+ * - Each step is also timed as a {@link SigningPhase}; callers add the phases around signing (open, save)
+ * and {@link #publish} the lot to the {@link MetricsRegistry} when the document is done
+ * - Phases and the whole attempt are also Flight Recorder events carrying the document name
+ */
+public final class SigningMetrics {
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private static final double BYTES_PER_MB = 1024d * 1024d;
+
+    private final Map<SigningPhase, Long> phaseNanos = new EnumMap<>(SigningPhase.class);
+    private final String document;
+    private final EventSpan signingEvent;
+    private long prepareNanos;
+    private long digestBytes;
+    private long completeNanos;
+
+    public SigningMetrics() {
+        this("");
+    }
+
+    /**
+     * @param document name shown in the trace line and the Flight Recorder events
+     */
+    public SigningMetrics(String document) {
+        this.document = document;
+        this.signingEvent = FlightRecorderEvents.signing(document);
+    }
+
+    /**
+     * Adds time to a phase; a phase that runs in several steps (e.g. writing) is summed.
+     */
+    public synchronized void record(SigningPhase phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * Starts timing a step of a phase; the time is added to the phase once the timer is stopped.
+     */
+    public PhaseTimer start(SigningPhase phase) {
+        return new PhaseTimer(phase);
+    }
+
+    /**
+     * Records the finished attempt in the {@link MetricsRegistry} and ends its Flight Recorder event.
+     */
+    public void publish(SigningOutcome outcome) {
+        MetricsRegistry.recordSigning(document, outcome, getPhaseNanos());
+        signingEvent.end(outcome.name());
+    }
+
+    /**
+     * Time per phase so far, in phase order; phases that did not run are missing.
+     */
+    public synchronized Map<SigningPhase, Long> getPhaseNanos() {
+        return new EnumMap<>(phaseNanos);
+    }
+
+    void setPrepareNanos(long prepareNanos) {
+        this.prepareNanos = prepareNanos;
+    }
+
+    void setDigestBytes(long bytes) {
+        this.digestBytes = bytes;
+    }
+
+    void setCompleteNanos(long completeNanos) {
+        this.completeNanos = completeNanos;
+    }
+
+    public long getPrepareMillis() {
+        return Math.round(prepareNanos / NANOS_PER_MILLI);
+    }
+
+    public long getDigestBytes() {
+        return digestBytes;
+    }
+
+    public long getDigestMillis() {
+        return Math.round(phase(SigningPhase.DIGEST) / NANOS_PER_MILLI);
+    }
+
+    public double getDigestMegabytesPerSecond() {
+        long digestNanos = phase(SigningPhase.DIGEST);
+        if (digestNanos <= 0) return 0;
+        return (digestBytes / BYTES_PER_MB) / (digestNanos / 1e9);
+    }
+
+    public long getCompleteMillis() {
+        return Math.round(completeNanos / NANOS_PER_MILLI);
+    }
+
+    public synchronized boolean isSelfChecked() {
+        return phaseNanos.containsKey(SigningPhase.SELF_CHECK);
+    }
+
+    /**
+     * Time spent checking the written file; 0 when it was not checked.
+     */
+    public long getSelfCheckMillis() {
+        return Math.round(phase(SigningPhase.SELF_CHECK) / NANOS_PER_MILLI);
+    }
+
+    private synchronized long phase(SigningPhase phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    @Override
+    public String toString() {
+        String timings = String.format("prepare %d ms (digest %.1f MB in %d ms, %.1f MB/s), complete %d ms",
+                getPrepareMillis(), digestBytes / BYTES_PER_MB, getDigestMillis(), getDigestMegabytesPerSecond(),
+                getCompleteMillis());
+        return isSelfChecked() ? timings + ", self-check " + getSelfCheckMillis() + " ms" : timings;
+    }
+
+    /**
+     * One timed step of a phase, started with {@link #start}. A step that is never stopped (e.g. it failed)
+     * is not recorded.
+     */
+    public final class PhaseTimer {
+        private final SigningPhase phase;
+        private final EventSpan event;
+        private final long startNanos = System.nanoTime();
+
+        private PhaseTimer(SigningPhase phase) {
+            this.phase = phase;
+            this.event = FlightRecorderEvents.signingPhase(document, phase);
+        }
+
+        public void stop() {
+            record(phase, System.nanoTime() - startNanos);
+            event.end();
+        }
+    }
+}
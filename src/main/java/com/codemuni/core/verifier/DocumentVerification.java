@@ -0,0 +1,56 @@
+package com.codemuni.core.verifier;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of checking every signature of a document, in revision order.
+ * A document without signatures is INDETERMINATE: there is nothing that proves it.
+ */
+public final class DocumentVerification {
+    private final File file;
+    private final int totalRevisions;
+    private final List<SignatureVerification> signatures;
+
+    DocumentVerification(File file, int totalRevisions, List<SignatureVerification> signatures) {
+        this.file = file;
+        this.totalRevisions = totalRevisions;
+        this.signatures = Collections.unmodifiableList(signatures);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getTotalRevisions() {
+        return totalRevisions;
+    }
+
+    public List<SignatureVerification> getSignatures() {
+        return signatures;
+    }
+
+    public boolean isSigned() {
+        return !signatures.isEmpty();
+    }
+
+    /**
+     * The worst status of all signatures.
+     */
+    public VerificationStatus getStatus() {
+        if (signatures.isEmpty()) return VerificationStatus.INDETERMINATE;
+        VerificationStatus status = VerificationStatus.VALID;
+        for (SignatureVerification signature : signatures) {
+            status = status.and(signature.getStatus());
+        }
+        return status;
+    }
+
+    /**
+     * True when the last signature covers the whole file, i.e. nothing was appended after the last signing.
+     */
+    public boolean isUnchangedSinceLastSignature() {
+        return !signatures.isEmpty() && signatures.get(signatures.size() - 1).isCoversWholeDocument();
+    }
+}
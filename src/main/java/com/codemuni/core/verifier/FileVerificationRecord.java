@@ -0,0 +1,132 @@
+package com.codemuni.core.verifier;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * One row of a bulk verification report, and one entry of the index the next run starts from.
+ * - Identifies the file by path, size, modification time and content hash
+ * - Keeps only a summary of the {@link DocumentVerification}, so an index of many files stays small
+ */
+public final class FileVerificationRecord {
+    public static final String UNSIGNED = "UNSIGNED";
+    public static final String ERROR = "ERROR";
+
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final String contentHash;
+    private final String outcome;
+    private final int signatures;
+    private final String details;
+    private final boolean reused;
+
+    public FileVerificationRecord(String path, long size, long lastModified, String contentHash, String outcome,
+                                  int signatures, String details, boolean reused) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+        this.outcome = outcome;
+        this.signatures = signatures;
+        this.details = details;
+        this.reused = reused;
+    }
+
+    public static FileVerificationRecord of(String path, long size, long lastModified, String contentHash,
+                                            DocumentVerification verification) {
+        StringBuilder details = new StringBuilder();
+        for (SignatureVerification signature : verification.getSignatures()) {
+            List<String> problems = signature.getProblems();
+            if (problems.isEmpty()) continue;
+            if (details.length() > 0) details.append("; ");
+            details.append(signature.getName()).append(": ").append(String.join(", ", problems));
+        }
+        String outcome = verification.isSigned() ? verification.getStatus().name() : UNSIGNED;
+        return new FileVerificationRecord(path, size, lastModified, contentHash, outcome,
+                verification.getSignatures().size(), details.toString(), false);
+    }
+
+    public static FileVerificationRecord error(String path, long size, long lastModified, String message) {
+        return new FileVerificationRecord(path, size, lastModified, null, ERROR, 0, message, false);
+    }
+
+    /**
+     * This record for the file in its current state, carried over without verifying it again.
+     */
+    public FileVerificationRecord reusedFor(long size, long lastModified) {
+        return new FileVerificationRecord(path, size, lastModified, contentHash, outcome, signatures, details, true);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * SHA-256 of the file content; null when the file could not be read.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * A {@link VerificationStatus} name, {@link #UNSIGNED} or {@link #ERROR}.
+     */
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public boolean isValid() {
+        return VerificationStatus.VALID.name().equals(outcome);
+    }
+
+    public int getSignatures() {
+        return signatures;
+    }
+
+    /**
+     * Why the file is not VALID; empty otherwise.
+     */
+    public String getDetails() {
+        return details;
+    }
+
+    /**
+     * True when the result comes from the previous run's index because the file did not change.
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    void writeJson(JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("path", path);
+        json.writeNumberField("size", size);
+        json.writeNumberField("lastModified", lastModified);
+        json.writeStringField("sha256", contentHash);
+        json.writeStringField("outcome", outcome);
+        json.writeNumberField("signatures", signatures);
+        json.writeStringField("details", details);
+        json.writeBooleanField("reused", reused);
+        json.writeEndObject();
+    }
+
+    static FileVerificationRecord readJson(JsonNode node) {
+        JsonNode hash = node.get("sha256");
+        return new FileVerificationRecord(node.path("path").asText(), node.path("size").asLong(),
+                node.path("lastModified").asLong(), hash == null || hash.isNull() ? null : hash.asText(),
+                node.path("outcome").asText(ERROR), node.path("signatures").asInt(), node.path("details").asText(""),
+                node.path("reused").asBoolean());
+    }
+}
@@ -0,0 +1,172 @@
+package com.codemuni.core.verifier;
+
+import com.itextpdf.text.pdf.*;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.ocsp.*;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.security.GeneralSecurityException;
+import java.security.cert.*;
+import java.util.*;
+
+/**
+ * Looks up the signing certificate in the revocation data embedded in the document.
+ * - Sources: the OCSP response and CRLs inside the CMS (adbe-revocationInfoArchival) and the document
+ * security store (/DSS) added for long-term validation
+ * - OCSP responses count only if their signature verifies with the issuer or a responder certificate issued by it;
+ * CRLs only if issued, and signed, by the issuer
+ * - Nothing is fetched from the network
+ */
+final class RevocationChecker {
+    private static final Log log = LogFactory.getLog(RevocationChecker.class);
+
+    private final List<BasicOCSPResp> storeOcsps = new ArrayList<>();
+    private final List<X509CRL> storeCrls = new ArrayList<>();
+
+    /**
+     * Reads the document security store of the document, if it has one.
+     */
+    RevocationChecker(PdfReader reader) {
+        PdfDictionary dss = reader.getCatalog().getAsDict(PdfName.DSS);
+        if (dss == null) return;
+        for (byte[] bytes : streams(dss.getAsArray(PdfName.OCSPS))) {
+            try {
+                Object response = new OCSPResp(bytes).getResponseObject();
+                if (response instanceof BasicOCSPResp) storeOcsps.add((BasicOCSPResp) response);
+            } catch (Exception e) {
+                log.warn("Ignoring unreadable OCSP response in the document security store", e);
+            }
+        }
+        for (byte[] bytes : streams(dss.getAsArray(PdfName.CRLS))) {
+            try {
+                storeCrls.add((X509CRL) CertificateFactory.getInstance("X.509").generateCRL(new ByteArrayInputStream(bytes)));
+            } catch (Exception e) {
+                log.warn("Ignoring unreadable CRL in the document security store", e);
+            }
+        }
+    }
+
+    /**
+     * @param issuer      issuer of {@code certificate} from the signature's chain; null when the chain is incomplete
+     * @param signingTime trusted signing time (timestamp); null when only the signer's clock is known
+     */
+    RevocationStatus check(X509Certificate certificate, X509Certificate issuer, Date signingTime,
+                           BasicOCSPResp cmsOcsp, Collection<CRL> cmsCrls) {
+        List<BasicOCSPResp> ocsps = new ArrayList<>(storeOcsps);
+        if (cmsOcsp != null) ocsps.add(cmsOcsp);
+        List<X509CRL> crls = new ArrayList<>(storeCrls);
+        if (cmsCrls != null) {
+            for (CRL crl : cmsCrls) {
+                if (crl instanceof X509CRL) crls.add((X509CRL) crl);
+            }
+        }
+
+        RevocationStatus status = RevocationStatus.NO_DATA;
+        for (BasicOCSPResp ocsp : ocsps) {
+            status = worse(status, checkOcsp(ocsp, certificate, issuer, signingTime));
+        }
+        for (X509CRL crl : crls) {
+            status = worse(status, checkCrl(crl, certificate, issuer, signingTime));
+        }
+        return status;
+    }
+
+    private static RevocationStatus checkOcsp(BasicOCSPResp ocsp, X509Certificate certificate, X509Certificate issuer,
+                                              Date signingTime) {
+        try {
+            if (issuer == null || !isSignedForIssuer(ocsp, issuer)) return RevocationStatus.NO_DATA;
+            DigestCalculatorProvider digests = new JcaDigestCalculatorProviderBuilder().build();
+            X509CertificateHolder issuerHolder = new X509CertificateHolder(issuer.getEncoded());
+            for (SingleResp response : ocsp.getResponses()) {
+                CertificateID id = response.getCertID();
+                if (!id.getSerialNumber().equals(certificate.getSerialNumber()) || !id.matchesIssuer(issuerHolder, digests)) {
+                    continue;
+                }
+                CertificateStatus certStatus = response.getCertStatus();
+                if (certStatus == CertificateStatus.GOOD) return RevocationStatus.GOOD;
+                if (certStatus instanceof RevokedStatus) {
+                    return revoked(((RevokedStatus) certStatus).getRevocationTime(), signingTime);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Unable to check OCSP response", e);
+        }
+        return RevocationStatus.NO_DATA;
+    }
+
+    private static boolean isSignedForIssuer(BasicOCSPResp ocsp, X509Certificate issuer) throws Exception {
+        if (ocsp.isSignatureValid(new JcaContentVerifierProviderBuilder().build(issuer.getPublicKey()))) return true;
+        for (X509CertificateHolder holder : ocsp.getCerts()) {
+            X509Certificate responder = (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(new ByteArrayInputStream(holder.getEncoded()));
+            try {
+                responder.verify(issuer.getPublicKey());
+            } catch (GeneralSecurityException e) {
+                continue; // not delegated by this issuer
+            }
+            if (ocsp.isSignatureValid(new JcaContentVerifierProviderBuilder().build(responder.getPublicKey()))) return true;
+        }
+        return false;
+    }
+
+    private static RevocationStatus checkCrl(X509CRL crl, X509Certificate certificate, X509Certificate issuer,
+                                             Date signingTime) {
+        if (issuer == null || !crl.getIssuerX500Principal().equals(certificate.getIssuerX500Principal())) {
+            return RevocationStatus.NO_DATA;
+        }
+        try {
+            crl.verify(issuer.getPublicKey());
+        } catch (Exception e) {
+            log.warn("Ignoring CRL of " + crl.getIssuerX500Principal() + " with an invalid signature");
+            return RevocationStatus.NO_DATA;
+        }
+        X509CRLEntry entry = crl.getRevokedCertificate(certificate);
+        return entry == null ? RevocationStatus.GOOD : revoked(entry.getRevocationDate(), signingTime);
+    }
+
+    private static RevocationStatus revoked(Date revocationTime, Date signingTime) {
+        return signingTime != null && revocationTime != null && revocationTime.after(signingTime)
+                ? RevocationStatus.REVOKED_AFTER_SIGNING
+                : RevocationStatus.REVOKED;
+    }
+
+    /**
+     * REVOKED beats REVOKED_AFTER_SIGNING beats GOOD beats NO_DATA.
+     */
+    private static RevocationStatus worse(RevocationStatus a, RevocationStatus b) {
+        return rank(b) > rank(a) ? b : a;
+    }
+
+    private static int rank(RevocationStatus status) {
+        switch (status) {
+            case REVOKED:
+                return 3;
+            case REVOKED_AFTER_SIGNING:
+                return 2;
+            case GOOD:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    private static List<byte[]> streams(PdfArray array) {
+        List<byte[]> result = new ArrayList<>();
+        if (array == null) return result;
+        for (int i = 0; i < array.size(); i++) {
+            PdfObject object = array.getDirectObject(i);
+            if (!(object instanceof PRStream)) continue;
+            try {
+                result.add(PdfReader.getStreamBytes((PRStream) object));
+            } catch (Exception e) {
+                log.warn("Ignoring unreadable stream in the document security store", e);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package com.codemuni.core.verifier;
+
+/**
+ * Revocation state of the signing certificate according to the revocation data embedded in the document.
+ * No network lookups are made.
+ */
+public enum RevocationStatus {
+    /** An embedded OCSP response or CRL shows the certificate was not revoked */
+    GOOD,
+    /** An embedded OCSP response or CRL shows the certificate was revoked */
+    REVOKED,
+    /** Revoked, but only after the (timestamped) signing time */
+    REVOKED_AFTER_SIGNING,
+    /** No embedded OCSP response or CRL covers the certificate */
+    NO_DATA
+}
@@ -0,0 +1,133 @@
+package com.codemuni.core.verifier;
+
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Outcome of checking one signature of a document.
+ * - {@link #getStatus()} sums up the checks; {@link #getProblems()} says why it is not VALID
+ * - Warnings do not change the status (e.g. a weak certificate algorithm or a document changed after signing)
+ */
+public final class SignatureVerification {
+    final String name;
+    final int revision;
+    String subFilter;
+    boolean documentTimestamp;
+    X509Certificate signingCertificate;
+    Date signingTime;
+    boolean coversWholeDocument;
+    boolean intact;
+    boolean chainTrusted;
+    boolean timestamped;
+    boolean timestampValid;
+    Date timestampTime;
+    RevocationStatus revocationStatus = RevocationStatus.NO_DATA;
+    private VerificationStatus status = VerificationStatus.VALID;
+    private final List<String> problems = new ArrayList<>();
+    private final List<String> warnings = new ArrayList<>();
+
+    SignatureVerification(String name, int revision) {
+        this.name = name;
+        this.revision = revision;
+    }
+
+    void fail(String problem) {
+        status = status.and(VerificationStatus.INVALID);
+        problems.add(problem);
+    }
+
+    void doubt(String problem) {
+        status = status.and(VerificationStatus.INDETERMINATE);
+        problems.add(problem);
+    }
+
+    void warn(String warning) {
+        warnings.add(warning);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Revision of the document this signature belongs to, starting at 1.
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    public VerificationStatus getStatus() {
+        return status;
+    }
+
+    public String getSubFilter() {
+        return subFilter;
+    }
+
+    /**
+     * True for an RFC 3161 document timestamp rather than a signature by a person.
+     */
+    public boolean isDocumentTimestamp() {
+        return documentTimestamp;
+    }
+
+    /**
+     * Null if the signature could not be parsed.
+     */
+    public X509Certificate getSigningCertificate() {
+        return signingCertificate;
+    }
+
+    /**
+     * The timestamp time when there is a valid timestamp, otherwise the time the signer claims (/M); may be null.
+     */
+    public Date getSigningTime() {
+        return timestampValid ? timestampTime : signingTime;
+    }
+
+    /**
+     * False when later revisions were appended after this signature.
+     */
+    public boolean isCoversWholeDocument() {
+        return coversWholeDocument;
+    }
+
+    /**
+     * The signed bytes are unchanged and the CMS signature over them verifies.
+     */
+    public boolean isIntact() {
+        return intact;
+    }
+
+    public boolean isChainTrusted() {
+        return chainTrusted;
+    }
+
+    public boolean isTimestamped() {
+        return timestamped;
+    }
+
+    public boolean isTimestampValid() {
+        return timestampValid;
+    }
+
+    public RevocationStatus getRevocationStatus() {
+        return revocationStatus;
+    }
+
+    public List<String> getProblems() {
+        return Collections.unmodifiableList(problems);
+    }
+
+    public List<String> getWarnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (revision " + revision + "): " + status + (problems.isEmpty() ? "" : " " + problems);
+    }
+}
@@ -0,0 +1,350 @@
+package com.codemuni.core.verifier;
+
+import com.codemuni.core.document.SharedDocumentSource;
+import com.codemuni.core.keyStoresProvider.X509CertificateValidator;
+import com.codemuni.core.keyStoresProvider.X509CertificateValidatorImpl;
+import com.itextpdf.text.pdf.*;
+import com.itextpdf.text.pdf.security.PdfPKCS7;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.tsp.TimeStampToken;
+
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateExpiredException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CertificateNotYetValidException;
+import java.security.cert.X509Certificate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Checks every signature of a PDF.
+ * - Signatures are found through the AcroForm of a partial iText reader over a {@link SharedDocumentSource}
+ * - Per signature: byte range layout, digest of the signed bytes and the CMS signature, timestamp imprint and
+ * TSA signature, certificate chain (through {@link X509CertificateValidator}) and embedded revocation data
+ * - Signed bytes are streamed from the file in fixed-size chunks; the file is never loaded into memory
+ * - Independent signatures are checked in parallel, each worker with its own reader and file channel
+ * <p>
+ * Trust comes from the given roots, by default the CA certificates of the Java runtime. No network lookups are made.
+ */
+public class SignatureVerifier {
+    private static final Log log = LogFactory.getLog(SignatureVerifier.class);
+    private static final int MAX_CHAIN_LENGTH = 10;
+
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())), r -> {
+                Thread t = new Thread(r, "SignatureVerifier");
+                t.setDaemon(true);
+                return t;
+            });
+    private static volatile Set<X509Certificate> systemRoots;
+
+    static {
+        // Certificates parsed from the CMS are BouncyCastle objects; their keys need the provider to be registered
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    private final X509CertificateValidator validator;
+    private final Set<X509Certificate> trustedRoots;
+
+    public SignatureVerifier() {
+        this(new X509CertificateValidatorImpl(), systemTrustedRoots());
+    }
+
+    public SignatureVerifier(X509CertificateValidator validator, Set<X509Certificate> trustedRoots) {
+        this.validator = validator;
+        this.trustedRoots = Collections.unmodifiableSet(new HashSet<>(trustedRoots));
+    }
+
+    /**
+     * CA certificates trusted by the Java runtime (its cacerts), loaded once.
+     */
+    public static Set<X509Certificate> systemTrustedRoots() {
+        if (systemRoots == null) {
+            Set<X509Certificate> roots = new HashSet<>();
+            try {
+                TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                factory.init((KeyStore) null);
+                for (javax.net.ssl.TrustManager manager : factory.getTrustManagers()) {
+                    if (manager instanceof X509TrustManager) {
+                        Collections.addAll(roots, ((X509TrustManager) manager).getAcceptedIssuers());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Unable to load the trusted CA certificates of the Java runtime", e);
+            }
+            systemRoots = Collections.unmodifiableSet(roots);
+        }
+        return systemRoots;
+    }
+
+    public DocumentVerification verify(File file) throws IOException {
+        SharedDocumentSource source = SharedDocumentSource.open(file);
+        try {
+            return verify(source);
+        } finally {
+            source.release();
+        }
+    }
+
+    /**
+     * Checks all signatures of an opened document; encrypted documents use the password the source was opened with.
+     */
+    public DocumentVerification verify(SharedDocumentSource source) throws IOException {
+        long start = System.nanoTime();
+        PdfReader reader = source.openPdfReader();
+        try {
+            AcroFields fields = reader.getAcroFields();
+            List<String> names = fields.getSignatureNames();
+            RevocationChecker revocation = new RevocationChecker(reader);
+
+            List<Future<SignatureVerification>> others = new ArrayList<>();
+            for (int i = 1; i < names.size(); i++) {
+                String name = names.get(i);
+                others.add(WORKERS.submit(() -> verifyWithOwnReader(source, name, revocation)));
+            }
+            List<SignatureVerification> results = new ArrayList<>();
+            if (!names.isEmpty()) {
+                results.add(verify(source, reader, fields, names.get(0), revocation)); // on this thread, meanwhile
+            }
+            for (Future<SignatureVerification> other : others) {
+                results.add(await(other));
+            }
+
+            DocumentVerification verification = new DocumentVerification(source.getFile(), fields.getTotalRevisions(), results);
+            log.debug("Verified " + names.size() + " signature(s) of " + source.getFile().getName() + ": "
+                    + verification.getStatus() + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            return verification;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private SignatureVerification verifyWithOwnReader(SharedDocumentSource source, String name,
+                                                      RevocationChecker revocation) throws IOException {
+        PdfReader reader = source.openPdfReader();
+        try {
+            return verify(source, reader, reader.getAcroFields(), name, revocation);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private SignatureVerification verify(SharedDocumentSource source, PdfReader reader, AcroFields fields, String name,
+                                         RevocationChecker revocation) throws IOException {
+        SignatureVerification result = new SignatureVerification(name, fields.getRevision(name));
+        try (FileChannel channel = FileChannel.open(source.getFile().toPath(), StandardOpenOption.READ)) {
+            PdfDictionary signature = fields.getSignatureDictionary(name);
+            PdfName subFilter = signature.getAsName(PdfName.SUBFILTER);
+            result.subFilter = subFilter != null ? PdfName.decodeName(subFilter.toString()) : null;
+
+            PdfString contents = signature.getAsString(PdfName.CONTENTS);
+            SignedByteRange byteRange = SignedByteRange.of(signature);
+            if (contents == null || byteRange == null) {
+                result.fail("signature has no contents or byte range");
+                return result;
+            }
+            String layoutProblem = byteRange.layoutProblem(channel, contents.getOriginalBytes().length);
+            if (layoutProblem != null) {
+                result.fail(layoutProblem);
+                return result;
+            }
+            result.coversWholeDocument = byteRange.coversWholeFile(channel.size());
+            if (!result.coversWholeDocument) result.warn("the document was changed after this signature");
+
+            PdfPKCS7 pkcs7;
+            try {
+                pkcs7 = parse(signature, subFilter, contents.getOriginalBytes());
+            } catch (Exception e) {
+                if (!reader.isEncrypted()) {
+                    result.fail("signature cannot be parsed: " + e.getMessage());
+                    return result;
+                }
+                // /Contents of a signature is never encrypted (ISO 32000-1, 7.6.1), but some writers encrypt it anyway
+                try {
+                    pkcs7 = parse(signature, subFilter, contents.getBytes());
+                } catch (Exception decrypted) {
+                    result.fail("signature cannot be parsed: " + e.getMessage());
+                    return result;
+                }
+            }
+            result.documentTimestamp = pkcs7.isTsp();
+            result.signingCertificate = pkcs7.getSigningCertificate();
+            PdfString claimedTime = signature.getAsString(PdfName.M);
+            Calendar signDate = claimedTime != null ? PdfDate.decode(claimedTime.toString()) : pkcs7.getSignDate();
+            result.signingTime = signDate != null ? signDate.getTime() : null;
+
+            byteRange.digest(channel, pkcs7);
+            result.intact = pkcs7.verify();
+            if (!result.intact) result.fail("the signed bytes were changed or the signature does not match them");
+
+            checkTimestamp(pkcs7, result);
+            checkCertificates(pkcs7, result, revocation);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("Failed to verify signature " + name, e);
+            result.fail("verification failed: " + e.getMessage());
+        }
+        return result;
+    }
+
+    private static PdfPKCS7 parse(PdfDictionary signature, PdfName subFilter, byte[] cms) {
+        if (PdfName.ADBE_X509_RSA_SHA1.equals(subFilter)) {
+            PdfString cert = signature.getAsString(PdfName.CERT);
+            if (cert == null) cert = signature.getAsArray(PdfName.CERT).getAsString(0);
+            return new PdfPKCS7(cms, cert.getBytes(), null);
+        }
+        return new PdfPKCS7(cms, subFilter, null);
+    }
+
+    private static void checkTimestamp(PdfPKCS7 pkcs7, SignatureVerification result) throws Exception {
+        TimeStampToken token = pkcs7.getTimeStampToken();
+        if (token == null) return;
+        result.timestamped = true;
+        result.timestampTime = token.getTimeStampInfo().getGenTime();
+
+        // A document timestamp's imprint is checked by verify(); a signature timestamp covers the signature value
+        boolean imprintMatches = pkcs7.isTsp() ? result.intact : pkcs7.verifyTimestampImprint();
+        boolean signedByTsa = isSignedByTsa(token);
+        result.timestampValid = imprintMatches && signedByTsa;
+        if (!imprintMatches) result.fail("the timestamp does not cover this signature");
+        if (!signedByTsa) result.fail("the timestamp signature does not verify");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean isSignedByTsa(TimeStampToken token) {
+        try {
+            Collection<X509CertificateHolder> candidates = token.getCertificates().getMatches(token.getSID());
+            for (X509CertificateHolder candidate : candidates) {
+                if (token.isSignatureValid(new JcaSimpleSignerInfoVerifierBuilder().build(candidate))) return true;
+            }
+        } catch (Exception e) {
+            log.warn("Unable to check the timestamp signature", e);
+        }
+        return false;
+    }
+
+    private void checkCertificates(PdfPKCS7 pkcs7, SignatureVerification result, RevocationChecker revocation) {
+        X509Certificate certificate = result.signingCertificate;
+        List<X509Certificate> chain = new ArrayList<>();
+        for (Certificate cert : pkcs7.getSignCertificateChain()) {
+            chain.add((X509Certificate) cert);
+        }
+
+        result.chainTrusted = isTrusted(chain);
+        if (!result.chainTrusted) result.doubt("the certificate chain does not lead to a trusted root");
+
+        Date signingTime = result.getSigningTime();
+        if (signingTime != null) {
+            try {
+                certificate.checkValidity(signingTime);
+            } catch (CertificateExpiredException | CertificateNotYetValidException e) {
+                result.fail("the certificate was not valid at the signing time");
+            }
+        }
+        if (validator.isExpired(certificate)) result.warn("the certificate has expired since");
+        if (!validator.isSignatureAlgorithmSecure(certificate)) result.warn("the certificate uses a weak signature algorithm");
+        if (!result.documentTimestamp && !validator.isDigitalSignatureAllowed(certificate)) {
+            result.warn("the certificate is not meant for digital signatures");
+        }
+
+        X509Certificate issuer = chain.size() > 1 ? chain.get(1) : findTrustedIssuer(certificate);
+        result.revocationStatus = revocation.check(certificate, issuer, result.timestampValid ? result.timestampTime : null,
+                pkcs7.getOcsp(), pkcs7.getCRLs());
+        switch (result.revocationStatus) {
+            case REVOKED:
+                result.fail("the certificate was revoked");
+                break;
+            case REVOKED_AFTER_SIGNING:
+                result.warn("the certificate was revoked after the timestamped signing time");
+                break;
+            case NO_DATA:
+                result.warn("no embedded revocation data");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private boolean isTrusted(List<X509Certificate> chain) {
+        if (chain.isEmpty()) return false;
+        List<X509Certificate> path = new ArrayList<>(chain);
+        if (isTrustedRoot(path.get(path.size() - 1))) {
+            if (path.size() == 1) return true; // signed with a trusted root itself
+            path.remove(path.size() - 1);      // the anchor is not part of the path
+        }
+        try {
+            return validator.isChainValid(runtimeCertificates(path), trustedRoots, MAX_CHAIN_LENGTH);
+        } catch (CertificateException e) {
+            log.warn("Unable to re-read certificate chain", e);
+            return false;
+        }
+    }
+
+    /**
+     * Certificates parsed from the CMS are BouncyCastle objects, which the runtime's PKIX validator cannot check
+     * (BouncyCastle 1.48 does not implement verify with a given Provider), so they are read again by the runtime.
+     */
+    private static List<X509Certificate> runtimeCertificates(List<X509Certificate> chain) throws CertificateException {
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        List<X509Certificate> certificates = new ArrayList<>(chain.size());
+        for (X509Certificate certificate : chain) {
+            byte[] encoded = certificate.getEncoded();
+            certificates.add((X509Certificate) factory.generateCertificate(new ByteArrayInputStream(encoded)));
+        }
+        return certificates;
+    }
+
+    /**
+     * Compares encodings: certificates parsed from the CMS are BouncyCastle objects, whose hash codes differ from
+     * those of the runtime's certificates.
+     */
+    private boolean isTrustedRoot(X509Certificate certificate) {
+        try {
+            byte[] encoded = certificate.getEncoded();
+            for (X509Certificate root : trustedRoots) {
+                if (Arrays.equals(encoded, root.getEncoded())) return true;
+            }
+        } catch (CertificateEncodingException e) {
+            log.warn("Unable to encode certificate " + certificate.getSubjectX500Principal(), e);
+        }
+        return false;
+    }
+
+    private X509Certificate findTrustedIssuer(X509Certificate certificate) {
+        for (X509Certificate root : trustedRoots) {
+            if (root.getSubjectX500Principal().equals(certificate.getIssuerX500Principal())) return root;
+        }
+        return validator.isSelfSigned(certificate) ? certificate : null;
+    }
+
+    private static SignatureVerification await(Future<SignatureVerification> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while verifying signatures", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException
+                    ? (IOException) e.getCause()
+                    : new IOException("Failed to verify a signature", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.codemuni.core.verifier;
+
+import com.itextpdf.text.pdf.PdfArray;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.security.PdfPKCS7;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.SignatureException;
+
+/**
+ * The /ByteRange of a signature: the two parts of the file around the /Contents hole that the signature covers.
+ * - The layout is checked against the file: the ranges start at 0, do not overlap, stay inside the file and
+ * leave exactly the hex string of /Contents uncovered
+ * - Covered bytes are streamed from a file channel in fixed-size chunks, so memory use does not depend on the file size
+ */
+public final class SignedByteRange {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final long[] ranges;
+
+    private SignedByteRange(long[] ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * The byte range of a signature dictionary, or null when it is missing or not four numbers.
+     */
+    public static SignedByteRange of(PdfDictionary signature) {
+        PdfArray byteRange = signature.getAsArray(PdfName.BYTERANGE);
+        if (byteRange == null || byteRange.size() != 4) return null;
+        long[] ranges = byteRange.asLongArray();
+        return new SignedByteRange(ranges);
+    }
+
+    /**
+     * A byte range as the four numbers of the /ByteRange array.
+     */
+    public static SignedByteRange of(long[] ranges) {
+        if (ranges.length != 4) throw new IllegalArgumentException("A byte range has four numbers");
+        return new SignedByteRange(ranges.clone());
+    }
+
+    /**
+     * Offset of the '&lt;' that opens the /Contents hex string.
+     */
+    public long getContentsStart() {
+        return ranges[1];
+    }
+
+    /**
+     * Offset just past the '&gt;' that closes the /Contents hex string.
+     */
+    public long getContentsEnd() {
+        return ranges[2];
+    }
+
+    /**
+     * Offset just past the covered bytes, i.e. the length of the revision that was signed.
+     */
+    public long getSignedLength() {
+        return ranges[2] + ranges[3];
+    }
+
+    public boolean coversWholeFile(long fileLength) {
+        return getSignedLength() == fileLength;
+    }
+
+    /**
+     * What is wrong with the layout, or null if it is sound.
+     *
+     * @param contentsLength length in bytes of the decoded /Contents string
+     */
+    public String layoutProblem(FileChannel channel, int contentsLength) throws IOException {
+        long fileLength = channel.size();
+        if (ranges[0] != 0) return "byte range does not start at the beginning of the file";
+        if (ranges[1] <= 0 || ranges[2] <= ranges[1] || ranges[3] < 0) return "byte range is malformed";
+        if (getSignedLength() > fileLength) return "byte range extends past the end of the file";
+        if (ranges[2] - ranges[1] != 2L * contentsLength + 2) return "byte range gap does not match the signature contents";
+        if (readByte(channel, ranges[1]) != '<' || readByte(channel, ranges[2] - 1) != '>') {
+            return "byte range gap is not the signature contents";
+        }
+        return null;
+    }
+
+    /**
+     * Feeds the covered bytes to the signature, so {@link PdfPKCS7#verify()} can compare the digest.
+     */
+    public void digest(FileChannel channel, PdfPKCS7 pkcs7) throws IOException, SignatureException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        for (int i = 0; i < ranges.length; i += 2) {
+            long position = ranges[i];
+            long end = position + ranges[i + 1];
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(CHUNK_SIZE, end - position));
+                int n = channel.read(buffer, position);
+                if (n < 0) throw new EOFException("File ends inside the signed byte range");
+                pkcs7.update(buffer.array(), 0, n);
+                position += n;
+            }
+        }
+    }
+
+    private static int readByte(FileChannel channel, long position) throws IOException {
+        ByteBuffer one = ByteBuffer.allocate(1);
+        return channel.read(one, position) == 1 ? one.get(0) : -1;
+    }
+}
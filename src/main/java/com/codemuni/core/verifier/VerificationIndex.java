@@ -0,0 +1,74 @@
+package com.codemuni.core.verifier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records of a previous bulk verification run, by path, so unchanged files need not be verified again.
+ * - A file is unchanged when its size and modification time match; if only the time differs, a matching
+ * content hash still counts (e.g. a copy that kept the bytes)
+ * - Stored as JSON Lines, as written by {@link VerificationReport#jsonLines}
+ */
+public final class VerificationIndex {
+    private static final Log log = LogFactory.getLog(VerificationIndex.class);
+
+    private final Map<String, FileVerificationRecord> records = new HashMap<>();
+
+    /**
+     * An index without records, for a full run.
+     */
+    public static VerificationIndex empty() {
+        return new VerificationIndex();
+    }
+
+    /**
+     * Reads an index; a missing file gives an empty index and unreadable lines are skipped.
+     */
+    public static VerificationIndex load(Path file) throws IOException {
+        VerificationIndex index = new VerificationIndex();
+        ObjectMapper mapper = new ObjectMapper();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                try {
+                    JsonNode node = mapper.readTree(line);
+                    FileVerificationRecord record = FileVerificationRecord.readJson(node);
+                    if (!FileVerificationRecord.ERROR.equals(record.getOutcome())) index.records.put(record.getPath(), record);
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable line in verification index " + file);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // First run
+        }
+        return index;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    public FileVerificationRecord get(String path) {
+        return records.get(path);
+    }
+
+    /**
+     * True when the recorded size and modification time still match, so the file need not even be hashed.
+     */
+    public static boolean isUnchanged(FileVerificationRecord record, long size, long lastModified) {
+        return record != null && record.getSize() == size && record.getLastModified() == lastModified
+                && record.getContentHash() != null;
+    }
+}
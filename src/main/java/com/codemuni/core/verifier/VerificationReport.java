@@ -0,0 +1,100 @@
+package com.codemuni.core.verifier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streaming report of a bulk verification: each record is written and flushed as soon as it is known,
+ * so a long run can be followed and a crash loses nothing already written.
+ * <p>
+ * Thread-safe; workers write concurrently.
+ */
+public abstract class VerificationReport implements Closeable {
+    protected final Writer out;
+
+    protected VerificationReport(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * JSON Lines: one JSON object per file. Also the format of the index read by {@link VerificationIndex}.
+     */
+    public static VerificationReport jsonLines(Writer out) {
+        return new JsonLines(out);
+    }
+
+    /**
+     * CSV with a header row, quoted as in RFC 4180.
+     */
+    public static VerificationReport csv(Writer out) throws IOException {
+        return new Csv(out);
+    }
+
+    public synchronized void write(FileVerificationRecord record) throws IOException {
+        writeRecord(record);
+        out.flush();
+    }
+
+    protected abstract void writeRecord(FileVerificationRecord record) throws IOException;
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private static final class JsonLines extends VerificationReport {
+        private static final JsonFactory FACTORY = new JsonFactory();
+
+        JsonLines(Writer out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeRecord(FileVerificationRecord record) throws IOException {
+            JsonGenerator json = FACTORY.createGenerator(out);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            record.writeJson(json);
+            json.flush();
+            out.write('\n');
+        }
+    }
+
+    private static final class Csv extends VerificationReport {
+        Csv(Writer out) throws IOException {
+            super(out);
+            out.write("path,size,lastModified,sha256,outcome,signatures,details,reused\r\n");
+        }
+
+        @Override
+        protected void writeRecord(FileVerificationRecord record) throws IOException {
+            out.write(quote(record.getPath()));
+            out.write(',');
+            out.write(Long.toString(record.getSize()));
+            out.write(',');
+            out.write(Long.toString(record.getLastModified()));
+            out.write(',');
+            out.write(record.getContentHash() != null ? record.getContentHash() : "");
+            out.write(',');
+            out.write(record.getOutcome());
+            out.write(',');
+            out.write(Integer.toString(record.getSignatures()));
+            out.write(',');
+            out.write(quote(record.getDetails()));
+            out.write(',');
+            out.write(Boolean.toString(record.isReused()));
+            out.write("\r\n");
+        }
+
+        private static String quote(String value) {
+            if (value == null) return "";
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
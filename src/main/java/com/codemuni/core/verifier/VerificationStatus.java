@@ -0,0 +1,20 @@
+package com.codemuni.core.verifier;
+
+/**
+ * Overall outcome of a signature or document check.
+ */
+public enum VerificationStatus {
+    /** Intact, cryptographically valid, signed with a trusted certificate that was not revoked */
+    VALID,
+    /** Intact and cryptographically valid, but trust or revocation could not be established */
+    INDETERMINATE,
+    /** Tampered, malformed, or signed with a revoked certificate */
+    INVALID;
+
+    /**
+     * The worse of two outcomes.
+     */
+    VerificationStatus and(VerificationStatus other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+}
@@ -5,6 +5,7 @@ import com.codemuni.core.keyStoresProvider.X509SubjectUtils;
 import com.codemuni.core.signer.AppearanceOptions;
 import com.codemuni.model.CertificationLevel;
 import com.codemuni.model.RenderingMode;
+import com.codemuni.model.SignaturePages;
 import com.itextpdf.text.pdf.PdfSignatureAppearance;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,12 +37,14 @@ public class SignatureAppearanceDialog extends JDialog {
     private JTextField reasonField;
     private JTextField locationField;
     private JTextField customTextField;
+    private JTextField selectedPagesField;
     private JCheckBox ltvCheckbox, timestampCheckbox, greenTickCheckbox, includeCompanyCheckbox, includeEntireSubjectDNCheckbox;
-    private JComboBox<String> renderingModeCombo, certLevelCombo;
+    private JComboBox<String> renderingModeCombo, certLevelCombo, signaturePagesCombo;
     private JButton chooseImageButton;
     private File selectedImageFile;
     private JPanel previewPanel;
     private AppearanceOptions appearanceOptions;
+    private int pageCount;
 
     public SignatureAppearanceDialog(Frame parent) {
         super(parent, "Signature Appearance Settings", true);
@@ -54,6 +57,13 @@ public class SignatureAppearanceDialog extends JDialog {
         this.certificate = certificate;
     }
 
+    /**
+     * Pages of the document; selected pages past it are rejected.
+     */
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
     public void showAppearanceConfigPrompt() {
         JPanel mainPanel = new JPanel(new BorderLayout(15, 10));
         mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 10, 20));
@@ -153,6 +163,25 @@ public class SignatureAppearanceDialog extends JDialog {
         formPanel.add(customTextField, gbc);
         gbc.gridwidth = 1;
 
+        // Pages showing the signature (one signature, a widget on each page)
+        gbc.gridx = 0;
+        gbc.gridy++;
+        formPanel.add(new JLabel("Show Signature On:"), gbc);
+        gbc.gridy++;
+        signaturePagesCombo = new JComboBox<>(
+                Arrays.stream(SignaturePages.values()).map(SignaturePages::getLabel).toArray(String[]::new)
+        );
+        formPanel.add(signaturePagesCombo, gbc);
+
+        gbc.gridx = 1;
+        gbc.gridy -= 1;
+        formPanel.add(new JLabel("Pages (e.g. 1, 3, 5-7):"), gbc);
+        gbc.gridy++;
+        selectedPagesField = new JTextField(15);
+        selectedPagesField.setEnabled(false);
+        selectedPagesField.setToolTipText("The signature is also shown on the page it was placed on.");
+        formPanel.add(selectedPagesField, gbc);
+
         // Options Checkboxes
         gbc.gridx = 0;
         gbc.gridy++;
@@ -213,6 +242,9 @@ public class SignatureAppearanceDialog extends JDialog {
             updatePreview();
         });
 
+        signaturePagesCombo.addItemListener(e -> selectedPagesField.setEnabled(
+                SignaturePages.fromLabel((String) signaturePagesCombo.getSelectedItem()) == SignaturePages.SELECTED_PAGES));
+
         greenTickCheckbox.addActionListener(e -> updatePreview());
         includeCompanyCheckbox.addActionListener(e -> updatePreview());
         includeEntireSubjectDNCheckbox.addActionListener(e -> {
@@ -343,6 +375,15 @@ public class SignatureAppearanceDialog extends JDialog {
             JOptionPane.showMessageDialog(this, "Please select a graphic image for the signature.", "Missing Image", JOptionPane.WARNING_MESSAGE);
             return;
         }
+        SignaturePages signaturePages = SignaturePages.fromLabel((String) signaturePagesCombo.getSelectedItem());
+        if (signaturePages == SignaturePages.SELECTED_PAGES) {
+            try {
+                SignaturePages.parsePageList(selectedPagesField.getText(), pageCount);
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Invalid Pages", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+        }
         String renderingLabel = (String) renderingModeCombo.getSelectedItem();
         String certLabel = (String) certLevelCombo.getSelectedItem();
         RenderingMode selectedRendering = RenderingMode.fromLabel(renderingLabel);
@@ -373,6 +414,8 @@ public class SignatureAppearanceDialog extends JDialog {
         appearanceOptions.setLtvEnabled(ltvCheckbox.isSelected());
         appearanceOptions.setTimestampEnabled(timestampCheckbox.isSelected());
         appearanceOptions.setGreenTickEnabled(greenTickCheckbox.isSelected());
+        appearanceOptions.setSignaturePages(signaturePages);
+        appearanceOptions.setSelectedPages(selectedPagesField.getText().trim());
         appearanceOptions.setGraphicImagePath(
                 selectedRendering == RenderingMode.NAME_AND_GRAPHIC && selectedImageFile != null
                         ? selectedImageFile.getAbsolutePath()
@@ -0,0 +1,169 @@
+package com.codemuni.gui.pdfHandler;
+
+import com.codemuni.utils.FileUtils;
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Recognises a file that is an earlier file plus appended revision(s), as written by
+ * append-mode signing, and finds the pages that the appended revision touched.
+ * - The original is fingerprinted after it is opened (size + SHA-256 of all its bytes)
+ * - The updated file must be longer and its first {@code size} bytes must hash the same
+ * - A page counts as changed if any indirect object reachable from it (page object, contents, resources,
+ * XObjects, fonts, annotations and their appearance streams) was (re)written after the original end of file,
+ * or if it inherits attributes from a page tree node that was
+ */
+final class IncrementalUpdateDetector {
+    // Links that lead away from what the page draws: up the page tree, or to other pages via actions and replies
+    private static final Set<COSName> NOT_FOLLOWED = new HashSet<>(Arrays.asList(
+            COSName.PARENT, COSName.P, COSName.DEST, COSName.A, COSName.AA, COSName.getPDFName("PA"),
+            COSName.getPDFName("IRT"), COSName.getPDFName("Popup")));
+    private static final COSName[] INHERITABLE = {COSName.RESOURCES, COSName.MEDIA_BOX, COSName.CROP_BOX, COSName.ROTATE};
+
+    private IncrementalUpdateDetector() {
+    }
+
+    /**
+     * Reads the whole file; run it off the EDT.
+     */
+    static Fingerprint fingerprint(File file) throws IOException {
+        long length = file.length();
+        return new Fingerprint(length, FileUtils.contentHash(file, length));
+    }
+
+    /**
+     * @return true if {@code updated} starts with the exact bytes of the fingerprinted original
+     */
+    static boolean isAppendedRevision(Fingerprint original, File updated) throws IOException {
+        if (updated.length() <= original.length) return false;
+        return original.hash.equals(FileUtils.contentHash(updated, original.length));
+    }
+
+    /**
+     * Pages that reach an object living past {@code originalLength} in the updated document.
+     */
+    static BitSet changedPages(PDDocument updated, long originalLength) {
+        Map<COSObjectKey, Long> xref = updated.getDocument().getXrefTable();
+        COSDictionary pagesRoot = (COSDictionary) updated.getDocumentCatalog().getCOSObject().getDictionaryObject(COSName.PAGES);
+
+        List<COSBase> pages = new ArrayList<>();
+        collectPages(pagesRoot, pages, Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        BitSet changed = new BitSet(pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            if (isPageChanged(pages.get(i), xref, originalLength)) changed.set(i);
+        }
+        return changed;
+    }
+
+    private static boolean isPageChanged(COSBase pageRef, Map<COSObjectKey, Long> xref, long originalLength) {
+        COSDictionary page = (COSDictionary) dereference(pageRef);
+        if (inheritsFromRewrittenNode(page, xref, originalLength)) return true;
+
+        Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<COSBase> pending = new ArrayDeque<>();
+        pending.push(pageRef);
+        while (!pending.isEmpty()) {
+            COSBase base = pending.pop();
+            if (!visited.add(base)) continue;
+            if (base instanceof COSObject) {
+                if (isWrittenAfter(base, xref, originalLength)) return true;
+                COSBase target = ((COSObject) base).getObject();
+                if (target != null) pending.push(target);
+            } else if (base instanceof COSDictionary) { // streams included; their data is covered by the xref offset
+                for (Map.Entry<COSName, COSBase> entry : ((COSDictionary) base).entrySet()) {
+                    if (entry.getValue() != null && !NOT_FOLLOWED.contains(entry.getKey())) pending.push(entry.getValue());
+                }
+            } else if (base instanceof COSArray) {
+                for (COSBase item : (COSArray) base) {
+                    if (item != null) pending.push(item);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A rewritten page tree node may have changed a /Resources, /MediaBox, /CropBox or /Rotate the page inherits.
+     */
+    private static boolean inheritsFromRewrittenNode(COSDictionary page, Map<COSObjectKey, Long> xref, long originalLength) {
+        List<COSName> inherited = new ArrayList<>();
+        for (COSName key : INHERITABLE) {
+            if (!page.containsKey(key)) inherited.add(key);
+        }
+        Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        COSBase parentRef = page.getItem(COSName.PARENT);
+        while (!inherited.isEmpty() && parentRef != null && visited.add(parentRef)) {
+            COSBase parent = dereference(parentRef);
+            if (!(parent instanceof COSDictionary)) break;
+            COSDictionary node = (COSDictionary) parent;
+            boolean rewritten = isWrittenAfter(parentRef, xref, originalLength);
+            for (Iterator<COSName> it = inherited.iterator(); it.hasNext(); ) {
+                COSName key = it.next();
+                if (!node.containsKey(key)) continue;
+                // An indirect inherited value that changed on its own is found when the page is walked
+                if (rewritten || isWrittenAfter(node.getItem(key), xref, originalLength)) return true;
+                it.remove();
+            }
+            parentRef = node.getItem(COSName.PARENT);
+        }
+        return false;
+    }
+
+    /**
+     * Direct objects have no xref entry of their own; they change together with their holder.
+     */
+    private static boolean isWrittenAfter(COSBase ref, Map<COSObjectKey, Long> xref, long originalLength) {
+        if (!(ref instanceof COSObject)) return false;
+        Long offset = xref.get(new COSObjectKey((COSObject) ref));
+        if (offset == null) return true;
+        if (offset < 0) {
+            // Compressed object: the xref holds the negated number of its object stream
+            offset = xref.get(new COSObjectKey(-offset, 0));
+            if (offset == null) return true;
+        }
+        return offset >= originalLength;
+    }
+
+    private static void collectPages(COSDictionary node, List<COSBase> pages, Set<COSDictionary> visited) {
+        if (node == null || !visited.add(node)) return;
+        COSBase kids = node.getDictionaryObject(COSName.KIDS);
+        if (!(kids instanceof COSArray)) return;
+
+        for (COSBase kidRef : (COSArray) kids) {
+            COSBase kid = dereference(kidRef);
+            if (!(kid instanceof COSDictionary)) continue;
+            COSDictionary kidDict = (COSDictionary) kid;
+            if (COSName.PAGES.equals(kidDict.getCOSName(COSName.TYPE)) || kidDict.containsKey(COSName.KIDS)) {
+                collectPages(kidDict, pages, visited);
+            } else {
+                pages.add(kidRef);
+            }
+        }
+    }
+
+    private static COSBase dereference(COSBase base) {
+        return (base instanceof COSObject) ? ((COSObject) base).getObject() : base;
+    }
+
+    /**
+     * Size and content hash of an opened file.
+     */
+    static final class Fingerprint {
+        private final long length;
+        private final String hash;
+
+        Fingerprint(long length, String hash) {
+            this.length = length;
+            this.hash = hash;
+        }
+
+        long getLength() {
+            return length;
+        }
+    }
+}
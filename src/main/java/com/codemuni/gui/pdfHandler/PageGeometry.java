@@ -0,0 +1,91 @@
+package com.codemuni.gui.pdfHandler;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Vertical layout of all pages, computed once per document and zoom level.
+ * - Every page occupies a slot: its image plus padding on all sides, pages centered horizontally
+ * - Cumulative slot offsets give page positions in O(1) and the page at a y coordinate in O(log n)
+ * - Coordinates are relative to the top-left corner of the page column
+ */
+public final class PageGeometry {
+    public static final PageGeometry EMPTY = new PageGeometry(new int[0], new int[0], 0);
+
+    private final int[] widths;
+    private final int[] heights;
+    private final int padding;
+    // slotTops[i] = top of page slot i; slotTops[pageCount] = total height
+    private final int[] slotTops;
+    private final int totalWidth;
+
+    public PageGeometry(int[] widths, int[] heights, int padding) {
+        if (widths.length != heights.length) {
+            throw new IllegalArgumentException("Page widths and heights differ in length");
+        }
+        this.widths = widths.clone();
+        this.heights = heights.clone();
+        this.padding = padding;
+        this.slotTops = new int[widths.length + 1];
+
+        int maxWidth = 0;
+        for (int i = 0; i < widths.length; i++) {
+            slotTops[i + 1] = slotTops[i] + heights[i] + 2 * padding;
+            maxWidth = Math.max(maxWidth, widths[i]);
+        }
+        this.totalWidth = widths.length == 0 ? 0 : maxWidth + 2 * padding;
+    }
+
+    public int getPageCount() {
+        return widths.length;
+    }
+
+    public int getTotalWidth() {
+        return totalWidth;
+    }
+
+    public int getTotalHeight() {
+        return slotTops[widths.length];
+    }
+
+    /**
+     * Top of the page slot (padding included), i.e. the scroll position that shows the page first.
+     */
+    public int getPageTop(int pageIndex) {
+        return slotTops[pageIndex];
+    }
+
+    /**
+     * Bounds of the page image, without padding.
+     */
+    public Rectangle getPageBounds(int pageIndex) {
+        return new Rectangle((totalWidth - widths[pageIndex]) / 2, slotTops[pageIndex] + padding,
+                widths[pageIndex], heights[pageIndex]);
+    }
+
+    /**
+     * Page whose slot contains the given y, clamped to the first / last page.
+     *
+     * @return -1 only if there are no pages
+     */
+    public int pageAtY(int y) {
+        int pageCount = widths.length;
+        if (pageCount == 0) return -1;
+        if (y < 0) return 0;
+        if (y >= slotTops[pageCount]) return pageCount - 1;
+
+        int found = Arrays.binarySearch(slotTops, 0, pageCount, y);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    /**
+     * Page whose image contains the point.
+     *
+     * @return -1 if the point is on padding or outside all pages
+     */
+    public int pageAt(Point point) {
+        int pageIndex = pageAtY(point.y);
+        if (pageIndex < 0) return -1;
+        return getPageBounds(pageIndex).contains(point) ? pageIndex : -1;
+    }
+}
@@ -0,0 +1,342 @@
+package com.codemuni.gui.pdfHandler;
+
+import com.codemuni.metrics.MetricsRegistry;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Rendered page images keyed by (document identity, page, DPI).
+ * - Every DPI (zoom level) is its own set of entries, so switching back to a zoom level is a cache hit
+ * - First tier: strong references in LRU order, bounded by a byte budget
+ * - Second tier: soft references to evicted images, reclaimed by the GC under memory pressure
+ * - Hit / miss / eviction counters for diagnostics; hits and misses also count towards the
+ * "cache.&lt;name&gt;.hit" and ".miss" counters of the {@link MetricsRegistry}
+ * <p>
+ * All methods are thread safe.
+ */
+public class PageImageCache {
+
+    private final long maxBytes;
+    private final String hitCounter;
+    private final String missCounter;
+    private final LinkedHashMap<PageKey, BufferedImage> strong = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<PageKey, SoftEntry> soft = new HashMap<>();
+    private final ReferenceQueue<BufferedImage> softQueue = new ReferenceQueue<>();
+    private final TreeSet<Integer> knownDpis = new TreeSet<>();
+
+    // Guarded by this
+    private long currentBytes = 0;
+    private long hits = 0;
+    private long softHits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param name name of the cache in the metrics registry
+     */
+    public PageImageCache(String name, long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Cache budget must be positive: " + maxBytes);
+        this.maxBytes = maxBytes;
+        this.hitCounter = "cache." + name + ".hit";
+        this.missCounter = "cache." + name + ".miss";
+    }
+
+    /**
+     * Approximate heap size of the image raster.
+     */
+    public static long sizeOf(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        long bytesPerElement = Math.max(1, DataBuffer.getDataTypeSize(buffer.getDataType()) / 8);
+        return (long) buffer.getSize() * buffer.getNumBanks() * bytesPerElement;
+    }
+
+    public synchronized BufferedImage get(PageKey key) {
+        BufferedImage image = strong.get(key);
+        if (image != null) {
+            hits++;
+            MetricsRegistry.increment(hitCounter);
+            return image;
+        }
+
+        expungeClearedSoftEntries();
+        SoftEntry entry = soft.remove(key);
+        image = (entry != null) ? entry.get() : null;
+        if (image != null) {
+            softHits++;
+            MetricsRegistry.increment(hitCounter);
+            putStrong(key, image); // promote back to the first tier
+            return image;
+        }
+
+        misses++;
+        MetricsRegistry.increment(missCounter);
+        return null;
+    }
+
+    /**
+     * Looks up without touching LRU order or the counters.
+     */
+    public synchronized boolean contains(PageKey key) {
+        if (strong.containsKey(key)) return true;
+        SoftEntry entry = soft.get(key);
+        return entry != null && entry.get() != null;
+    }
+
+    /**
+     * Finds the same page rendered at the DPI closest to the requested one, as a preview to scale
+     * while the exact resolution is rendered. Does not update the hit / miss counters.
+     *
+     * @return null if no other resolution of the page is cached
+     */
+    public synchronized BufferedImage findNearestResolution(PageKey key) {
+        BufferedImage best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int dpi : knownDpis) {
+            if (dpi == key.dpi) continue;
+            int distance = Math.abs(dpi - key.dpi);
+            if (distance >= bestDistance) continue;
+            BufferedImage image = peek(new PageKey(key.documentId, key.pageIndex, dpi));
+            if (image != null) {
+                best = image;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    public synchronized void put(PageKey key, BufferedImage image) {
+        Objects.requireNonNull(image, "image");
+        soft.remove(key);
+        putStrong(key, image);
+    }
+
+    /**
+     * Drops every tier entry of the given document.
+     */
+    public synchronized void invalidate(String documentId) {
+        Iterator<Map.Entry<PageKey, BufferedImage>> it = strong.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PageKey, BufferedImage> e = it.next();
+            if (e.getKey().documentId.equals(documentId)) {
+                currentBytes -= sizeOf(e.getValue());
+                it.remove();
+            }
+        }
+        soft.keySet().removeIf(k -> k.documentId.equals(documentId));
+    }
+
+    /**
+     * Re-keys the selected pages of one document to another document id, e.g. when a new file
+     * revision renders those pages exactly like the previous one. Other pages of the old document are dropped.
+     */
+    public synchronized void migrate(String fromDocumentId, String toDocumentId, IntPredicate keepPage) {
+        expungeClearedSoftEntries();
+        List<Map.Entry<PageKey, BufferedImage>> moved = new ArrayList<>();
+        Iterator<Map.Entry<PageKey, BufferedImage>> it = strong.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PageKey, BufferedImage> e = it.next();
+            if (!e.getKey().documentId.equals(fromDocumentId)) continue;
+            if (keepPage.test(e.getKey().pageIndex)) moved.add(e);
+            currentBytes -= sizeOf(e.getValue());
+            it.remove();
+        }
+        List<PageKey> softKeys = new ArrayList<>();
+        for (PageKey key : soft.keySet()) {
+            if (key.documentId.equals(fromDocumentId)) softKeys.add(key);
+        }
+        for (PageKey key : softKeys) {
+            SoftEntry entry = soft.remove(key);
+            BufferedImage image = entry.get();
+            if (image != null && keepPage.test(key.pageIndex)) {
+                PageKey newKey = key.withDocumentId(toDocumentId);
+                soft.put(newKey, new SoftEntry(newKey, image, softQueue));
+            }
+        }
+        // Re-insert in the original LRU order
+        for (Map.Entry<PageKey, BufferedImage> e : moved) {
+            putStrong(e.getKey().withDocumentId(toDocumentId), e.getValue());
+        }
+    }
+
+    public synchronized void clear() {
+        strong.clear();
+        soft.clear();
+        currentBytes = 0;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized Stats getStats() {
+        expungeClearedSoftEntries();
+        return new Stats(hits, softHits, misses, evictions, strong.size(), soft.size(), currentBytes, maxBytes);
+    }
+
+    private BufferedImage peek(PageKey key) {
+        BufferedImage image = strong.get(key);
+        if (image != null) return image;
+        SoftEntry entry = soft.get(key);
+        return entry != null ? entry.get() : null;
+    }
+
+    private void putStrong(PageKey key, BufferedImage image) {
+        knownDpis.add(key.dpi);
+        BufferedImage previous = strong.put(key, image);
+        if (previous != null) currentBytes -= sizeOf(previous);
+        currentBytes += sizeOf(image);
+        evictToBudget(key);
+    }
+
+    private void evictToBudget(PageKey justAdded) {
+        Iterator<Map.Entry<PageKey, BufferedImage>> it = strong.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<PageKey, BufferedImage> eldest = it.next();
+            if (eldest.getKey().equals(justAdded)) continue; // never evict what was just requested
+            BufferedImage image = eldest.getValue();
+            currentBytes -= sizeOf(image);
+            it.remove();
+            soft.put(eldest.getKey(), new SoftEntry(eldest.getKey(), image, softQueue));
+            evictions++;
+        }
+    }
+
+    private void expungeClearedSoftEntries() {
+        SoftEntry cleared;
+        while ((cleared = (SoftEntry) softQueue.poll()) != null) {
+            soft.remove(cleared.key, cleared);
+        }
+    }
+
+    /**
+     * Identity of one rendered page image.
+     */
+    public static final class PageKey {
+        private final String documentId;
+        private final int pageIndex;
+        private final int dpi;
+
+        public PageKey(String documentId, int pageIndex, int dpi) {
+            this.documentId = Objects.requireNonNull(documentId, "documentId");
+            this.pageIndex = pageIndex;
+            this.dpi = dpi;
+        }
+
+        PageKey withDocumentId(String otherDocumentId) {
+            return new PageKey(otherDocumentId, pageIndex, dpi);
+        }
+
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        public int getPageIndex() {
+            return pageIndex;
+        }
+
+        public int getDpi() {
+            return dpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PageKey)) return false;
+            PageKey that = (PageKey) o;
+            return pageIndex == that.pageIndex && dpi == that.dpi && documentId.equals(that.documentId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(documentId, pageIndex, dpi);
+        }
+
+        @Override
+        public String toString() {
+            return "PageKey{" + documentId + ", page=" + pageIndex + ", dpi=" + dpi + '}';
+        }
+    }
+
+    /**
+     * Point-in-time copy of the cache counters.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long softHits;
+        private final long misses;
+        private final long evictions;
+        private final int strongEntries;
+        private final int softEntries;
+        private final long usedBytes;
+        private final long maxBytes;
+
+        Stats(long hits, long softHits, long misses, long evictions,
+              int strongEntries, int softEntries, long usedBytes, long maxBytes) {
+            this.hits = hits;
+            this.softHits = softHits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.strongEntries = strongEntries;
+            this.softEntries = softEntries;
+            this.usedBytes = usedBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getSoftHits() {
+            return softHits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getStrongEntries() {
+            return strongEntries;
+        }
+
+        public int getSoftEntries() {
+            return softEntries;
+        }
+
+        public long getUsedBytes() {
+            return usedBytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public double getHitRatio() {
+            long lookups = hits + softHits + misses;
+            return lookups == 0 ? 0d : (double) (hits + softHits) / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("PageImageCache{hits=%d, softHits=%d, misses=%d, evictions=%d, entries=%d/%d, used=%d/%d bytes}",
+                    hits, softHits, misses, evictions, strongEntries, softEntries, usedBytes, maxBytes);
+        }
+    }
+
+    private static final class SoftEntry extends SoftReference<BufferedImage> {
+        private final PageKey key;
+
+        SoftEntry(PageKey key, BufferedImage image, ReferenceQueue<BufferedImage> queue) {
+            super(image, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.codemuni.gui.pdfHandler;
+
+import com.codemuni.core.document.SharedDocumentSource;
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.metrics.jfr.EventSpan;
+import com.codemuni.metrics.jfr.FlightRecorderEvents;
+import com.codemuni.utils.LargeDocumentPolicy;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Background page rasterizer.
+ * - Fixed set of daemon worker threads, each with its own PDDocument (PDFBox is not thread safe),
+ * parsed from the shared mapping of the {@link SharedDocumentSource} with the {@link LargeDocumentPolicy} memory setting
+ * - Pending pages are kept in a BitSet; a worker always takes the pending page nearest to the focus page
+ * - Results are delivered on the EDT through {@link PageConsumer}
+ * - A generation counter discards results that belong to a cancelled or replaced job; a new job over the
+ * same source (e.g. another zoom level) keeps the parsed worker documents
+ * - Every page is timed into the "render.page" histogram and emitted as a Flight Recorder event
+ */
+class PageRenderPool {
+    private static final Log log = LogFactory.getLog(PageRenderPool.class);
+
+    private final Object lock = new Object();
+    private final BitSet pending = new BitSet();
+    private final PageConsumer consumer;
+    private final Worker[] workers;
+
+    // Guarded by lock
+    private SharedDocumentSource source; // the pool holds a reference while a job is active
+    private float dpi;
+    private int generation = 0;
+    private int focusPage = 0;
+    private boolean started = false;
+    private boolean shutdown = false;
+
+    PageRenderPool(int threadCount, PageConsumer consumer) {
+        this.consumer = consumer;
+        this.workers = new Worker[Math.max(1, threadCount)];
+    }
+
+    static int defaultThreadCount() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(4, cpus - 1));
+    }
+
+    /**
+     * Starts a new job for the given document, replacing any previous one. Pages are queued with {@link #request(int)}.
+     *
+     * @return the generation of the new job, passed back with every delivered page
+     */
+    int start(SharedDocumentSource source, float dpi) {
+        synchronized (lock) {
+            ensureWorkersStarted();
+            SharedDocumentSource previous = this.source;
+            this.source = source.retain();
+            if (previous != null) previous.release();
+            this.dpi = dpi;
+            this.focusPage = 0;
+            generation++;
+            pending.clear();
+            lock.notifyAll();
+            return generation;
+        }
+    }
+
+    /**
+     * Queues a single page of the current job (no-op once the job was stopped with {@link #cancel()}).
+     */
+    void request(int pageIndex) {
+        synchronized (lock) {
+            if (source == null || pageIndex < 0) return;
+            pending.set(pageIndex);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Moves the priority to the given page; pending pages closest to it are rendered first.
+     */
+    void focus(int pageIndex) {
+        synchronized (lock) {
+            focusPage = Math.max(0, pageIndex);
+        }
+    }
+
+    /**
+     * Drops all pending pages of the current job. Pages already being rendered are discarded on delivery.
+     */
+    void cancel() {
+        synchronized (lock) {
+            generation++;
+            pending.clear();
+            if (source != null) source.release();
+            source = null;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Stops prefetching the remaining pages but keeps the job alive for on-demand {@link #request(int)} calls.
+     */
+    void stopPrefetch() {
+        synchronized (lock) {
+            pending.clear();
+        }
+    }
+
+    int getPendingCount() {
+        synchronized (lock) {
+            return pending.cardinality();
+        }
+    }
+
+    void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            cancel();
+        }
+    }
+
+    private void ensureWorkersStarted() {
+        if (started) return;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker("eMark-page-render-" + (i + 1));
+            workers[i].start();
+        }
+        started = true;
+    }
+
+    /**
+     * Picks the pending page nearest to the focus page, preferring pages below it on ties.
+     */
+    private int nextPendingPage() {
+        int below = pending.nextSetBit(focusPage);
+        int above = focusPage > 0 ? pending.previousSetBit(focusPage - 1) : -1;
+        if (below < 0) return above;
+        if (above < 0) return below;
+        return (below - focusPage) <= (focusPage - above) ? below : above;
+    }
+
+    /**
+     * Receives rendered pages on the Event Dispatch Thread.
+     */
+    interface PageConsumer {
+        void pageRendered(int generation, int pageIndex, BufferedImage image);
+
+        void pageFailed(int generation, int pageIndex, Exception error);
+    }
+
+    private final class Worker extends Thread {
+        private PDDocument document;
+        private PDFRenderer renderer;
+        private SharedDocumentSource documentSource; // source the worker's document was parsed from
+
+        Worker(String name) {
+            super(name);
+            setDaemon(true);
+            setPriority(Thread.NORM_PRIORITY - 1);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int jobGeneration;
+                int pageIndex;
+                SharedDocumentSource jobSource;
+                float jobDpi;
+
+                synchronized (lock) {
+                    while (!shutdown && (pending.isEmpty() || source == null)) {
+                        if (document != null && documentSource != source) break;
+                        waitQuietly();
+                    }
+                    if (shutdown) break;
+                    if (pending.isEmpty() || source == null) {
+                        // Woken up only to release a stale document
+                        jobGeneration = -1;
+                        pageIndex = -1;
+                        jobSource = null;
+                        jobDpi = 0;
+                    } else {
+                        pageIndex = nextPendingPage();
+                        pending.clear(pageIndex);
+                        jobGeneration = generation;
+                        jobSource = source.retain(); // stays mapped even if the job is cancelled meanwhile
+                        jobDpi = dpi;
+                    }
+                }
+
+                if (pageIndex < 0) {
+                    closeDocument();
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                EventSpan event = FlightRecorderEvents.renderPage(jobSource.getFile().getName(), pageIndex + 1, jobDpi);
+                try {
+                    ensureDocument(jobSource);
+                    BufferedImage image = renderer.renderImageWithDPI(pageIndex, jobDpi);
+                    MetricsRegistry.recordSince("render.page", start);
+                    event.end();
+                    deliver(jobGeneration, pageIndex, image, null);
+                } catch (Exception e) {
+                    event.end(e.getClass().getSimpleName());
+                    log.error("Failed to render page " + (pageIndex + 1), e);
+                    deliver(jobGeneration, pageIndex, null, e);
+                } finally {
+                    jobSource.release();
+                }
+            }
+            closeDocument();
+        }
+
+        private void ensureDocument(SharedDocumentSource jobSource) throws IOException {
+            if (document != null && documentSource == jobSource) return;
+            closeDocument();
+            document = jobSource.openPdDocument(LargeDocumentPolicy.pdfBoxMemoryUsage(jobSource.getFile()));
+            renderer = new PDFRenderer(document);
+            documentSource = jobSource;
+        }
+
+        private void closeDocument() {
+            if (document == null) return;
+            try {
+                document.close();
+            } catch (IOException e) {
+                log.warn("Failed to close render worker document", e);
+            } finally {
+                document = null;
+                renderer = null;
+                documentSource = null;
+            }
+        }
+
+        private void deliver(int jobGeneration, int pageIndex, BufferedImage image, Exception error) {
+            SwingUtilities.invokeLater(() -> {
+                if (image != null) {
+                    consumer.pageRendered(jobGeneration, pageIndex, image);
+                } else {
+                    consumer.pageFailed(jobGeneration, pageIndex, error);
+                }
+            });
+        }
+
+        private void waitQuietly() {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
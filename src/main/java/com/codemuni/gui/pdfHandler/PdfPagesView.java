@@ -0,0 +1,120 @@
+package com.codemuni.gui.pdfHandler;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Single component that paints all pages of the document.
+ * - Sized from a {@link PageGeometry}, so a document needs no Swing component per page
+ * - Paints only the pages that intersect the clip
+ * - Centers the page column when the viewport is wider than the widest page
+ */
+public class PdfPagesView extends JPanel implements Scrollable {
+    private static final int UNIT_INCREMENT = 16;
+
+    private PageGeometry geometry = PageGeometry.EMPTY;
+    private Icon[] pages = new Icon[0];
+
+    public PdfPagesView() {
+        super(null);
+        setFocusable(true);
+    }
+
+    /**
+     * Replaces the layout; the icons paint the pages and must match the geometry's page sizes.
+     */
+    public void setPages(PageGeometry geometry, Icon[] pages) {
+        if (geometry.getPageCount() != pages.length) {
+            throw new IllegalArgumentException("Geometry has " + geometry.getPageCount() + " pages, got " + pages.length + " icons");
+        }
+        this.geometry = geometry;
+        this.pages = pages.clone();
+        revalidate();
+        repaint();
+    }
+
+    public PageGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Offset of the page column inside this component.
+     */
+    public Point getColumnOrigin() {
+        return new Point(Math.max(0, (getWidth() - geometry.getTotalWidth()) / 2), 0);
+    }
+
+    /**
+     * Bounds of the page image in this component's coordinates.
+     */
+    public Rectangle getPageBounds(int pageIndex) {
+        Rectangle bounds = geometry.getPageBounds(pageIndex);
+        Point origin = getColumnOrigin();
+        bounds.translate(origin.x, origin.y);
+        return bounds;
+    }
+
+    /**
+     * Page whose image contains the point (component coordinates), or -1.
+     */
+    public int pageAt(Point point) {
+        Point origin = getColumnOrigin();
+        return geometry.pageAt(new Point(point.x - origin.x, point.y - origin.y));
+    }
+
+    public void repaintPage(int pageIndex) {
+        if (pageIndex >= 0 && pageIndex < pages.length) {
+            repaint(getPageBounds(pageIndex));
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (pages.length == 0) return;
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        int first = geometry.pageAtY(clip.y);
+        int last = geometry.pageAtY(clip.y + clip.height);
+        for (int i = first; i <= last; i++) {
+            Rectangle bounds = getPageBounds(i);
+            if (bounds.intersects(clip)) {
+                pages[i].paintIcon(this, g, bounds.x, bounds.y);
+            }
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(geometry.getTotalWidth(), geometry.getTotalHeight());
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return UNIT_INCREMENT;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        // Stretch to a wider viewport so the page column can be centered
+        Container parent = getParent();
+        return parent instanceof JViewport && parent.getWidth() > geometry.getTotalWidth();
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        Container parent = getParent();
+        return parent instanceof JViewport && parent.getHeight() > geometry.getTotalHeight();
+    }
+}
@@ -1,44 +1,105 @@
 package com.codemuni.gui.pdfHandler;
 
+import com.codemuni.config.ConfigManager;
+import com.codemuni.core.document.SharedDocumentSource;
 import com.codemuni.exceptions.UserCancelledPasswordEntryException;
 import com.codemuni.gui.DialogUtils;
 import com.codemuni.gui.PasswordDialog;
+import com.codemuni.metrics.jmx.EmarkMBeans;
+import com.codemuni.utils.LargeDocumentPolicy;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.BitSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Responsibilities:
- * - Load & close PDDocument
- * - Handle password attempts via PasswordDialog
- * - Render each page as an ImageIcon + JLabel
- * - Register rectangle drawing via SignModeController
+ * - Load & close PDDocument on a background worker, from a {@link SharedDocumentSource} that maps the file once
+ * for this view, the render workers and signing
+ * - Handle password attempts via PasswordDialog (prompted on the EDT)
+ * - Lay out all pages in one {@link PdfPagesView} from a {@link PageGeometry}, with a placeholder icon of the final page size
+ * - Rasterize pages on a {@link PageRenderPool} and keep them in a {@link PageImageCache}
+ * - Only pages near the viewport hold their image; the others are fetched from the cache when painted
+ * - Reopening a file that is the previous one plus an appended revision (e.g. after signing)
+ * keeps the cached images of the pages the revision did not touch
+ * - Zoom: pages are resized at once and painted from the nearest cached resolution,
+ * then re-rasterized at the zoomed DPI in the background
+ * - Cache use and the render backlog are published as the Renderer MBean
  */
 public class PdfRendererService {
-    // Rendering constants (kept same as original)
+    // Rendering constants (kept same as original); RENDER_DPI is the 100% zoom resolution
     public static final int RENDER_DPI = 100;
+    public static final float[] ZOOM_LEVELS = {0.5f, 0.75f, 1f, 1.25f, 1.5f, 2f, 3f, 4f};
     public static final int DEFAULT_RENDERER_PADDING = 10;
+    // Pages this far from the one in view keep their image on the label; the rest only live in the cache
+    private static final int HOLD_RADIUS = 3;
+    private static final Color PLACEHOLDER_FILL = new Color(0xF2F2F2);
     private static final Log log = LogFactory.getLog(PdfRendererService.class);
     private final PdfViewerMain owner;
-    private final JPanel pdfPanel;
+    private final PdfPagesView pdfPanel;
+    private final PageRenderPool renderPool;
+    private final PageImageCache pageCache;
+    private final ExecutorService fingerprintExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "eMark-fingerprint");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private PDDocument document;
-    private File currentFile;
+    private SharedDocumentSource documentSource;
+    private volatile File currentFile; // also read by the Renderer MBean
+
+    // Background state
+    private SwingWorker<PDDocument, Void> loadWorker;
+    private String documentId;
+    private Future<IncrementalUpdateDetector.Fingerprint> fingerprintTask; // hashes the shown file after it opened
+    // The last closed document, which the next open compares with (also after a close for saving over the file)
+    private String closedDocumentId;
+    private IncrementalUpdateDetector.Fingerprint closedFingerprint;
+    private int closedPageCount;
+    private PageIcon[] pageIcons = new PageIcon[0];
+    private final BitSet heldPages = new BitSet();
+    private int visiblePage = 0;
+    private int renderGeneration = -1;
+    private float zoom = 1f;
+    private BiConsumer<Integer, Integer> renderProgressListener;
+    private Consumer<Float> zoomListener;
 
     public PdfRendererService(PdfViewerMain owner) {
         this.owner = owner;
-        pdfPanel = new JPanel();
-        pdfPanel.setLayout(new BoxLayout(pdfPanel, BoxLayout.Y_AXIS));
-        pdfPanel.setFocusable(true);
+        pdfPanel = new PdfPagesView();
+        pageCache = new PageImageCache("page_image", ConfigManager.getRenderCacheBytes());
+        renderPool = new PageRenderPool(PageRenderPool.defaultThreadCount(), new PageRenderPool.PageConsumer() {
+            @Override
+            public void pageRendered(int generation, int pageIndex, BufferedImage image) {
+                onPageRendered(generation, pageIndex, image);
+            }
+
+            @Override
+            public void pageFailed(int generation, int pageIndex, Exception error) {
+                onPageFailed(generation, pageIndex);
+            }
+        });
+        EmarkMBeans.register("Renderer", new RendererStats(pageCache, renderPool, () -> currentFile));
     }
 
-    public JPanel getPdfPanel() {
+    public PdfPagesView getPdfPanel() {
         return pdfPanel;
     }
 
@@ -50,52 +111,255 @@ public class PdfRendererService {
         }
     }
 
-    public boolean render(File file) {
-        pdfPanel.removeAll();
-        try {
-            close(); // close if already open
-            document = tryLoadDocument(file);
-            if (document == null) return false;
+    /**
+     * Receives (totalPages - pendingPages, totalPages) on the EDT while pages are rasterized in the background.
+     */
+    public void setRenderProgressListener(BiConsumer<Integer, Integer> renderProgressListener) {
+        this.renderProgressListener = renderProgressListener;
+    }
+
+    /**
+     * Receives the new zoom factor on the EDT whenever it changes.
+     */
+    public void setZoomListener(Consumer<Float> zoomListener) {
+        this.zoomListener = zoomListener;
+    }
 
-            if (document.isEncrypted()) {
-                document.setAllSecurityToBeRemoved(true);
+    public float getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Resolution pages are currently rasterized at.
+     */
+    public int getRenderDpi() {
+        return Math.round(RENDER_DPI * zoom);
+    }
+
+    /**
+     * Pixels per PDF point at the current zoom; used to map screen selections back to page coordinates.
+     */
+    public float getRenderScale() {
+        return getRenderDpi() / 72f;
+    }
+
+    public void zoomIn() {
+        for (float level : ZOOM_LEVELS) {
+            if (level > zoom + 0.001f) {
+                setZoom(level);
+                return;
             }
+        }
+    }
 
-            currentFile = file;
-            PDFRenderer renderer = new PDFRenderer(document);
+    public void zoomOut() {
+        for (int i = ZOOM_LEVELS.length - 1; i >= 0; i--) {
+            if (ZOOM_LEVELS[i] < zoom - 0.001f) {
+                setZoom(ZOOM_LEVELS[i]);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Resizes all pages to the new zoom immediately. Pages show a scaled image of the nearest cached
+     * resolution until the pool has rendered them at the new DPI, starting with the page in view.
+     */
+    public void setZoom(float newZoom) {
+        newZoom = Math.max(ZOOM_LEVELS[0], Math.min(ZOOM_LEVELS[ZOOM_LEVELS.length - 1], newZoom));
+        if (Math.abs(newZoom - zoom) < 0.001f) return;
+        zoom = newZoom;
+
+        if (document != null && loadWorker == null) {
+            float scale = getRenderScale();
+            for (int i = 0; i < pageIcons.length; i++) {
+                pageIcons[i].resize(scale);
+                pageIcons[i].release();
+                pageIcons[i].requested = false;
+            }
+            pdfPanel.setPages(buildGeometry(), pageIcons);
 
-            float scale = RENDER_DPI / 72f;
-            for (int i = 0; i < document.getNumberOfPages(); i++) {
-                BufferedImage image = renderer.renderImageWithDPI(i, RENDER_DPI);
+            renderGeneration = renderPool.start(documentSource, getRenderDpi());
+            renderPool.focus(visiblePage);
+            int from = Math.max(0, visiblePage - HOLD_RADIUS);
+            int to = Math.min(pageIcons.length - 1, visiblePage + HOLD_RADIUS);
+            for (int i = from; i <= to; i++) {
+                if (!pageCache.contains(pageKey(i))) {
+                    pageIcons[i].requested = true;
+                    renderPool.request(i);
+                }
+            }
+            notifyProgress();
+        }
+        if (zoomListener != null) zoomListener.accept(zoom);
+    }
 
-                JPanel pageWrapper = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
-                pageWrapper.setOpaque(false);
+    /**
+     * Opens the file on a background worker and lays out the pages once parsing is done.
+     * Page images are filled in progressively afterwards.
+     *
+     * @param onOpened called on the EDT with true if the document is shown, false on failure or cancel
+     */
+    public void open(File file, Consumer<Boolean> onOpened) {
+        cancelLoading();
+        close();
+        IncrementalUpdateDetector.Fingerprint previousFingerprint = closedFingerprint;
+        String previousDocumentId = closedDocumentId;
+        int previousPageCount = closedPageCount;
 
-                JLabel pageLabel = new JLabel(new ImageIcon(image));
-                pageLabel.setBorder(BorderFactory.createEmptyBorder(
-                        DEFAULT_RENDERER_PADDING,
-                        DEFAULT_RENDERER_PADDING,
-                        DEFAULT_RENDERER_PADDING,
-                        DEFAULT_RENDERER_PADDING
-                ));
+        SwingWorker<PDDocument, Void> worker = new SwingWorker<PDDocument, Void>() {
+            private String password;
+            private SharedDocumentSource source;
+            private final Object handOverLock = new Object();
+            private PDDocument loaded;  // set once the document and source belong to this worker's result
+            private boolean discarded;  // done() gave up on the result; a document loaded after that is closed here
+            private BitSet changedPages; // null unless the file is an appended revision of the previous one
 
-                // Drawing is attached by SignModeController when sign mode is enabled.
-                // But we expose a helper so the controller can attach listeners anytime.
-                pageWrapper.add(pageLabel);
-                pdfPanel.add(pageWrapper);
+            @Override
+            protected PDDocument doInBackground() throws Exception {
+                source = SharedDocumentSource.open(file);
+                PDDocument doc;
+                try {
+                    doc = tryLoadDocument(source, pwd -> password = pwd);
+                } catch (Exception e) {
+                    source.release();
+                    throw e;
+                }
+                if (isCancelled()) {
+                    doc.close();
+                    source.release();
+                    return null;
+                }
+                if (doc.isEncrypted()) {
+                    doc.setAllSecurityToBeRemoved(true);
+                }
+                detectIncrementalUpdate(doc);
+                synchronized (handOverLock) {
+                    // A cancel runs done() right away, possibly before this point; then nobody else closes doc
+                    if (!discarded && !isCancelled()) {
+                        loaded = doc;
+                        return doc;
+                    }
+                }
+                doc.close();
+                source.release();
+                return null;
             }
 
-            pdfPanel.revalidate();
-            pdfPanel.repaint();
-            return true;
+            private void detectIncrementalUpdate(PDDocument doc) {
+                try {
+                    if (previousFingerprint != null && previousDocumentId != null
+                            && doc.getNumberOfPages() == previousPageCount
+                            && IncrementalUpdateDetector.isAppendedRevision(previousFingerprint, file)) {
+                        changedPages = IncrementalUpdateDetector.changedPages(doc, previousFingerprint.getLength());
+                    }
+                } catch (Exception e) {
+                    // Not fatal: every page is simply rendered again
+                    log.warn("Unable to compare " + file + " with the previously opened revision", e);
+                    changedPages = null;
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (loadWorker != this) { // superseded by a newer open()
+                    discard();
+                    return;
+                }
+                loadWorker = null;
+
+                if (isCancelled()) {
+                    log.info("PDF loading cancelled by user.");
+                    discard();
+                    onOpened.accept(false);
+                    return;
+                }
+                try {
+                    document = get();
+                    documentSource = source;
+                    currentFile = file;
+                    fingerprintTask = fingerprintExecutor.submit(() -> IncrementalUpdateDetector.fingerprint(file));
+                    owner.setPdfPassword(password);
+                    if (changedPages != null) {
+                        log.info("Opened an appended revision; re-rendering " + changedPages.cardinality()
+                                + " changed page(s) " + changedPages + ", reusing the others");
+                        pageCache.migrate(previousDocumentId, documentIdentity(file), i -> !changedPages.get(i));
+                    }
+                    layoutPages();
+                    onOpened.accept(true);
+                    notifyProgress();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof UserCancelledPasswordEntryException) {
+                        log.info("User cancelled password entry.");
+                    } else {
+                        log.error("Error rendering PDF", cause);
+                        DialogUtils.showExceptionDialog(owner, "Unable to Display PDF Preview, Please try again.",
+                                cause instanceof Exception ? (Exception) cause : ex);
+                    }
+                    onOpened.accept(false);
+                } catch (Exception ex) {
+                    log.error("Error rendering PDF", ex);
+                    DialogUtils.showExceptionDialog(owner, "Unable to Display PDF Preview, Please try again.", ex);
+                    onOpened.accept(false);
+                }
+            }
+
+            /**
+             * Closes what a cancelled or superseded load produced.
+             */
+            private void discard() {
+                PDDocument doc;
+                synchronized (handOverLock) {
+                    discarded = true;
+                    doc = loaded; // null if doInBackground failed, cleaned up after itself or is still running
+                    loaded = null;
+                }
+                if (doc == null) return;
+                try {
+                    doc.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close a discarded PDF document", e);
+                }
+                source.release();
+            }
+        };
+        loadWorker = worker;
+        worker.execute();
+    }
 
-        } catch (UserCancelledPasswordEntryException ex) {
-            log.info("User cancelled password entry.");
-        } catch (Exception ex) {
-            log.error("Error rendering PDF", ex);
-            DialogUtils.showExceptionDialog(owner, "Unable to Display PDF Preview, Please try again.", ex);
+    /**
+     * Cancels whatever is in progress: an open that is still parsing is aborted,
+     * otherwise the remaining background page rendering is stopped.
+     */
+    public void cancel() {
+        if (loadWorker != null) {
+            cancelLoading();
+            return;
         }
-        return false;
+        renderPool.stopPrefetch();
+        for (PageIcon icon : pageIcons) {
+            icon.requested = false;
+        }
+        notifyProgress();
+    }
+
+    /**
+     * Gives rendering priority to the page currently in view and makes sure it gets rendered.
+     */
+    public void setVisiblePage(int pageIndex) {
+        if (pageIndex < 0 || pageIndex >= pageIcons.length) return;
+        visiblePage = pageIndex;
+        renderPool.focus(pageIndex);
+        releaseDistantPages(pageIndex);
+    }
+
+    public PageImageCache getPageCache() {
+        return pageCache;
+    }
+
+    public boolean isLoading() {
+        return loadWorker != null;
     }
 
     public PDDocument getDocument() {
@@ -106,9 +370,28 @@ public class PdfRendererService {
         return currentFile;
     }
 
+    /**
+     * Mapping of the document on screen, or null; callers that keep it beyond the EDT call must
+     * {@link SharedDocumentSource#retain()} it.
+     */
+    public SharedDocumentSource getDocumentSource() {
+        return documentSource;
+    }
+
     public void close() {
+        if (document != null) {
+            closedDocumentId = documentId;
+            closedFingerprint = completedFingerprint();
+            closedPageCount = pageIcons.length;
+        }
+        renderPool.cancel();
+        if (fingerprintTask != null) fingerprintTask.cancel(true); // interrupting the read closes its channel
+        if (document != null) {
+            log.debug("Closing " + currentFile + " — " + pageCache.getStats());
+        }
         try {
             if (document != null) document.close();
+            if (documentSource != null) documentSource.release();
         } catch (Exception e) {
             log.error("Failed to close the current PDF document", e);
             DialogUtils.showError(owner, "Unable to Close PDF",
@@ -116,61 +399,290 @@ public class PdfRendererService {
             System.exit(1);
         } finally {
             document = null;
+            documentSource = null;
             currentFile = null;
-            pdfPanel.removeAll();
-            pdfPanel.revalidate();
-            pdfPanel.repaint();
+            documentId = null;
+            fingerprintTask = null;
+            pageIcons = new PageIcon[0];
+            heldPages.clear();
+            renderGeneration = -1;
+            pdfPanel.setPages(PageGeometry.EMPTY, new Icon[0]);
+        }
+    }
+
+    /**
+     * Fingerprint of the shown file, or null while it is still being hashed (the next open then renders every page).
+     */
+    private IncrementalUpdateDetector.Fingerprint completedFingerprint() {
+        if (fingerprintTask == null || !fingerprintTask.isDone() || fingerprintTask.isCancelled()) return null;
+        try {
+            return fingerprintTask.get();
+        } catch (InterruptedException | ExecutionException e) {
+            log.debug("No fingerprint of " + currentFile + " to compare with", e);
+            return null;
         }
     }
 
     /* --------------------------
-       Password-aware loading
+       Page layout & progressive rendering
      --------------------------- */
 
-    private PDDocument tryLoadDocument(File file) throws Exception {
+    private void layoutPages() {
+        int pageCount = document.getNumberOfPages();
+        float scale = getRenderScale();
+
+        documentId = documentIdentity(currentFile);
+        pageIcons = new PageIcon[pageCount];
+        heldPages.clear();
+        visiblePage = 0;
+
+        for (int i = 0; i < pageCount; i++) {
+            pageIcons[i] = new PageIcon(i, document.getPage(i), scale);
+        }
+        pdfPanel.setPages(buildGeometry(), pageIcons);
+
+        renderGeneration = renderPool.start(documentSource, getRenderDpi());
+        prefetchLeadingPages(pageCount);
+    }
+
+    private PageGeometry buildGeometry() {
+        int[] widths = new int[pageIcons.length];
+        int[] heights = new int[pageIcons.length];
+        for (int i = 0; i < pageIcons.length; i++) {
+            widths[i] = pageIcons[i].width;
+            heights[i] = pageIcons[i].height;
+        }
+        return new PageGeometry(widths, heights, DEFAULT_RENDERER_PADDING);
+    }
+
+    /**
+     * Queues as many leading pages as fit in half of the cache budget; the rest is rendered as it scrolls into view.
+     */
+    private void prefetchLeadingPages(int pageCount) {
+        if (pageCount == 0) return;
+        long pageBytes = Math.max(1L, (long) pageIcons[0].width * pageIcons[0].height * 4);
+        long prefetch = Math.min(pageCount, Math.max(1L, pageCache.getMaxBytes() / 2 / pageBytes));
+        for (int i = 0; i < prefetch; i++) {
+            if (!pageCache.contains(pageKey(i))) renderPool.request(i);
+        }
+    }
+
+    /**
+     * Identifies a file version: same path, size and modification time means the same rendered pages.
+     */
+    private static String documentIdentity(File file) {
+        String path;
+        try {
+            path = file.getCanonicalPath();
+        } catch (IOException e) {
+            path = file.getAbsolutePath();
+        }
+        return path + "|" + file.length() + "|" + file.lastModified();
+    }
+
+    private PageImageCache.PageKey pageKey(int pageIndex) {
+        return new PageImageCache.PageKey(documentId, pageIndex, getRenderDpi());
+    }
+
+    private void onPageRendered(int generation, int pageIndex, BufferedImage image) {
+        if (generation != renderGeneration || pageIndex >= pageIcons.length) return;
+        pageCache.put(pageKey(pageIndex), image);
+        PageIcon icon = pageIcons[pageIndex];
+        icon.requested = false;
+        if (Math.abs(pageIndex - visiblePage) <= HOLD_RADIUS) {
+            icon.hold(image);
+            pdfPanel.repaintPage(pageIndex);
+        }
+        notifyProgress();
+    }
+
+    private void onPageFailed(int generation, int pageIndex) {
+        if (generation != renderGeneration || pageIndex >= pageIcons.length) return;
+        pageIcons[pageIndex].requested = false; // keep the placeholder; retried when painted again
+        notifyProgress();
+    }
+
+    /**
+     * Lets go of images on labels far from the viewport; they stay reachable through the cache.
+     */
+    private void releaseDistantPages(int pageIndex) {
+        for (int i = heldPages.nextSetBit(0); i >= 0; i = heldPages.nextSetBit(i + 1)) {
+            if (Math.abs(i - pageIndex) > HOLD_RADIUS) {
+                pageIcons[i].release();
+            }
+        }
+    }
+
+    private void notifyProgress() {
+        if (renderProgressListener == null) return;
+        int total = pageIcons.length;
+        renderProgressListener.accept(total - Math.min(total, renderPool.getPendingCount()), total);
+    }
+
+    private void cancelLoading() {
+        SwingWorker<PDDocument, Void> worker = loadWorker;
+        if (worker != null) {
+            worker.cancel(true);
+        }
+    }
+
+    /* --------------------------
+       Password-aware loading (runs on the load worker)
+     --------------------------- */
+
+    private PDDocument tryLoadDocument(SharedDocumentSource source, Consumer<String> passwordSink) throws Exception {
+        File file = source.getFile();
         int attempts = 0;
         final int maxAttempts = 3;
 
         try {
             // Try without password first
-            PDDocument doc = PDDocument.load(file);
-            owner.setPdfPassword(null);
+            PDDocument doc = source.openPdDocument("", LargeDocumentPolicy.pdfBoxMemoryUsage(file));
+            passwordSink.accept(null);
             return doc;
         } catch (org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException e) {
-            PasswordDialog dialog = new PasswordDialog(
+            PasswordDialog dialog = callOnEdt(() -> new PasswordDialog(
                     owner,
                     null,
                     "PDF Document Password required",
                     "Password",
                     "Open Document",
                     "Cancel"
-            );
+            ));
 
             while (attempts < maxAttempts) {
-                dialog.setVisible(true);
+                String pwd = callOnEdt(() -> {
+                    dialog.setVisible(true);
+                    return (!dialog.isConfirmed() || dialog.wasClosedByUser()) ? null : dialog.getValue();
+                });
 
-                if (!dialog.isConfirmed() || dialog.wasClosedByUser()) {
+                if (pwd == null) {
                     throw new UserCancelledPasswordEntryException("User cancelled password entry.");
                 }
 
                 try {
-                    String pwd = dialog.getValue();
-                    owner.setPdfPassword(pwd);
-                    PDDocument doc = PDDocument.load(file, pwd);
+                    PDDocument doc = source.openPdDocument(pwd, LargeDocumentPolicy.pdfBoxMemoryUsage(file));
+                    passwordSink.accept(pwd);
                     return doc;
                 } catch (org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException ex) {
                     attempts++;
                     if (attempts < maxAttempts) {
                         int remaining = maxAttempts - attempts;
-                        dialog.showInvalidMessage(
+                        SwingUtilities.invokeAndWait(() -> dialog.showInvalidMessage(
                                 String.format("Invalid password — try again (<b>%d</b> left.)", remaining)
-                        );
+                        ));
                     }
                 }
             }
 
-            DialogUtils.showError(owner, "Access Denied", "Maximum password attempts reached. PDF loading cancelled.");
+            SwingUtilities.invokeAndWait(() ->
+                    DialogUtils.showError(owner, "Access Denied", "Maximum password attempts reached. PDF loading cancelled."));
             throw new UserCancelledPasswordEntryException("Max password attempts exceeded.");
         }
     }
+
+    private static <T> T callOnEdt(Callable<T> task) throws Exception {
+        Object[] result = new Object[1];
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    result[0] = task.call();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException && cause.getCause() instanceof Exception) {
+                throw (Exception) cause.getCause();
+            }
+            throw e;
+        }
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+
+    /**
+     * Page-sized icon that paints the cached page image. While the page is being rendered it paints
+     * the page scaled from another cached resolution, or a light placeholder box if there is none
+     * (the first paint of a missing page queues it).
+     */
+    private final class PageIcon implements Icon {
+        private final int pageIndex;
+        // Page size in points as displayed (crop box, rotation applied)
+        private final float pointWidth;
+        private final float pointHeight;
+        private int width;
+        private int height;
+        private BufferedImage image;
+        private boolean requested;
+
+        PageIcon(int pageIndex, PDPage page, float scale) {
+            this.pageIndex = pageIndex;
+            PDRectangle cropBox = page.getCropBox();
+            int rotation = page.getRotation();
+            boolean swap = rotation == 90 || rotation == 270;
+            this.pointWidth = swap ? cropBox.getHeight() : cropBox.getWidth();
+            this.pointHeight = swap ? cropBox.getWidth() : cropBox.getHeight();
+            resize(scale);
+        }
+
+        /**
+         * Same pixel size PDFRenderer produces for the page, so placeholders never shift the layout.
+         */
+        void resize(float scale) {
+            this.width = (int) Math.max(Math.floor(pointWidth * scale), 1);
+            this.height = (int) Math.max(Math.floor(pointHeight * scale), 1);
+        }
+
+        void hold(BufferedImage image) {
+            this.image = image;
+            heldPages.set(pageIndex);
+        }
+
+        void release() {
+            this.image = null;
+            heldPages.clear(pageIndex);
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            if (image == null && !requested && documentId != null) {
+                BufferedImage cached = pageCache.get(pageKey(pageIndex));
+                if (cached != null) {
+                    hold(cached);
+                } else {
+                    requested = true;
+                    renderPool.request(pageIndex);
+                }
+            }
+
+            if (image != null) {
+                g.drawImage(image, x, y, null);
+                return;
+            }
+
+            BufferedImage preview = (documentId != null) ? pageCache.findNearestResolution(pageKey(pageIndex)) : null;
+            if (preview != null) {
+                Graphics2D g2 = (Graphics2D) g.create();
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g2.drawImage(preview, x, y, width, height, null);
+                g2.dispose();
+            } else {
+                g.setColor(PLACEHOLDER_FILL);
+                g.fillRect(x, y, width, height);
+            }
+        }
+
+        @Override
+        public int getIconWidth() {
+            return width;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return height;
+        }
+    }
 }
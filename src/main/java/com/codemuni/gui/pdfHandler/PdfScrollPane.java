@@ -3,53 +3,160 @@ package com.codemuni.gui.pdfHandler;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
- * Wraps the PDF panel (pages inside) and updates page label based on scroll.
+ * Scrolls the {@link PdfPagesView}, updates page label based on scroll
+ * and tells the renderer which page is in view so it is rendered first.
+ * - The page in view is found by binary search in the {@link PageGeometry}
+ * - Page Up / Page Down / Home / End move by whole pages
+ * - Ctrl + mouse wheel zooms, keeping the same part of the document in view
  */
 public class PdfScrollPane extends JScrollPane {
 
-    private final JPanel pdfPanel;      // The vertical BoxLayout host of pages
-    private final JPanel wrapper;       // Centers pdfPanel horizontally
+    private final PdfPagesView pdfPanel;
     private final PdfRendererService rendererService;
     private final Consumer<String> pageInfoUpdater;
+    private IntConsumer currentPageListener;
+    private int currentPage = -1;
 
     public PdfScrollPane(PdfRendererService rendererService, Consumer<String> pageInfoUpdater) {
         this.rendererService = rendererService;
         this.pageInfoUpdater = pageInfoUpdater;
 
         pdfPanel = rendererService.getPdfPanel();
-        wrapper = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 20));
-        wrapper.add(pdfPanel);
 
-        setViewportView(wrapper);
+        setViewportView(pdfPanel);
         setBorder(BorderFactory.createEmptyBorder());
         getVerticalScrollBar().setUnitIncrement(16);
 
         getVerticalScrollBar().addAdjustmentListener(e -> updateCurrentPageBasedOnScroll());
+
+        // A wheel listener on the view takes the events away from the scroll pane, so plain scrolling is passed on
+        pdfPanel.addMouseWheelListener(e -> {
+            if (e.isControlDown() && pdfPanel.getGeometry().getPageCount() > 0) {
+                if (e.getWheelRotation() < 0) zoomIn();
+                else if (e.getWheelRotation() > 0) zoomOut();
+            } else {
+                dispatchEvent(SwingUtilities.convertMouseEvent(pdfPanel, e, this));
+            }
+        });
+        pdfPanel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pdfPanel.requestFocusInWindow(); // so the page keys work after a click
+            }
+        });
+
+        bindPageKey(KeyEvent.VK_PAGE_DOWN, "nextPage", () -> scrollToPage(currentPage + 1));
+        bindPageKey(KeyEvent.VK_PAGE_UP, "previousPage", () -> scrollToPage(currentPage - 1));
+        bindPageKey(KeyEvent.VK_HOME, "firstPage", () -> scrollToPage(0));
+        bindPageKey(KeyEvent.VK_END, "lastPage", () -> scrollToPage(pdfPanel.getGeometry().getPageCount() - 1));
+    }
+
+    public void zoomIn() {
+        keepingViewPosition(rendererService::zoomIn);
+    }
+
+    public void zoomOut() {
+        keepingViewPosition(rendererService::zoomOut);
+    }
+
+    public void resetZoom() {
+        keepingViewPosition(() -> rendererService.setZoom(1f));
+    }
+
+    /**
+     * Applies a zoom change and scrolls so the viewport shows the same relative position of the document.
+     */
+    private void keepingViewPosition(Runnable zoomChange) {
+        JViewport viewport = getViewport();
+        Dimension oldSize = pdfPanel.getPreferredSize();
+        Rectangle view = viewport.getViewRect();
+        double centerX = (view.getCenterX()) / Math.max(1, oldSize.width);
+        double centerY = (view.getCenterY()) / Math.max(1, oldSize.height);
+
+        zoomChange.run();
+
+        SwingUtilities.invokeLater(() -> {
+            validate();
+            Dimension newSize = pdfPanel.getPreferredSize();
+            Rectangle newView = viewport.getViewRect();
+            int x = (int) Math.round(centerX * newSize.width - newView.width / 2.0);
+            int y = (int) Math.round(centerY * newSize.height - newView.height / 2.0);
+            x = Math.max(0, Math.min(x, newSize.width - newView.width));
+            y = Math.max(0, Math.min(y, newSize.height - newView.height));
+            viewport.setViewPosition(new Point(x, y));
+        });
     }
 
-    public JPanel getPdfPanel() {
+    public PdfPagesView getPdfPanel() {
         return pdfPanel;
     }
 
+    /**
+     * Receives the index of the page in view whenever it changes.
+     */
+    public void setCurrentPageListener(IntConsumer currentPageListener) {
+        this.currentPageListener = currentPageListener;
+    }
+
+    /**
+     * Scrolls so the top of the given page is at the top of the viewport; out of range indexes are clamped.
+     */
+    public void scrollToPage(int pageIndex) {
+        PageGeometry geometry = pdfPanel.getGeometry();
+        if (geometry.getPageCount() == 0) return;
+        pageIndex = Math.max(0, Math.min(pageIndex, geometry.getPageCount() - 1));
+
+        JViewport viewport = getViewport();
+        int maxY = Math.max(0, pdfPanel.getHeight() - viewport.getExtentSize().height);
+        int y = Math.min(geometry.getPageTop(pageIndex) + pdfPanel.getColumnOrigin().y, maxY);
+        viewport.setViewPosition(new Point(viewport.getViewPosition().x, y));
+    }
+
+    /**
+     * Re-evaluates the page in view after a new document was laid out.
+     */
+    public void refreshCurrentPage() {
+        currentPage = -1;
+        SwingUtilities.invokeLater(this::updateCurrentPageBasedOnScroll);
+    }
+
+    private void bindPageKey(int keyCode, String name, Runnable action) {
+        getInputMap(WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke(keyCode, 0), name);
+        getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
     private void updateCurrentPageBasedOnScroll() {
-        int totalPages = rendererService.getPageCountSafe();
-        if (totalPages <= 0 || pdfPanel.getComponentCount() == 0) {
+        PageGeometry geometry = pdfPanel.getGeometry();
+        int totalPages = geometry.getPageCount();
+        if (totalPages <= 0) {
             pageInfoUpdater.accept("");
+            currentPage = -1;
             return;
         }
 
+        // The page at the top third of the viewport; the last page once scrolled to the end
         Rectangle viewportRect = getViewport().getViewRect();
-        for (int i = totalPages - 1; i >= 0; i--) {
-            Component comp = pdfPanel.getComponent(i);
-            Rectangle bounds = comp.getBounds();
-            if (bounds.y + bounds.height - viewportRect.y <= viewportRect.height + 200) {
-                pageInfoUpdater.accept("Page: " + (i + 1) + "/" + totalPages);
-                break;
-            }
-        }
+        int page = (viewportRect.y + viewportRect.height >= pdfPanel.getHeight())
+                ? totalPages - 1
+                : geometry.pageAtY(viewportRect.y + viewportRect.height / 3 - pdfPanel.getColumnOrigin().y);
+        if (page == currentPage) return;
+
+        currentPage = page;
+        pageInfoUpdater.accept("Page: " + (page + 1) + "/" + totalPages);
+        rendererService.setVisiblePage(page);
+        if (currentPageListener != null) currentPageListener.accept(page);
     }
 }
-
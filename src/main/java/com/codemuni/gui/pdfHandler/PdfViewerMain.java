@@ -2,8 +2,11 @@ package com.codemuni.gui.pdfHandler;
 
 import com.codemuni.App;
 import com.codemuni.controller.SignerController;
+import com.codemuni.core.document.SharedDocumentSource;
 import com.codemuni.gui.DialogUtils;
 import com.codemuni.gui.settings.SettingsDialog;
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.utils.AppConstants;
 import com.codemuni.utils.Utils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -13,16 +16,20 @@ import java.awt.*;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.dnd.*;
+import java.awt.event.*;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.prefs.Preferences;
 
 import static com.codemuni.utils.AppConstants.APP_NAME;
+import static com.codemuni.utils.AppConstants.METRICS_FILE_PATH;
 
 /**
  * Responsibilities:
  * - Window frame & layout
- * - Orchestrates top bar, scroll pane, renderer, and sign controller
+ * - Orchestrates top bar, thumbnail sidebar, scroll pane, renderer, and sign controller
  * - File open & preferences (last directory)
  * - Title updates & placeholder toggle
  */
@@ -33,6 +40,8 @@ public class PdfViewerMain extends JFrame {
     private static final int INITIAL_WIDTH = 950;
     private static final int MIN_WIDTH = 800;
     private static final int MIN_HEIGHT = 400;
+    // Render workers finish the page they are on before they let go of the document
+    private static final long UNMAP_TIMEOUT_MILLIS = 10_000;
 
     // Preferences
     private static final Preferences prefs = Preferences.userNodeForPackage(PdfViewerMain.class);
@@ -44,6 +53,7 @@ public class PdfViewerMain extends JFrame {
     // Collaborators
     private final TopBarPanel topBar;
     private final PdfScrollPane pdfScrollPane;
+    private final ThumbnailSidebar thumbnailSidebar;
     private final PlaceholderPanel placeholderPanel;
     private final PdfRendererService pdfRendererService;
     private final SignModeController signModeController;
@@ -59,6 +69,12 @@ public class PdfViewerMain extends JFrame {
 
         setIconImage(App.getAppIcon());
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                MetricsRegistry.logSummary(); // runs before EXIT_ON_CLOSE exits, while logging still works
+            }
+        });
         setResizable(true);
 
         Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
@@ -83,21 +99,31 @@ public class PdfViewerMain extends JFrame {
         topBar = new TopBarPanel(
                 this::openPdf,
                 () -> new SettingsDialog(this).setVisible(true),
-                signModeController::toggleSignMode
+                signModeController::toggleSignMode,
+                pdfRendererService::cancel,
+                this::zoomOut,
+                this::zoomIn
         );
+        pdfRendererService.setRenderProgressListener(topBar::setRenderProgress);
+        pdfRendererService.setZoomListener(topBar::setZoom);
         pdfScrollPane = new PdfScrollPane(
                 pdfRendererService,
                 topBar::setPageInfoText // callback to update page label
         );
+        thumbnailSidebar = new ThumbnailSidebar(this::scrollToPage);
+        thumbnailSidebar.setVisible(false);
+        pdfScrollPane.setCurrentPageListener(thumbnailSidebar::setCurrentPage);
         placeholderPanel = new PlaceholderPanel(this::openPdf);
 
         setLayout(new BorderLayout());
         add(topBar, BorderLayout.NORTH);
+        add(thumbnailSidebar, BorderLayout.WEST);
         add(pdfScrollPane, BorderLayout.CENTER);
 
         showPlaceholder(true);
         enableDragAndDrop(placeholderPanel);
         enableDragAndDrop(pdfScrollPane);
+        registerZoomShortcuts();
     }
 
     /* --------------------------
@@ -119,6 +145,36 @@ public class PdfViewerMain extends JFrame {
         loadAndRenderPdf(file);
     }
 
+    /**
+     * Closes the shown document if it is {@code file} and waits until no viewer, render worker or thumbnail
+     * maps it any more, so the file can be replaced (Windows refuses to replace a mapped file).
+     * The caller reopens the file afterwards.
+     *
+     * @return true if the shown document was closed
+     */
+    public boolean releaseIfShowing(File file) {
+        File current = pdfRendererService.getCurrentFile();
+        SharedDocumentSource source = pdfRendererService.getDocumentSource();
+        try {
+            if (current == null || source == null || !file.exists() || !Files.isSameFile(current.toPath(), file.toPath())) {
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+
+        thumbnailSidebar.close();
+        pdfRendererService.close();
+        try {
+            if (!source.awaitUnmapped(UNMAP_TIMEOUT_MILLIS)) {
+                log.warn(file + " is still mapped; replacing it may fail");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
     /* --------------------------
        Internal wiring
      --------------------------- */
@@ -127,10 +183,14 @@ public class PdfViewerMain extends JFrame {
         if (show) {
             pdfScrollPane.setViewportView(placeholderPanel);
             topBar.setSignButtonVisible(false);
+            topBar.setZoomControlsVisible(false);
             topBar.setPageInfoText("");
+            thumbnailSidebar.close();
+            thumbnailSidebar.setVisible(false);
         } else {
             pdfScrollPane.setViewportView(pdfScrollPane.getPdfPanel());
             topBar.setSignButtonVisible(true);
+            topBar.setZoomControlsVisible(true);
         }
         signModeController.resetSignModeUI();
     }
@@ -161,14 +221,18 @@ public class PdfViewerMain extends JFrame {
 
     private void loadAndRenderPdf(File file) {
         setLoadingState(true);
-        SwingUtilities.invokeLater(() -> {
-            boolean ok = pdfRendererService.render(file); // handles password internally
+        // Parsing and rasterization run in the background; the callback comes back on the EDT
+        pdfRendererService.open(file, ok -> {
             setLoadingState(false);
             if (ok) {
                 setWindowTitle(file.getAbsolutePath());
                 topBar.setSignButtonVisible(true);
                 topBar.setPageInfoText("Page: 1/" + pdfRendererService.getPageCountSafe());
                 showPlaceholder(false);
+                thumbnailSidebar.open(pdfRendererService.getDocumentSource(), pdfRendererService.getPageCountSafe());
+                thumbnailSidebar.setVisible(true);
+                revalidate();
+                pdfScrollPane.refreshCurrentPage();
             } else {
                 selectedPdfFile = null;
                 topBar.setSignButtonVisible(false);
@@ -179,6 +243,88 @@ public class PdfViewerMain extends JFrame {
         });
     }
 
+    private void scrollToPage(int pageIndex) {
+        pdfScrollPane.scrollToPage(pageIndex);
+    }
+
+    private void zoomIn() {
+        pdfScrollPane.zoomIn();
+    }
+
+    private void zoomOut() {
+        pdfScrollPane.zoomOut();
+    }
+
+    private void resetZoom() {
+        pdfScrollPane.resetZoom();
+    }
+
+    private void registerZoomShortcuts() {
+        JRootPane root = getRootPane();
+        int ctrl = menuShortcutMask();
+        bindKey(root, KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, ctrl), "zoomIn", this::zoomIn);
+        bindKey(root, KeyStroke.getKeyStroke(KeyEvent.VK_ADD, ctrl), "zoomIn", this::zoomIn);
+        bindKey(root, KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, ctrl), "zoomOut", this::zoomOut);
+        bindKey(root, KeyStroke.getKeyStroke(KeyEvent.VK_SUBTRACT, ctrl), "zoomOut", this::zoomOut);
+        bindKey(root, KeyStroke.getKeyStroke(KeyEvent.VK_0, ctrl), "resetZoom", this::resetZoom);
+        bindKey(root, KeyStroke.getKeyStroke(KeyEvent.VK_G, ctrl), "goToPage", this::promptGoToPage);
+
+        // Works without a document, unlike the shortcuts above
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_M, ctrl | InputEvent.SHIFT_DOWN_MASK), "dumpMetrics");
+        root.getActionMap().put("dumpMetrics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dumpMetrics();
+            }
+        });
+    }
+
+    /**
+     * Ctrl, or Cmd on macOS, as a {@code *_DOWN_MASK} modifier. getMenuShortcutKeyMaskEx() only exists
+     * from Java 10 on, so it is looked up reflectively; the deprecated getMenuShortcutKeyMask() is not used.
+     */
+    private static int menuShortcutMask() {
+        try {
+            return (Integer) Toolkit.class.getMethod("getMenuShortcutKeyMaskEx").invoke(Toolkit.getDefaultToolkit());
+        } catch (ReflectiveOperationException | HeadlessException e) {
+            return AppConstants.isMac ? InputEvent.META_DOWN_MASK : InputEvent.CTRL_DOWN_MASK;
+        }
+    }
+
+    private void dumpMetrics() {
+        try {
+            MetricsRegistry.writeJson(METRICS_FILE_PATH);
+            log.info("Metrics written to " + METRICS_FILE_PATH);
+        } catch (IOException e) {
+            log.warn("Failed to write metrics to " + METRICS_FILE_PATH, e);
+        }
+    }
+
+    private void promptGoToPage() {
+        int pageCount = pdfRendererService.getPageCountSafe();
+        String input = JOptionPane.showInputDialog(this, "Page number (1-" + pageCount + "):", "Go to Page",
+                JOptionPane.PLAIN_MESSAGE);
+        if (input == null || input.trim().isEmpty()) return;
+        try {
+            int page = Integer.parseInt(input.trim());
+            if (page < 1 || page > pageCount) throw new NumberFormatException();
+            scrollToPage(page - 1);
+        } catch (NumberFormatException e) {
+            DialogUtils.showError(this, "Invalid Page", "Enter a page number between 1 and " + pageCount + ".");
+        }
+    }
+
+    private void bindKey(JComponent component, KeyStroke keyStroke, String name, Runnable action) {
+        component.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(keyStroke, name);
+        component.getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (pdfRendererService.getPageCountSafe() > 0) action.run();
+            }
+        });
+    }
+
     private void enableDragAndDrop(JComponent component) {
         new DropTarget(component, DnDConstants.ACTION_COPY, new DropTargetListener() {
 
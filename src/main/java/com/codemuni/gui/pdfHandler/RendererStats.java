@@ -0,0 +1,57 @@
+package com.codemuni.gui.pdfHandler;
+
+import com.codemuni.metrics.jmx.RendererMXBean;
+
+import java.io.File;
+import java.util.function.Supplier;
+
+/**
+ * Live view of the renderer's page cache and render queue for JMX.
+ */
+final class RendererStats implements RendererMXBean {
+    private final PageImageCache pageCache;
+    private final PageRenderPool renderPool;
+    private final Supplier<File> currentFile;
+
+    RendererStats(PageImageCache pageCache, PageRenderPool renderPool, Supplier<File> currentFile) {
+        this.pageCache = pageCache;
+        this.renderPool = renderPool;
+        this.currentFile = currentFile;
+    }
+
+    @Override
+    public String getDocument() {
+        File file = currentFile.get();
+        return file != null ? file.getAbsolutePath() : null;
+    }
+
+    @Override
+    public long getPageCacheUsedBytes() {
+        return pageCache.getStats().getUsedBytes();
+    }
+
+    @Override
+    public long getPageCacheMaxBytes() {
+        return pageCache.getMaxBytes();
+    }
+
+    @Override
+    public int getPageCacheEntries() {
+        return pageCache.getStats().getStrongEntries();
+    }
+
+    @Override
+    public int getPageCacheSoftEntries() {
+        return pageCache.getStats().getSoftEntries();
+    }
+
+    @Override
+    public double getPageCacheHitRatio() {
+        return pageCache.getStats().getHitRatio();
+    }
+
+    @Override
+    public int getPendingPages() {
+        return renderPool.getPendingCount();
+    }
+}
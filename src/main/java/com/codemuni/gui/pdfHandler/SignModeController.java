@@ -1,44 +1,47 @@
 package com.codemuni.gui.pdfHandler;
 
 import com.codemuni.controller.SignerController;
+import com.codemuni.core.document.SharedDocumentSource;
+import com.codemuni.core.signer.EmptySignatureField;
+import com.codemuni.core.signer.SignatureFieldScanner;
 import com.codemuni.exceptions.IncorrectPINException;
 import com.codemuni.exceptions.MaxPinAttemptsExceededException;
 import com.codemuni.exceptions.UserCancelledOperationException;
 import com.codemuni.exceptions.UserCancelledPasswordEntryException;
 import com.codemuni.gui.DialogUtils;
+import com.itextpdf.text.pdf.PdfReader;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import javax.swing.*;
-import javax.swing.plaf.basic.BasicLabelUI;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Responsibilities:
  * - Manage sign mode enable/disable
- * - Apply crosshair cursor to pdf panel & children
- * - Attach mouse listeners to each page label for rectangle drawing
+ * - Offer the document's empty signature fields, if it has any, before drawing a new one
+ * - Show the {@link SignatureSelectionOverlay} glass pane (crosshair cursor, rectangle drawing for all pages)
  * - Convert coords & invoke SignerController
  */
 public class SignModeController {
     private static final Log log = LogFactory.getLog(SignModeController.class);
+    private static final String DRAW_NEW_SIGNATURE = "Draw a new signature box";
 
     private final PdfViewerMain owner;
     private final PdfRendererService rendererService;
     private final SignerController signerController;
+    private final SignatureSelectionOverlay overlay;
 
     private final Runnable onSignStart; // UI disable callback
     private final Runnable onSignDone;  // UI enable callback
 
-    // Drawing state
     private boolean signModeEnabled = false;
-    private Rectangle drawnRect = null;
-    private Point startPoint = null;
-    private JLabel activePageLabel = null;
-    private int selectedPage = 0;
     private int[] pageCoords = new int[4];
 
     private volatile boolean isSigningInProgress = false;
@@ -56,6 +59,22 @@ public class SignModeController {
         this.onSignStart = onSignStart;
         this.onSignDone = onSignDone;
 
+        overlay = new SignatureSelectionOverlay(rendererService.getPdfPanel(), new SignatureSelectionOverlay.SelectionListener() {
+            @Override
+            public void selectionStarted() {
+                if (!signModeEnabled) return;
+                isSigningInProgress = true;
+                onSignStart.run();
+            }
+
+            @Override
+            public void selectionCompleted(int pageIndex, Rectangle pageBounds, Point start, Point end) {
+                onSelectionCompleted(pageIndex, pageBounds, start, end);
+            }
+        });
+        owner.setGlassPane(overlay);
+        overlay.setVisible(false);
+
         // ESC to cancel sign mode
         rendererService.getPdfPanel().addKeyListener(new KeyAdapter() {
             @Override
@@ -69,6 +88,18 @@ public class SignModeController {
 
     public void toggleSignMode() {
         signModeEnabled = !signModeEnabled;
+
+        if (signModeEnabled) {
+            List<EmptySignatureField> emptyFields = findEmptySignatureFields();
+            if (!emptyFields.isEmpty()) {
+                Object choice = chooseSignatureField(emptyFields);
+                if (choice != DRAW_NEW_SIGNATURE) {
+                    signModeEnabled = false;
+                    if (choice instanceof EmptySignatureField) signIntoField((EmptySignatureField) choice);
+                    return;
+                }
+            }
+        }
         updateSignModeUI();
 
         if (signModeEnabled) {
@@ -89,20 +120,11 @@ public class SignModeController {
     public void resetSignModeUI() {
         signModeEnabled = false;
         isSigningInProgress = false;
-        drawnRect = null;
-        activePageLabel = null;
-        startPoint = null;
-        selectedPage = 0;
-
-        // Reset cursor for all components
-        if (rendererService != null && rendererService.getPdfPanel() != null) {
-            applyCursorRecursively(rendererService.getPdfPanel(), Cursor.getDefaultCursor());
-        }
 
-        // Clear any drawn rectangles
-        if (activePageLabel != null) {
-            activePageLabel.repaint();
-        }
+        // Clear any drawn rectangle and stop intercepting the mouse
+        overlay.clearSelection();
+        overlay.setCursor(Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR));
+        overlay.setVisible(false);
 
         // Notify UI to update
         if (onSignDone != null) {
@@ -111,13 +133,10 @@ public class SignModeController {
     }
 
     private void updateSignModeUI() {
-        applyCursorRecursively(rendererService.getPdfPanel(),
-                signModeEnabled ? Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR) : Cursor.getDefaultCursor());
+        overlay.clearSelection();
+        overlay.setVisible(signModeEnabled);
 
-        // Attach drawing listeners lazily each time sign mode is toggled on,
-        // so any newly rendered pages get listeners.
         if (signModeEnabled) {
-            attachDrawingListenersToAllPages();
             onSignStart.run();
         } else {
             onSignDone.run();
@@ -125,160 +144,121 @@ public class SignModeController {
         rendererService.getPdfPanel().requestFocusInWindow();
     }
 
-    private void attachDrawingListenersToAllPages() {
-        JPanel pdfPanel = rendererService.getPdfPanel();
-        int totalPages = rendererService.getPageCountSafe();
-        float scale = PdfRendererService.RENDER_DPI / 72f;
-
-        for (int i = 0; i < totalPages; i++) {
-            // Each child is a page wrapper (FlowLayout) with one JLabel inside
-            Component wrapper = pdfPanel.getComponent(i);
-            if (wrapper instanceof JPanel) {
-                JLabel pageLabel = findPageLabel((JPanel) wrapper);
-                if (pageLabel != null) {
-                    enableRectangleDrawing(pageLabel, i, scale);
-                }
-            }
-        }
-    }
-
-    private JLabel findPageLabel(JPanel pageWrapper) {
-        for (Component c : pageWrapper.getComponents()) {
-            if (c instanceof JLabel) return (JLabel) c;
-        }
-        return null;
-    }
-
-    private void applyCursorRecursively(Component component, Cursor cursor) {
-        component.setCursor(cursor);
-        if (component instanceof Container) {
-            for (Component child : ((Container) component).getComponents()) {
-                applyCursorRecursively(child, cursor);
-            }
-        }
-    }
-
     /* --------------------------
-       Drawing + Signing
+       Signing
      --------------------------- */
 
-    private void enableRectangleDrawing(JLabel pageLabel, int pageIndex, float scale) {
+    private void onSelectionCompleted(int selectedPage, Rectangle pageBounds, Point start, Point end) {
+        if (!signModeEnabled) {
+            resetSignModeUI();
+            return;
+        }
 
-        // Avoid duplicate listeners by clearing previous UI and creating a fresh BasicLabelUI
-        pageLabel.setUI(new BasicLabelUI() {
-            @Override
-            public void paint(Graphics g, JComponent c) {
-                super.paint(g, c);
-                if (drawnRect != null && signModeEnabled && pageLabel == activePageLabel) {
-                    Graphics2D g2 = (Graphics2D) g;
-                    g2.setColor(new Color(60, 141, 188, 100));
-                    g2.fill(drawnRect);
-                    g2.setColor(new Color(60, 141, 188));
-                    g2.setStroke(new BasicStroke(2));
-                    g2.draw(drawnRect);
-                }
+        overlay.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        SwingUtilities.invokeLater(() -> {
+            // Points relative to the page image; page size and scale both follow the current zoom level
+            float scale = rendererService.getRenderScale();
+            int[] coords = SelectionUtils.convertToItextRectangle(
+                    end.x - pageBounds.x, end.y - pageBounds.y,
+                    start.x - pageBounds.x, start.y - pageBounds.y,
+                    pageBounds.height,
+                    scale,
+                    0
+            );
+
+            if (coords[2] - coords[0] <= 30 || coords[3] - coords[1] <= 10) {
+                DialogUtils.showInfo(owner, "", "Draw a larger rectangle to sign.");
+                resetSignModeUI();
+                return;
             }
+
+            sign(selectedPage + 1, coords, null);
         });
+    }
 
-        pageLabel.addMouseListener(new java.awt.event.MouseAdapter() {
-            private Point localStartPoint = null;
-            private Rectangle localDrawnRect = null;
+    /**
+     * Signs into a field the document author placed, so nothing needs to be drawn.
+     */
+    private void signIntoField(EmptySignatureField field) {
+        isSigningInProgress = true;
+        onSignStart.run();
+        sign(field.getPageNumber(), field.getCoordinates(), field.getName());
+    }
 
-            @Override
-            public void mousePressed(java.awt.event.MouseEvent e) {
-                if (!signModeEnabled || isSigningInProgress) {
-                    return;
-                }
+    private void sign(int pageNumber, int[] coords, String fieldName) {
+        try {
+            pageCoords = coords;
 
-                isSigningInProgress = true;
-                localStartPoint = e.getPoint();
-                localDrawnRect = new Rectangle();
-                startPoint = localStartPoint;
-                drawnRect = localDrawnRect;
-                activePageLabel = pageLabel;
-                selectedPage = pageIndex;
-                onSignStart.run();
+            File selectedFile = rendererService.getCurrentFile();
+            if (selectedFile == null) {
+                DialogUtils.showError(owner, "No file", "No PDF is currently loaded.");
+                return;
             }
 
-            @Override
-            public void mouseReleased(java.awt.event.MouseEvent e) {
-                if (!signModeEnabled || localDrawnRect == null ||
-                        localStartPoint == null ||
-                        activePageLabel != pageLabel) {
-                    resetSignModeUI();
-                    return;
-                }
+            // Wire into existing SignerController API
+            signerController.setSelectedFile(selectedFile);
+            signerController.setPdfPassword(owner.getPdfPassword());
+            signerController.setDocumentSource(rendererService.getDocumentSource());
+            signerController.setPageNumber(pageNumber);
+            signerController.setPageCount(rendererService.getPageCountSafe());
+            signerController.setCoordinates(pageCoords);
+            signerController.setFieldName(fieldName);
 
-                applyCursorRecursively(rendererService.getPdfPanel(), Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-                SwingUtilities.invokeLater(() -> {
-                    try {
-                        int imageHeight = pageLabel.getIcon().getIconHeight();
-                        int[] coords = SelectionUtils.convertToItextRectangle(
-                                e.getX(), e.getY(),
-                                localStartPoint.x, localStartPoint.y,
-                                imageHeight,
-                                scale,
-                                PdfRendererService.DEFAULT_RENDERER_PADDING
-                        );
-
-                        if (coords[2] - coords[0] <= 30 || coords[3] - coords[1] <= 10) {
-                            DialogUtils.showInfo(owner, "", "Draw a larger rectangle to sign.");
-                            drawnRect = null;
-                            pageLabel.repaint();
-                            return;
-                        }
-
-                        pageCoords = coords;
-
-                        File selectedFile = rendererService.getCurrentFile();
-                        if (selectedFile == null) {
-                            DialogUtils.showError(owner, "No file", "No PDF is currently loaded.");
-                            return;
-                        }
-
-                        // Wire into existing SignerController API
-                        signerController.setSelectedFile(selectedFile);
-                        signerController.setPdfPassword(owner.getPdfPassword());
-                        signerController.setPageNumber(selectedPage + 1);
-                        signerController.setCoordinates(pageCoords);
-
-                        signerController.startSigningService();
-
-                        resetSignModeUI();
-                        onSignDone.run();
-                    } catch (UserCancelledPasswordEntryException | UserCancelledOperationException ex) {
-                        log.info("User cancelled signing With reason: " + ex.getMessage());
-                    } catch (IncorrectPINException ex) {
-                        log.warn("Incorrect PIN entered");
-                        DialogUtils.showError(PdfViewerMain.INSTANCE, "Incorrect PIN", ex.getMessage());
-                    } catch (MaxPinAttemptsExceededException ex) {
-                        log.warn("Maximum PIN attempts exceeded");
-                        DialogUtils.showError(PdfViewerMain.INSTANCE, "Maximum PIN attempts exceeded, Signing aborted", ex.getMessage());
-                    } catch (Exception ex) {
-                        log.error("Error signing PDF", ex);
-                        DialogUtils.showExceptionDialog(PdfViewerMain.INSTANCE, "Signing failed unknown error occurred", ex);
-                    } finally {
-                        applyCursorRecursively(rendererService.getPdfPanel(), Cursor.getDefaultCursor());
-                        resetSignModeUI();
-                    }
-                });
-            }
-        });
+            signerController.startSigningService();
 
-        pageLabel.addMouseMotionListener(new java.awt.event.MouseMotionAdapter() {
-            @Override
-            public void mouseDragged(java.awt.event.MouseEvent e) {
-                if (!signModeEnabled || drawnRect == null || startPoint == null || activePageLabel != pageLabel)
-                    return;
+            resetSignModeUI();
+            onSignDone.run();
+        } catch (UserCancelledPasswordEntryException | UserCancelledOperationException ex) {
+            log.info("User cancelled signing With reason: " + ex.getMessage());
+        } catch (IncorrectPINException ex) {
+            log.warn("Incorrect PIN entered");
+            DialogUtils.showError(PdfViewerMain.INSTANCE, "Incorrect PIN", ex.getMessage());
+        } catch (MaxPinAttemptsExceededException ex) {
+            log.warn("Maximum PIN attempts exceeded");
+            DialogUtils.showError(PdfViewerMain.INSTANCE, "Maximum PIN attempts exceeded, Signing aborted", ex.getMessage());
+        } catch (Exception ex) {
+            log.error("Error signing PDF", ex);
+            DialogUtils.showExceptionDialog(PdfViewerMain.INSTANCE, "Signing failed unknown error occurred", ex);
+        } finally {
+            overlay.setCursor(Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR));
+            resetSignModeUI();
+        }
+    }
 
-                int x = Math.min(startPoint.x, e.getX());
-                int y = Math.min(startPoint.y, e.getY());
-                int width = Math.abs(startPoint.x - e.getX());
-                int height = Math.abs(startPoint.y - e.getY());
-                drawnRect.setBounds(x, y, width, height);
-                pageLabel.repaint();
+    /**
+     * Reads only the form fields of the open document, so this is quick even for large files.
+     */
+    private List<EmptySignatureField> findEmptySignatureFields() {
+        SharedDocumentSource source = rendererService.getDocumentSource();
+        if (source == null) return Collections.emptyList();
+        try {
+            PdfReader reader = source.openPdfReader();
+            try {
+                return SignatureFieldScanner.findEmptyFields(reader);
+            } finally {
+                reader.close();
             }
-        });
+        } catch (Exception e) {
+            log.warn("Could not look for empty signature fields", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * @return the chosen field, {@link #DRAW_NEW_SIGNATURE}, or null if cancelled
+     */
+    private Object chooseSignatureField(List<EmptySignatureField> emptyFields) {
+        List<Object> choices = new ArrayList<>(emptyFields);
+        choices.add(DRAW_NEW_SIGNATURE);
+        return JOptionPane.showInputDialog(
+                owner,
+                "This document has empty signature fields.\nChoose one to sign, or draw a new signature box.",
+                "Sign Existing Field",
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                choices.toArray(),
+                choices.get(0)
+        );
     }
 }
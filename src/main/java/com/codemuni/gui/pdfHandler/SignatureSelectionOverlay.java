@@ -0,0 +1,145 @@
+package com.codemuni.gui.pdfHandler;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * Glass pane that draws the signature rectangle for every page of the {@link PdfPagesView}.
+ * - Only takes mouse events over the visible part of the pages, so the top bar and sidebar stay usable
+ * - Points are mapped to pages through the view's {@link PageGeometry}; a selection stays on the page it started on
+ * - A drag repaints only the area covered by the previous and the new rectangle
+ * - Mouse wheel events are passed on to the pages view, so the document still scrolls
+ */
+class SignatureSelectionOverlay extends JComponent {
+    private static final Color FILL_COLOR = new Color(60, 141, 188, 100);
+    private static final Color STROKE_COLOR = new Color(60, 141, 188);
+    private static final int STROKE_WIDTH = 2;
+
+    private final PdfPagesView pagesView;
+    private final SelectionListener listener;
+
+    // Selection state, in pages view coordinates
+    private boolean armed = true;
+    private int pageIndex = -1;
+    private Rectangle pageBounds;
+    private Point start;
+    private Rectangle selection;
+
+    SignatureSelectionOverlay(PdfPagesView pagesView, SelectionListener listener) {
+        this.pagesView = pagesView;
+        this.listener = listener;
+        setOpaque(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR));
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (!armed || !SwingUtilities.isLeftMouseButton(e)) return;
+                Point p = toPagesView(e.getPoint());
+                int page = pagesView.pageAt(p);
+                if (page < 0) return; // pressed between pages
+
+                pageIndex = page;
+                pageBounds = pagesView.getPageBounds(page);
+                start = p;
+                selection = new Rectangle(p);
+                repaintSelection(null);
+                listener.selectionStarted();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (start == null || !armed) return;
+                Rectangle previous = new Rectangle(selection);
+                Point p = clampToPage(toPagesView(e.getPoint()));
+                selection.setBounds(Math.min(start.x, p.x), Math.min(start.y, p.y),
+                        Math.abs(start.x - p.x), Math.abs(start.y - p.y));
+                repaintSelection(previous);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (start == null || !armed) return;
+                armed = false; // until clearSelection()
+                listener.selectionCompleted(pageIndex, new Rectangle(pageBounds), new Point(start),
+                        clampToPage(toPagesView(e.getPoint())));
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+        addMouseWheelListener(e -> pagesView.dispatchEvent(SwingUtilities.convertMouseEvent(this, e, pagesView)));
+    }
+
+    /**
+     * Removes the rectangle and accepts a new selection.
+     */
+    void clearSelection() {
+        Rectangle previous = selection;
+        armed = true;
+        pageIndex = -1;
+        pageBounds = null;
+        start = null;
+        selection = null;
+        repaintSelection(previous);
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return visiblePagesArea().contains(x, y);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (selection == null) return;
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.clip(visiblePagesArea());
+            Rectangle r = SwingUtilities.convertRectangle(pagesView, selection, this);
+            g2.setColor(FILL_COLOR);
+            g2.fill(r);
+            g2.setColor(STROKE_COLOR);
+            g2.setStroke(new BasicStroke(STROKE_WIDTH));
+            g2.draw(r);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private Rectangle visiblePagesArea() {
+        if (!pagesView.isShowing()) return new Rectangle();
+        return SwingUtilities.convertRectangle(pagesView, pagesView.getVisibleRect(), this);
+    }
+
+    private Point toPagesView(Point overlayPoint) {
+        return SwingUtilities.convertPoint(this, overlayPoint, pagesView);
+    }
+
+    private Point clampToPage(Point p) {
+        int x = Math.max(pageBounds.x, Math.min(p.x, pageBounds.x + pageBounds.width));
+        int y = Math.max(pageBounds.y, Math.min(p.y, pageBounds.y + pageBounds.height));
+        return new Point(x, y);
+    }
+
+    private void repaintSelection(Rectangle previous) {
+        Rectangle dirty = null;
+        if (selection != null) dirty = SwingUtilities.convertRectangle(pagesView, selection, this);
+        if (previous != null) {
+            Rectangle old = SwingUtilities.convertRectangle(pagesView, previous, this);
+            dirty = (dirty == null) ? old : dirty.union(old);
+        }
+        if (dirty == null) return;
+        dirty.grow(STROKE_WIDTH, STROKE_WIDTH);
+        repaint(dirty);
+    }
+
+    /**
+     * Callbacks on the EDT; points and bounds are in pages view coordinates.
+     */
+    interface SelectionListener {
+        void selectionStarted();
+
+        void selectionCompleted(int pageIndex, Rectangle pageBounds, Point start, Point end);
+    }
+}
@@ -0,0 +1,141 @@
+package com.codemuni.gui.pdfHandler;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Page thumbnails persisted as PNG files.
+ * - One directory per document, named after a SHA-256 of its path, size and modification time and the thumbnail DPI;
+ * the file content is never read, so opening a large document costs nothing here
+ * - Files are written to a temp name and moved into place, so a crash never leaves a truncated thumbnail
+ * - Only the most recently used documents are kept
+ * <p>
+ * Methods do blocking I/O and must not be called on the EDT.
+ */
+final class ThumbnailDiskCache {
+    private static final Log log = LogFactory.getLog(ThumbnailDiskCache.class);
+    private static final int MAX_DOCUMENTS = 64;
+    private static final String EXTENSION = ".png";
+
+    private final Path root;
+
+    ThumbnailDiskCache(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Key of the file in its current state, as lowercase hex; changes when the file is modified or moved.
+     */
+    static String documentKey(File file) {
+        String path;
+        try {
+            path = file.getCanonicalPath();
+        } catch (IOException e) {
+            path = file.getAbsolutePath();
+        }
+        String state = path + "|" + file.length() + "|" + file.lastModified();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest(state.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Directory for one document at one thumbnail resolution; touched so it counts as recently used.
+     */
+    Path documentDir(String documentKey, int dpi) {
+        Path dir = root.resolve(documentKey + "-" + dpi);
+        if (Files.isDirectory(dir)) {
+            dir.toFile().setLastModified(System.currentTimeMillis());
+        }
+        return dir;
+    }
+
+    /**
+     * Pages that already have a thumbnail on disk.
+     */
+    BitSet storedPages(Path documentDir) {
+        BitSet pages = new BitSet();
+        if (!Files.isDirectory(documentDir)) return pages;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(documentDir, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    pages.set(Integer.parseInt(name.substring(0, name.length() - EXTENSION.length())));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to list thumbnails in " + documentDir, e);
+        }
+        return pages;
+    }
+
+    BufferedImage load(Path documentDir, int pageIndex) {
+        Path file = documentDir.resolve(pageIndex + EXTENSION);
+        try (InputStream in = Files.newInputStream(file)) {
+            return ImageIO.read(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Unable to read thumbnail " + file, e);
+            return null;
+        }
+    }
+
+    void store(Path documentDir, int pageIndex, BufferedImage image) {
+        try {
+            boolean newDocument = !Files.isDirectory(documentDir);
+            Files.createDirectories(documentDir);
+            Path tmp = Files.createTempFile(documentDir, "page", ".tmp");
+            try {
+                ImageIO.write(image, "png", tmp.toFile());
+                Files.move(tmp, documentDir.resolve(pageIndex + EXTENSION),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            if (newDocument) prune();
+        } catch (IOException e) {
+            log.warn("Unable to store thumbnail of page " + (pageIndex + 1) + " in " + documentDir, e);
+        }
+    }
+
+    /**
+     * Deletes the least recently used document directories beyond {@link #MAX_DOCUMENTS}.
+     */
+    private void prune() {
+        List<File> dirs = new ArrayList<>();
+        File[] children = root.toFile().listFiles(File::isDirectory);
+        if (children == null || children.length <= MAX_DOCUMENTS) return;
+        Collections.addAll(dirs, children);
+        dirs.sort(Comparator.comparingLong(File::lastModified));
+        for (File dir : dirs.subList(0, dirs.size() - MAX_DOCUMENTS)) {
+            try (Stream<Path> files = Files.walk(dir.toPath())) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                log.warn("Unable to prune thumbnail directory " + dir, e);
+            }
+        }
+    }
+}
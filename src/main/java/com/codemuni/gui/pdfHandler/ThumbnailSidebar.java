@@ -0,0 +1,318 @@
+package com.codemuni.gui.pdfHandler;
+
+import com.codemuni.core.document.SharedDocumentSource;
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.utils.AppConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+
+/**
+ * Responsibilities:
+ * - Show a strip of page thumbnails (a JList, so only the visible cells are painted)
+ * - Rasterize thumbnails at {@link #THUMBNAIL_DPI} on its own {@link PageRenderPool}, over the viewer's {@link SharedDocumentSource}
+ * - Only thumbnails in or near the viewport are loaded or rendered; rendered ones are persisted through
+ * {@link ThumbnailDiskCache}, keyed by path, size and modification time, so a reopened document shows them without rendering
+ * - Only the visible ones are kept in memory
+ * - Jump to a page when its thumbnail is selected and follow the page in view
+ */
+public class ThumbnailSidebar extends JScrollPane {
+    public static final int THUMBNAIL_DPI = 20;
+    private static final Log log = LogFactory.getLog(ThumbnailSidebar.class);
+    private static final int IMAGE_BOX_WIDTH = 130;
+    private static final int IMAGE_BOX_HEIGHT = 170;
+    private static final int CELL_PADDING = 8;
+    private static final int LABEL_HEIGHT = 18;
+    private static final long MEMORY_BUDGET_BYTES = 32L * 1024 * 1024;
+    // Pages above and below the visible ones that are loaded or rendered ahead of scrolling
+    private static final int PREFETCH_PAGES = 8;
+    private static final Color PLACEHOLDER_FILL = new Color(0xF2F2F2);
+    private static final Color SELECTION_COLOR = new Color(0x007BFF);
+
+    private final ThumbnailDiskCache diskCache = new ThumbnailDiskCache(AppConstants.THUMBNAIL_CACHE_DIR_PATH);
+    private final PageImageCache memoryCache = new PageImageCache("thumbnail", MEMORY_BUDGET_BYTES);
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "eMark-thumbnail-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final PageRenderPool renderPool;
+    private final PageListModel model = new PageListModel();
+    private final JList<Integer> list = new JList<>(model);
+    private final IntConsumer onPageSelected;
+
+    // EDT state of the current document
+    private int session = 0;
+    private int renderGeneration = -1;
+    private SharedDocumentSource source;
+    private String documentKey;
+    private Path documentDir;
+    private BitSet storedPages = new BitSet();
+    private final BitSet requestedPages = new BitSet(); // a disk load or render is on its way
+    private final BitSet queuedRenders = new BitSet();  // the requested pages waiting in the render pool
+    private boolean syncingSelection = false;
+
+    public ThumbnailSidebar(IntConsumer onPageSelected) {
+        this.onPageSelected = onPageSelected;
+        this.renderPool = new PageRenderPool(Math.max(1, PageRenderPool.defaultThreadCount() / 2),
+                new PageRenderPool.PageConsumer() {
+                    @Override
+                    public void pageRendered(int generation, int pageIndex, BufferedImage image) {
+                        onThumbnailRendered(generation, pageIndex, image);
+                    }
+
+                    @Override
+                    public void pageFailed(int generation, int pageIndex, Exception error) {
+                        if (generation != renderGeneration) return;
+                        requestedPages.clear(pageIndex);
+                        queuedRenders.clear(pageIndex);
+                    }
+                });
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFixedCellWidth(IMAGE_BOX_WIDTH + 2 * CELL_PADDING);
+        list.setFixedCellHeight(IMAGE_BOX_HEIGHT + LABEL_HEIGHT + 2 * CELL_PADDING);
+        list.setCellRenderer(new ThumbnailCell());
+        list.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && !syncingSelection && list.getSelectedIndex() >= 0) {
+                onPageSelected.accept(list.getSelectedIndex());
+            }
+        });
+
+        setViewportView(list);
+        setBorder(BorderFactory.createMatteBorder(0, 0, 0, 1, UIManager.getColor("Separator.foreground")));
+        setHorizontalScrollBarPolicy(HORIZONTAL_SCROLLBAR_NEVER);
+        getVerticalScrollBar().setUnitIncrement(16);
+        getVerticalScrollBar().addAdjustmentListener(e -> requestNearViewport());
+    }
+
+    /**
+     * Shows placeholders for every page at once; thumbnails appear as they are loaded from disk or rendered.
+     */
+    public void open(SharedDocumentSource documentSource, int pageCount) {
+        close();
+        source = documentSource.retain(); // the viewer may release it before the cache is listed
+        File file = source.getFile();
+        int openSession = session;
+        model.setSize(pageCount);
+
+        // Listing the cache directory is disk I/O, so it runs in the background like the rendering
+        new SwingWorker<BitSet, Void>() {
+            private String key;
+            private Path dir;
+
+            @Override
+            protected BitSet doInBackground() throws Exception {
+                key = ThumbnailDiskCache.documentKey(file);
+                dir = diskCache.documentDir(key, THUMBNAIL_DPI);
+                return diskCache.storedPages(dir);
+            }
+
+            @Override
+            protected void done() {
+                if (openSession != session) return;
+                try {
+                    storedPages = get();
+                } catch (Exception e) {
+                    log.warn("Thumbnail cache unavailable for " + file, e);
+                    return;
+                }
+                documentKey = key;
+                documentDir = dir;
+                renderGeneration = renderPool.start(source, THUMBNAIL_DPI);
+                requestNearViewport();
+                log.debug(storedPages.cardinality() + "/" + pageCount + " thumbnails cached on disk for " + file);
+                list.repaint();
+            }
+        }.execute();
+    }
+
+    public void close() {
+        session++;
+        renderPool.cancel();
+        renderGeneration = -1;
+        if (source != null) source.release();
+        source = null;
+        documentKey = null;
+        documentDir = null;
+        storedPages = new BitSet();
+        requestedPages.clear();
+        queuedRenders.clear();
+        model.setSize(0);
+    }
+
+    /**
+     * Highlights the page shown in the main view without jumping back to it.
+     */
+    public void setCurrentPage(int pageIndex) {
+        if (pageIndex < 0 || pageIndex >= model.getSize() || list.getSelectedIndex() == pageIndex) return;
+        syncingSelection = true;
+        try {
+            list.setSelectedIndex(pageIndex);
+            list.ensureIndexIsVisible(pageIndex);
+        } finally {
+            syncingSelection = false;
+        }
+    }
+
+    /**
+     * Drops queued renders that scrolled away and requests the visible pages plus {@link #PREFETCH_PAGES} around them.
+     */
+    private void requestNearViewport() {
+        if (documentKey == null) return;
+        int first = list.getFirstVisibleIndex();
+        int last = list.getLastVisibleIndex();
+        if (first < 0) first = last = 0;
+
+        renderPool.stopPrefetch();
+        requestedPages.andNot(queuedRenders);
+        queuedRenders.clear();
+        renderPool.focus(first);
+        int to = Math.min(model.getSize() - 1, last + PREFETCH_PAGES);
+        for (int i = Math.max(0, first - PREFETCH_PAGES); i <= to; i++) {
+            thumbnail(i);
+        }
+    }
+
+    /**
+     * Thumbnail from memory, or null after scheduling a disk load or render for it.
+     */
+    private BufferedImage thumbnail(int pageIndex) {
+        if (documentKey == null) return null;
+        PageImageCache.PageKey key = new PageImageCache.PageKey(documentKey, pageIndex, THUMBNAIL_DPI);
+        BufferedImage image = memoryCache.get(key);
+        if (image != null || requestedPages.get(pageIndex)) return image;
+
+        requestedPages.set(pageIndex);
+        MetricsRegistry.increment(storedPages.get(pageIndex) ? "cache.thumbnail_disk.hit" : "cache.thumbnail_disk.miss");
+        if (storedPages.get(pageIndex)) {
+            int loadSession = session;
+            Path dir = documentDir;
+            diskExecutor.execute(() -> {
+                BufferedImage loaded = diskCache.load(dir, pageIndex);
+                SwingUtilities.invokeLater(() -> {
+                    if (loadSession != session) return;
+                    requestedPages.clear(pageIndex);
+                    if (loaded != null) {
+                        memoryCache.put(key, loaded);
+                        repaintCell(pageIndex);
+                    } else {
+                        storedPages.clear(pageIndex);
+                    }
+                });
+            });
+        } else {
+            queuedRenders.set(pageIndex);
+            renderPool.request(pageIndex);
+        }
+        return null;
+    }
+
+    private void onThumbnailRendered(int generation, int pageIndex, BufferedImage image) {
+        if (generation != renderGeneration) return;
+        requestedPages.clear(pageIndex);
+        queuedRenders.clear(pageIndex);
+        memoryCache.put(new PageImageCache.PageKey(documentKey, pageIndex, THUMBNAIL_DPI), image);
+
+        // The disk executor runs in order, so a later load of this page always finds the file
+        Path dir = documentDir;
+        diskExecutor.execute(() -> diskCache.store(dir, pageIndex, image));
+        storedPages.set(pageIndex);
+        repaintCell(pageIndex);
+    }
+
+    private void repaintCell(int pageIndex) {
+        Rectangle bounds = list.getCellBounds(pageIndex, pageIndex);
+        if (bounds != null) list.repaint(bounds);
+    }
+
+    /**
+     * Page indexes 0..size-1; no per-page objects are kept.
+     */
+    private static final class PageListModel extends AbstractListModel<Integer> {
+        private int size = 0;
+
+        void setSize(int newSize) {
+            int oldSize = size;
+            size = 0;
+            if (oldSize > 0) fireIntervalRemoved(this, 0, oldSize - 1);
+            size = newSize;
+            if (newSize > 0) fireIntervalAdded(this, 0, newSize - 1);
+        }
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public Integer getElementAt(int index) {
+            return index;
+        }
+    }
+
+    private final class ThumbnailCell extends JComponent implements ListCellRenderer<Integer> {
+        private int pageIndex;
+        private boolean selected;
+
+        ThumbnailCell() {
+            setBorder(new EmptyBorder(CELL_PADDING, CELL_PADDING, CELL_PADDING, CELL_PADDING));
+            setFont(new Font("SansSerif", Font.PLAIN, 12));
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Integer> list, Integer value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            this.pageIndex = value;
+            this.selected = isSelected;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            try {
+                int boxX = CELL_PADDING;
+                int boxY = CELL_PADDING;
+                BufferedImage image = thumbnail(pageIndex);
+
+                Rectangle page;
+                if (image != null) {
+                    double scale = Math.min((double) IMAGE_BOX_WIDTH / image.getWidth(), (double) IMAGE_BOX_HEIGHT / image.getHeight());
+                    int w = (int) Math.round(image.getWidth() * scale);
+                    int h = (int) Math.round(image.getHeight() * scale);
+                    page = new Rectangle(boxX + (IMAGE_BOX_WIDTH - w) / 2, boxY + (IMAGE_BOX_HEIGHT - h) / 2, w, h);
+                    g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    g2.drawImage(image, page.x, page.y, page.width, page.height, null);
+                } else {
+                    page = new Rectangle(boxX, boxY, IMAGE_BOX_WIDTH, IMAGE_BOX_HEIGHT);
+                    g2.setColor(PLACEHOLDER_FILL);
+                    g2.fill(page);
+                }
+
+                g2.setColor(selected ? SELECTION_COLOR : Color.LIGHT_GRAY);
+                g2.setStroke(new BasicStroke(selected ? 2f : 1f));
+                g2.draw(page);
+
+                String text = String.valueOf(pageIndex + 1);
+                FontMetrics fm = g2.getFontMetrics(getFont());
+                g2.setFont(getFont());
+                g2.setColor(selected ? SELECTION_COLOR : UIManager.getColor("Label.foreground"));
+                g2.drawString(text, boxX + (IMAGE_BOX_WIDTH - fm.stringWidth(text)) / 2,
+                        boxY + IMAGE_BOX_HEIGHT + fm.getAscent() + 2);
+            } finally {
+                g2.dispose();
+            }
+        }
+    }
+}
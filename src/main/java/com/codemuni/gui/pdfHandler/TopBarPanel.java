@@ -15,23 +15,31 @@ import java.awt.*;
  * - Settings button
  * - Begin/Cancel Sign button
  * - Page info label
+ * - Zoom out / zoom level / zoom in controls
+ * - Cancel button for background loading/rendering
  * - Version status label (auto-check on startup, hides if up-to-date)
  */
 public class TopBarPanel extends JPanel {
     private static final String OPEN_PDF_TEXT = "Open PDF";
     private static final String BEGIN_SIGN_TEXT = "Begin Sign";
     private static final String CANCEL_SIGN_TEXT = "Cancel Signing (ESC)";
+    private static final String CANCEL_RENDER_TEXT = "Cancel";
     private static final Log log = LogFactory.getLog(TopBarPanel.class);
 
     private final JButton openBtn;
     private final JButton signBtn;
     private final JButton settingsBtn;
+    private final JButton cancelRenderBtn;
+    private final JButton zoomOutBtn;
+    private final JButton zoomInBtn;
+    private final JLabel zoomLabel;
     private final JLabel pageInfoLabel;
     private final JLabel versionStatusLabel;
 
     private boolean signMode = false;
 
-    public TopBarPanel(Runnable onOpen, Runnable onSettings, Runnable onToggleSign) {
+    public TopBarPanel(Runnable onOpen, Runnable onSettings, Runnable onToggleSign, Runnable onCancelRender,
+                       Runnable onZoomOut, Runnable onZoomIn) {
         super(new BorderLayout());
         setBorder(new EmptyBorder(10, 10, 10, 10));
         setBackground(FlatUIUtils.getUIColor("Panel.background", Color.WHITE));
@@ -51,6 +59,22 @@ public class TopBarPanel extends JPanel {
         settingsBtn = UiFactory.createButton("Settings", new Color(0x6C757D));
         settingsBtn.addActionListener(e -> onSettings.run());
 
+        cancelRenderBtn = UiFactory.createButton(CANCEL_RENDER_TEXT, new Color(0xDC3545));
+        cancelRenderBtn.setVisible(false);
+        cancelRenderBtn.addActionListener(e -> onCancelRender.run());
+
+        zoomOutBtn = UiFactory.createButton("-", new Color(0x6C757D));
+        zoomOutBtn.setToolTipText("Zoom out (Ctrl + -)");
+        zoomOutBtn.addActionListener(e -> onZoomOut.run());
+
+        zoomInBtn = UiFactory.createButton("+", new Color(0x6C757D));
+        zoomInBtn.setToolTipText("Zoom in (Ctrl + +)");
+        zoomInBtn.addActionListener(e -> onZoomIn.run());
+
+        zoomLabel = new JLabel("100%");
+        zoomLabel.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        setZoomControlsVisible(false);
+
         // -------------------- Version Status Label --------------------
         versionStatusLabel = new JLabel("Checking for updates...");
         versionStatusLabel.setFont(new Font("SansSerif", Font.PLAIN, 13));
@@ -64,6 +88,10 @@ public class TopBarPanel extends JPanel {
         JPanel centerPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 0));
         centerPanel.setOpaque(false);
         centerPanel.add(pageInfoLabel);
+        centerPanel.add(zoomOutBtn);
+        centerPanel.add(zoomLabel);
+        centerPanel.add(zoomInBtn);
+        centerPanel.add(cancelRenderBtn);
         centerPanel.add(signBtn);
 
         JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
@@ -130,6 +158,16 @@ public class TopBarPanel extends JPanel {
         signBtn.setVisible(visible);
     }
 
+    public void setZoomControlsVisible(boolean visible) {
+        zoomOutBtn.setVisible(visible);
+        zoomLabel.setVisible(visible);
+        zoomInBtn.setVisible(visible);
+    }
+
+    public void setZoom(float zoom) {
+        zoomLabel.setText(Math.round(zoom * 100) + "%");
+    }
+
     public void setInteractiveEnabled(boolean enabled) {
         openBtn.setEnabled(enabled);
         settingsBtn.setEnabled(enabled);
@@ -140,6 +178,15 @@ public class TopBarPanel extends JPanel {
     public void setLoading(boolean loading) {
         openBtn.setText(loading ? "Opening PDF..." : OPEN_PDF_TEXT);
         setInteractiveEnabled(!loading);
+        cancelRenderBtn.setVisible(loading);
+    }
+
+    /**
+     * Shows the cancel button while pages are still being rendered in the background.
+     */
+    public void setRenderProgress(int rendered, int total) {
+        cancelRenderBtn.setVisible(total > 0 && rendered < total);
+        cancelRenderBtn.setToolTipText(total > 0 ? String.format("Rendering pages (%d/%d)", rendered, total) : null);
     }
 
     public void setSignMode(boolean enabled) {
@@ -0,0 +1,133 @@
+package com.codemuni.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, cheap enough to record on every operation.
+ * - Values are kept in microseconds; below 8 µs exactly, above that in 8 buckets per power of two,
+ * so a percentile is at most 12.5% above the true value
+ * - Memory is fixed (512 counters) whatever the number of values or their range
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        buckets.incrementAndGet(indexOf(micros));
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Counts and percentiles at this moment; values recorded meanwhile may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[buckets.length()];
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        long max = maxMicros.get();
+        return new Snapshot(count, totalMicros.sum(), max,
+                percentile(counts, count, 0.50, max), percentile(counts, count, 0.95, max),
+                percentile(counts, count, 0.99, max));
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+        totalMicros.reset();
+        maxMicros.set(0);
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Largest value that falls into the bucket.
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1L) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long count, double quantile, long max) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    /**
+     * Immutable view of a histogram; times in milliseconds.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+        private final long p50Micros;
+        private final long p95Micros;
+        private final long p99Micros;
+
+        Snapshot(long count, long totalMicros, long maxMicros, long p50Micros, long p95Micros, long p99Micros) {
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+            this.p50Micros = p50Micros;
+            this.p95Micros = p95Micros;
+            this.p99Micros = p99Micros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMillis() {
+            return count == 0 ? 0 : totalMicros / 1000d / count;
+        }
+
+        public double getP50Millis() {
+            return p50Micros / 1000d;
+        }
+
+        public double getP95Millis() {
+            return p95Micros / 1000d;
+        }
+
+        public double getP99Millis() {
+            return p99Micros / 1000d;
+        }
+
+        public double getMaxMillis() {
+            return maxMicros / 1000d;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "count=%d p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms",
+                    count, getP50Millis(), getP95Millis(), getP99Millis(), getMaxMillis());
+        }
+    }
+}
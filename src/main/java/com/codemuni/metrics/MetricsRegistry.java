@@ -0,0 +1,226 @@
+package com.codemuni.metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process latency histograms, counters, rates and gauges of the whole application, by name.
+ * - Recording is lock-free; names are created on first use
+ * - Gauges are read when asked for, e.g. queue depths registered by whoever owns the queue
+ * - {@link #writeJson} dumps everything on demand; {@link #logSummary()} is called when the viewer or a command
+ * line tool exits (not from a shutdown hook, since java.util.logging may already be shut down by then)
+ * - {@link #recordSigning} also writes one trace line per document when {@value #TRACE_PROPERTY} is true
+ */
+public final class MetricsRegistry {
+    public static final String TRACE_PROPERTY = "emark.metrics.trace";
+    public static final String SIGNING_RATE = "signing.success";
+
+    private static final Log log = LogFactory.getLog(MetricsRegistry.class);
+    private static final Log traceLog = LogFactory.getLog("com.codemuni.metrics.trace");
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, RateMeter> rates = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private static volatile boolean traceEnabled = Boolean.getBoolean(TRACE_PROPERTY);
+
+    private MetricsRegistry() {
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    public static void recordSince(String name, long startNanos) {
+        histogram(name).recordSince(startNanos);
+    }
+
+    public static void increment(String name) {
+        counters.computeIfAbsent(name, n -> new LongAdder()).increment();
+    }
+
+    public static long count(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Counters whose name starts with {@code prefix}, by name.
+     */
+    public static Map<String, Long> counters(String prefix) {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> {
+            if (name.startsWith(prefix)) values.put(name, counter.sum());
+        });
+        return values;
+    }
+
+    public static RateMeter rate(String name) {
+        return rates.computeIfAbsent(name, n -> new RateMeter());
+    }
+
+    /**
+     * Registers a value read on demand, replacing any gauge of the same name.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Removes a gauge, unless it was replaced by another one meanwhile.
+     */
+    public static void removeGauge(String name, LongSupplier value) {
+        gauges.remove(name, value);
+    }
+
+    /**
+     * Current values of the gauges whose name starts with {@code prefix}, by name.
+     */
+    public static Map<String, Long> gauges(String prefix) {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> {
+            if (name.startsWith(prefix)) values.put(name, gauge.getAsLong());
+        });
+        return values;
+    }
+
+    /**
+     * Snapshots of all histograms that have values, by name.
+     */
+    public static Map<String, LatencyHistogram.Snapshot> snapshots() {
+        Map<String, LatencyHistogram.Snapshot> values = new TreeMap<>();
+        histograms.forEach((name, histogram) -> {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() > 0) values.put(name, snapshot);
+        });
+        return values;
+    }
+
+    public static void setTraceEnabled(boolean enabled) {
+        traceEnabled = enabled;
+    }
+
+    /**
+     * Records a finished signing attempt: its phases, its total (the sum of the phases, so waiting for the user
+     * is not counted) and its outcome. Successes also count towards the {@value #SIGNING_RATE} throughput.
+     *
+     * @param document name shown in the trace line
+     */
+    public static void recordSigning(String document, SigningOutcome outcome, Map<SigningPhase, Long> phaseNanos) {
+        long total = 0;
+        for (Map.Entry<SigningPhase, Long> phase : phaseNanos.entrySet()) {
+            histogram(phase.getKey().metricName()).record(phase.getValue());
+            total += phase.getValue();
+        }
+        histogram("signing.total").record(total);
+        increment(outcome.metricName());
+        if (outcome == SigningOutcome.SUCCESS) rate(SIGNING_RATE).mark();
+
+        if (traceEnabled) {
+            StringBuilder line = new StringBuilder("sign document=\"").append(document)
+                    .append("\" outcome=").append(outcome.name().toLowerCase())
+                    .append(" total_ms=").append(millis(total));
+            for (Map.Entry<SigningPhase, Long> phase : phaseNanos.entrySet()) {
+                line.append(' ').append(phase.getKey().name().toLowerCase()).append("_ms=").append(millis(phase.getValue()));
+            }
+            traceLog.info(line);
+        }
+    }
+
+    /**
+     * All histograms, counters, last-minute rates and gauges as one JSON object.
+     */
+    public static void writeJson(Writer out) throws IOException {
+        JsonGenerator json = JSON.createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.useDefaultPrettyPrinter();
+        json.writeStartObject();
+        json.writeObjectFieldStart("histograms");
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+            json.writeObjectFieldStart(entry.getKey());
+            json.writeNumberField("count", snapshot.getCount());
+            json.writeNumberField("meanMs", snapshot.getMeanMillis());
+            json.writeNumberField("p50Ms", snapshot.getP50Millis());
+            json.writeNumberField("p95Ms", snapshot.getP95Millis());
+            json.writeNumberField("p99Ms", snapshot.getP99Millis());
+            json.writeNumberField("maxMs", snapshot.getMaxMillis());
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+        json.writeObjectFieldStart("counters");
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            json.writeNumberField(entry.getKey(), entry.getValue().sum());
+        }
+        json.writeEndObject();
+        json.writeObjectFieldStart("ratesPerMinute");
+        for (Map.Entry<String, RateMeter> entry : rates.entrySet()) {
+            json.writeNumberField(entry.getKey(), entry.getValue().getLastMinuteCount());
+        }
+        json.writeEndObject();
+        json.writeObjectFieldStart("gauges");
+        for (Map.Entry<String, Long> entry : gauges("").entrySet()) {
+            json.writeNumberField(entry.getKey(), entry.getValue());
+        }
+        json.writeEndObject();
+        json.writeEndObject();
+        json.flush();
+    }
+
+    public static void writeJson(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeJson(out);
+        }
+    }
+
+    public static String toJson() {
+        StringWriter out = new StringWriter();
+        try {
+            writeJson(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not thrown by a StringWriter
+        }
+        return out.toString();
+    }
+
+    /**
+     * Logs one line per histogram and counter that has values.
+     */
+    public static void logSummary() {
+        histograms.forEach((name, histogram) -> {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() > 0) log.info(name + ": " + snapshot);
+        });
+        counters.forEach((name, counter) -> {
+            if (counter.sum() > 0) log.info(name + ": " + counter.sum());
+        });
+    }
+
+    /**
+     * Clears all values, e.g. between benchmark iterations. Gauges stay registered.
+     */
+    public static void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(LongAdder::reset);
+        rates.values().forEach(RateMeter::reset);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000d);
+    }
+}
@@ -0,0 +1,50 @@
+package com.codemuni.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Counts events over the last minute, in one-second buckets; used for throughput.
+ */
+public final class RateMeter {
+    private static final int SECONDS = 60;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // Guarded by this; bucket i holds the count of the second stamped in seconds[i]
+    private final long[] counts = new long[SECONDS];
+    private final long[] seconds = new long[SECONDS];
+
+    public RateMeter() {
+        Arrays.fill(seconds, Long.MIN_VALUE);
+    }
+
+    public synchronized void mark() {
+        long now = currentSecond();
+        int bucket = (int) Math.floorMod(now, (long) SECONDS);
+        if (seconds[bucket] != now) {
+            seconds[bucket] = now;
+            counts[bucket] = 0;
+        }
+        counts[bucket]++;
+    }
+
+    /**
+     * Events in the last 60 seconds.
+     */
+    public synchronized long getLastMinuteCount() {
+        long now = currentSecond();
+        long total = 0;
+        for (int i = 0; i < SECONDS; i++) {
+            if (seconds[i] > now - SECONDS) total += counts[i];
+        }
+        return total;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(seconds, Long.MIN_VALUE);
+    }
+
+    private static long currentSecond() {
+        return Math.floorDiv(System.nanoTime(), NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,15 @@
+package com.codemuni.metrics;
+
+/**
+ * How a signing attempt ended; counted per outcome.
+ */
+public enum SigningOutcome {
+    SUCCESS,
+    FAILED,
+    /** The PIN, password or save dialog was cancelled */
+    CANCELLED;
+
+    public String metricName() {
+        return "signing.outcome." + name().toLowerCase();
+    }
+}
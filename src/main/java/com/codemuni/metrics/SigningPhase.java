@@ -0,0 +1,34 @@
+package com.codemuni.metrics;
+
+/**
+ * Steps of one signature, in the order they run. Each has its own latency histogram.
+ */
+public enum SigningPhase {
+    /** Opening and parsing the source PDF */
+    OPEN,
+    /** Finding where the signature goes, e.g. locating anchor text */
+    PLACEMENT,
+    /** Building the signature field and its appearance */
+    APPEARANCE,
+    /** Writing the signed revision and, later, the signature into it */
+    WRITE,
+    /** Hashing the signed byte ranges */
+    DIGEST,
+    /** Getting the certificate chain and private key from the key store or token */
+    KEY_ACCESS,
+    /** Signing the hash with the key, e.g. on the token */
+    TOKEN_SIGN,
+    /** Fetching revocation data for LTV */
+    OCSP,
+    CRL,
+    /** Requesting the timestamp */
+    TSA,
+    /** Re-reading the written file to check the signature */
+    SELF_CHECK,
+    /** Moving the signed file into place */
+    SAVE;
+
+    public String metricName() {
+        return "signing.phase." + name().toLowerCase();
+    }
+}
@@ -0,0 +1,14 @@
+package com.codemuni.metrics.jfr;
+
+/**
+ * Starts the event spans; implemented by JfrEventFactory in src/main/jfr.
+ */
+interface EventFactory {
+    EventSpan signing(String document);
+
+    EventSpan signingPhase(String document, String phase);
+
+    EventSpan renderPage(String document, int page, float dpi);
+
+    EventSpan pkcs11Call(String operation, String library);
+}
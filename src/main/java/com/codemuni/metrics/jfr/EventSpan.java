@@ -0,0 +1,22 @@
+package com.codemuni.metrics.jfr;
+
+/**
+ * A running Flight Recorder event, started by {@link FlightRecorderEvents}; ending it records its duration.
+ */
+@FunctionalInterface
+public interface EventSpan {
+    /**
+     * Span that records nothing, used when Flight Recorder is not available.
+     */
+    EventSpan NONE = result -> {
+    };
+
+    /**
+     * @param result shown with the event, e.g. the outcome or the exception that ended the operation; may be null
+     */
+    void end(String result);
+
+    default void end() {
+        end(null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.codemuni.metrics.jfr;
+
+import com.codemuni.metrics.SigningPhase;
+
+/**
+ * Custom Flight Recorder events, so a recording shows which document, page, phase or token call was slow.
+ * - Events: com.codemuni.Signing, com.codemuni.SigningPhase, com.codemuni.RenderPage and com.codemuni.Pkcs11Call,
+ * all under the "eMark" category; record with e.g. {@code -XX:StartFlightRecording=filename=emark.jfr}
+ * - The event classes live in src/main/jfr and are only compiled when the build JDK has jdk.jfr (profile "jfr");
+ * they are loaded by name, so the main tree does not depend on that API
+ * - The jdk.jfr API is only in Java 8u262 and later (OpenJDK builds); on other runtimes, or in a build without
+ * the event classes, every method returns {@link EventSpan#NONE}
+ * - Without a running recording the events are disabled and a span costs one allocation
+ */
+public final class FlightRecorderEvents {
+    private static final String FACTORY_CLASS = "com.codemuni.metrics.jfr.JfrEventFactory";
+    private static final EventFactory FACTORY = loadFactory();
+
+    private FlightRecorderEvents() {
+    }
+
+    public static boolean isAvailable() {
+        return FACTORY != null;
+    }
+
+    public static EventSpan signing(String document) {
+        return FACTORY != null ? FACTORY.signing(document) : EventSpan.NONE;
+    }
+
+    public static EventSpan signingPhase(String document, SigningPhase phase) {
+        return FACTORY != null ? FACTORY.signingPhase(document, phase.name()) : EventSpan.NONE;
+    }
+
+    /**
+     * @param page 1-based page number
+     */
+    public static EventSpan renderPage(String document, int page, float dpi) {
+        return FACTORY != null ? FACTORY.renderPage(document, page, dpi) : EventSpan.NONE;
+    }
+
+    public static EventSpan pkcs11Call(String operation, String library) {
+        return FACTORY != null ? FACTORY.pkcs11Call(operation, library) : EventSpan.NONE;
+    }
+
+    private static EventFactory loadFactory() {
+        ClassLoader loader = FlightRecorderEvents.class.getClassLoader();
+        try {
+            Class.forName("jdk.jfr.Event", false, loader);
+            return (EventFactory) Class.forName(FACTORY_CLASS, true, loader).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null; // no jdk.jfr at runtime, or built without the event classes
+        }
+    }
+}
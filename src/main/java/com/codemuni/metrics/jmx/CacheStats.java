@@ -0,0 +1,50 @@
+package com.codemuni.metrics.jmx;
+
+import com.codemuni.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Reads {@link CachesMXBean} from the "cache.&lt;name&gt;.hit" and "cache.&lt;name&gt;.miss" counters.
+ */
+final class CacheStats implements CachesMXBean {
+    private static final String PREFIX = "cache.";
+    private static final String HIT = ".hit";
+    private static final String MISS = ".miss";
+
+    @Override
+    public Map<String, Double> getHitRatios() {
+        Map<String, Long> hits = getHits();
+        Map<String, Long> misses = getMisses();
+        Set<String> caches = new TreeSet<>(hits.keySet());
+        caches.addAll(misses.keySet());
+        Map<String, Double> ratios = new TreeMap<>();
+        for (String cache : caches) {
+            long hit = hits.getOrDefault(cache, 0L);
+            long lookups = hit + misses.getOrDefault(cache, 0L);
+            ratios.put(cache, lookups == 0 ? 0d : (double) hit / lookups);
+        }
+        return ratios;
+    }
+
+    @Override
+    public Map<String, Long> getHits() {
+        return byCache(HIT);
+    }
+
+    @Override
+    public Map<String, Long> getMisses() {
+        return byCache(MISS);
+    }
+
+    private static Map<String, Long> byCache(String suffix) {
+        Map<String, Long> values = new TreeMap<>();
+        MetricsRegistry.counters(PREFIX).forEach((name, count) -> {
+            if (name.endsWith(suffix)) values.put(name.substring(PREFIX.length(), name.length() - suffix.length()), count);
+        });
+        return values;
+    }
+}
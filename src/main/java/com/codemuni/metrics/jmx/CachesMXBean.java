@@ -0,0 +1,14 @@
+package com.codemuni.metrics.jmx;
+
+import java.util.Map;
+
+/**
+ * Hits and misses of the application's caches, by cache name.
+ */
+public interface CachesMXBean {
+    Map<String, Double> getHitRatios();
+
+    Map<String, Long> getHits();
+
+    Map<String, Long> getMisses();
+}
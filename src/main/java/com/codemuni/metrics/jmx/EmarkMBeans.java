@@ -0,0 +1,51 @@
+package com.codemuni.metrics.jmx;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers eMark's MXBeans with the platform MBean server, under {@value #DOMAIN}:type=...
+ * - {@link #registerDefaults()} adds the beans that only read the {@link com.codemuni.metrics.MetricsRegistry};
+ * the token session and the renderer register their own beans when they are created
+ * - A bean of the same type replaces the previous one, e.g. when a new renderer is created
+ * - Failures are logged and otherwise ignored: monitoring must never stop the application
+ */
+public final class EmarkMBeans {
+    public static final String DOMAIN = "com.codemuni.emark";
+
+    private static final Log log = LogFactory.getLog(EmarkMBeans.class);
+    private static boolean defaultsRegistered;
+
+    private EmarkMBeans() {
+    }
+
+    public static synchronized void registerDefaults() {
+        if (defaultsRegistered) return;
+        register("Signing", new SigningStats());
+        register("Caches", new CacheStats());
+        register("Metrics", new MetricsView());
+        defaultsRegistered = true;
+    }
+
+    public static void register(String type, Object mxBean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = objectName(type);
+            synchronized (EmarkMBeans.class) {
+                if (server.isRegistered(name)) server.unregisterMBean(name);
+                server.registerMBean(mxBean, name);
+            }
+        } catch (JMException | RuntimeException e) {
+            log.warn("Unable to register the " + type + " MBean", e);
+        }
+    }
+
+    public static ObjectName objectName(String type) throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type);
+    }
+}
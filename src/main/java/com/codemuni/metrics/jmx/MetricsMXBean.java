@@ -0,0 +1,21 @@
+package com.codemuni.metrics.jmx;
+
+import java.util.Map;
+
+/**
+ * Everything in the {@link com.codemuni.metrics.MetricsRegistry}.
+ */
+public interface MetricsMXBean {
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getGauges();
+
+    /**
+     * One line of count and percentiles per histogram that has values.
+     */
+    Map<String, String> getLatencies();
+
+    String dumpJson();
+
+    void reset();
+}
@@ -0,0 +1,36 @@
+package com.codemuni.metrics.jmx;
+
+import com.codemuni.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+final class MetricsView implements MetricsMXBean {
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return MetricsRegistry.counters("");
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        return MetricsRegistry.gauges("");
+    }
+
+    @Override
+    public Map<String, String> getLatencies() {
+        Map<String, String> latencies = new TreeMap<>();
+        MetricsRegistry.snapshots().forEach((name, snapshot) -> latencies.put(name, snapshot.toString()));
+        return latencies;
+    }
+
+    @Override
+    public String dumpJson() {
+        return MetricsRegistry.toJson();
+    }
+
+    @Override
+    public void reset() {
+        MetricsRegistry.reset();
+    }
+}
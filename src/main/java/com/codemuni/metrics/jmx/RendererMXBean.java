@@ -0,0 +1,26 @@
+package com.codemuni.metrics.jmx;
+
+/**
+ * Memory held by the page renderer and its backlog.
+ */
+public interface RendererMXBean {
+    String getDocument();
+
+    long getPageCacheUsedBytes();
+
+    long getPageCacheMaxBytes();
+
+    int getPageCacheEntries();
+
+    /**
+     * Evicted pages still reachable until the garbage collector reclaims them.
+     */
+    int getPageCacheSoftEntries();
+
+    double getPageCacheHitRatio();
+
+    /**
+     * Pages queued for rendering.
+     */
+    int getPendingPages();
+}
@@ -0,0 +1,26 @@
+package com.codemuni.metrics.jmx;
+
+/**
+ * Signing throughput and backlog.
+ */
+public interface SigningMXBean {
+    long getSucceeded();
+
+    long getFailed();
+
+    long getCancelled();
+
+    /**
+     * Signatures completed in the last 60 seconds.
+     */
+    long getSucceededLastMinute();
+
+    /**
+     * Documents waiting to be signed: queued preparations and the rest of a running batch.
+     */
+    long getQueueDepth();
+
+    double getTotalP50Millis();
+
+    double getTotalP95Millis();
+}
@@ -0,0 +1,51 @@
+package com.codemuni.metrics.jmx;
+
+import com.codemuni.metrics.LatencyHistogram;
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.metrics.SigningOutcome;
+
+/**
+ * Reads {@link SigningMXBean} from the registry; queue depth is the sum of the "signing.queue." gauges.
+ */
+final class SigningStats implements SigningMXBean {
+    static final String QUEUE_GAUGE_PREFIX = "signing.queue.";
+
+    @Override
+    public long getSucceeded() {
+        return MetricsRegistry.count(SigningOutcome.SUCCESS.metricName());
+    }
+
+    @Override
+    public long getFailed() {
+        return MetricsRegistry.count(SigningOutcome.FAILED.metricName());
+    }
+
+    @Override
+    public long getCancelled() {
+        return MetricsRegistry.count(SigningOutcome.CANCELLED.metricName());
+    }
+
+    @Override
+    public long getSucceededLastMinute() {
+        return MetricsRegistry.rate(MetricsRegistry.SIGNING_RATE).getLastMinuteCount();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return MetricsRegistry.gauges(QUEUE_GAUGE_PREFIX).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public double getTotalP50Millis() {
+        return total().getP50Millis();
+    }
+
+    @Override
+    public double getTotalP95Millis() {
+        return total().getP95Millis();
+    }
+
+    private static LatencyHistogram.Snapshot total() {
+        return MetricsRegistry.histogram("signing.total").snapshot();
+    }
+}
@@ -0,0 +1,17 @@
+package com.codemuni.metrics.jmx;
+
+/**
+ * State of the PKCS#11 token session.
+ */
+public interface TokenSessionMXBean {
+    boolean isLoggedIn();
+
+    /**
+     * Name of the SunPKCS11 provider of the session; null when logged out.
+     */
+    String getProviderName();
+
+    String getLibraryPath();
+
+    String getTokenSerialNumber();
+}
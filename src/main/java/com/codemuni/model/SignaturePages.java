@@ -0,0 +1,110 @@
+package com.codemuni.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Pages that show the appearance of one signature. All of them are widgets of the same field,
+ * so the document still gets a single signature.
+ */
+public enum SignaturePages {
+    CURRENT_PAGE("This Page Only", "CURRENT_PAGE"),
+    ALL_PAGES("All Pages", "ALL_PAGES"),
+    FIRST_AND_LAST("First and Last Page", "FIRST_AND_LAST"),
+    SELECTED_PAGES("Selected Pages", "SELECTED_PAGES");
+
+    private final String label;
+    private final String id;
+
+    SignaturePages(String label, String id) {
+        this.label = label;
+        this.id = id;
+    }
+
+    public static SignaturePages fromLabel(String label) {
+        for (SignaturePages pages : values()) {
+            if (pages.label.equals(label)) return pages;
+        }
+        return null;
+    }
+
+    /**
+     * Parses a page list such as "1, 3, 5-7". Ranges are checked against the page count before they are expanded.
+     *
+     * @throws IllegalArgumentException if the list is empty, malformed or names a page past {@code pageCount}
+     */
+    public static TreeSet<Integer> parsePageList(String pageList, int pageCount) {
+        List<int[]> ranges = new ArrayList<>();
+        if (pageList != null) {
+            for (String part : pageList.split(",")) {
+                part = part.trim();
+                if (part.isEmpty()) continue;
+                int dash = part.indexOf('-');
+                int from = parsePage(dash < 0 ? part : part.substring(0, dash));
+                int to = dash < 0 ? from : parsePage(part.substring(dash + 1));
+                if (to < from) throw new IllegalArgumentException("Invalid page range: " + part);
+                if (to > pageCount) throw new IllegalArgumentException(pageNotFound(to, pageCount));
+                ranges.add(new int[]{from, to});
+            }
+        }
+        if (ranges.isEmpty()) throw new IllegalArgumentException("No pages selected.");
+
+        TreeSet<Integer> pages = new TreeSet<>();
+        for (int[] range : ranges) {
+            for (int page = range[0]; page <= range[1]; page++) pages.add(page);
+        }
+        return pages;
+    }
+
+    private static String pageNotFound(int page, int pageCount) {
+        return "Page " + page + " does not exist; the document has " + pageCount + " pages.";
+    }
+
+    private static int parsePage(String text) {
+        try {
+            int page = Integer.parseInt(text.trim());
+            if (page < 1) throw new IllegalArgumentException("Invalid page number: " + text.trim());
+            return page;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page number: " + text.trim(), e);
+        }
+    }
+
+    /**
+     * Pages in ascending order; always includes the page the signature was placed on.
+     *
+     * @param pageList only used for {@link #SELECTED_PAGES}
+     * @throws IllegalArgumentException if a selected page does not exist in the document
+     */
+    public List<Integer> resolve(int signaturePage, int pageCount, String pageList) {
+        TreeSet<Integer> pages = new TreeSet<>();
+        pages.add(signaturePage);
+        switch (this) {
+            case ALL_PAGES:
+                for (int page = 1; page <= pageCount; page++) pages.add(page);
+                break;
+            case FIRST_AND_LAST:
+                pages.add(1);
+                pages.add(pageCount);
+                break;
+            case SELECTED_PAGES:
+                pages.addAll(parsePageList(pageList, pageCount));
+                break;
+            default:
+                break;
+        }
+        if (pages.last() > pageCount) {
+            throw new IllegalArgumentException(pageNotFound(pages.last(), pageCount));
+        }
+        return new ArrayList<>(pages);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,225 @@
+package com.codemuni.service;
+
+import com.codemuni.core.document.SharedDocumentSource;
+import com.codemuni.core.keyStoresProvider.KeyStoreProvider;
+import com.codemuni.core.placement.AnchorPlacement;
+import com.codemuni.core.placement.TextAnchorLocator;
+import com.codemuni.core.signer.*;
+import com.codemuni.exceptions.SigningProcessException;
+import com.codemuni.exceptions.UserCancelledPasswordEntryException;
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.metrics.SigningOutcome;
+import com.codemuni.metrics.SigningPhase;
+import com.codemuni.utils.FileUtils;
+import com.itextpdf.text.pdf.PdfReader;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Signs documents without anyone at the screen.
+ * - Each document is signed into an existing empty signature field: the named one, or else the first one found
+ * - With an {@link AnchorPlacement} (and no field name) a new signature is placed relative to text on the page instead
+ * - Fields are found from the AcroForm alone and anchors from a cached text index, so no page is rendered
+ * - Output is written to a temp file and moved into place once signed and, unless turned off, checked
+ * - A failing document is reported in its {@link Result} and does not stop the others
+ * - Phase timings and the outcome of every document go to the {@link MetricsRegistry}
+ */
+public class BatchSignerService {
+
+    private static final Log log = LogFactory.getLog(BatchSignerService.class);
+    private final Signer signer = new Signer();
+    private final TextAnchorLocator anchorLocator = new TextAnchorLocator();
+    private final KeyStoreProvider provider;
+    private final AppearanceOptions appearanceOptions;
+    private String fieldName;
+    private AnchorPlacement anchorPlacement;
+    private X509Certificate certificate;
+    private boolean checkOutput = true;
+
+    /**
+     * @param appearanceOptions settings shared by all documents; field, page and rectangle are set per document
+     */
+    public BatchSignerService(KeyStoreProvider provider, AppearanceOptions appearanceOptions) {
+        this.provider = provider;
+        this.appearanceOptions = appearanceOptions;
+    }
+
+    /**
+     * Field to sign in every document; null signs the first empty signature field.
+     */
+    public void setFieldName(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Places the signature relative to anchor text when no field name is set; null signs into an empty field.
+     */
+    public void setAnchorPlacement(AnchorPlacement anchorPlacement) {
+        this.anchorPlacement = anchorPlacement;
+    }
+
+    /**
+     * Whether each signed file is re-read and its signature checked before it is moved into place. On by default.
+     */
+    public void setCheckOutput(boolean checkOutput) {
+        this.checkOutput = checkOutput;
+    }
+
+    /**
+     * Empty signature fields of a document, without signing it.
+     */
+    public static List<EmptySignatureField> listEmptyFields(File input) throws IOException {
+        PdfReader reader = openPdfReader(input);
+        try {
+            return SignatureFieldScanner.findEmptyFields(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public Result sign(File input, File output) {
+        Path signedTempFile = null;
+        SharedDocumentSource source = null;
+        SigningMetrics metrics = new SigningMetrics(input.getName());
+        SigningOutcome outcome = SigningOutcome.FAILED;
+        try {
+            signedTempFile = Files.createTempFile("eMark-signed-", ".pdf");
+            SigningMetrics.PhaseTimer timer = metrics.start(SigningPhase.OPEN);
+            source = SharedDocumentSource.open(input);
+            PdfReader reader = source.openPdfReader((String) null); // the reader keeps the mapping until it is closed
+            timer.stop();
+
+            AppearanceOptions options = appearanceOptions.copy();
+            String placement;
+            timer = metrics.start(SigningPhase.PLACEMENT);
+            try {
+                placement = fieldName == null && anchorPlacement != null
+                        ? placeAtAnchor(source, reader, options)
+                        : placeInField(reader, options);
+            } catch (Exception e) {
+                reader.close();
+                throw e;
+            }
+            timer.stop();
+            source.release();
+            source = null;
+
+            PreparedSignature prepared = signer.prepare(reader, signerCertificate(), options,
+                    PdfSignerService.getTsaClient(options), signedTempFile.toFile(), metrics);
+            prepared.complete(provider);
+            if (checkOutput) prepared.checkOutput(signedTempFile.toFile());
+            timer = metrics.start(SigningPhase.SAVE);
+            FileUtils.moveReplacing(signedTempFile, output.toPath());
+            timer.stop();
+
+            outcome = SigningOutcome.SUCCESS;
+            log.info("Signed " + input.getName() + " at " + placement + ": " + metrics);
+            return new Result(input, output, placement, null);
+        } catch (Exception e) {
+            if (e instanceof UserCancelledPasswordEntryException) outcome = SigningOutcome.CANCELLED;
+            log.error("Failed to sign " + input, e);
+            return new Result(input, output, null, e);
+        } finally {
+            metrics.publish(outcome);
+            if (source != null) source.release();
+            if (signedTempFile != null) {
+                try {
+                    Files.deleteIfExists(signedTempFile);
+                } catch (IOException e) {
+                    log.warn("Failed to delete temporary file " + signedTempFile, e);
+                }
+            }
+        }
+    }
+
+    private String placeInField(PdfReader reader, AppearanceOptions options) {
+        EmptySignatureField field = fieldName != null
+                ? SignatureFieldScanner.findEmptyField(reader, fieldName)
+                : firstOrNull(SignatureFieldScanner.findEmptyFields(reader));
+        if (field == null) {
+            throw new SigningProcessException(fieldName != null
+                    ? "No empty signature field named " + fieldName
+                    : "No empty signature field");
+        }
+        options.setFieldName(field.getName());
+        options.setPageNumber(field.getPageNumber());
+        options.setCoordinates(field.getCoordinates());
+        return field.getName();
+    }
+
+    private String placeAtAnchor(SharedDocumentSource source, PdfReader reader, AppearanceOptions options) throws IOException {
+        options.setFieldName(null);
+        if (!anchorLocator.place(source, reader.getNumberOfPages(), anchorPlacement, options)) {
+            throw new SigningProcessException("Anchor text not found: " + anchorPlacement.getAnchorText());
+        }
+        return "page " + options.getPageNumber() + " " + Arrays.toString(options.getCoordinates());
+    }
+
+    private X509Certificate signerCertificate() throws Exception {
+        if (certificate == null) {
+            certificate = (X509Certificate) provider.getCertificateChain()[0];
+        }
+        return certificate;
+    }
+
+    private static PdfReader openPdfReader(File input) throws IOException {
+        SharedDocumentSource source = SharedDocumentSource.open(input);
+        try {
+            return source.openPdfReader((String) null); // the reader keeps the mapping until it is closed
+        } finally {
+            source.release();
+        }
+    }
+
+    private static EmptySignatureField firstOrNull(List<EmptySignatureField> fields) {
+        return fields.isEmpty() ? null : fields.get(0);
+    }
+
+    /**
+     * Outcome for one document.
+     */
+    public static final class Result {
+        private final File input;
+        private final File output;
+        private final String placement;
+        private final Exception error;
+
+        Result(File input, File output, String placement, Exception error) {
+            this.input = input;
+            this.output = output;
+            this.placement = placement;
+            this.error = error;
+        }
+
+        public File getInput() {
+            return input;
+        }
+
+        public File getOutput() {
+            return output;
+        }
+
+        /**
+         * The field that was signed, or the page and rectangle chosen from the anchor; null on failure.
+         */
+        public String getPlacement() {
+            return placement;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
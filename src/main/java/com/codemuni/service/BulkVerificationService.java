@@ -0,0 +1,182 @@
+package com.codemuni.service;
+
+import com.codemuni.core.verifier.*;
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.utils.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Verifies every PDF under a set of directories, for unattended archive checks.
+ * - The tree is walked lazily and files are handed to a fixed pool of workers through a short queue; when the queue
+ * is full the walking thread verifies a file itself, so memory use does not grow with the number of files
+ * - Files whose size and modification time match the previous run's {@link VerificationIndex} are not opened;
+ * changed ones are hashed and verified again only if the content differs
+ * - Every record goes to the report as soon as it is known, and to the next index
+ * - The queue depth is published as the "verification.queue" gauge while a run is going
+ */
+public class BulkVerificationService {
+
+    private static final Log log = LogFactory.getLog(BulkVerificationService.class);
+    private static final String QUEUE_GAUGE = "verification.queue";
+    private final SignatureVerifier verifier;
+    private final int threads;
+
+    public BulkVerificationService(SignatureVerifier verifier, int threads) {
+        this.verifier = verifier;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static int defaultThreadCount() {
+        return Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param previous  results of the last run; {@link VerificationIndex#empty()} verifies everything
+     * @param nextIndex receives every record for the next run; may be null
+     */
+    public Summary verify(List<Path> roots, VerificationIndex previous, VerificationReport report,
+                          VerificationReport nextIndex) throws IOException {
+        long start = System.nanoTime();
+        Summary summary = new Summary();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), r -> {
+            Thread t = new Thread(r, "BulkVerifier");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        LongSupplier queueDepth = () -> workers.getQueue().size();
+        MetricsRegistry.gauge(QUEUE_GAUGE, queueDepth);
+
+        try {
+            for (Path root : roots) {
+                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        if (attributes.isRegularFile() && file.getFileName().toString().toLowerCase().endsWith(".pdf")) {
+                            workers.execute(() -> record(summary, report, nextIndex,
+                                    check(file, attributes.size(), attributes.lastModifiedTime().toMillis(), previous)));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        record(summary, report, nextIndex,
+                                FileVerificationRecord.error(key(file), 0, 0, "cannot read: " + e.getMessage()));
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+        } finally {
+            MetricsRegistry.removeGauge(QUEUE_GAUGE, queueDepth);
+            workers.shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (summary.reportFailure != null) throw summary.reportFailure;
+
+        summary.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.debug("Bulk verification: " + summary);
+        return summary;
+    }
+
+    private FileVerificationRecord check(Path file, long size, long lastModified, VerificationIndex previous) {
+        String path = key(file);
+        FileVerificationRecord last = previous.get(path);
+        if (VerificationIndex.isUnchanged(last, size, lastModified)) return last.reusedFor(size, lastModified);
+        try {
+            String hash = FileUtils.contentHash(file.toFile());
+            if (last != null && hash.equals(last.getContentHash())) return last.reusedFor(size, lastModified);
+            return FileVerificationRecord.of(path, size, lastModified, hash, verifier.verify(file.toFile()));
+        } catch (Exception e) {
+            log.warn("Failed to verify " + file, e);
+            return FileVerificationRecord.error(path, size, lastModified, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private static void record(Summary summary, VerificationReport report, VerificationReport nextIndex,
+                               FileVerificationRecord record) {
+        summary.count(record);
+        try {
+            report.write(record);
+            if (nextIndex != null) nextIndex.write(record);
+        } catch (IOException e) {
+            summary.reportFailure = e;
+        }
+    }
+
+    private static String key(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Totals of one run.
+     */
+    public static final class Summary {
+        private final Map<String, AtomicInteger> byOutcome = new ConcurrentSkipListMap<>();
+        private final AtomicInteger files = new AtomicInteger();
+        private final AtomicInteger reused = new AtomicInteger();
+        private volatile IOException reportFailure;
+        private long millis;
+
+        private void count(FileVerificationRecord record) {
+            files.incrementAndGet();
+            if (record.isReused()) reused.incrementAndGet();
+            byOutcome.computeIfAbsent(record.getOutcome(), outcome -> new AtomicInteger()).incrementAndGet();
+        }
+
+        public int getFiles() {
+            return files.get();
+        }
+
+        /**
+         * Files taken over from the previous index without verifying them again.
+         */
+        public int getReused() {
+            return reused.get();
+        }
+
+        /**
+         * Number of files per outcome (a {@code VerificationStatus} name, UNSIGNED or ERROR).
+         */
+        public Map<String, Integer> getOutcomes() {
+            Map<String, Integer> outcomes = new TreeMap<>();
+            byOutcome.forEach((outcome, count) -> outcomes.put(outcome, count.get()));
+            return outcomes;
+        }
+
+        /**
+         * True when every file was VALID.
+         */
+        public boolean isAllValid() {
+            for (String outcome : byOutcome.keySet()) {
+                if (!VerificationStatus.VALID.name().equals(outcome)) return false;
+            }
+            return true;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return files.get() + " file(s), " + reused.get() + " unchanged, " + getOutcomes() + " in " + millis + " ms";
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package com.codemuni.service;
 
 import com.codemuni.config.ConfigManager;
+import com.codemuni.core.document.SharedDocumentSource;
 import com.codemuni.core.keyStoresProvider.KeyStoreProvider;
 import com.codemuni.core.keyStoresProvider.PKCS11KeyStoreProvider;
 import com.codemuni.core.signer.AppearanceOptions;
 import com.codemuni.core.signer.CustomTSAClientBouncyCastle;
+import com.codemuni.core.signer.PreparedSignature;
 import com.codemuni.core.signer.Signer;
+import com.codemuni.core.signer.SigningMetrics;
 import com.codemuni.exceptions.SigningProcessException;
 import com.codemuni.exceptions.TSAConfigurationException;
 import com.codemuni.exceptions.UserCancelledPasswordEntryException;
 import com.codemuni.gui.DialogUtils;
 import com.codemuni.gui.pdfHandler.PdfViewerMain;
+import com.codemuni.metrics.MetricsRegistry;
+import com.codemuni.metrics.SigningOutcome;
+import com.codemuni.metrics.SigningPhase;
+import com.codemuni.utils.FileUtils;
 import com.itextpdf.text.pdf.PdfReader;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -19,32 +26,50 @@ import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.Base64;
+import java.nio.file.Path;
+import java.security.cert.X509Certificate;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class PdfSignerService {
 
 
     private static final Log log = LogFactory.getLog(PdfSignerService.class);
+    private static final String QUEUE_GAUGE = "signing.queue.preparation";
+    private final Signer signer = new Signer();
+    private final AtomicInteger pendingPreparations = new AtomicInteger();
+    private final ExecutorService preparationExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "eMark-sign-prepare");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<PendingSignature> preparation;
+    private SigningMetrics preparationMetrics;
     private File selectedFile;
     private String pdfPassword;
+    private SharedDocumentSource documentSource;
     private KeyStoreProvider provider;
 
     public PdfSignerService() {
+        MetricsRegistry.gauge(QUEUE_GAUGE, pendingPreparations::get);
     }
 
-    private static Timer reRenderSignedPdfTimer(File saveFile) {
-        Timer timer = new Timer(1000, evt -> {
-            SwingUtilities.invokeLater(() -> {
-                PdfViewerMain.INSTANCE.renderPdfFromPath(saveFile.getAbsolutePath());
-                PdfViewerMain.INSTANCE.setWindowTitle(saveFile.getAbsolutePath());
-                PdfViewerMain.INSTANCE.requestFocusInWindow();
-                PdfViewerMain.INSTANCE.repaint();
-            });
+    /**
+     * Shows the signed file. It is the original plus an appended revision, so the viewer
+     * keeps the cached images of the pages the signature did not touch (also after saving over the original).
+     */
+    private static void showSignedPdf(File saveFile) {
+        SwingUtilities.invokeLater(() -> {
+            PdfViewerMain.INSTANCE.renderPdfFromPath(saveFile.getAbsolutePath());
+            PdfViewerMain.INSTANCE.setWindowTitle(saveFile.getAbsolutePath());
+            PdfViewerMain.INSTANCE.requestFocusInWindow();
+            PdfViewerMain.INSTANCE.repaint();
         });
-        timer.setRepeats(false);
-        return timer;
     }
 
     public void setProvider(KeyStoreProvider provider) {
@@ -55,66 +80,169 @@ public class PdfSignerService {
         this.pdfPassword = pdfPassword;
     }
 
-    public void setSelectedFile(File selectedFile) {
-        this.selectedFile = selectedFile;
+    /**
+     * Mapping of the document on screen; if it is still the selected file, signing reads from it
+     * instead of opening and decrypting the file again. Only borrowed: {@link #prepareSigning} retains it.
+     */
+    public void setDocumentSource(SharedDocumentSource documentSource) {
+        this.documentSource = documentSource;
     }
 
-    public void launchSigningFlow(AppearanceOptions appearanceOptions) {
-        PdfReader reader = openPdfReader(selectedFile, pdfPassword);
-        signPdfDocument(reader, provider, appearanceOptions);
+    public void setSelectedFile(File selectedFile) {
+        this.selectedFile = selectedFile;
     }
 
-    private PdfReader openPdfReader(File file, String password) {
-        try {
-            if (password == null || password.isEmpty()) {
-                return new PdfReader(file.getAbsolutePath());
-            } else {
-                return new PdfReader(file.getAbsolutePath(), password.getBytes());
+    /**
+     * Starts preparing the signature in the background: opening the document, building the appearance,
+     * writing the signed revision and hashing it. Runs while the token asks for the PIN;
+     * finish with {@link #completeSigning()} or {@link #cancelSigning()}.
+     */
+    public void prepareSigning(X509Certificate certificate, AppearanceOptions appearanceOptions) {
+        cancelSigning();
+        File file = selectedFile;
+        String password = pdfPassword;
+        // The viewer may release its source while this runs; the task holds its own reference
+        SharedDocumentSource source = documentSource == null ? null : documentSource.tryRetain();
+        SigningMetrics metrics = new SigningMetrics(file.getName());
+        preparationMetrics = metrics;
+        pendingPreparations.incrementAndGet();
+        preparation = preparationExecutor.submit(() -> {
+            // Signed output goes to a temp file, so the document is never held on the heap as a whole
+            Path signedTempFile = Files.createTempFile("eMark-signed-", ".pdf");
+            try {
+                SigningMetrics.PhaseTimer timer = metrics.start(SigningPhase.OPEN);
+                PdfReader reader = openPdfReader(source, file, password);
+                timer.stop();
+                CustomTSAClientBouncyCastle tsaClient = getTsaClient(appearanceOptions);
+                return new PendingSignature(signer.prepare(reader, certificate, appearanceOptions, tsaClient, signedTempFile.toFile(), metrics),
+                        signedTempFile);
+            } catch (Exception e) {
+                deleteQuietly(signedTempFile);
+                throw e;
+            } finally {
+                pendingPreparations.decrementAndGet();
+                if (source != null) source.release(); // an open reader keeps its own reference
             }
-        } catch (IOException e) {
-            log.error("Failed to open PDF file:::::::", e);
-            return null;
-        }
+        });
     }
 
-    private void signPdfDocument(PdfReader reader, KeyStoreProvider provider, AppearanceOptions appearanceOptions) {
+    /**
+     * Waits for the preparation (usually finished while the PIN was entered), signs with the provider's key
+     * and asks where to save the signed document.
+     */
+    public void completeSigning() {
+        Future<PendingSignature> pending = preparation;
+        SigningMetrics metrics = preparationMetrics;
+        preparation = null;
+        preparationMetrics = null;
+        if (pending == null) throw new IllegalStateException("prepareSigning must be called first");
+
+        PendingSignature signature = null;
+        SigningOutcome outcome = SigningOutcome.FAILED;
         try {
-
-            CustomTSAClientBouncyCastle tsaClient = getTsaClient(appearanceOptions);
-            String signedBase64 = new Signer().sign(reader, provider, appearanceOptions, tsaClient);
-            byte[] signedBytes = Base64.getDecoder().decode(signedBase64);
+            signature = awaitPreparation(pending);
+            signature.prepared.complete(provider);
+            if (ConfigManager.isSignedOutputCheckEnabled()) {
+                signature.prepared.checkOutput(signature.tempFile.toFile());
+            }
+            log.info("Signed " + selectedFile.getName() + ": " + metrics);
 
             File saveFile = showSaveFileDialog();
             if (saveFile == null) {
-                System.out.println("User cancelled file saving.");
+                outcome = SigningOutcome.CANCELLED;
+                log.info("User cancelled file saving.");
                 return;
             }
 
-            Files.write(saveFile.toPath(), signedBytes);
+            SigningMetrics.PhaseTimer timer = metrics.start(SigningPhase.SAVE);
+            // Saving over the document on screen: the viewer lets go of its mapping first and reopens it below
+            boolean releasedShownFile = PdfViewerMain.INSTANCE != null && PdfViewerMain.INSTANCE.releaseIfShowing(saveFile);
+            try {
+                FileUtils.moveReplacing(signature.tempFile, saveFile.toPath());
+            } catch (IOException e) {
+                if (releasedShownFile) showSignedPdf(saveFile); // still the unsigned original
+                throw e;
+            }
+            timer.stop();
+            outcome = SigningOutcome.SUCCESS;
 
-            // Render the signed PDF after 1 second delay
             if (saveFile.exists() && saveFile.length() > 0) {
-                Timer timer = reRenderSignedPdfTimer(saveFile);
-                timer.start();
+                showSignedPdf(saveFile);
             }
 
         } catch (Exception e) {
-            handleSigningException(e, provider);
+            if (e instanceof UserCancelledPasswordEntryException) outcome = SigningOutcome.CANCELLED;
+            handleSigningException(e);
         } finally {
-            reader.close();
+            metrics.publish(outcome);
+            if (signature != null) {
+                signature.prepared.abort();
+                deleteQuietly(signature.tempFile);
+            }
             if (provider instanceof PKCS11KeyStoreProvider) {
                 ((PKCS11KeyStoreProvider) provider).reset();
             }
         }
     }
 
-    private void handleSigningException(Exception e, KeyStoreProvider provider) {
-        if (provider instanceof PKCS11KeyStoreProvider) {
-            ((PKCS11KeyStoreProvider) provider).reset();
+    /**
+     * Discards a preparation that will not be completed, e.g. because PIN entry was cancelled.
+     */
+    public void cancelSigning() {
+        Future<PendingSignature> pending = preparation;
+        SigningMetrics metrics = preparationMetrics;
+        preparation = null;
+        preparationMetrics = null;
+        if (pending == null) return;
+        // Queued behind the preparation on the same thread, so it is finished by then
+        preparationExecutor.execute(() -> {
+            try {
+                PendingSignature signature = pending.get();
+                signature.prepared.abort();
+                deleteQuietly(signature.tempFile);
+            } catch (Exception e) {
+                log.debug("Discarded signature preparation had failed", e);
+            } finally {
+                metrics.publish(SigningOutcome.CANCELLED);
+            }
+        });
+    }
+
+    private PendingSignature awaitPreparation(Future<PendingSignature> pending) throws Exception {
+        try {
+            return pending.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    private PdfReader openPdfReader(SharedDocumentSource source, File file, String password) throws IOException {
+        if (source != null && source.isSameFile(file)) {
+            return source.openPdfReader(); // partial reader; holds the mapping until closed
         }
+        // Not on screen: map it just for this reader, which keeps the mapping until it is closed
+        SharedDocumentSource fileSource = SharedDocumentSource.open(file);
+        try {
+            return fileSource.openPdfReader(password);
+        } finally {
+            fileSource.release();
+        }
+    }
 
+    private void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary file " + file, e);
+        }
+    }
+
+    private void handleSigningException(Exception e) {
         if (e instanceof UserCancelledPasswordEntryException) {
-            System.err.println(e.getMessage());
+            log.info(e.getMessage());
             return;
         }
 
@@ -185,7 +313,10 @@ public class PdfSignerService {
         }
     }
 
-    private CustomTSAClientBouncyCastle getTsaClient(AppearanceOptions appearanceOptions) {
+    /**
+     * TSA client from the configured timestamp server, or null when timestamping is off.
+     */
+    static CustomTSAClientBouncyCastle getTsaClient(AppearanceOptions appearanceOptions) {
         if (!appearanceOptions.isTimestampEnabled()) return null;
         Map<String, String> tsaConfig = ConfigManager.getTimestampServer();
         return new CustomTSAClientBouncyCastle(
@@ -196,4 +327,17 @@ public class PdfSignerService {
                 "SHA-256"
         );
     }
+
+    /**
+     * A prepared signature and the temp file it is written to.
+     */
+    private static final class PendingSignature {
+        private final PreparedSignature prepared;
+        private final Path tempFile;
+
+        PendingSignature(PreparedSignature prepared, Path tempFile) {
+            this.prepared = prepared;
+            this.tempFile = tempFile;
+        }
+    }
 }
@@ -23,6 +23,11 @@ public class AppConstants {
     public static final Path CONFIG_FILE_PATH = CONFIG_DIR_PATH.resolve("config.yml");
     public static final String CONFIG_FILE = CONFIG_FILE_PATH.toString();
     public static final String CONFIG_DIR = CONFIG_DIR_PATH.toString();
+    // Page thumbnails, one sub-directory per document path, size and modification time
+    public static final Path THUMBNAIL_CACHE_DIR_PATH = CONFIG_DIR_PATH.resolve("thumbnails");
+    public static final Path TEXT_INDEX_CACHE_DIR_PATH = CONFIG_DIR_PATH.resolve("text-index");
+    // Latency histograms and counters, written on request (Ctrl+Shift+M)
+    public static final Path METRICS_FILE_PATH = CONFIG_DIR_PATH.resolve("metrics.json");
 
 
     // Store names
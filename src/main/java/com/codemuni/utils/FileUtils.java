@@ -1,7 +1,18 @@
 package com.codemuni.utils;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,4 +69,108 @@ public class FileUtils {
 
         return paths.toArray(new String[0]);
     }
+
+    /**
+     * SHA-256 of the whole file, as lowercase hex. Used as a cache key that survives renames and copies.
+     */
+    public static String contentHash(File file) throws IOException {
+        return contentHash(file, Long.MAX_VALUE);
+    }
+
+    /**
+     * SHA-256 of the first {@code length} bytes of the file (all of it if shorter), as lowercase hex.
+     */
+    public static String contentHash(File file, long length) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            long remaining = length;
+            while (remaining > 0) {
+                buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                int read = channel.read(buffer);
+                if (read <= 0) break;
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+                remaining -= read;
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Moves a finished file into place, replacing the target.
+     * - Same file system: a single atomic rename, no bytes are copied
+     * - Otherwise the bytes are copied in the kernel with {@link FileChannel#transferTo} into a temp file
+     * next to the target, which is then renamed, so the target is never left half written
+     * - The moved file gets the permissions of the replaced target, or those of a new file in the target directory;
+     * temp files are created readable by the owner only
+     */
+    public static void moveReplacing(Path source, Path target) throws IOException {
+        copyPermissions(target, source);
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        } catch (AtomicMoveNotSupportedException e) {
+            // Different file store; copy below
+        }
+
+        Path parent = target.toAbsolutePath().getParent();
+        Path partial = Files.createTempFile(parent, "." + target.getFileName(), ".part");
+        try {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(partial, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
+                }
+                out.force(true);
+            }
+            copyPermissions(target, partial);
+            try {
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    /**
+     * Gives {@code file} the permissions of {@code target}, or of a plain new file next to it if there is none.
+     * POSIX permissions where supported, otherwise the ACL.
+     */
+    private static void copyPermissions(Path target, Path file) throws IOException {
+        Path template = target;
+        Path probe = null;
+        if (!Files.exists(target)) {
+            // Created without attributes, so it gets the default permissions (umask, inherited ACL)
+            probe = Files.createFile(target.toAbsolutePath().resolveSibling("." + target.getFileName() + "." + System.nanoTime() + ".new"));
+            template = probe;
+        }
+        try {
+            PosixFileAttributeView posix = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+            if (posix != null) {
+                posix.setPermissions(Files.getPosixFilePermissions(template));
+                return;
+            }
+            AclFileAttributeView acl = Files.getFileAttributeView(file, AclFileAttributeView.class);
+            AclFileAttributeView templateAcl = Files.getFileAttributeView(template, AclFileAttributeView.class);
+            if (acl != null && templateAcl != null) acl.setAcl(templateAcl.getAcl());
+        } finally {
+            if (probe != null) Files.deleteIfExists(probe);
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.codemuni.utils;
+
+import com.codemuni.config.ConfigManager;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+
+import java.io.File;
+
+/**
+ * Decides how PDFBox buffers a parsed PDF, depending on its size and the free heap.
+ * - Normal documents: parsed streams are buffered in main memory
+ * - Large documents (at or above the configured threshold, or too big for the heap headroom):
+ * parsed streams are buffered in main memory up to a fixed budget and the rest spills to temp files
+ * - iText always reads the file partially through a memory-mapped {@code SharedDocumentSource}
+ */
+public final class LargeDocumentPolicy {
+    // Heap used while parsing is a multiple of the file size (file buffer + decoded streams)
+    private static final int HEAP_PER_FILE_BYTE = 3;
+    // Main-memory part of PDFBox's scratch buffers in large-document mode
+    private static final long PDFBOX_MAIN_MEMORY_BYTES = 32L * 1024 * 1024;
+
+    private LargeDocumentPolicy() {
+    }
+
+    public static boolean isLargeDocument(File file) {
+        long size = file.length();
+        if (size >= ConfigManager.getLargeDocumentThresholdBytes()) return true;
+
+        Runtime runtime = Runtime.getRuntime();
+        long headroom = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        return size * HEAP_PER_FILE_BYTE > headroom;
+    }
+
+    /**
+     * Memory setting for {@code PDDocument.load}; large documents get a fixed main-memory budget backed by temp files.
+     */
+    public static MemoryUsageSetting pdfBoxMemoryUsage(File file) {
+        if (!isLargeDocument(file)) return MemoryUsageSetting.setupMainMemoryOnly();
+        return MemoryUsageSetting.setupMixed(PDFBOX_MAIN_MEMORY_BYTES)
+                .setTempDir(new File(System.getProperty("java.io.tmpdir")));
+    }
+}
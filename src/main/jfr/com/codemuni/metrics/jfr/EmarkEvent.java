@@ -0,0 +1,14 @@
+package com.codemuni.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of the eMark events; they show up under one category in JDK Mission Control.
+ */
+@Category("eMark")
+abstract class EmarkEvent extends Event {
+    @Label("Result")
+    String result;
+}
@@ -0,0 +1,26 @@
+package com.codemuni.metrics.jfr;
+
+/**
+ * Loaded by name from {@link FlightRecorderEvents} when the jdk.jfr API is present.
+ */
+final class JfrEventFactory implements EventFactory {
+    @Override
+    public EventSpan signing(String document) {
+        return JfrSpan.signing(document);
+    }
+
+    @Override
+    public EventSpan signingPhase(String document, String phase) {
+        return JfrSpan.signingPhase(document, phase);
+    }
+
+    @Override
+    public EventSpan renderPage(String document, int page, float dpi) {
+        return JfrSpan.renderPage(document, page, dpi);
+    }
+
+    @Override
+    public EventSpan pkcs11Call(String operation, String library) {
+        return JfrSpan.pkcs11Call(operation, library);
+    }
+}
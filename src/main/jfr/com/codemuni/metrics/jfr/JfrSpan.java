@@ -0,0 +1,54 @@
+package com.codemuni.metrics.jfr;
+
+/**
+ * Span backed by a begun event. Only loaded when the jdk.jfr API is present.
+ */
+final class JfrSpan implements EventSpan {
+    private final EmarkEvent event;
+
+    private JfrSpan(EmarkEvent event) {
+        this.event = event;
+        event.begin();
+    }
+
+    static EventSpan signing(String document) {
+        SigningEvent event = new SigningEvent();
+        if (!event.isEnabled()) return NONE;
+        event.document = document;
+        return new JfrSpan(event);
+    }
+
+    static EventSpan signingPhase(String document, String phase) {
+        SigningPhaseEvent event = new SigningPhaseEvent();
+        if (!event.isEnabled()) return NONE;
+        event.document = document;
+        event.phase = phase;
+        return new JfrSpan(event);
+    }
+
+    static EventSpan renderPage(String document, int page, float dpi) {
+        RenderPageEvent event = new RenderPageEvent();
+        if (!event.isEnabled()) return NONE;
+        event.document = document;
+        event.page = page;
+        event.dpi = dpi;
+        return new JfrSpan(event);
+    }
+
+    static EventSpan pkcs11Call(String operation, String library) {
+        Pkcs11CallEvent event = new Pkcs11CallEvent();
+        if (!event.isEnabled()) return NONE;
+        event.operation = operation;
+        event.library = library;
+        return new JfrSpan(event);
+    }
+
+    @Override
+    public void end(String result) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.result = result;
+            event.commit();
+        }
+    }
+}
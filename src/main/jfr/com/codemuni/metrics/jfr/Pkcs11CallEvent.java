@@ -0,0 +1,16 @@
+package com.codemuni.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.codemuni.Pkcs11Call")
+@Label("PKCS#11 Call")
+@Description("A call into the token's PKCS#11 library")
+final class Pkcs11CallEvent extends EmarkEvent {
+    @Label("Operation")
+    String operation;
+
+    @Label("Library")
+    String library;
+}
@@ -0,0 +1,19 @@
+package com.codemuni.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.codemuni.RenderPage")
+@Label("Render Page")
+@Description("Rasterizing one page of the document on screen")
+final class RenderPageEvent extends EmarkEvent {
+    @Label("Document")
+    String document;
+
+    @Label("Page")
+    int page;
+
+    @Label("DPI")
+    float dpi;
+}
@@ -0,0 +1,13 @@
+package com.codemuni.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.codemuni.Signing")
+@Label("Signing")
+@Description("One signing attempt, from preparing the document until the signed file is saved")
+final class SigningEvent extends EmarkEvent {
+    @Label("Document")
+    String document;
+}
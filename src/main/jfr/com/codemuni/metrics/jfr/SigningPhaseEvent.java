@@ -0,0 +1,16 @@
+package com.codemuni.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.codemuni.SigningPhase")
+@Label("Signing Phase")
+@Description("One step of a signature, e.g. hashing, signing on the token or the timestamp request")
+final class SigningPhaseEvent extends EmarkEvent {
+    @Label("Document")
+    String document;
+
+    @Label("Phase")
+    String phase;
+}
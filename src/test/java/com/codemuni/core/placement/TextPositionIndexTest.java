@@ -0,0 +1,129 @@
+package com.codemuni.core.placement;
+
+import com.codemuni.core.placement.TextPositionIndex.Line;
+import com.codemuni.core.placement.TextPositionIndex.PageText;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class TextPositionIndexTest {
+
+    /**
+     * Characters are 10 units apart and 8 wide.
+     */
+    private static Line line(String text, float top) {
+        float[] left = new float[text.length()];
+        float[] right = new float[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            left[i] = i * 10;
+            right[i] = i * 10 + 8;
+        }
+        return new Line(text, left, right, top, top + 12);
+    }
+
+    private static TextPositionIndex index() {
+        TextPositionIndex index = new TextPositionIndex(3);
+        PageText page = new PageText(-90, 0, 0, 595, 842, 595, 842);
+        page.lines.add(line("signed by: john", 100));
+        page.lines.add(line("date", 200));
+        page.lines.add(line("signed by: jane", 300));
+        index.putPage(2, page);
+        return index;
+    }
+
+    @Test
+    public void normalizesCaseAndWhitespace() {
+        assertEquals("signed by: john", TextPositionIndex.normalize("  Signed \t BY:\n John  "));
+        assertEquals("", TextPositionIndex.normalize(" \n "));
+    }
+
+    @Test
+    public void findsFirstAndLastOccurrence() {
+        TextPositionIndex index = index();
+        AnchorMatch first = index.find(2, "Signed  By:", false);
+        assertEquals(2, first.pageNumber);
+        assertEquals(100, first.top, 0f);
+        assertEquals(0, first.left, 0f);
+        assertEquals(98, first.right, 0f);
+
+        AnchorMatch last = index.find(2, "signed by:", true);
+        assertEquals(300, last.top, 0f);
+        assertEquals(312, last.bottom, 0f);
+    }
+
+    @Test
+    public void findsLastOccurrenceWithinALine() {
+        TextPositionIndex index = new TextPositionIndex(1);
+        PageText page = new PageText(0, 0, 0, 100, 100, 100, 100);
+        page.lines.add(line("x ab ab", 10));
+        index.putPage(1, page);
+        assertEquals(20, index.find(1, "ab", false).left, 0f);
+        assertEquals(50, index.find(1, "ab", true).left, 0f);
+        assertEquals(68, index.find(1, "ab", true).right, 0f);
+    }
+
+    @Test
+    public void noMatch() {
+        TextPositionIndex index = index();
+        assertNull(index.find(2, "signature", false));
+        assertNull(index.find(2, "  ", false));
+        assertNull(index.find(1, "date", false)); // not extracted yet
+    }
+
+    @Test
+    public void tracksExtractedPages() {
+        TextPositionIndex index = index();
+        assertFalse(index.hasPage(1));
+        assertTrue(index.hasPage(2));
+        BitSet expected = new BitSet();
+        expected.set(2);
+        assertEquals(expected, index.extractedPages());
+    }
+
+    @Test
+    public void normalizesRotation() {
+        PageText page = index().getPage(2);
+        assertEquals(270, page.rotation);
+        assertEquals(842, page.displayWidth(), 0f);
+        assertEquals(595, page.displayHeight(), 0f);
+    }
+
+    @Test
+    public void survivesWriteAndRead() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index().write(new DataOutputStream(bytes));
+        TextPositionIndex read = TextPositionIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(3, read.getPageCount());
+        assertFalse(read.hasPage(1));
+        PageText page = read.getPage(2);
+        assertEquals(270, page.rotation);
+        assertEquals(842, page.cropHeight, 0f);
+        assertEquals(3, page.lines.size());
+        AnchorMatch last = read.find(2, "jane", true);
+        assertEquals(110, last.left, 0f);
+        assertEquals(148, last.right, 0f);
+        assertEquals(300, last.top, 0f);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFormat() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeInt(99);
+        TextPositionIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsPageOutOfRange() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(1);
+        out.writeInt(2);
+        out.writeInt(1);
+        out.writeInt(3);
+        TextPositionIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
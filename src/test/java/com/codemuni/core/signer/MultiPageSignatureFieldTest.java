@@ -0,0 +1,78 @@
+package com.codemuni.core.signer;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+public class MultiPageSignatureFieldTest {
+
+    private static final int A4 = 1;
+    private static final int LETTER = 2;
+    private static final int ROTATED = 3;
+    private static final int TINY = 4;
+
+    private static PdfReader reader;
+
+    @BeforeClass
+    public static void createDocument() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4);
+        PdfWriter.getInstance(document, out);
+        document.open();
+        for (Rectangle size : new Rectangle[]{PageSize.A4, PageSize.LETTER, PageSize.A4.rotate(), new Rectangle(80, 80)}) {
+            document.setPageSize(size);
+            document.newPage();
+            document.add(new Paragraph(" "));
+        }
+        document.close();
+        reader = new PdfReader(out.toByteArray());
+    }
+
+    private static void assertRect(float llx, float lly, float urx, float ury, Rectangle actual) {
+        assertEquals(llx, actual.getLeft(), 0.01f);
+        assertEquals(lly, actual.getBottom(), 0.01f);
+        assertEquals(urx, actual.getRight(), 0.01f);
+        assertEquals(ury, actual.getTop(), 0.01f);
+    }
+
+    @Test
+    public void referencePageKeepsTheRectangle() {
+        Rectangle rect = new Rectangle(10, 20, 110, 70);
+        assertSame(rect, MultiPageSignatureField.place(reader, rect, A4, A4));
+    }
+
+    @Test
+    public void keepsDistanceToNearestEdges() {
+        // A4 is 595 x 842, Letter 612 x 792
+        Rectangle bottomRight = new Rectangle(445, 50, 545, 100);
+        assertRect(462, 50, 562, 100, MultiPageSignatureField.place(reader, bottomRight, A4, LETTER));
+
+        Rectangle topLeft = new Rectangle(40, 742, 140, 792);
+        assertRect(40, 692, 140, 742, MultiPageSignatureField.place(reader, topLeft, A4, LETTER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDifferentRotation() {
+        MultiPageSignatureField.place(reader, new Rectangle(40, 40, 140, 90), A4, ROTATED);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPageTooSmall() {
+        MultiPageSignatureField.place(reader, new Rectangle(40, 40, 140, 90), A4, TINY);
+    }
+
+    @Test
+    public void toleratesOverhangOfTheReferencePage() {
+        Rectangle overhanging = new Rectangle(-10, 40, 90, 90);
+        assertRect(-10, 40, 90, 90, MultiPageSignatureField.place(reader, overhanging, A4, LETTER));
+    }
+}
@@ -0,0 +1,102 @@
+package com.codemuni.core.signer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PrefetchingDigesterTest {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private static MessageDigest sha256() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Yields {@code length} bytes in small reads, then fails with {@code error}.
+     */
+    private static InputStream failingAfter(int length, RuntimeException error) {
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (position >= length) throw error;
+                int n = Math.min(len, Math.min(4096, length - position));
+                position += n;
+                return n;
+            }
+        };
+    }
+
+    @Test
+    public void hashesLikeMessageDigest() throws Exception {
+        for (int length : new int[]{0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, 3 * CHUNK_SIZE, 5 * CHUNK_SIZE + 123}) {
+            byte[] data = data(length);
+            PrefetchingDigester digester = new PrefetchingDigester();
+            byte[] hash = digester.digest(new ByteArrayInputStream(data), sha256());
+            assertArrayEquals("length " + length, sha256().digest(data), hash);
+            assertEquals(length, digester.getBytes());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void rethrowsReadError() throws Exception {
+        InputStream in = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("share went away");
+            }
+        };
+        try {
+            new PrefetchingDigester().digest(in, sha256());
+            fail("Hashed a failing stream");
+        } catch (IOException e) {
+            assertEquals("share went away", e.getMessage());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void rethrowsUncheckedException() throws Exception {
+        IllegalStateException error = new IllegalStateException("broken range");
+        try {
+            new PrefetchingDigester().digest(failingAfter(2 * CHUNK_SIZE + 10, error), sha256());
+            fail("Hashed a failing stream");
+        } catch (IllegalStateException e) {
+            assertSame(error, e);
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void rethrowsError() throws Exception {
+        InputStream in = new InputStream() {
+            @Override
+            public int read() {
+                throw new OutOfMemoryError("simulated");
+            }
+        };
+        try {
+            new PrefetchingDigester().digest(in, sha256());
+            fail("Hashed a failing stream");
+        } catch (OutOfMemoryError e) {
+            assertEquals("simulated", e.getMessage());
+        }
+    }
+}
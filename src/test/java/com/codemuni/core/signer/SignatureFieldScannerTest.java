@@ -0,0 +1,137 @@
+package com.codemuni.core.signer;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SignatureFieldScannerTest {
+
+    private static byte[] pdf;
+
+    /**
+     * Three pages with an empty field on page 2, an empty field inside a group on page 3,
+     * a signed field and a text field.
+     */
+    @BeforeClass
+    public static void createDocument() throws Exception {
+        ByteArrayOutputStream blank = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4);
+        PdfWriter.getInstance(document, blank);
+        document.open();
+        for (int page = 1; page <= 3; page++) {
+            document.newPage();
+            document.add(new Paragraph("Page " + page));
+        }
+        document.close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfReader reader = new PdfReader(blank.toByteArray());
+        PdfStamper stamper = new PdfStamper(reader, out);
+        PdfWriter writer = stamper.getWriter();
+
+        stamper.addSignature("first", 2, 100, 100, 200, 150);
+
+        PdfFormField group = PdfFormField.createEmpty(writer);
+        group.setFieldName("group");
+        PdfFormField inner = PdfFormField.createSignature(writer);
+        inner.setFieldName("inner");
+        inner.setWidget(new Rectangle(300, 400, 350, 420), null);
+        group.addKid(inner);
+        stamper.addAnnotation(group, 3);
+
+        PdfFormField signed = PdfFormField.createSignature(writer);
+        signed.setFieldName("signed");
+        signed.setWidget(new Rectangle(10, 10, 60, 40), null);
+        signed.put(PdfName.V, new PdfDictionary(PdfName.SIG));
+        stamper.addAnnotation(signed, 1);
+
+        TextField text = new TextField(writer, new Rectangle(10, 700, 200, 720), "text");
+        stamper.addAnnotation(text.getTextField(), 1);
+        stamper.close();
+        pdf = out.toByteArray();
+    }
+
+    @Test
+    public void findsEmptySignatureFieldsInFormOrder() throws Exception {
+        PdfReader reader = new PdfReader(pdf);
+        List<EmptySignatureField> fields = SignatureFieldScanner.findEmptyFields(reader);
+        assertEquals(2, fields.size());
+
+        assertEquals("first", fields.get(0).getName());
+        assertEquals(2, fields.get(0).getPageNumber());
+        assertArrayEquals(new int[]{100, 100, 200, 150}, fields.get(0).getCoordinates());
+
+        assertEquals("group.inner", fields.get(1).getName());
+        assertEquals(3, fields.get(1).getPageNumber());
+        assertArrayEquals(new int[]{300, 400, 350, 420}, fields.get(1).getCoordinates());
+        reader.close();
+    }
+
+    @Test
+    public void findsPageThroughAnnotationsWithoutP() throws Exception {
+        PdfReader reader = new PdfReader(pdf);
+        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+            PdfArray annotations = reader.getPageN(page).getAsArray(PdfName.ANNOTS);
+            if (annotations == null) continue;
+            for (int i = 0; i < annotations.size(); i++) annotations.getAsDict(i).remove(PdfName.P);
+        }
+        List<EmptySignatureField> fields = SignatureFieldScanner.findEmptyFields(reader);
+        assertEquals(2, fields.get(0).getPageNumber());
+        assertEquals(3, fields.get(1).getPageNumber());
+        reader.close();
+    }
+
+    @Test
+    public void normalizesFlippedCorners() throws Exception {
+        PdfReader reader = new PdfReader(pdf);
+        PdfDictionary widget = reader.getPageN(3).getAsArray(PdfName.ANNOTS).getAsDict(0);
+        widget.put(PdfName.RECT, new PdfArray(new float[]{350, 420, 300, 400}));
+        EmptySignatureField field = SignatureFieldScanner.findEmptyField(reader, "group.inner");
+        assertArrayEquals(new int[]{300, 400, 350, 420}, field.getCoordinates());
+        reader.close();
+    }
+
+    @Test
+    public void findsFieldByQualifiedName() throws Exception {
+        PdfReader reader = new PdfReader(pdf);
+        assertNotNull(SignatureFieldScanner.findEmptyField(reader, "group.inner"));
+        assertNull(SignatureFieldScanner.findEmptyField(reader, "inner"));
+        assertNull(SignatureFieldScanner.findEmptyField(reader, "signed"));
+        assertNull(SignatureFieldScanner.findEmptyField(reader, "text"));
+        reader.close();
+    }
+
+    @Test
+    public void skipsFieldWithoutWidget() throws Exception {
+        PdfReader reader = new PdfReader(pdf);
+        PdfDictionary field = new PdfDictionary();
+        field.put(PdfName.FT, PdfName.SIG);
+        field.put(PdfName.T, new PdfString("noWidget"));
+        reader.getCatalog().getAsDict(PdfName.ACROFORM).getAsArray(PdfName.FIELDS).add(field);
+        assertNull(SignatureFieldScanner.findEmptyField(reader, "noWidget"));
+        assertEquals(2, SignatureFieldScanner.findEmptyFields(reader).size());
+        reader.close();
+    }
+
+    @Test
+    public void documentWithoutFormHasNoFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        document.add(new Paragraph("No form"));
+        document.close();
+        PdfReader reader = new PdfReader(out.toByteArray());
+        assertTrue(SignatureFieldScanner.findEmptyFields(reader).isEmpty());
+        reader.close();
+    }
+}
@@ -0,0 +1,98 @@
+package com.codemuni.core.signer;
+
+import com.codemuni.core.verifier.SignedByteRange;
+import com.codemuni.exceptions.SigningProcessException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SignatureSelfCheckTest {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(int padding, String... parts) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] filler = new byte[padding];
+        Arrays.fill(filler, (byte) ' ');
+        bytes.write(filler);
+        for (String part : parts) bytes.write(part.getBytes(StandardCharsets.ISO_8859_1));
+        File file = folder.newFile();
+        Files.write(file.toPath(), bytes.toByteArray());
+        return file;
+    }
+
+    private static SignedByteRange find(File file, long from) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return SignatureSelfCheck.findByteRange(channel, from);
+        }
+    }
+
+    @Test
+    public void parsesByteRange() throws IOException {
+        SignedByteRange range = find(write(0, "<</Type/Sig/ByteRange[ 0  120\n250 40 ]/Contents<00>>>"), 0);
+        assertEquals(120, range.getContentsStart());
+        assertEquals(250, range.getContentsEnd());
+        assertEquals(290, range.getSignedLength());
+    }
+
+    @Test
+    public void takesTheLastByteRange() throws IOException {
+        File file = write(0, "/ByteRange [0 1 2 3] ", "/ByteRange [0 10 20 30]");
+        assertEquals(50, find(file, 0).getSignedLength());
+    }
+
+    @Test
+    public void ignoresByteRangeBeforeTheRevision() throws IOException {
+        File file = write(0, "/ByteRange [0 10 20 30]", " trailer ");
+        assertNull(find(file, 5));
+    }
+
+    @Test
+    public void findsKeySplitBetweenChunks() throws IOException {
+        for (int split = 1; split < "/ByteRange".length(); split++) {
+            File file = write(CHUNK_SIZE - split, "/ByteRange [0 10 20 30]");
+            SignedByteRange range = find(file, 0);
+            assertNotNull("split after " + split + " bytes", range);
+            assertEquals(50, range.getSignedLength());
+        }
+    }
+
+    @Test
+    public void findsKeyInLaterChunk() throws IOException {
+        File file = write(2 * CHUNK_SIZE + 17, "/ByteRange [0 10 20 30]");
+        assertEquals(20, find(file, CHUNK_SIZE / 2).getContentsEnd());
+    }
+
+    @Test
+    public void rejectsMalformedArrays() throws IOException {
+        assertNull(find(write(0, "/ByteRange [0 10 20]"), 0));
+        assertNull(find(write(0, "/ByteRange [0 10 20 30 40]"), 0));
+        assertNull(find(write(0, "/ByteRange [0 10 x 30]"), 0));
+        assertNull(find(write(0, "/ByteRange 0 10 20 30"), 0));
+        assertNull(find(write(0, "no signature here"), 0));
+    }
+
+    @Test
+    public void failsWithoutByteRange() throws IOException {
+        File file = write(0, "%PDF-1.7\n%%EOF\n");
+        try {
+            SignatureSelfCheck.check(file, 0, 100, null);
+            fail("Accepted a file without signature");
+        } catch (SigningProcessException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("no byte range in the signed revision"));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.codemuni.core.verifier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+public class SignedByteRangeTest {
+
+    // 10 bytes, a 4 byte /Contents as "<" + 8 hex digits + ">" at 10..19, 6 more bytes
+    private static final String FILE = "%PDF-1.7\n " + "<0a0b0c0d>" + " end\n\n";
+    private static final int CONTENTS_LENGTH = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String problem(long... ranges) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), FILE.getBytes(StandardCharsets.US_ASCII));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return SignedByteRange.of(ranges).layoutProblem(channel, CONTENTS_LENGTH);
+        }
+    }
+
+    @Test
+    public void acceptsSoundLayout() throws IOException {
+        assertNull(problem(0, 10, 20, 6));
+    }
+
+    @Test
+    public void reportsLayoutProblems() throws IOException {
+        assertEquals("byte range does not start at the beginning of the file", problem(1, 9, 20, 6));
+        assertEquals("byte range is malformed", problem(0, 0, 20, 6));
+        assertEquals("byte range is malformed", problem(0, 20, 10, 6));
+        assertEquals("byte range is malformed", problem(0, 10, 20, -1));
+        assertEquals("byte range extends past the end of the file", problem(0, 10, 20, 7));
+        assertEquals("byte range gap does not match the signature contents", problem(0, 10, 22, 4));
+        assertEquals("byte range gap is not the signature contents", problem(0, 9, 19, 7));
+    }
+
+    @Test
+    public void signedLength() {
+        SignedByteRange range = SignedByteRange.of(new long[]{0, 10, 20, 6});
+        assertEquals(10, range.getContentsStart());
+        assertEquals(20, range.getContentsEnd());
+        assertEquals(26, range.getSignedLength());
+        assertTrue(range.coversWholeFile(26));
+        assertFalse(range.coversWholeFile(40));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWrongCount() {
+        SignedByteRange.of(new long[]{0, 10, 20});
+    }
+}
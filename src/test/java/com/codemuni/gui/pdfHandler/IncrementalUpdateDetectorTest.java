@@ -0,0 +1,144 @@
+package com.codemuni.gui.pdfHandler;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.*;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class IncrementalUpdateDetectorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File original;
+
+    /**
+     * Three pages sharing one font; the last one is rotated on its own.
+     */
+    @Before
+    public void createOriginal() throws Exception {
+        original = folder.newFile("original.pdf");
+        Document document = new Document(PageSize.A4);
+        try (OutputStream out = new FileOutputStream(original)) {
+            PdfWriter.getInstance(document, out);
+            document.open();
+            for (Rectangle size : new Rectangle[]{PageSize.A4, PageSize.A4, PageSize.A4.rotate()}) {
+                document.setPageSize(size);
+                document.newPage();
+                document.add(new Paragraph("Page text"));
+            }
+            document.close();
+        }
+    }
+
+    private interface Edit {
+        void apply(PdfReader reader, PdfStamper stamper) throws Exception;
+    }
+
+    private File update(boolean append, Edit edit) throws Exception {
+        File updated = folder.newFile();
+        PdfReader reader = new PdfReader(original.getAbsolutePath());
+        try (OutputStream out = new FileOutputStream(updated)) {
+            PdfStamper stamper = new PdfStamper(reader, out, '\0', append);
+            edit.apply(reader, stamper);
+            stamper.close();
+        }
+        reader.close();
+        return updated;
+    }
+
+    private BitSet changedPages(File updated) throws IOException {
+        try (PDDocument document = PDDocument.load(updated)) {
+            return IncrementalUpdateDetector.changedPages(document, original.length());
+        }
+    }
+
+    private static BitSet pages(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) bits.set(index);
+        return bits;
+    }
+
+    @Test
+    public void recognisesAppendedRevision() throws Exception {
+        IncrementalUpdateDetector.Fingerprint fingerprint = IncrementalUpdateDetector.fingerprint(original);
+        assertEquals(original.length(), fingerprint.getLength());
+
+        File appended = update(true, (reader, stamper) -> stamper.getOverContent(2).rectangle(10, 10, 20, 20));
+        assertTrue(IncrementalUpdateDetector.isAppendedRevision(fingerprint, appended));
+        assertFalse(IncrementalUpdateDetector.isAppendedRevision(fingerprint, original));
+
+        File rewritten = update(false, (reader, stamper) -> stamper.getOverContent(2).rectangle(10, 10, 20, 20));
+        assertFalse(IncrementalUpdateDetector.isAppendedRevision(fingerprint, rewritten));
+    }
+
+    @Test
+    public void rejectsChangedOriginalBytes() throws Exception {
+        IncrementalUpdateDetector.Fingerprint fingerprint = IncrementalUpdateDetector.fingerprint(original);
+        File appended = update(true, (reader, stamper) -> stamper.getOverContent(1).rectangle(10, 10, 20, 20));
+        try (RandomAccessFile file = new RandomAccessFile(appended, "rw")) {
+            file.seek(original.length() / 2);
+            int b = file.read();
+            file.seek(original.length() / 2);
+            file.write(b ^ 1);
+        }
+        assertFalse(IncrementalUpdateDetector.isAppendedRevision(fingerprint, appended));
+    }
+
+    @Test
+    public void findsPageWithNewContent() throws Exception {
+        File appended = update(true, (reader, stamper) -> stamper.getOverContent(2).rectangle(10, 10, 20, 20));
+        assertEquals(pages(1), changedPages(appended));
+    }
+
+    @Test
+    public void findsPageWithNewAnnotation() throws Exception {
+        File appended = update(true, (reader, stamper) -> stamper.addAnnotation(
+                PdfAnnotation.createText(stamper.getWriter(), new Rectangle(50, 50, 80, 80), "Note", "Text", false, "Comment"), 3));
+        assertEquals(pages(2), changedPages(appended));
+    }
+
+    @Test
+    public void findsEveryPageReachingRewrittenSharedObject() throws Exception {
+        File appended = update(true, (reader, stamper) -> {
+            PdfDictionary font = reader.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.FONT);
+            PdfName name = font.getKeys().iterator().next();
+            PdfDictionary sharedFont = font.getAsDict(name);
+            sharedFont.put(new PdfName("Changed"), PdfBoolean.PDFTRUE);
+            stamper.markUsed(sharedFont);
+        });
+        assertEquals(pages(0, 1, 2), changedPages(appended));
+    }
+
+    @Test
+    public void findsPagesInheritingFromRewrittenNode() throws Exception {
+        File appended = update(true, (reader, stamper) -> {
+            PdfDictionary root = reader.getCatalog().getAsDict(PdfName.PAGES);
+            root.put(PdfName.ROTATE, new PdfNumber(180));
+            stamper.markUsed(root);
+        });
+        // The rotated page has its own /Rotate
+        assertEquals(pages(0, 1), changedPages(appended));
+    }
+
+    @Test
+    public void unchangedWhenNothingReachable() throws Exception {
+        File appended = update(true, (reader, stamper) -> stamper.getMoreInfo());
+        assertEquals(new BitSet(), changedPages(appended));
+    }
+}
@@ -0,0 +1,85 @@
+package com.codemuni.gui.pdfHandler;
+
+import org.junit.Test;
+
+import java.awt.*;
+
+import static org.junit.Assert.*;
+
+public class PageGeometryTest {
+
+    // Slots: page 0 = 0..119, page 1 = 120..219, page 2 = 220..369
+    private final PageGeometry geometry = new PageGeometry(new int[]{200, 100, 300}, new int[]{100, 80, 130}, 10);
+
+    @Test
+    public void computesSlotsAndTotals() {
+        assertEquals(3, geometry.getPageCount());
+        assertEquals(320, geometry.getTotalWidth());
+        assertEquals(370, geometry.getTotalHeight());
+        assertEquals(0, geometry.getPageTop(0));
+        assertEquals(120, geometry.getPageTop(1));
+        assertEquals(220, geometry.getPageTop(2));
+    }
+
+    @Test
+    public void centersPagesInsidePadding() {
+        assertEquals(new Rectangle(60, 10, 200, 100), geometry.getPageBounds(0));
+        assertEquals(new Rectangle(110, 130, 100, 80), geometry.getPageBounds(1));
+        assertEquals(new Rectangle(10, 230, 300, 130), geometry.getPageBounds(2));
+    }
+
+    @Test
+    public void findsPageAtSlotBoundaries() {
+        assertEquals(0, geometry.pageAtY(0));
+        assertEquals(0, geometry.pageAtY(119));
+        assertEquals(1, geometry.pageAtY(120));
+        assertEquals(1, geometry.pageAtY(219));
+        assertEquals(2, geometry.pageAtY(220));
+        assertEquals(2, geometry.pageAtY(369));
+    }
+
+    @Test
+    public void clampsOutsideTheColumn() {
+        assertEquals(0, geometry.pageAtY(-5));
+        assertEquals(2, geometry.pageAtY(370));
+        assertEquals(2, geometry.pageAtY(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void agreesWithLinearScan() {
+        int[] heights = new int[57];
+        int[] widths = new int[heights.length];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = 1 + (i * 37) % 23;
+            widths[i] = 50;
+        }
+        PageGeometry many = new PageGeometry(widths, heights, 2);
+        for (int y = 0; y < many.getTotalHeight(); y++) {
+            int expected = 0;
+            while (expected + 1 < heights.length && many.getPageTop(expected + 1) <= y) expected++;
+            assertEquals("y=" + y, expected, many.pageAtY(y));
+        }
+    }
+
+    @Test
+    public void pointOnPaddingIsNoPage() {
+        assertEquals(0, geometry.pageAt(new Point(60, 10)));
+        assertEquals(-1, geometry.pageAt(new Point(59, 50)));
+        assertEquals(-1, geometry.pageAt(new Point(100, 5)));
+        assertEquals(-1, geometry.pageAt(new Point(100, 115)));
+        assertEquals(1, geometry.pageAt(new Point(150, 150)));
+    }
+
+    @Test
+    public void emptyDocumentHasNoPages() {
+        assertEquals(-1, PageGeometry.EMPTY.pageAtY(0));
+        assertEquals(-1, PageGeometry.EMPTY.pageAt(new Point(0, 0)));
+        assertEquals(0, PageGeometry.EMPTY.getTotalHeight());
+        assertEquals(0, PageGeometry.EMPTY.getTotalWidth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMismatchedArrays() {
+        new PageGeometry(new int[2], new int[3], 0);
+    }
+}
@@ -0,0 +1,157 @@
+package com.codemuni.gui.pdfHandler;
+
+import com.codemuni.gui.pdfHandler.PageImageCache.PageKey;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+public class PageImageCacheTest {
+
+    // 10x10 gray images are 100 bytes each, so a 250 byte budget holds two of them
+    private static final long BUDGET = 250;
+
+    private static BufferedImage image() {
+        return new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_GRAY);
+    }
+
+    private static PageKey key(String document, int page) {
+        return new PageKey(document, page, 72);
+    }
+
+    @Test
+    public void sizeOfCountsRasterBytes() {
+        assertEquals(100, PageImageCache.sizeOf(image()));
+        assertEquals(400, PageImageCache.sizeOf(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyBudget() {
+        new PageImageCache("test", 0);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedToSoftTier() {
+        PageImageCache cache = new PageImageCache("test", BUDGET);
+        BufferedImage a = image();
+        BufferedImage b = image();
+        BufferedImage c = image();
+        cache.put(key("doc", 0), a);
+        cache.put(key("doc", 1), b);
+        assertSame(a, cache.get(key("doc", 0))); // page 1 is now the eldest
+        cache.put(key("doc", 2), c);
+
+        PageImageCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.getStrongEntries());
+        assertEquals(1, stats.getSoftEntries());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(200, stats.getUsedBytes());
+
+        // The soft entry is still reachable (b is held here) and comes back into the first tier
+        assertSame(b, cache.get(key("doc", 1)));
+        stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getSoftHits());
+        assertEquals(2, stats.getStrongEntries());
+        assertEquals(1, stats.getSoftEntries());
+        assertEquals(200, stats.getUsedBytes());
+    }
+
+    @Test
+    public void keepsImageLargerThanBudget() {
+        PageImageCache cache = new PageImageCache("test", 50);
+        BufferedImage a = image();
+        cache.put(key("doc", 0), a);
+        assertSame(a, cache.get(key("doc", 0)));
+        assertEquals(1, cache.getStats().getStrongEntries());
+    }
+
+    @Test
+    public void countsMisses() {
+        PageImageCache cache = new PageImageCache("test", BUDGET);
+        assertNull(cache.get(key("doc", 0)));
+        assertFalse(cache.contains(key("doc", 0)));
+        assertEquals(1, cache.getStats().getMisses());
+        assertEquals(0d, cache.getStats().getHitRatio(), 0d);
+    }
+
+    @Test
+    public void replacingAnEntryKeepsTheByteCount() {
+        PageImageCache cache = new PageImageCache("test", BUDGET);
+        cache.put(key("doc", 0), image());
+        cache.put(key("doc", 0), image());
+        assertEquals(100, cache.getStats().getUsedBytes());
+        assertEquals(1, cache.getStats().getStrongEntries());
+    }
+
+    @Test
+    public void findsNearestOtherResolution() {
+        PageImageCache cache = new PageImageCache("test", 10_000);
+        BufferedImage low = image();
+        BufferedImage high = image();
+        cache.put(new PageKey("doc", 0, 72), low);
+        cache.put(new PageKey("doc", 0, 150), high);
+        cache.put(new PageKey("doc", 1, 144), image());
+
+        assertSame(high, cache.findNearestResolution(new PageKey("doc", 0, 144)));
+        assertSame(low, cache.findNearestResolution(new PageKey("doc", 0, 96)));
+        assertSame(high, cache.findNearestResolution(new PageKey("doc", 0, 72)));
+        assertNull(cache.findNearestResolution(new PageKey("doc", 2, 72)));
+        assertEquals(0, cache.getStats().getMisses());
+    }
+
+    @Test
+    public void invalidateDropsBothTiers() {
+        PageImageCache cache = new PageImageCache("test", BUDGET);
+        BufferedImage evicted = image();
+        cache.put(key("doc", 0), evicted);
+        cache.put(key("doc", 1), image());
+        cache.put(key("other", 0), image());
+        assertEquals(1, cache.getStats().getSoftEntries());
+
+        cache.invalidate("doc");
+        assertFalse(cache.contains(key("doc", 0)));
+        assertFalse(cache.contains(key("doc", 1)));
+        assertTrue(cache.contains(key("other", 0)));
+        assertEquals(100, cache.getStats().getUsedBytes());
+        assertEquals(0, cache.getStats().getSoftEntries());
+    }
+
+    @Test
+    public void migrateKeepsSelectedPagesOfBothTiers() {
+        PageImageCache cache = new PageImageCache("test", BUDGET);
+        BufferedImage page0 = image();
+        BufferedImage page1 = image();
+        BufferedImage page2 = image();
+        cache.put(key("old", 0), page0); // evicted to the soft tier by page 2
+        cache.put(key("old", 1), page1);
+        cache.put(key("old", 2), page2);
+
+        cache.migrate("old", "new", page -> page != 1);
+
+        assertFalse(cache.contains(key("old", 0)));
+        assertFalse(cache.contains(key("old", 1)));
+        assertFalse(cache.contains(key("old", 2)));
+        assertFalse(cache.contains(key("new", 1)));
+        assertSame(page0, cache.get(key("new", 0)));
+        assertSame(page2, cache.get(key("new", 2)));
+        assertEquals(200, cache.getStats().getUsedBytes());
+    }
+
+    @Test
+    public void migrateKeepsLruOrder() {
+        PageImageCache cache = new PageImageCache("test", BUDGET);
+        cache.put(key("old", 0), image());
+        cache.put(key("old", 1), image());
+        cache.get(key("old", 0)); // page 1 is the eldest
+
+        cache.migrate("old", "new", page -> true);
+        cache.put(key("new", 2), image());
+
+        assertEquals(1, cache.getStats().getEvictions());
+        long softHits = cache.getStats().getSoftHits();
+        assertNotNull(cache.get(key("new", 0)));
+        assertEquals("page 0 stayed in the first tier", softHits, cache.getStats().getSoftHits());
+    }
+}
@@ -0,0 +1,91 @@
+package com.codemuni.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void smallValuesAreExact() {
+        for (int micros = 0; micros < 8; micros++) {
+            assertEquals(micros, LatencyHistogram.indexOf(micros));
+            assertEquals(micros, LatencyHistogram.upperBound(micros));
+        }
+    }
+
+    @Test
+    public void bucketsAreContiguousAndWithinAnEighth() {
+        int previousIndex = -1;
+        for (long micros = 0; micros < 200_000; micros++) {
+            int index = LatencyHistogram.indexOf(micros);
+            assertTrue("index decreased at " + micros, index >= previousIndex);
+            assertTrue("index skipped at " + micros, index <= previousIndex + 1);
+            long upper = LatencyHistogram.upperBound(index);
+            assertTrue(upper >= micros);
+            assertTrue("error above 12.5% at " + micros, (upper - micros) * 8 <= micros);
+            if (index > 0) assertTrue(LatencyHistogram.upperBound(index - 1) < micros);
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void largestValueFitsTheLastBucket() {
+        int index = LatencyHistogram.indexOf(Long.MAX_VALUE);
+        assertTrue(index < 64 * 8);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(index));
+    }
+
+    @Test
+    public void percentilesAreUpperBoundsCappedAtMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50.5, snapshot.getMeanMillis(), 1e-9);
+        assertEquals(100.0, snapshot.getMaxMillis(), 1e-9);
+        assertInBucket(50, snapshot.getP50Millis());
+        assertInBucket(95, snapshot.getP95Millis());
+        assertInBucket(99, snapshot.getP99Millis());
+        assertTrue(snapshot.getP99Millis() <= snapshot.getMaxMillis());
+    }
+
+    private static void assertInBucket(double expectedMillis, double actualMillis) {
+        assertTrue(actualMillis + " < " + expectedMillis, actualMillis >= expectedMillis);
+        assertTrue(actualMillis + " > " + expectedMillis + " + 12.5%", actualMillis <= expectedMillis * 1.125);
+    }
+
+    @Test
+    public void singleValuePercentilesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(1_234_567));
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1234.567, snapshot.getP50Millis(), 1e-9);
+        assertEquals(1234.567, snapshot.getP99Millis(), 1e-9);
+    }
+
+    @Test
+    public void negativeTimesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5_000);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(0.0, snapshot.getMaxMillis(), 0.0);
+    }
+
+    @Test
+    public void resetEmptiesTheHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        histogram.reset();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0.0, snapshot.getMeanMillis(), 0.0);
+        assertEquals(0.0, snapshot.getP99Millis(), 0.0);
+        assertEquals(0.0, snapshot.getMaxMillis(), 0.0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.codemuni.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SignaturePagesTest {
+
+    @Test
+    public void parsesPagesAndRanges() {
+        assertEquals(Arrays.asList(1, 3, 5, 6, 7), Arrays.asList(SignaturePages.parsePageList("1, 3, 5-7", 10).toArray()));
+        assertEquals(Arrays.asList(2, 3, 4), Arrays.asList(SignaturePages.parsePageList(" 4 ,2-3,3 ", 10).toArray()));
+        assertEquals(Collections.singletonList(9), Arrays.asList(SignaturePages.parsePageList("9-9,,", 10).toArray()));
+    }
+
+    @Test
+    public void rejectsMalformedLists() {
+        for (String list : new String[]{null, "", " , ", "0", "-1", "a", "3-1", "1-", "2-x", "1.5"}) {
+            try {
+                SignaturePages.parsePageList(list, 10);
+                fail("Accepted " + list);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test(timeout = 1000)
+    public void rejectsPagesPastTheCountBeforeExpanding() {
+        String max = String.valueOf(Integer.MAX_VALUE);
+        for (String list : new String[]{"11", "1-11", "1-999999999", "1-" + max, max, max + "-" + max, "2147483648"}) {
+            try {
+                SignaturePages.parsePageList(list, 10);
+                fail("Accepted " + list);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test(timeout = 1000)
+    public void resolveRejectsHugeRangeQuickly() {
+        try {
+            SignaturePages.SELECTED_PAGES.resolve(1, 20, "1-" + Integer.MAX_VALUE);
+            fail("Accepted a range past the last page");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Page " + Integer.MAX_VALUE + " does not exist; the document has 20 pages.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void currentPageIsTheSignaturePage() {
+        assertEquals(Collections.singletonList(4), SignaturePages.CURRENT_PAGE.resolve(4, 10, "1-3"));
+    }
+
+    @Test
+    public void allPages() {
+        assertEquals(Arrays.asList(1, 2, 3), SignaturePages.ALL_PAGES.resolve(2, 3, null));
+    }
+
+    @Test
+    public void firstAndLastIncludeTheSignaturePage() {
+        assertEquals(Arrays.asList(1, 5), SignaturePages.FIRST_AND_LAST.resolve(1, 5, null));
+        assertEquals(Arrays.asList(1, 3, 5), SignaturePages.FIRST_AND_LAST.resolve(3, 5, null));
+        assertEquals(Collections.singletonList(1), SignaturePages.FIRST_AND_LAST.resolve(1, 1, null));
+    }
+
+    @Test
+    public void selectedPagesIncludeTheSignaturePage() {
+        assertEquals(Arrays.asList(2, 4, 5, 6), SignaturePages.SELECTED_PAGES.resolve(2, 6, "4-6"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPagesPastTheEnd() {
+        SignaturePages.SELECTED_PAGES.resolve(1, 3, "2-4");
+    }
+
+    @Test
+    public void findsByLabel() {
+        for (SignaturePages pages : SignaturePages.values()) {
+            assertSame(pages, SignaturePages.fromLabel(pages.getLabel()));
+        }
+        assertNull(SignaturePages.fromLabel("Every Other Page"));
+    }
+}
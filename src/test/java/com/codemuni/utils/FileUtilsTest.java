@@ -0,0 +1,88 @@
+package com.codemuni.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class FileUtilsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void assumePosix() {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+    }
+
+    private static Path signedOutput(Path dir) throws IOException {
+        Path output = Files.createTempFile(dir, "signed-", ".pdf"); // owner only, like the signing temp files
+        Files.write(output, "signed".getBytes(StandardCharsets.US_ASCII));
+        return output;
+    }
+
+    private static void assertMovedKeeping(String permissions, Path dir, Path target) throws IOException {
+        Files.write(target, "original".getBytes(StandardCharsets.US_ASCII));
+        Set<PosixFilePermission> expected = PosixFilePermissions.fromString(permissions);
+        Files.setPosixFilePermissions(target, expected);
+
+        FileUtils.moveReplacing(signedOutput(dir), target);
+
+        assertEquals("signed", new String(Files.readAllBytes(target), StandardCharsets.US_ASCII));
+        assertEquals(expected, Files.getPosixFilePermissions(target));
+    }
+
+    @Test
+    public void keepsPermissionsOfReplacedFile() throws IOException {
+        assumePosix();
+        Path dir = folder.getRoot().toPath();
+        assertMovedKeeping("rw-r--r--", dir, dir.resolve("shared.pdf"));
+        assertMovedKeeping("rw-rw-r--", dir, dir.resolve("group.pdf"));
+    }
+
+    @Test
+    public void newFileGetsDefaultPermissions() throws IOException {
+        assumePosix();
+        Path dir = folder.newFolder().toPath();
+        Set<PosixFilePermission> defaults = Files.getPosixFilePermissions(Files.createFile(dir.resolve("plain.pdf")));
+        Path target = dir.resolve("new.pdf");
+
+        FileUtils.moveReplacing(signedOutput(folder.getRoot().toPath()), target);
+
+        assertEquals(defaults, Files.getPosixFilePermissions(target));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals("no probe or partial file is left behind", 2, files.count());
+        }
+    }
+
+    @Test
+    public void keepsPermissionsWhenCopyingAcrossFileStores() throws IOException {
+        assumePosix();
+        Path shm = Paths.get("/dev/shm");
+        assumeTrue(Files.isDirectory(shm) && Files.isWritable(shm));
+        Path source = signedOutput(shm);
+        assumeTrue(!Files.getFileStore(source).equals(Files.getFileStore(folder.getRoot().toPath())));
+
+        Path target = folder.getRoot().toPath().resolve("archive.pdf");
+        Files.write(target, "original".getBytes(StandardCharsets.US_ASCII));
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rw-r--r--"));
+
+        FileUtils.moveReplacing(source, target);
+
+        assertFalse(Files.exists(source));
+        assertEquals("signed", new String(Files.readAllBytes(target), StandardCharsets.US_ASCII));
+        assertEquals(PosixFilePermissions.fromString("rw-r--r--"), Files.getPosixFilePermissions(target));
+    }
+}